@@ -0,0 +1,29 @@
+package ru.yandex.practicum.filmorate.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.zalando.logbook.HttpRequest;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Predicate;
+
+/**
+ * Samples HTTP logging: Logbook logs a request and its response only for a share
+ * {@code filmorate.logging.http.sample-rate} of requests. The decision is taken before Logbook
+ * buffers anything, so a request that is not sampled costs one random number. The bean replaces
+ * Logbook's default {@code requestCondition}; {@code logbook.predicate.*} still applies on top.
+ */
+@Configuration
+public class LoggingConfig {
+    @Bean
+    public Predicate<HttpRequest> requestCondition(@Value("${filmorate.logging.http.sample-rate:1.0}") double rate) {
+        if (rate < 0 || rate > 1) {
+            throw new IllegalArgumentException("filmorate.logging.http.sample-rate must be between 0 and 1");
+        }
+        if (rate == 1) {
+            return request -> true;
+        }
+        return request -> ThreadLocalRandom.current().nextDouble() < rate;
+    }
+}
@@ -0,0 +1,40 @@
+package ru.yandex.practicum.filmorate.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+@Configuration
+public class MetricsConfig {
+
+    /**
+     * Enables {@link io.micrometer.core.annotation.Timed} on controllers and services.
+     */
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry registry) {
+        return new TimedAspect(registry);
+    }
+
+    @Bean
+    public MeterBinder storageMetrics(FilmStorage filmStorage, UserStorage userStorage) {
+        return registry -> {
+            Gauge.builder("filmorate.films", filmStorage, FilmStorage::getFilmsCount)
+                    .description("Number of films")
+                    .register(registry);
+            Gauge.builder("filmorate.likes", filmStorage, FilmStorage::getLikesCount)
+                    .description("Total number of likes")
+                    .register(registry);
+            Gauge.builder("filmorate.users", userStorage, UserStorage::getUsersCount)
+                    .description("Number of users")
+                    .register(registry);
+            Gauge.builder("filmorate.friendships", userStorage, UserStorage::getFriendshipsCount)
+                    .description("Number of directed friend links")
+                    .register(registry);
+        };
+    }
+}
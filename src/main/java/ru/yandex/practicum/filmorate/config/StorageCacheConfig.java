@@ -0,0 +1,68 @@
+package ru.yandex.practicum.filmorate.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import ru.yandex.practicum.filmorate.storage.cache.CachingFilmStorage;
+import ru.yandex.practicum.filmorate.storage.cache.CachingUserStorage;
+import ru.yandex.practicum.filmorate.storage.cache.EntityCache;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+import java.time.Duration;
+
+/**
+ * Puts read-through caches in front of whichever storages are active, enabled with
+ * {@code filmorate.cache.enabled=true}. The decorators are {@link Primary}, so services get them,
+ * while the decorated storage is still injected into the decorator itself (Spring does not
+ * resolve a bean method's parameter to the bean being created).
+ */
+@Configuration
+@ConditionalOnProperty(name = "filmorate.cache.enabled", havingValue = "true")
+public class StorageCacheConfig {
+    @Value("${filmorate.cache.maximum-size:10000}")
+    private int maximumSize;
+    @Value("${filmorate.cache.ttl:5m}")
+    private Duration ttl;
+
+    @Bean
+    @Primary
+    public CachingFilmStorage cachingFilmStorage(FilmStorage filmStorage) {
+        return new CachingFilmStorage(filmStorage, new EntityCache<>(maximumSize, ttl));
+    }
+
+    @Bean
+    @Primary
+    public CachingUserStorage cachingUserStorage(UserStorage userStorage) {
+        return new CachingUserStorage(userStorage, new EntityCache<>(maximumSize, ttl));
+    }
+
+    @Bean
+    public MeterBinder storageCacheMetrics(CachingFilmStorage filmStorage, CachingUserStorage userStorage) {
+        return registry -> {
+            bind(registry, "films", filmStorage.getCache());
+            bind(registry, "users", userStorage.getCache());
+        };
+    }
+
+    private static void bind(MeterRegistry registry, String name, EntityCache<?> cache) {
+        FunctionCounter.builder("filmorate.cache.hits", cache, EntityCache::getHits)
+                .tag("cache", name)
+                .register(registry);
+        FunctionCounter.builder("filmorate.cache.misses", cache, EntityCache::getMisses)
+                .tag("cache", name)
+                .register(registry);
+        FunctionCounter.builder("filmorate.cache.evictions", cache, EntityCache::getEvictions)
+                .tag("cache", name)
+                .register(registry);
+        Gauge.builder("filmorate.cache.size", cache, EntityCache::size)
+                .tag("cache", name)
+                .register(registry);
+    }
+}
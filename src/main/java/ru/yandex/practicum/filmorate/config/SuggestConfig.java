@@ -0,0 +1,25 @@
+package ru.yandex.practicum.filmorate.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.yandex.practicum.filmorate.util.TrigramIndex;
+
+/**
+ * The typeahead indexes behind {@code /films/suggest} and {@code /users/suggest}. Both are
+ * {@link TrigramIndex} beans, so services pick theirs by qualifier.
+ */
+@Configuration
+public class SuggestConfig {
+    public static final String FILM_NAMES = "filmNameIndex";
+    public static final String USER_LOGINS = "userLoginIndex";
+
+    @Bean(FILM_NAMES)
+    public TrigramIndex filmNameIndex() {
+        return new TrigramIndex();
+    }
+
+    @Bean(USER_LOGINS)
+    public TrigramIndex userLoginIndex() {
+        return new TrigramIndex();
+    }
+}
@@ -0,0 +1,33 @@
+package ru.yandex.practicum.filmorate.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Reports which threads serve requests. With {@code spring.threads.virtual.enabled=true} on Java 21+
+ * Spring Boot runs Tomcat requests, async MVC (NDJSON streaming) and {@code @Async} tasks on virtual
+ * threads; on older JVMs the property is silently ignored, so that case is logged as a warning.
+ * <p>
+ * Code on the request path must not block inside {@code synchronized}: a virtual thread parked in
+ * a monitor stays pinned to its carrier. Storage locks are {@link java.util.concurrent.locks.ReentrantLock}s
+ * for that reason, and the monitors of {@link ru.yandex.practicum.filmorate.util.LongHashSet} and
+ * {@link ru.yandex.practicum.filmorate.util.LongEnumMap} never wrap I/O.
+ */
+@Slf4j
+@Configuration
+public class ThreadingConfig {
+    private static final int VIRTUAL_THREADS_FEATURE = 21;
+
+    public ThreadingConfig(@Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        int feature = Runtime.version().feature();
+        if (!virtualThreads) {
+            log.info("Requests run on the Tomcat platform thread pool");
+        } else if (feature < VIRTUAL_THREADS_FEATURE) {
+            log.warn("spring.threads.virtual.enabled is set, but Java {} has no virtual threads; "
+                    + "requests run on the Tomcat platform thread pool", feature);
+        } else {
+            log.info("Requests run on virtual threads");
+        }
+    }
+}
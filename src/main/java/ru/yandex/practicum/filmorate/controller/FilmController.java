@@ -1,7 +1,13 @@
 package ru.yandex.practicum.filmorate.controller;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import io.micrometer.core.annotation.Timed;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -12,30 +18,152 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.yandex.practicum.filmorate.model.BatchResult;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmLike;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Rating;
 import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.JsonCache;
+import ru.yandex.practicum.filmorate.service.LikeIngest;
+import ru.yandex.practicum.filmorate.service.RequestLimits;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 
 @Slf4j
+@Timed(value = "filmorate.controller", percentiles = {0.5, 0.99}, histogram = true)
 @RestController
 @RequestMapping("/films")
 public class FilmController {
+    private static final int STREAM_PAGE_SIZE = 1000;
+
     private final FilmService filmService;
+    private final JsonCache jsonCache;
+    private final ObjectWriter filmWriter;
+    private final ObjectWriter fullWriter;
+    private final Optional<LikeIngest> likeIngest;
 
-    public FilmController(FilmService filmService) {
+    public FilmController(FilmService filmService, JsonCache jsonCache, ObjectMapper objectMapper,
+                          Optional<LikeIngest> likeIngest) {
         this.filmService = filmService;
+        this.jsonCache = jsonCache;
+        this.likeIngest = likeIngest;
+        this.filmWriter = objectMapper.writerFor(Film.class);
+        this.fullWriter = FilmProjection.fullWriter(objectMapper);
     }
 
+    /**
+     * Without {@code limit} and {@code after} returns all films as before. Otherwise returns one page
+     * ordered by id and, when more films may follow, the cursor for the next page in
+     * {@value PageHeaders#NEXT_CURSOR}.
+     */
     @GetMapping
-    public Collection<Film> getFilms() {
-        return filmService.getAllFilms();
+    public ResponseEntity<Collection<Film>> getFilms(
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @RequestParam(value = "after", required = false) Long after) {
+        if (limit == null && after == null) {
+            return ResponseEntity.ok(filmService.getAllFilms());
+        }
+        int pageSize = limit == null ? PageHeaders.DEFAULT_PAGE_SIZE : RequestLimits.pageSize(limit);
+        List<Film> page = filmService.getFilmsPage(after, pageSize);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.size() == pageSize) {
+            response.header(PageHeaders.NEXT_CURSOR, String.valueOf(page.get(page.size() - 1).getId()));
+        }
+        return response.body(page);
+    }
+
+    /**
+     * Streams all films after the optional cursor as NDJSON, one film per line, reading the storage
+     * page by page so the full list is never held in memory.
+     */
+    @GetMapping(params = "stream=true", produces = PageHeaders.NDJSON)
+    public StreamingResponseBody streamFilms(@RequestParam(value = "after", required = false) Long after) {
+        return out -> {
+            Long cursor = after;
+            List<Film> page;
+            do {
+                page = filmService.getFilmsPage(cursor, STREAM_PAGE_SIZE);
+                for (Film film : page) {
+                    out.write(filmWriter.writeValueAsBytes(film));
+                    out.write('\n');
+                }
+                out.flush();
+                if (!page.isEmpty()) {
+                    cursor = page.get(page.size() - 1).getId();
+                }
+            } while (page.size() == STREAM_PAGE_SIZE);
+        };
+    }
+
+    /**
+     * Films matching all given filters (genres, MPA rating, inclusive release year range,
+     * case-insensitive substring of the name), ordered by id and paged like {@link #getFilms}.
+     * {@code genre} may be repeated or comma-separated; a film must have every genre listed.
+     */
+    @GetMapping("/search")
+    public ResponseEntity<List<Film>> searchFilms(
+            @RequestParam(value = "genre", required = false) Set<Genre> genres,
+            @RequestParam(value = "mpa", required = false) Rating mpa,
+            @RequestParam(value = "yearFrom", required = false) Integer yearFrom,
+            @RequestParam(value = "yearTo", required = false) Integer yearTo,
+            @RequestParam(value = "name", required = false) String name,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @RequestParam(value = "after", required = false) Long after) {
+        int pageSize = limit == null ? PageHeaders.DEFAULT_PAGE_SIZE : RequestLimits.pageSize(limit);
+        List<Film> page = filmService.searchFilmsByGenres(genres, mpa, yearFrom, yearTo, name, after, pageSize);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.size() == pageSize) {
+            response.header(PageHeaders.NEXT_CURSOR, String.valueOf(page.get(page.size() - 1).getId()));
+        }
+        return response.body(page);
+    }
+
+    /**
+     * Typeahead over titles, most liked films first.
+     */
+    @GetMapping("/suggest")
+    public List<Film> suggestFilms(
+            @RequestParam("q") String query,
+            @RequestParam(value = "count", defaultValue = "10", required = false) Integer count) {
+        return filmService.suggestFilms(query, count);
     }
 
     @GetMapping("/{id}")
-    public Film getFilmById(@PathVariable Long id) {
-        return filmService.getFilmById(id);
+    public ResponseEntity<byte[]> getFilmById(@PathVariable Long id) {
+        flushLikes(id);
+        return JsonResponses.of(jsonCache.film(id, filmService::getFilmById));
+    }
+
+    @GetMapping(value = "/{id}", params = FilmProjection.FULL)
+    public ResponseEntity<byte[]> getFullFilmById(@PathVariable Long id) throws JsonProcessingException {
+        flushLikes(id);
+        return full(filmService.getFilmById(id));
+    }
+
+    /**
+     * Ids of the users who liked the film, ascending, one page at a time: the cursor for the next
+     * page is in {@value PageHeaders#NEXT_CURSOR}, the total number of likes in
+     * {@value PageHeaders#TOTAL_COUNT}.
+     */
+    @GetMapping("/{id}/likes")
+    public ResponseEntity<List<Long>> getLikes(
+            @PathVariable Long id,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @RequestParam(value = "after", required = false) Long after) {
+        int pageSize = limit == null ? PageHeaders.DEFAULT_PAGE_SIZE : RequestLimits.pageSize(limit);
+        flushLikes(id);
+        List<Long> page = filmService.getLikesPage(id, after, pageSize);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .header(PageHeaders.TOTAL_COUNT, String.valueOf(filmService.getLikesCount(id)));
+        if (page.size() == pageSize) {
+            response.header(PageHeaders.NEXT_CURSOR, String.valueOf(page.get(page.size() - 1)));
+        }
+        return response.body(page);
     }
 
     @PostMapping
@@ -44,25 +172,111 @@ public class FilmController {
         return filmService.addFilm(film);
     }
 
+    /**
+     * Adds up to {@value RequestLimits#MAX_BATCH_SIZE} films. Answers 200 with one result per film,
+     * in request order, carrying the status and id the single-item endpoint would have returned.
+     */
+    @PostMapping("/batch")
+    public List<BatchResult> addFilms(@RequestBody List<Film> films) {
+        return filmService.addFilms(films);
+    }
+
     @PutMapping
     public Film updateFilm(@RequestBody Film film) {
         return filmService.updateFilm(film);
     }
 
+    /**
+     * With {@code filmorate.likes.async.enabled=true} the like is queued (429 when the queue is full)
+     * and applied in the background; reads of the film still see it.
+     */
     @PutMapping("/{id}/like/{userId}")
     public void addLike(@PathVariable Long id, @PathVariable Long userId) {
-        filmService.addLike(id, userId);
+        if (likeIngest.isPresent()) {
+            likeIngest.get().submit(id, userId);
+        } else {
+            filmService.addLike(id, userId);
+        }
     }
 
     @DeleteMapping("/{id}/like/{userId}")
     @ResponseStatus(HttpStatus.NO_CONTENT)
     public void removeLike(@PathVariable Long id, @PathVariable Long userId) {
+        flushLikes(id);
         filmService.removeLike(id, userId);
     }
 
+    @GetMapping("/{id}/genres")
+    public Set<Genre> getGenres(@PathVariable Long id) {
+        return filmService.getFilmGenres(id);
+    }
+
+    @PutMapping("/{id}/genres/{genre}")
+    public void addGenre(@PathVariable Long id, @PathVariable Genre genre) {
+        filmService.addGenreFromFilm(id, genre);
+    }
+
+    @DeleteMapping("/{id}/genres/{genre}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void removeGenre(@PathVariable Long id, @PathVariable Genre genre) {
+        filmService.removeGenreFromFilm(id, genre);
+    }
+
+    @PutMapping("/likes/batch")
+    public List<BatchResult> addLikes(@RequestBody List<FilmLike> likes) {
+        return filmService.addLikes(likes);
+    }
+
+    @DeleteMapping("/likes/batch")
+    public List<BatchResult> removeLikes(@RequestBody List<FilmLike> likes) {
+        likeIngest.ifPresent(LikeIngest::flushAll);
+        return filmService.removeLikes(likes);
+    }
+
+    /**
+     * The unfiltered list is served from {@link JsonCache}; filtered lists are built per request.
+     * {@code genre} may be repeated or comma-separated; a film must have every genre listed.
+     */
     @GetMapping("/popular")
-    public List<Film> getPopularFilms(
+    public ResponseEntity<?> getPopularFilms(
+            @RequestParam(value = "count", defaultValue = "10", required = false) Integer count,
+            @RequestParam(value = "genre", required = false) Set<Genre> genres,
+            @RequestParam(value = "year", required = false) Integer year) {
+        if ((genres == null || genres.isEmpty()) && year == null) {
+            return JsonResponses.of(jsonCache.popularFilms(RequestLimits.count(count), filmService::getPopularFilms));
+        }
+        return ResponseEntity.ok(filmService.getPopularFilmsByGenres(count, genres, year));
+    }
+
+    @GetMapping(value = "/popular", params = FilmProjection.FULL)
+    public ResponseEntity<byte[]> getFullPopularFilms(
+            @RequestParam(value = "count", defaultValue = "10", required = false) Integer count,
+            @RequestParam(value = "genre", required = false) Set<Genre> genres,
+            @RequestParam(value = "year", required = false) Integer year) throws JsonProcessingException {
+        return full(filmService.getPopularFilmsByGenres(count, genres, year));
+    }
+
+    /**
+     * Films liked most in the last hour or day; approximate, see {@code TrendingFilms} for the
+     * error bounds.
+     */
+    @GetMapping("/trending")
+    public List<Film> getTrendingFilms(
+            @RequestParam(value = "window", defaultValue = "1h", required = false) String window,
             @RequestParam(value = "count", defaultValue = "10", required = false) Integer count) {
-        return filmService.getPopularFilms(count);
+        return filmService.getTrendingFilms(window, count);
+    }
+
+    private ResponseEntity<byte[]> full(Object films) throws JsonProcessingException {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(fullWriter.writeValueAsBytes(films));
+    }
+
+    /**
+     * Applies queued likes of the film before it is read, so the liking user sees their like.
+     */
+    private void flushLikes(Long filmId) {
+        likeIngest.ifPresent(ingest -> ingest.flush(filmId));
     }
-}
\ No newline at end of file
+}
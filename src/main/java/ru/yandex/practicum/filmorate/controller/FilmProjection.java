@@ -0,0 +1,28 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.util.Set;
+
+/**
+ * Films are serialized with {@code likesCount} only. {@code ?projection=full} asks for the ids in
+ * {@code likes} as well, which for a popular film is most of the response.
+ */
+public final class FilmProjection {
+    public static final String FULL = "projection=full";
+
+    private FilmProjection() {
+    }
+
+    public static ObjectWriter fullWriter(ObjectMapper objectMapper) {
+        return objectMapper.copy().addMixIn(Film.class, FullFilm.class).writer();
+    }
+
+    private abstract static class FullFilm {
+        @JsonProperty(access = JsonProperty.Access.READ_WRITE)
+        private Set<Long> likes;
+    }
+}
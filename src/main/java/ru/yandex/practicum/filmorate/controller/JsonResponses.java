@@ -0,0 +1,21 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import ru.yandex.practicum.filmorate.service.JsonCache;
+
+/**
+ * Responses with pre-serialized JSON from {@link JsonCache}. The bytes go out as they are, and for
+ * a GET whose {@code If-None-Match} matches the ETag Spring answers 304 without a body.
+ */
+final class JsonResponses {
+    private JsonResponses() {
+    }
+
+    static ResponseEntity<byte[]> of(JsonCache.Json json) {
+        return ResponseEntity.ok()
+                .eTag(json.etag())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(json.body());
+    }
+}
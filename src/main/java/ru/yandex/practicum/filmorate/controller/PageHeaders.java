@@ -0,0 +1,11 @@
+package ru.yandex.practicum.filmorate.controller;
+
+public final class PageHeaders {
+    public static final String NEXT_CURSOR = "X-Next-Cursor";
+    public static final String TOTAL_COUNT = "X-Total-Count";
+    public static final String NDJSON = "application/x-ndjson";
+    public static final int DEFAULT_PAGE_SIZE = 100;
+
+    private PageHeaders() {
+    }
+}
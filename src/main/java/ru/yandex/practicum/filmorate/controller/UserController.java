@@ -1,7 +1,11 @@
 package ru.yandex.practicum.filmorate.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import io.micrometer.core.annotation.Timed;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -9,32 +13,102 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.yandex.practicum.filmorate.model.BatchResult;
+import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.JsonCache;
+import ru.yandex.practicum.filmorate.service.LikeIngest;
+import ru.yandex.practicum.filmorate.service.RequestLimits;
 import ru.yandex.practicum.filmorate.service.UserService;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Slf4j
+@Timed(value = "filmorate.controller", percentiles = {0.5, 0.99}, histogram = true)
 @RestController
 @RequestMapping("/users")
 public class UserController {
+    private static final int STREAM_PAGE_SIZE = 1000;
+
     private final UserService userService;
+    private final FilmService filmService;
+    private final JsonCache jsonCache;
+    private final ObjectWriter userWriter;
+    private final Optional<LikeIngest> likeIngest;
 
-    public UserController(UserService userService) {
+    public UserController(UserService userService, FilmService filmService, JsonCache jsonCache,
+                          ObjectMapper objectMapper, Optional<LikeIngest> likeIngest) {
         this.userService = userService;
+        this.filmService = filmService;
+        this.jsonCache = jsonCache;
+        this.likeIngest = likeIngest;
+        this.userWriter = objectMapper.writerFor(User.class);
     }
 
+    /**
+     * Without {@code limit} and {@code after} returns all users as before. Otherwise returns one page
+     * ordered by id and, when more users may follow, the cursor for the next page in
+     * {@value PageHeaders#NEXT_CURSOR}.
+     */
     @GetMapping
-    public Collection<User> getUsers() {
-        return userService.getAllUsers();
+    public ResponseEntity<Collection<User>> getUsers(
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @RequestParam(value = "after", required = false) Long after) {
+        if (limit == null && after == null) {
+            return ResponseEntity.ok(userService.getAllUsers());
+        }
+        int pageSize = limit == null ? PageHeaders.DEFAULT_PAGE_SIZE : RequestLimits.pageSize(limit);
+        List<User> page = userService.getUsersPage(after, pageSize);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.size() == pageSize) {
+            response.header(PageHeaders.NEXT_CURSOR, String.valueOf(page.get(page.size() - 1).getId()));
+        }
+        return response.body(page);
+    }
+
+    /**
+     * Streams all users after the optional cursor as NDJSON, one user per line, reading the storage
+     * page by page so the full list is never held in memory.
+     */
+    @GetMapping(params = "stream=true", produces = PageHeaders.NDJSON)
+    public StreamingResponseBody streamUsers(@RequestParam(value = "after", required = false) Long after) {
+        return out -> {
+            Long cursor = after;
+            List<User> page;
+            do {
+                page = userService.getUsersPage(cursor, STREAM_PAGE_SIZE);
+                for (User user : page) {
+                    out.write(userWriter.writeValueAsBytes(user));
+                    out.write('\n');
+                }
+                out.flush();
+                if (!page.isEmpty()) {
+                    cursor = page.get(page.size() - 1).getId();
+                }
+            } while (page.size() == STREAM_PAGE_SIZE);
+        };
+    }
+
+    /**
+     * Typeahead over logins, users with more friends first.
+     */
+    @GetMapping("/suggest")
+    public List<User> suggestUsers(
+            @RequestParam("q") String query,
+            @RequestParam(value = "count", defaultValue = "10", required = false) Integer count) {
+        return userService.suggestUsers(query, count);
     }
 
     @GetMapping("/{id}")
-    public User getUserById(@PathVariable Long id) {
-        return userService.getUserById(id);
+    public ResponseEntity<byte[]> getUserById(@PathVariable Long id) {
+        return JsonResponses.of(jsonCache.user(id, userService::getUserById));
     }
 
     @PostMapping
@@ -43,6 +117,15 @@ public class UserController {
         return userService.addUser(user);
     }
 
+    /**
+     * Adds up to {@value RequestLimits#MAX_BATCH_SIZE} users,
+     * answering with one result per user as {@code POST /films/batch} does.
+     */
+    @PostMapping("/batch")
+    public List<BatchResult> addUsers(@RequestBody List<User> users) {
+        return userService.addUsers(users);
+    }
+
     @PutMapping
     public User updateUser(@RequestBody User user) {
         return userService.updateUser(user);
@@ -64,6 +147,21 @@ public class UserController {
         return userService.getFriends(id);
     }
 
+    @GetMapping("/{id}/recommendations")
+    public List<Film> getRecommendations(
+            @PathVariable Long id,
+            @RequestParam(value = "count", defaultValue = "10", required = false) Integer count) {
+        likeIngest.ifPresent(LikeIngest::flushAll);
+        return filmService.getRecommendations(id, count);
+    }
+
+    @GetMapping("/{id}/friends/suggestions")
+    public List<User> getFriendSuggestions(
+            @PathVariable Long id,
+            @RequestParam(value = "count", defaultValue = "10", required = false) Integer count) {
+        return userService.getFriendSuggestions(id, count);
+    }
+
     @GetMapping("/{id}/friends/common/{otherId}")
     public List<User> getCommonFriends(@PathVariable Long id, @PathVariable Long otherId) {
         return userService.getCommonFriends(id, otherId);
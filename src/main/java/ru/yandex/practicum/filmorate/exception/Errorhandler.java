@@ -1,5 +1,7 @@
 package ru.yandex.practicum.filmorate.exception;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
@@ -9,22 +11,50 @@ import java.util.Map;
 
 @RestControllerAdvice
 public class Errorhandler {
+    private final Counter validationErrors;
+    private final Counter notFoundErrors;
+    private final Counter rejectedRequests;
+    private final Counter otherErrors;
+
+    public Errorhandler(MeterRegistry registry) {
+        validationErrors = errorCounter(registry, "validation");
+        notFoundErrors = errorCounter(registry, "not_found");
+        rejectedRequests = errorCounter(registry, "too_many_requests");
+        otherErrors = errorCounter(registry, "internal");
+    }
 
     @ExceptionHandler
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public Map<String, String> handleValidationException(final ValidationException e) {
+        validationErrors.increment();
         return Map.of("error", "Validation error", "message", e.getMessage());
     }
 
     @ExceptionHandler
     @ResponseStatus(HttpStatus.NOT_FOUND)
     public Map<String, String> handleNotFoundException(final NotFoundException e) {
+        notFoundErrors.increment();
         return Map.of("error", "Not found", "message", e.getMessage());
     }
 
+    @ExceptionHandler
+    @ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+    public Map<String, String> handleTooManyRequestsException(final TooManyRequestsException e) {
+        rejectedRequests.increment();
+        return Map.of("error", "Too many requests", "message", e.getMessage());
+    }
+
     @ExceptionHandler
     @ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
     public Map<String, String> handleOtherExceptions(final Exception e) {
+        otherErrors.increment();
         return Map.of("error", "Internal server error", "message", e.getMessage());
     }
-}
\ No newline at end of file
+
+    private static Counter errorCounter(MeterRegistry registry, String type) {
+        return Counter.builder("filmorate.errors")
+                .description("Errors returned by the API")
+                .tag("type", type)
+                .register(registry);
+    }
+}
@@ -1,7 +1,39 @@
 package ru.yandex.practicum.filmorate.exception;
 
+/**
+ * A routine 404, so it carries no stack trace (see {@link ValidationException}). Thrown for a
+ * missing film or user through {@link #film} and {@link #user}, which keep the id and build the
+ * message only when it is read.
+ */
 public class NotFoundException extends RuntimeException {
+    private final String entity;
+    private final Object id;
+    private String message;
+
     public NotFoundException(String message) {
-        super(message);
+        this(null, null, message);
+    }
+
+    private NotFoundException(String entity, Object id, String message) {
+        super(message, null, false, false);
+        this.entity = entity;
+        this.id = id;
+        this.message = message;
+    }
+
+    public static NotFoundException film(Object id) {
+        return new NotFoundException("Film", id, null);
+    }
+
+    public static NotFoundException user(Object id) {
+        return new NotFoundException("User", id, null);
+    }
+
+    @Override
+    public String getMessage() {
+        if (message == null) {
+            message = entity + " with ID " + id + " not found";
+        }
+        return message;
     }
 }
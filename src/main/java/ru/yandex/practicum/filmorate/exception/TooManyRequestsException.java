@@ -0,0 +1,7 @@
+package ru.yandex.practicum.filmorate.exception;
+
+public class TooManyRequestsException extends RuntimeException {
+    public TooManyRequestsException(String message) {
+        super(message);
+    }
+}
@@ -1,7 +1,11 @@
 package ru.yandex.practicum.filmorate.exception;
 
+/**
+ * Reports a client error that is answered with 400, so filling in a stack trace (the bulk of
+ * the cost of throwing) would only be thrown away; suppression and the trace are disabled.
+ */
 public class ValidationException extends RuntimeException {
     public ValidationException(String message) {
-        super(message);
+        super(message, null, false, false);
     }
 }
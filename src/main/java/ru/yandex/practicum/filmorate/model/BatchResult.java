@@ -0,0 +1,31 @@
+package ru.yandex.practicum.filmorate.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Outcome of one item of a batch request: {@code index} is its position in the request,
+ * {@code status} the HTTP status the single-item endpoint would have answered with.
+ */
+@Data
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchResult {
+    private int index;
+    private int status;
+    private Long id;
+    private String error;
+
+    public static BatchResult created(int index, Long id) {
+        return new BatchResult(index, 201, id, null);
+    }
+
+    public static BatchResult ok(int index) {
+        return new BatchResult(index, 200, null, null);
+    }
+
+    public static BatchResult failed(int index, int status, String error) {
+        return new BatchResult(index, status, null, error);
+    }
+}
@@ -1,13 +1,15 @@
 package ru.yandex.practicum.filmorate.model;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.fasterxml.jackson.datatype.jsr310.deser.DurationDeserializer;
 import lombok.Data;
+import ru.yandex.practicum.filmorate.util.LongHashSet;
 
 import java.time.Duration;
 import java.time.LocalDate;
-import java.util.HashSet;
 import java.util.Set;
 
 @Data
@@ -19,7 +21,40 @@ public class Film {
     @JsonFormat(shape = JsonFormat.Shape.NUMBER_INT)
     @JsonDeserialize(using = DurationDeserializer.class)
     private Duration duration;
-    private Set<Long> likes = new HashSet<>();
-    private Set<Genre> genres = new HashSet<>();
+    // accepted on input, but responses carry only likesCount; the ids are paged by GET /films/{id}/likes
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
+    private Set<Long> likes = new LongHashSet();
+    private GenreSet genres = new GenreSet();
     private Rating mpa;
-}
\ No newline at end of file
+    @JsonIgnore
+    private transient boolean likesProvided;
+
+    public void setLikes(Set<Long> likes) {
+        if (likes instanceof LongHashSet set) {
+            this.likes = set.copy();
+        } else {
+            this.likes = new LongHashSet();
+            if (likes != null) {
+                this.likes.addAll(likes);
+            }
+        }
+        likesProvided = true;
+    }
+
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    public int getLikesCount() {
+        return likes.size();
+    }
+
+    /**
+     * Whether the likes were set explicitly (e.g. sent in the request body). An update without
+     * them keeps the stored likes instead of clearing them.
+     */
+    public boolean isLikesProvided() {
+        return likesProvided;
+    }
+
+    public void setGenres(Set<Genre> genres) {
+        this.genres = GenreSet.ofMask(GenreSet.maskOf(genres));
+    }
+}
@@ -0,0 +1,143 @@
+package ru.yandex.practicum.filmorate.model;
+
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * Set of {@link Genre}s as a bitmask, bit {@code 1 << ordinal} per genre (the layout the journal
+ * already writes), so a film's genres cost one int instead of a hash table and a genre filter is
+ * a single AND. Updates are compare-and-set on the mask, so the set is safe to share between
+ * threads; iterators walk the mask as it was when they were created, in declaration order.
+ * Serializes to JSON like any other set of genres.
+ */
+public class GenreSet extends AbstractSet<Genre> {
+    private static final Genre[] GENRES = Genre.values();
+    private static final AtomicIntegerFieldUpdater<GenreSet> MASK =
+            AtomicIntegerFieldUpdater.newUpdater(GenreSet.class, "mask");
+
+    private volatile int mask;
+
+    public GenreSet() {
+    }
+
+    public static GenreSet ofMask(int mask) {
+        GenreSet set = new GenreSet();
+        set.mask = mask & ((1 << GENRES.length) - 1);
+        return set;
+    }
+
+    public static int bit(Genre genre) {
+        return 1 << genre.ordinal();
+    }
+
+    /**
+     * The mask of any collection of genres; {@code null} and empty give 0.
+     */
+    public static int maskOf(Collection<Genre> genres) {
+        if (genres instanceof GenreSet set) {
+            return set.mask;
+        }
+        int mask = 0;
+        if (genres != null) {
+            for (Genre genre : genres) {
+                mask |= bit(genre);
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Whether a mask has every genre of {@code wanted}; an empty {@code wanted} matches anything.
+     */
+    public static boolean matches(int mask, int wanted) {
+        return (mask & wanted) == wanted;
+    }
+
+    public int mask() {
+        return mask;
+    }
+
+    @Override
+    public boolean add(Genre genre) {
+        int bit = bit(genre);
+        int current;
+        do {
+            current = mask;
+            if ((current & bit) != 0) {
+                return false;
+            }
+        } while (!MASK.compareAndSet(this, current, current | bit));
+        return true;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        if (!(o instanceof Genre genre)) {
+            return false;
+        }
+        int bit = bit(genre);
+        int current;
+        do {
+            current = mask;
+            if ((current & bit) == 0) {
+                return false;
+            }
+        } while (!MASK.compareAndSet(this, current, current & ~bit));
+        return true;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof Genre genre && (mask & bit(genre)) != 0;
+    }
+
+    @Override
+    public void clear() {
+        mask = 0;
+    }
+
+    @Override
+    public int size() {
+        return Integer.bitCount(mask);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return mask == 0;
+    }
+
+    @Override
+    public Iterator<Genre> iterator() {
+        return new Iterator<>() {
+            private int remaining = mask;
+            private Genre last;
+
+            @Override
+            public boolean hasNext() {
+                return remaining != 0;
+            }
+
+            @Override
+            public Genre next() {
+                if (remaining == 0) {
+                    throw new NoSuchElementException();
+                }
+                last = GENRES[Integer.numberOfTrailingZeros(remaining)];
+                remaining &= remaining - 1;
+                return last;
+            }
+
+            @Override
+            public void remove() {
+                if (last == null) {
+                    throw new IllegalStateException();
+                }
+                GenreSet.this.remove(last);
+                last = null;
+            }
+        };
+    }
+}
@@ -2,9 +2,9 @@ package ru.yandex.practicum.filmorate.model;
 
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import ru.yandex.practicum.filmorate.util.LongEnumMap;
 
 import java.time.LocalDate;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
 
@@ -16,7 +16,18 @@ public class User {
     private String login;
     private String name;
     private LocalDate birthday;
-    private Map<Long, FriendshipStatus> friends = new HashMap<>();
+    private Map<Long, FriendshipStatus> friends = new LongEnumMap<>(FriendshipStatus.class);
+
+    public void setFriends(Map<Long, FriendshipStatus> friends) {
+        if (friends instanceof LongEnumMap<FriendshipStatus> map) {
+            this.friends = map.copy();
+            return;
+        }
+        this.friends = new LongEnumMap<>(FriendshipStatus.class);
+        if (friends != null) {
+            this.friends.putAll(friends);
+        }
+    }
 
     public Set<Long> getFriendIds() {
         return friends.keySet();
@@ -1,40 +1,147 @@
 package ru.yandex.practicum.filmorate.service;
 
+import io.micrometer.core.annotation.Timed;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.config.SuggestConfig;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.BatchResult;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmLike;
 import ru.yandex.practicum.filmorate.model.Genre;
-import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
-import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.model.GenreSet;
+import ru.yandex.practicum.filmorate.model.Rating;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.film.FilmPopularityIndex;
+import ru.yandex.practicum.filmorate.storage.film.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.FilmValidator;
+import ru.yandex.practicum.filmorate.storage.film.LikesDiff;
+import ru.yandex.practicum.filmorate.storage.film.TrendingFilms;
+import ru.yandex.practicum.filmorate.storage.film.UserLikesIndex;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+import ru.yandex.practicum.filmorate.util.TrigramIndex;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 @Slf4j
+@Timed(value = "filmorate.service", percentiles = {0.5, 0.99}, histogram = true)
 @Service
 public class FilmService {
-    private final InMemoryFilmStorage filmStorage;
-    private final InMemoryUserStorage userStorage;
+    private final FilmStorage filmStorage;
+    private final UserStorage userStorage;
+    private final FilmPopularityIndex popularityIndex;
+    private final UserLikesIndex likesIndex;
+    private final FilmSearchIndex searchIndex;
+    private final TrendingFilms trendingFilms;
+    private final JsonCache jsonCache;
+    private final TrigramIndex nameIndex;
 
-    public FilmService(InMemoryFilmStorage filmStorage, InMemoryUserStorage userStorage) {
+    public FilmService(FilmStorage filmStorage, UserStorage userStorage, FilmPopularityIndex popularityIndex,
+                       UserLikesIndex likesIndex, FilmSearchIndex searchIndex, TrendingFilms trendingFilms,
+                       JsonCache jsonCache, @Qualifier(SuggestConfig.FILM_NAMES) TrigramIndex nameIndex) {
         this.filmStorage = filmStorage;
         this.userStorage = userStorage;
+        this.popularityIndex = popularityIndex;
+        this.likesIndex = likesIndex;
+        this.searchIndex = searchIndex;
+        this.trendingFilms = trendingFilms;
+        this.jsonCache = jsonCache;
+        this.nameIndex = nameIndex;
+    }
+
+    @PostConstruct
+    public void rebuildIndexes() {
+        for (Film film : filmStorage.getFilms()) {
+            popularityIndex.index(film);
+            likesIndex.index(film);
+            searchIndex.index(film);
+            nameIndex.put(film.getId(), film.getName(), film.getLikes().size());
+        }
+        jsonCache.invalidateFilms();
+        log.info("Popularity, likes and search indexes rebuilt");
     }
 
     public Collection<Film> getAllFilms() {
         return filmStorage.getFilms();
     }
 
+    public List<Film> getFilmsPage(Long after, int limit) {
+        return filmStorage.getFilms(after, RequestLimits.pageSize(limit));
+    }
+
     public Film addFilm(Film film) {
-        return filmStorage.addFilm(film);
+        checkLikedBy(film);
+        Film added = filmStorage.addFilm(film);
+        rank(added);
+        likesIndex.index(added);
+        searchIndex.index(added);
+        nameIndex.put(added.getId(), added.getName(), added.getLikes().size());
+        jsonCache.invalidateFilm(added.getId());
+        return added;
+    }
+
+    /**
+     * Validates every film on its own and stores the valid ones in a single storage call.
+     * Invalid films get a 400 result and do not stop the rest of the batch.
+     */
+    public List<BatchResult> addFilms(List<Film> films) {
+        RequestLimits.checkBatchSize(films);
+        BatchResult[] results = new BatchResult[films.size()];
+        List<Film> valid = new ArrayList<>(films.size());
+        List<Integer> positions = new ArrayList<>(films.size());
+        for (int i = 0; i < results.length; i++) {
+            Film film = films.get(i);
+            try {
+                if (film == null) {
+                    throw new ValidationException("Film is required");
+                }
+                FilmValidator.validate(film);
+                checkLikedBy(film);
+                valid.add(film);
+                positions.add(i);
+            } catch (ValidationException e) {
+                results[i] = BatchResult.failed(i, 400, e.getMessage());
+            } catch (NotFoundException e) {
+                results[i] = BatchResult.failed(i, 404, e.getMessage());
+            }
+        }
+        List<Film> added = filmStorage.addFilms(valid);
+        for (int i = 0; i < added.size(); i++) {
+            Film film = added.get(i);
+            rank(film);
+            likesIndex.index(film);
+            searchIndex.index(film);
+            nameIndex.put(film.getId(), film.getName(), film.getLikes().size());
+            jsonCache.invalidateFilm(film.getId());
+            results[positions.get(i)] = BatchResult.created(positions.get(i), film.getId());
+        }
+        log.info("Batch of {} films: {} added", films.size(), added.size());
+        return Arrays.asList(results);
     }
 
     public Film updateFilm(Film film) {
-        return filmStorage.updateFilm(film);
+        checkLikedBy(film);
+        LikesDiff likes = filmStorage.replaceFilm(film);
+        if (likes.countChange() != 0 && !popularityIndex.isSnapshotReads()) {
+            popularityIndex.changeLikes(film.getId(), likes.countChange());
+        }
+        rank(film);
+        likesIndex.reindex(film.getId(), likes);
+        searchIndex.index(film);
+        nameIndex.put(film.getId(), film.getName(), film.getLikes().size());
+        jsonCache.invalidateFilm(film.getId());
+        return film;
     }
 
     public Film getFilmById(Long id) {
@@ -42,58 +149,318 @@ public class FilmService {
     }
 
     public void addLike(Long filmId, Long userId) {
-        Film film = filmStorage.getFilmById(filmId);
-        userStorage.getUserById(userId);
+        checkFilmAndUser(filmId, userId);
 
-        if (film.getLikes().contains(userId)) {
+        if (!filmStorage.addLike(filmId, userId)) {
             log.warn("User {} already liked film {}", userId, filmId);
             return;
         }
 
-        film.getLikes().add(userId);
-        log.info("User {} liked film {}", userId, filmId);
+        rankLikes(filmId, 1);
+        likesIndex.addLike(userId, filmId);
+        nameIndex.addScore(filmId, 1);
+        trendingFilms.record(filmId, 1);
+        jsonCache.invalidateFilm(filmId);
+        log.debug("User {} liked film {}", userId, filmId);
     }
 
     public void removeLike(Long filmId, Long userId) {
-        Film film = filmStorage.getFilmById(filmId);
-        userStorage.getUserById(userId);
+        checkFilmAndUser(filmId, userId);
 
-        if (!film.getLikes().remove(userId)) {
+        if (!filmStorage.removeLike(filmId, userId)) {
             log.warn("User {} didn't like film {}", userId, filmId);
             throw new NotFoundException("Like not found for user " + userId + " and film " + filmId);
         }
+        rankLikes(filmId, -1);
+        likesIndex.removeLike(userId, filmId);
+        nameIndex.addScore(filmId, -1);
+        jsonCache.invalidateFilm(filmId);
 
         log.info("User {} removed like from film {}", userId, filmId);
     }
 
+    /**
+     * Batch form of {@link #addLike}: films and users are checked with one lookup each, the likes
+     * are applied in one storage call and the popularity index is updated once per film.
+     * A repeated like is not an error, as for the single-item endpoint.
+     */
+    public List<BatchResult> addLikes(List<FilmLike> likes) {
+        return changeLikes(likes, true);
+    }
+
+    /**
+     * Batch form of {@link #removeLike}; a like that does not exist gets a 404 result.
+     */
+    public List<BatchResult> removeLikes(List<FilmLike> likes) {
+        return changeLikes(likes, false);
+    }
+
     public List<Film> getPopularFilms(Integer count) {
-        int limit = (count == null || count <= 0) ? 10 : count;
+        return getPopularFilms(count, null, null);
+    }
+
+    public List<Film> getPopularFilms(Integer count, Genre genre, Integer year) {
+        return popularFilms(count, genre == null ? 0 : GenreSet.bit(genre), year);
+    }
+
+    /**
+     * Most liked films that have every one of {@code genres} (any film when empty).
+     */
+    public List<Film> getPopularFilmsByGenres(Integer count, Set<Genre> genres, Integer year) {
+        return popularFilms(count, GenreSet.maskOf(genres), year);
+    }
+
+    /**
+     * Films liked most in the last hour ({@code 1h}) or day ({@code 24h}), estimated by
+     * {@link TrendingFilms}; see there for the error bounds.
+     */
+    public List<Film> getTrendingFilms(String window, Integer count) {
+        TrendingFilms.Window parsed = TrendingFilms.Window.parse(window);
+        int limit = RequestLimits.count(count);
+
+        return filmStorage.getFilmsByIds(trendingFilms.top(parsed, limit));
+    }
+
+    /**
+     * Films liked by the users whose likes overlap most with this user's and not liked by this
+     * user yet, best first. Empty when the user has no likes.
+     */
+    public List<Film> getRecommendations(Long userId, Integer count) {
+        userStorage.getUserById(userId);
+        int limit = RequestLimits.count(count);
 
-        return filmStorage.getFilms().stream()
-                .sorted(Comparator.comparingInt((Film film) -> film.getLikes().size()).reversed())
-                .limit(limit)
-                .collect(Collectors.toList());
+        return filmStorage.getFilmsByIds(likesIndex.recommend(userId, limit));
     }
 
+    /**
+     * Answered from the popularity index without loading the film; the storage is only asked
+     * (and throws for an unknown id) when the film is not indexed.
+     */
     public int getLikesCount(Long filmId) {
-        Film film = filmStorage.getFilmById(filmId);
-        return film.getLikes().size();
+        if (popularityIndex.contains(filmId)) {
+            return popularityIndex.getLikes(filmId);
+        }
+        return filmStorage.getFilmById(filmId).getLikes().size();
+    }
+
+    public List<Long> getLikesPage(Long filmId, Long after, int limit) {
+        return filmStorage.getLikes(filmId, after, RequestLimits.pageSize(limit));
     }
 
     public void addGenreFromFilm(Long filmId, Genre genre) {
-        Film film = filmStorage.getFilmById(filmId);
-        film.getGenres().add(genre);
+        filmStorage.addGenre(filmId, genre);
+        reindexGenres(filmId);
+        jsonCache.invalidateFilm(filmId);
         log.info("Film {} has genre {}", filmId, genre);
     }
 
     public void removeGenreFromFilm(Long filmId, Genre genre) {
-        Film film = filmStorage.getFilmById(filmId);
-        film.getGenres().remove(genre);
+        filmStorage.removeGenre(filmId, genre);
+        reindexGenres(filmId);
+        jsonCache.invalidateFilm(filmId);
         log.info("From film {} was removed genre {}", filmId, genre);
     }
 
+    /**
+     * Films matching every given filter, ordered by id, answered from {@link FilmSearchIndex}
+     * without scanning the storage. The id of the last film is the cursor for the next page.
+     */
+    public List<Film> searchFilms(Genre genre, Rating mpa, Integer yearFrom, Integer yearTo, String name,
+                                  Long after, int limit) {
+        return searchFilms(genre == null ? 0 : GenreSet.bit(genre), mpa, yearFrom, yearTo, name, after, limit);
+    }
+
+    /**
+     * As {@link #searchFilms(Genre, Rating, Integer, Integer, String, Long, int)}, for films that
+     * have every one of {@code genres} (any film when empty).
+     */
+    public List<Film> searchFilmsByGenres(Set<Genre> genres, Rating mpa, Integer yearFrom, Integer yearTo,
+                                          String name, Long after, int limit) {
+        return searchFilms(GenreSet.maskOf(genres), mpa, yearFrom, yearTo, name, after, limit);
+    }
+
+    /**
+     * Typeahead: films with a word of the title starting with each word of the query, most liked
+     * first. Case, diacritics and punctuation are ignored.
+     */
+    public List<Film> suggestFilms(String query, Integer count) {
+        int limit = RequestLimits.count(count);
+        return filmStorage.getFilmsByIds(nameIndex.suggest(query, limit));
+    }
+
+    /**
+     * Applies likes of one film queued by {@link LikeIngest}, which checked the film and the users
+     * when accepting them: one storage batch, one popularity update and one cache eviction.
+     */
+    void applyLikes(Long filmId, List<Long> userIds) {
+        List<FilmLike> likes = new ArrayList<>(userIds.size());
+        for (Long userId : userIds) {
+            likes.add(new FilmLike(filmId, userId));
+        }
+        boolean[] changed = filmStorage.addLikes(likes);
+        int added = 0;
+        for (int i = 0; i < changed.length; i++) {
+            if (changed[i]) {
+                likesIndex.addLike(userIds.get(i), filmId);
+                added++;
+            }
+        }
+        if (added > 0) {
+            rankLikes(filmId, added);
+            nameIndex.addScore(filmId, added);
+            trendingFilms.record(filmId, added);
+            jsonCache.invalidateFilm(filmId);
+        }
+        log.debug("Applied {} of {} queued likes of film {}", added, likes.size(), filmId);
+    }
+
+    void checkFilmAndUser(Long filmId, Long userId) {
+        filmStorage.getFilmById(filmId);
+        userStorage.getUserById(userId);
+    }
+
     public Set<Genre> getFilmGenres(Long filmId) {
         Film film = filmStorage.getFilmById(filmId);
         return film.getGenres();
     }
-}
\ No newline at end of file
+
+    private List<Film> popularFilms(Integer count, int genres, Integer year) {
+        int limit = RequestLimits.count(count);
+
+        if (popularityIndex.isSnapshotReads()) {
+            return popularityIndex.topFilms(limit, genres, year);
+        }
+        return filmStorage.getFilmsByIds(popularityIndex.top(limit, genres, year));
+    }
+
+    /**
+     * Indexes a film that was added or had its genres or release year changed. With snapshot
+     * reads the index ranks the film's latest version instead, see {@link #rankLikes}.
+     */
+    private void rank(Film film) {
+        if (popularityIndex.isSnapshotReads()) {
+            popularityIndex.refresh(film.getId(), filmStorage::getFilmById);
+        } else {
+            popularityIndex.reindex(film);
+        }
+    }
+
+    /**
+     * Moves the film in the popularity index after its likes changed by {@code delta}. With
+     * snapshot reads the index re-ranks it by its latest version, so that the films a ranking
+     * returns carry the like counts they were ranked by.
+     */
+    private void rankLikes(long filmId, int delta) {
+        if (popularityIndex.isSnapshotReads()) {
+            popularityIndex.refresh(filmId, filmStorage::getFilmById);
+        } else if (delta != 0) {
+            popularityIndex.changeLikes(filmId, delta);
+        }
+    }
+
+    private List<Film> searchFilms(int genres, Rating mpa, Integer yearFrom, Integer yearTo, String name,
+                                   Long after, int limit) {
+        int pageSize = RequestLimits.pageSize(limit);
+        if (yearFrom != null && yearTo != null && yearFrom > yearTo) {
+            throw new ValidationException("yearFrom cannot be after yearTo");
+        }
+        List<Long> ids = searchIndex.search(genres, mpa, yearFrom, yearTo, name, after == null ? 0 : after, pageSize);
+        return filmStorage.getFilmsByIds(ids);
+    }
+
+    private void reindexGenres(Long filmId) {
+        Film film = filmStorage.getFilmById(filmId);
+        rank(film);
+        searchIndex.index(film);
+    }
+
+    private List<BatchResult> changeLikes(List<FilmLike> likes, boolean add) {
+        RequestLimits.checkBatchSize(likes);
+        BatchResult[] results = new BatchResult[likes.size()];
+        Set<Long> filmIds = new HashSet<>();
+        Set<Long> userIds = new HashSet<>();
+        for (int i = 0; i < results.length; i++) {
+            FilmLike like = likes.get(i);
+            if (like == null || like.getFilmId() == null || like.getUserId() == null) {
+                results[i] = BatchResult.failed(i, 400, "Film id and user id are required");
+            } else {
+                filmIds.add(like.getFilmId());
+                userIds.add(like.getUserId());
+            }
+        }
+        Set<Long> existingFilms = new HashSet<>();
+        filmStorage.getFilmsByIds(filmIds).forEach(film -> existingFilms.add(film.getId()));
+        Set<Long> existingUsers = new HashSet<>();
+        userStorage.getUsersByIds(userIds).forEach(user -> existingUsers.add(user.getId()));
+
+        List<FilmLike> accepted = new ArrayList<>(likes.size());
+        List<Integer> positions = new ArrayList<>(likes.size());
+        for (int i = 0; i < results.length; i++) {
+            if (results[i] != null) {
+                continue;
+            }
+            FilmLike like = likes.get(i);
+            if (!existingFilms.contains(like.getFilmId())) {
+                results[i] = BatchResult.failed(i, 404, "Film with id " + like.getFilmId() + " not found");
+            } else if (!existingUsers.contains(like.getUserId())) {
+                results[i] = BatchResult.failed(i, 404, "User with id " + like.getUserId() + " not found");
+            } else {
+                accepted.add(like);
+                positions.add(i);
+            }
+        }
+
+        boolean[] changed = add ? filmStorage.addLikes(accepted) : filmStorage.removeLikes(accepted);
+        Map<Long, Integer> deltas = new HashMap<>();
+        int applied = 0;
+        for (int i = 0; i < changed.length; i++) {
+            FilmLike like = accepted.get(i);
+            int position = positions.get(i);
+            if (changed[i]) {
+                deltas.merge(like.getFilmId(), add ? 1 : -1, Integer::sum);
+                if (add) {
+                    likesIndex.addLike(like.getUserId(), like.getFilmId());
+                } else {
+                    likesIndex.removeLike(like.getUserId(), like.getFilmId());
+                }
+                applied++;
+                results[position] = BatchResult.ok(position);
+            } else if (add) {
+                results[position] = BatchResult.ok(position);
+            } else {
+                results[position] = BatchResult.failed(position, 404,
+                        "Like not found for user " + like.getUserId() + " and film " + like.getFilmId());
+            }
+        }
+        deltas.forEach(this::rankLikes);
+        deltas.forEach(nameIndex::addScore);
+        if (add) {
+            deltas.forEach(trendingFilms::record);
+        }
+        deltas.keySet().forEach(jsonCache::invalidateFilm);
+        log.info("Batch of {} likes: {} {}", likes.size(), applied, add ? "added" : "removed");
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Likes sent in a film body must be of existing users: the ids end up in {@link UserLikesIndex},
+     * which is addressed by user id.
+     */
+    private void checkLikedBy(Film film) {
+        Set<Long> likes = film.getLikes();
+        if (likes == null || likes.isEmpty()) {
+            return;
+        }
+        List<User> users = userStorage.getUsersByIds(likes);
+        if (users.size() == likes.size()) {
+            return;
+        }
+        Set<Long> existing = new HashSet<>();
+        users.forEach(user -> existing.add(user.getId()));
+        for (Long userId : likes) {
+            if (!existing.contains(userId)) {
+                throw NotFoundException.user(userId);
+            }
+        }
+    }
+}
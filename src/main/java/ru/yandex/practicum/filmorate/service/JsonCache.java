@@ -0,0 +1,98 @@
+package ru.yandex.practicum.filmorate.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.cache.EntityCache;
+
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.function.IntFunction;
+import java.util.function.LongFunction;
+import java.util.zip.CRC32C;
+
+/**
+ * Serialized JSON of single films, single users and the unfiltered popular list, with an ETag
+ * derived from the bytes, so hot reads skip Jackson and unchanged resources can be answered with
+ * 304 without serializing anything.
+ * <p>
+ * Entries are dropped by {@link FilmService} and {@link UserService} after every mutation of the
+ * entity; any change to a film also drops the popular lists. Loads race with invalidation the way
+ * {@link EntityCache} describes, so bytes serialized before a write never outlive it.
+ */
+@Component
+public class JsonCache {
+    private final ObjectWriter filmWriter;
+    private final ObjectWriter userWriter;
+    private final ObjectWriter filmListWriter;
+    private final EntityCache<Json> films;
+    private final EntityCache<Json> users;
+    private final EntityCache<Json> popular;
+
+    public JsonCache(ObjectMapper objectMapper,
+                     @Value("${filmorate.json-cache.maximum-size:10000}") int maximumSize,
+                     @Value("${filmorate.json-cache.ttl:5m}") Duration ttl) {
+        filmWriter = objectMapper.writerFor(Film.class);
+        userWriter = objectMapper.writerFor(User.class);
+        filmListWriter = objectMapper.writerFor(objectMapper.getTypeFactory().constructCollectionType(List.class,
+                Film.class));
+        films = new EntityCache<>(maximumSize, ttl);
+        users = new EntityCache<>(maximumSize, ttl);
+        popular = new EntityCache<>(64, ttl);
+    }
+
+    public Json film(long id, LongFunction<Film> loader) {
+        return films.get(id, key -> Json.of(write(filmWriter, loader.apply(key))));
+    }
+
+    public Json user(long id, LongFunction<User> loader) {
+        return users.get(id, key -> Json.of(write(userWriter, loader.apply(key))));
+    }
+
+    public Json popularFilms(int count, IntFunction<List<Film>> loader) {
+        return popular.get(count, key -> Json.of(write(filmListWriter, loader.apply((int) key))));
+    }
+
+    public void invalidateFilm(long id) {
+        films.invalidate(id);
+        popular.invalidateAll();
+    }
+
+    public void invalidateUser(long id) {
+        users.invalidate(id);
+    }
+
+    public void invalidateFilms() {
+        films.invalidateAll();
+        popular.invalidateAll();
+    }
+
+    public void invalidateUsers() {
+        users.invalidateAll();
+    }
+
+    private static byte[] write(ObjectWriter writer, Object value) {
+        try {
+            return writer.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Serialized body and its strong ETag (quoted, as sent in the header).
+     */
+    public record Json(byte[] body, String etag) {
+        static Json of(byte[] body) {
+            CRC32C crc = new CRC32C();
+            crc.update(body);
+            return new Json(body, "\"" + Integer.toHexString(body.length) + "-"
+                    + Long.toHexString(crc.getValue()) + "\"");
+        }
+    }
+}
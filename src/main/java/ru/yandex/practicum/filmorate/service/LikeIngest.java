@@ -0,0 +1,201 @@
+package ru.yandex.practicum.filmorate.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.exception.TooManyRequestsException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Asynchronous intake of likes, enabled with {@code filmorate.likes.async.enabled=true}.
+ * <p>
+ * {@link #submit} checks that the film and the user exist and pushes the like onto a lock-free
+ * stack kept per film. The first like stacked on an idle film puts the film on the ready queue,
+ * later ones only join the stack, so a viral film is queued once however many likes it gets.
+ * Worker threads take ready films and apply everything stacked for a film in one
+ * {@link FilmService#applyLikes} call: one storage batch, one index update and one cache eviction
+ * per round instead of per like. At most {@code capacity} likes wait at a time; beyond that
+ * {@link #submit} throws {@link TooManyRequestsException} (429).
+ * <p>
+ * Reads of a film's likes call {@link #flush(long)} first, which applies what is stacked for the
+ * film or waits for the worker applying it, so a user who got 200 for a like sees it in the next
+ * read. {@link #flushAll} does the same for reads that depend on likes across films. The popular
+ * list is not flushed and may lag behind by one round of the workers.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "filmorate.likes.async.enabled", havingValue = "true")
+public class LikeIngest {
+    private final FilmService filmService;
+    private final int capacity;
+    private final int workers;
+    private final ConcurrentHashMap<Long, Pending> pendingByFilm = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Pending> ready = new ConcurrentLinkedQueue<>();
+    private final Semaphore readyFilms = new Semaphore(0);
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final List<Thread> threads = new ArrayList<>();
+    private volatile boolean running;
+
+    public LikeIngest(FilmService filmService,
+                      @Value("${filmorate.likes.async.capacity:100000}") int capacity,
+                      @Value("${filmorate.likes.async.workers:2}") int workers) {
+        this.filmService = filmService;
+        this.capacity = capacity;
+        this.workers = workers;
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        for (int i = 0; i < workers; i++) {
+            Thread thread = new Thread(this::work, "like-ingest-" + i);
+            thread.setDaemon(true);
+            thread.start();
+            threads.add(thread);
+        }
+        log.info("Likes are applied asynchronously by {} workers, up to {} waiting", workers, capacity);
+    }
+
+    /**
+     * Drains what is left before shutdown; likes accepted with 200 are not dropped.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        for (Thread thread : threads) {
+            thread.interrupt();
+            thread.join();
+        }
+        threads.clear();
+        flushAll();
+    }
+
+    public void submit(Long filmId, Long userId) {
+        filmService.checkFilmAndUser(filmId, userId);
+        if (waiting.incrementAndGet() > capacity) {
+            waiting.decrementAndGet();
+            throw new TooManyRequestsException("Too many likes waiting to be applied, retry later");
+        }
+        Pending pending = pendingByFilm.get(filmId);
+        if (pending == null) {
+            pending = pendingByFilm.computeIfAbsent(filmId, Pending::new);
+        }
+        pending.push(userId);
+        if (pending.queued.compareAndSet(false, true)) {
+            ready.offer(pending);
+            readyFilms.release();
+        }
+    }
+
+    /**
+     * Applies the likes waiting for the film, or waits until the worker applying them is done.
+     */
+    public void flush(long filmId) {
+        Pending pending = pendingByFilm.get(filmId);
+        if (pending != null && (pending.head.get() != null || pending.applying.isLocked())) {
+            apply(pending);
+        }
+    }
+
+    public void flushAll() {
+        if (waiting.get() == 0) {
+            return;
+        }
+        for (Pending pending : pendingByFilm.values()) {
+            if (pending.head.get() != null || pending.applying.isLocked()) {
+                apply(pending);
+            }
+        }
+    }
+
+    /**
+     * Likes accepted and not applied yet.
+     */
+    public int getWaiting() {
+        return waiting.get();
+    }
+
+    private void work() {
+        while (running) {
+            try {
+                if (!readyFilms.tryAcquire(100, TimeUnit.MILLISECONDS)) {
+                    continue;
+                }
+            } catch (InterruptedException e) {
+                return;
+            }
+            Pending pending = ready.poll();
+            pending.queued.set(false);
+            try {
+                apply(pending);
+            } catch (RuntimeException e) {
+                log.error("Failed to apply likes of film {}", pending.filmId, e);
+            }
+        }
+    }
+
+    private void apply(Pending pending) {
+        pending.applying.lock();
+        try {
+            Node node = pending.head.getAndSet(null);
+            if (node == null) {
+                return;
+            }
+            List<Long> userIds = new ArrayList<>();
+            for (; node != null; node = node.next) {
+                userIds.add(node.userId);
+            }
+            try {
+                filmService.applyLikes(pending.filmId, userIds);
+            } finally {
+                waiting.addAndGet(-userIds.size());
+            }
+        } finally {
+            pending.applying.unlock();
+        }
+    }
+
+    /**
+     * Likes of one film waiting to be applied. {@code queued} is cleared before a worker takes the
+     * stack, so a like pushed after that queues the film again.
+     */
+    private static final class Pending {
+        private final long filmId;
+        private final AtomicReference<Node> head = new AtomicReference<>();
+        private final AtomicBoolean queued = new AtomicBoolean();
+        private final ReentrantLock applying = new ReentrantLock();
+
+        Pending(long filmId) {
+            this.filmId = filmId;
+        }
+
+        void push(long userId) {
+            Node node = new Node(userId);
+            do {
+                node.next = head.get();
+            } while (!head.compareAndSet(node.next, node));
+        }
+    }
+
+    private static final class Node {
+        private final long userId;
+        private Node next;
+
+        Node(long userId) {
+            this.userId = userId;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package ru.yandex.practicum.filmorate.service;
+
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+
+import java.util.List;
+
+/**
+ * Bounds on the sizes clients may ask for, so no request can make the services allocate in
+ * proportion to a number it sent.
+ */
+public final class RequestLimits {
+    public static final int DEFAULT_COUNT = 10;
+    public static final int MAX_COUNT = 1_000;
+    public static final int MAX_PAGE_SIZE = 10_000;
+    public static final int MAX_BATCH_SIZE = 10_000;
+
+    private RequestLimits() {
+    }
+
+    /**
+     * The number of results to return for a {@code count} parameter: {@value #DEFAULT_COUNT} when
+     * missing or not positive, at most {@value #MAX_COUNT}.
+     */
+    public static int count(Integer count) {
+        return (count == null || count <= 0) ? DEFAULT_COUNT : Math.min(count, MAX_COUNT);
+    }
+
+    /**
+     * The number of items to put on a page for a {@code limit} parameter, at most
+     * {@value #MAX_PAGE_SIZE}; a limit that is not positive is rejected.
+     */
+    public static int pageSize(int limit) {
+        if (limit <= 0) {
+            throw new ValidationException("Limit must be positive");
+        }
+        return Math.min(limit, MAX_PAGE_SIZE);
+    }
+
+    /**
+     * Rejects a batch that is missing, empty or longer than {@value #MAX_BATCH_SIZE} items.
+     */
+    public static void checkBatchSize(List<?> batch) {
+        if (batch == null || batch.isEmpty()) {
+            throw new ValidationException("Batch cannot be empty");
+        }
+        if (batch.size() > MAX_BATCH_SIZE) {
+            throw new ValidationException("Batch cannot contain more than " + MAX_BATCH_SIZE + " items");
+        }
+    }
+}
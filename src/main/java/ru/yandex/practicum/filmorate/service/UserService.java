@@ -1,38 +1,122 @@
 package ru.yandex.practicum.filmorate.service;
 
+import io.micrometer.core.annotation.Timed;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.config.SuggestConfig;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.BatchResult;
 import ru.yandex.practicum.filmorate.model.FriendshipStatus;
 import ru.yandex.practicum.filmorate.model.User;
-import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.storage.user.FriendGraph;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserValidator;
+import ru.yandex.practicum.filmorate.util.TrigramIndex;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
 @Slf4j
+@Timed(value = "filmorate.service", percentiles = {0.5, 0.99}, histogram = true)
 @Service
 public class UserService {
-    private final InMemoryUserStorage userStorage;
+    private final UserStorage userStorage;
+    private final FriendGraph friendGraph;
+    private final JsonCache jsonCache;
+    private final TrigramIndex loginIndex;
 
-    public UserService(InMemoryUserStorage userStorage) {
+    public UserService(UserStorage userStorage, FriendGraph friendGraph, JsonCache jsonCache,
+                       @Qualifier(SuggestConfig.USER_LOGINS) TrigramIndex loginIndex) {
         this.userStorage = userStorage;
+        this.friendGraph = friendGraph;
+        this.jsonCache = jsonCache;
+        this.loginIndex = loginIndex;
+    }
+
+    /**
+     * Rebuilds the friend graph from storage. Runs on startup and again after the storage
+     * contents are replaced wholesale, e.g. restored from a snapshot.
+     */
+    @PostConstruct
+    public void rebuildIndexes() {
+        Collection<User> users = userStorage.getUsers();
+        friendGraph.rebuild(users);
+        for (User user : users) {
+            indexLogin(user);
+        }
+        jsonCache.invalidateUsers();
     }
 
     public Collection<User> getAllUsers() {
         return userStorage.getUsers();
     }
 
+    public List<User> getUsersPage(Long after, int limit) {
+        return userStorage.getUsers(after, RequestLimits.pageSize(limit));
+    }
+
     public User addUser(User user) {
-        return userStorage.addUser(user);
+        checkFriends(user);
+        User added = userStorage.addUser(user);
+        friendGraph.index(added);
+        indexLogin(added);
+        return added;
+    }
+
+    /**
+     * Validates every user on its own and stores the valid ones in a single storage call.
+     * Invalid users get a 400 result, users with a friend that does not exist a 404; neither
+     * stops the rest of the batch.
+     */
+    public List<BatchResult> addUsers(List<User> users) {
+        RequestLimits.checkBatchSize(users);
+        BatchResult[] results = new BatchResult[users.size()];
+        List<User> valid = new ArrayList<>(users.size());
+        List<Integer> positions = new ArrayList<>(users.size());
+        for (int i = 0; i < results.length; i++) {
+            User user = users.get(i);
+            try {
+                if (user == null) {
+                    throw new ValidationException("User is required");
+                }
+                UserValidator.validate(user);
+                checkFriends(user);
+                valid.add(user);
+                positions.add(i);
+            } catch (ValidationException e) {
+                results[i] = BatchResult.failed(i, 400, e.getMessage());
+            } catch (NotFoundException e) {
+                results[i] = BatchResult.failed(i, 404, e.getMessage());
+            }
+        }
+        List<User> added = userStorage.addUsers(valid);
+        for (User user : added) {
+            friendGraph.index(user);
+            indexLogin(user);
+        }
+        for (int i = 0; i < added.size(); i++) {
+            results[positions.get(i)] = BatchResult.created(positions.get(i), added.get(i).getId());
+        }
+        log.info("Batch of {} users: {} added", users.size(), added.size());
+        return Arrays.asList(results);
     }
 
     public User updateUser(User user) {
-        return userStorage.updateUser(user);
+        checkFriends(user);
+        User updated = userStorage.updateUser(user);
+        friendGraph.index(updated);
+        indexLogin(updated);
+        jsonCache.invalidateUser(updated.getId());
+        return updated;
     }
 
     public User getUserById(Long id) {
@@ -44,78 +128,127 @@ public class UserService {
             throw new ValidationException("User cannot add himself as a friend");
         }
 
-        User user = getUserById(userId);
-        User friend = getUserById(friendId);
-
-        user.addFriend(friendId, FriendshipStatus.PENDING);
-
-        if (friend.getFriends().containsKey(userId)) {
-            user.addFriend(friendId, FriendshipStatus.CONFIRMED);
-            friend.addFriend(userId, FriendshipStatus.CONFIRMED);
-            log.info("Friendship between {} and {} is confirmed", userId, friendId);
+        FriendshipStatus status = userStorage.addFriend(userId, friendId);
+        if (friendGraph.addLink(userId, friendId)) {
+            loginIndex.addScore(userId, 1);
+        }
+        jsonCache.invalidateUser(userId);
+        jsonCache.invalidateUser(friendId);
+        if (status == FriendshipStatus.CONFIRMED) {
+            log.debug("Friendship between {} and {} is confirmed", userId, friendId);
         } else {
-            log.info("User {} sent friend request to {}", userId, friendId);
+            log.debug("User {} sent friend request to {}", userId, friendId);
         }
-
-        log.info("User {} added friend {}", userId, friendId);
     }
 
     public void removeFriend(Long userId, Long friendId) {
-        User user = getUserById(userId);
-        User friend = getUserById(friendId);
-
-        if (user.getFriends().remove(friendId) == null) {
+        boolean removed = userStorage.removeFriend(userId, friendId);
+        if (friendGraph.removeLink(userId, friendId)) {
+            loginIndex.addScore(userId, -1);
+        }
+        if (friendGraph.removeLink(friendId, userId)) {
+            loginIndex.addScore(friendId, -1);
+        }
+        jsonCache.invalidateUser(userId);
+        jsonCache.invalidateUser(friendId);
+        if (!removed) {
             log.warn("User {} is not friend with {}", userId, friendId);
         }
-        friend.getFriends().remove(userId);
 
         log.info("User {} removed friend {}", userId, friendId);
     }
 
     public List<User> getFriends(Long userId) {
         User user = getUserById(userId);
-        List<User> friends = new ArrayList<>();
-
-        for (Long friendId : user.getFriendIds()) {
-            friends.add(getUserById(friendId));
-        }
-
-        return friends;
+        return userStorage.getUsersByIds(user.getFriendIds());
     }
 
     public List<User> getCommonFriends(Long userId1, Long userId2) {
         User user1 = getUserById(userId1);
         User user2 = getUserById(userId2);
 
-        Set<Long> commonFriendIds = new HashSet<>(user1.getFriendIds());
-        commonFriendIds.retainAll(user2.getFriendIds());
+        Set<Long> friends1 = user1.getFriendIds();
+        Set<Long> friends2 = user2.getFriendIds();
+        Set<Long> smaller = friends1.size() <= friends2.size() ? friends1 : friends2;
+        Set<Long> larger = smaller == friends1 ? friends2 : friends1;
 
-        List<User> commonFriends = new ArrayList<>();
-        for (Long friendId : commonFriendIds) {
-            commonFriends.add(getUserById(friendId));
+        List<Long> commonFriendIds = new ArrayList<>();
+        for (Long friendId : smaller) {
+            if (larger.contains(friendId)) {
+                commonFriendIds.add(friendId);
+            }
         }
 
-        return commonFriends;
+        return userStorage.getUsersByIds(commonFriendIds);
     }
 
-    public void confirmFriendRequest(Long userId, Long friendId) {
-        User user = getUserById(userId);
-        User friend = getUserById(friendId);
+    /**
+     * Friends of the user's friends that are not yet its friends, ranked by the number of mutual
+     * friends, then by id.
+     */
+    public List<User> getFriendSuggestions(Long userId, Integer count) {
+        getUserById(userId);
+        int limit = RequestLimits.count(count);
 
-        if (!user.getFriendIds().contains(friendId)) {
+        return userStorage.getUsersByIds(friendGraph.suggest(userId, limit));
+    }
+
+    /**
+     * Typeahead: users whose login starts with the query (or has words starting with each of its
+     * words), users with more friends first.
+     */
+    public List<User> suggestUsers(String query, Integer count) {
+        int limit = RequestLimits.count(count);
+        return userStorage.getUsersByIds(loginIndex.suggest(query, limit));
+    }
+
+    public void confirmFriendRequest(Long userId, Long friendId) {
+        if (!userStorage.confirmFriend(userId, friendId)) {
             throw new ValidationException("User is not friend with " + friendId);
         }
+        if (friendGraph.addLink(userId, friendId)) {
+            loginIndex.addScore(userId, 1);
+        }
+        if (friendGraph.addLink(friendId, userId)) {
+            loginIndex.addScore(friendId, 1);
+        }
+        jsonCache.invalidateUser(userId);
+        jsonCache.invalidateUser(friendId);
 
-        user.addFriend(friendId, FriendshipStatus.CONFIRMED);
-        friend.addFriend(userId, FriendshipStatus.CONFIRMED);
         log.info("User {} confirmed friend request from {}", userId, friendId);
     }
 
     public List<User> getPendingFriendRequest(Long userId) {
         User user = getUserById(userId);
-        return user.getFriends().entrySet().stream()
+        List<Long> pendingIds = user.getFriends().entrySet().stream()
                 .filter(entry -> entry.getValue().equals(FriendshipStatus.PENDING))
-                .map(entry -> getUserById(entry.getKey()))
+                .map(Map.Entry::getKey)
                 .collect(Collectors.toList());
+        return userStorage.getUsersByIds(pendingIds);
+    }
+
+    private void indexLogin(User user) {
+        loginIndex.put(user.getId(), user.getLogin(), friendGraph.getFriendsCount(user.getId()));
+    }
+
+    /**
+     * Friends given in a request body must be existing users: the friend graph is addressed by id.
+     */
+    private void checkFriends(User user) {
+        Set<Long> friends = user.getFriendIds();
+        if (friends.isEmpty()) {
+            return;
+        }
+        List<User> users = userStorage.getUsersByIds(friends);
+        if (users.size() == friends.size()) {
+            return;
+        }
+        Set<Long> existing = new HashSet<>();
+        users.forEach(friend -> existing.add(friend.getId()));
+        for (Long friendId : friends) {
+            if (!existing.contains(friendId)) {
+                throw NotFoundException.user(friendId);
+            }
+        }
     }
-}
\ No newline at end of file
+}
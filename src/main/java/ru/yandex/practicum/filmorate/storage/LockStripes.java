@@ -0,0 +1,60 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Fixed pool of locks addressed by entity id. Mutations of different entities rarely
+ * contend, and the pool size does not grow with the number of entities.
+ */
+public class LockStripes {
+    private final ReentrantLock[] locks;
+    private final int mask;
+
+    public LockStripes(int stripes) {
+        int size = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        locks = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        mask = size - 1;
+    }
+
+    public ReentrantLock forId(long id) {
+        return locks[index(id)];
+    }
+
+    public void lock(long id) {
+        forId(id).lock();
+    }
+
+    public void unlock(long id) {
+        forId(id).unlock();
+    }
+
+    /**
+     * Locks the stripes of two entities in stripe order so that concurrent
+     * pair operations (a -> b and b -> a) cannot deadlock.
+     */
+    public void lockPair(long first, long second) {
+        int a = Math.min(index(first), index(second));
+        int b = Math.max(index(first), index(second));
+        locks[a].lock();
+        if (b != a) {
+            locks[b].lock();
+        }
+    }
+
+    public void unlockPair(long first, long second) {
+        int a = Math.min(index(first), index(second));
+        int b = Math.max(index(first), index(second));
+        if (b != a) {
+            locks[b].unlock();
+        }
+        locks[a].unlock();
+    }
+
+    private int index(long id) {
+        long h = id * 0x9E3779B97F4A7C15L;
+        return (int) (h >>> 32) & mask;
+    }
+}
@@ -0,0 +1,151 @@
+package ru.yandex.practicum.filmorate.storage.cache;
+
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmLike;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.LikesDiff;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * {@link FilmStorage} decorator that serves {@link #getFilmById} and {@link #getFilmsByIds}
+ * from an {@link EntityCache}. Every mutation goes to the backing storage first and then drops
+ * the film from the cache, so the next read loads the new state. Scans are not cached.
+ */
+public class CachingFilmStorage implements FilmStorage {
+    private final FilmStorage delegate;
+    private final EntityCache<Film> cache;
+
+    public CachingFilmStorage(FilmStorage delegate, EntityCache<Film> cache) {
+        this.delegate = delegate;
+        this.cache = cache;
+    }
+
+    public EntityCache<Film> getCache() {
+        return cache;
+    }
+
+    @Override
+    public Collection<Film> getFilms() {
+        return delegate.getFilms();
+    }
+
+    @Override
+    public List<Film> getFilms(Long after, int limit) {
+        return delegate.getFilms(after, limit);
+    }
+
+    @Override
+    public Film addFilm(Film film) {
+        Film added = delegate.addFilm(film);
+        cache.invalidate(added.getId());
+        return added;
+    }
+
+    @Override
+    public List<Film> addFilms(List<Film> films) {
+        List<Film> added = delegate.addFilms(films);
+        added.forEach(film -> cache.invalidate(film.getId()));
+        return added;
+    }
+
+    @Override
+    public LikesDiff replaceFilm(Film film) {
+        try {
+            return delegate.replaceFilm(film);
+        } finally {
+            if (film.getId() != null) {
+                cache.invalidate(film.getId());
+            }
+        }
+    }
+
+    @Override
+    public Film getFilmById(Long id) {
+        return cache.get(id, delegate::getFilmById);
+    }
+
+    @Override
+    public List<Film> getFilmsByIds(Collection<Long> ids) {
+        return cache.getAll(ids, delegate::getFilmsByIds, Film::getId);
+    }
+
+    @Override
+    public boolean addLike(Long filmId, Long userId) {
+        try {
+            return delegate.addLike(filmId, userId);
+        } finally {
+            cache.invalidate(filmId);
+        }
+    }
+
+    @Override
+    public boolean removeLike(Long filmId, Long userId) {
+        try {
+            return delegate.removeLike(filmId, userId);
+        } finally {
+            cache.invalidate(filmId);
+        }
+    }
+
+    @Override
+    public boolean[] addLikes(List<FilmLike> likes) {
+        try {
+            return delegate.addLikes(likes);
+        } finally {
+            invalidateFilms(likes);
+        }
+    }
+
+    @Override
+    public boolean[] removeLikes(List<FilmLike> likes) {
+        try {
+            return delegate.removeLikes(likes);
+        } finally {
+            invalidateFilms(likes);
+        }
+    }
+
+    @Override
+    public List<Long> getLikes(Long filmId, Long after, int limit) {
+        return delegate.getLikes(filmId, after, limit);
+    }
+
+    @Override
+    public void addGenre(Long filmId, Genre genre) {
+        try {
+            delegate.addGenre(filmId, genre);
+        } finally {
+            cache.invalidate(filmId);
+        }
+    }
+
+    @Override
+    public void removeGenre(Long filmId, Genre genre) {
+        try {
+            delegate.removeGenre(filmId, genre);
+        } finally {
+            cache.invalidate(filmId);
+        }
+    }
+
+    @Override
+    public long getFilmsCount() {
+        return delegate.getFilmsCount();
+    }
+
+    @Override
+    public long getLikesCount() {
+        return delegate.getLikesCount();
+    }
+
+    private void invalidateFilms(List<FilmLike> likes) {
+        for (FilmLike like : likes) {
+            if (like.getFilmId() != null) {
+                cache.invalidate(like.getFilmId());
+            }
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package ru.yandex.practicum.filmorate.storage.cache;
+
+import ru.yandex.practicum.filmorate.model.FriendshipStatus;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * {@link UserStorage} decorator with the same read-through and invalidation rules as
+ * {@link CachingFilmStorage}. Friend mutations change both users, so both are dropped.
+ */
+public class CachingUserStorage implements UserStorage {
+    private final UserStorage delegate;
+    private final EntityCache<User> cache;
+
+    public CachingUserStorage(UserStorage delegate, EntityCache<User> cache) {
+        this.delegate = delegate;
+        this.cache = cache;
+    }
+
+    public EntityCache<User> getCache() {
+        return cache;
+    }
+
+    @Override
+    public Collection<User> getUsers() {
+        return delegate.getUsers();
+    }
+
+    @Override
+    public List<User> getUsers(Long after, int limit) {
+        return delegate.getUsers(after, limit);
+    }
+
+    @Override
+    public User addUser(User user) {
+        User added = delegate.addUser(user);
+        cache.invalidate(added.getId());
+        return added;
+    }
+
+    @Override
+    public List<User> addUsers(List<User> users) {
+        List<User> added = delegate.addUsers(users);
+        added.forEach(user -> cache.invalidate(user.getId()));
+        return added;
+    }
+
+    @Override
+    public User updateUser(User user) {
+        try {
+            return delegate.updateUser(user);
+        } finally {
+            if (user.getId() != null) {
+                cache.invalidate(user.getId());
+            }
+        }
+    }
+
+    @Override
+    public User getUserById(Long id) {
+        return cache.get(id, delegate::getUserById);
+    }
+
+    @Override
+    public List<User> getUsersByIds(Collection<Long> ids) {
+        return cache.getAll(ids, delegate::getUsersByIds, User::getId);
+    }
+
+    @Override
+    public FriendshipStatus addFriend(Long userId, Long friendId) {
+        try {
+            return delegate.addFriend(userId, friendId);
+        } finally {
+            invalidatePair(userId, friendId);
+        }
+    }
+
+    @Override
+    public boolean removeFriend(Long userId, Long friendId) {
+        try {
+            return delegate.removeFriend(userId, friendId);
+        } finally {
+            invalidatePair(userId, friendId);
+        }
+    }
+
+    @Override
+    public boolean confirmFriend(Long userId, Long friendId) {
+        try {
+            return delegate.confirmFriend(userId, friendId);
+        } finally {
+            invalidatePair(userId, friendId);
+        }
+    }
+
+    @Override
+    public long getUsersCount() {
+        return delegate.getUsersCount();
+    }
+
+    @Override
+    public long getFriendshipsCount() {
+        return delegate.getFriendshipsCount();
+    }
+
+    private void invalidatePair(Long userId, Long friendId) {
+        cache.invalidate(userId);
+        cache.invalidate(friendId);
+    }
+}
@@ -0,0 +1,238 @@
+package ru.yandex.practicum.filmorate.storage.cache;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.LongFunction;
+import java.util.function.LongSupplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * Bounded read-through cache of entities by id with size (LRU) and time-to-live eviction.
+ * <p>
+ * Keys are spread over segments, each an access-ordered {@link LinkedHashMap} behind its own lock,
+ * so the LRU bookkeeping of one hot key does not serialise unrelated reads. Loads run outside the
+ * segment lock. Every invalidation bumps the segment version, and a load only stores its result
+ * if the version is unchanged, so a value read before a concurrent write never outlives it.
+ */
+public class EntityCache<V> {
+    private final Segment<V>[] segments;
+    private final int mask;
+    private final long ttlNanos;
+    private final LongSupplier ticker;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public EntityCache(int maximumSize, Duration ttl) {
+        this(maximumSize, ttl, System::nanoTime);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public EntityCache(int maximumSize, Duration ttl, LongSupplier ticker) {
+        int count = Integer.highestOneBit(Math.max(1, Math.min(64, maximumSize / 16)));
+        segments = new Segment[count];
+        for (int i = 0; i < count; i++) {
+            segments[i] = new Segment<>(Math.max(1, maximumSize / count), evictions);
+        }
+        mask = count - 1;
+        this.ttlNanos = ttl.toNanos();
+        this.ticker = ticker;
+    }
+
+    /**
+     * Returns the cached value or loads, caches and returns it. Exceptions thrown by the loader
+     * (e.g. not found) propagate and nothing is cached.
+     */
+    public V get(long key, LongFunction<V> loader) {
+        Segment<V> segment = segment(key);
+        long version;
+        long now = ticker.getAsLong();
+        segment.lock.lock();
+        try {
+            V value = segment.lookup(key, now, ttlNanos);
+            if (value != null) {
+                hits.increment();
+                return value;
+            }
+            version = segment.version;
+        } finally {
+            segment.lock.unlock();
+        }
+        misses.increment();
+        V value = loader.apply(key);
+        segment.store(key, value, version, now);
+        return value;
+    }
+
+    /**
+     * Bulk variant of {@link #get}: cached values are taken as they are, the rest is loaded with a
+     * single {@code loader} call. The result follows the order of {@code keys} and skips keys the
+     * loader did not return.
+     */
+    public List<V> getAll(Collection<Long> keys, Function<List<Long>, List<V>> loader, ToLongFunction<V> keyOf) {
+        long now = ticker.getAsLong();
+        Map<Long, V> found = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        Map<Long, Long> versions = new HashMap<>();
+        for (Long key : keys) {
+            if (found.containsKey(key) || versions.containsKey(key)) {
+                continue;
+            }
+            Segment<V> segment = segment(key);
+            segment.lock.lock();
+            try {
+                V value = segment.lookup(key, now, ttlNanos);
+                if (value != null) {
+                    hits.increment();
+                    found.put(key, value);
+                } else {
+                    misses.increment();
+                    missing.add(key);
+                    versions.put(key, segment.version);
+                }
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+        if (!missing.isEmpty()) {
+            for (V value : loader.apply(missing)) {
+                long key = keyOf.applyAsLong(value);
+                found.put(key, value);
+                segment(key).store(key, value, versions.get(key), now);
+            }
+        }
+        List<V> result = new ArrayList<>(keys.size());
+        for (Long key : keys) {
+            V value = found.get(key);
+            if (value != null) {
+                result.add(value);
+            }
+        }
+        return result;
+    }
+
+    public void put(long key, V value) {
+        Segment<V> segment = segment(key);
+        segment.lock.lock();
+        try {
+            segment.entries.put(key, new Entry<>(value, ticker.getAsLong()));
+        } finally {
+            segment.lock.unlock();
+        }
+    }
+
+    public void invalidate(long key) {
+        Segment<V> segment = segment(key);
+        segment.lock.lock();
+        try {
+            segment.version++;
+            segment.entries.remove(key);
+        } finally {
+            segment.lock.unlock();
+        }
+    }
+
+    public void invalidateAll() {
+        for (Segment<V> segment : segments) {
+            segment.lock.lock();
+            try {
+                segment.version++;
+                segment.entries.clear();
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return entries dropped because the cache was full or their time-to-live had passed
+     */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public long size() {
+        long size = 0;
+        for (Segment<V> segment : segments) {
+            segment.lock.lock();
+            try {
+                size += segment.entries.size();
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+        return size;
+    }
+
+    private Segment<V> segment(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return segments[(int) (h >>> 32) & mask];
+    }
+
+    private record Entry<V>(V value, long loadedAt) {
+    }
+
+    private static final class Segment<V> {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final LinkedHashMap<Long, Entry<V>> entries;
+        private final LongAdder evictions;
+        private long version;
+
+        private Segment(int capacity, LongAdder evictions) {
+            this.evictions = evictions;
+            entries = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, Entry<V>> eldest) {
+                    if (size() > capacity) {
+                        evictions.increment();
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+
+        /**
+         * Called with the lock held; drops the entry if it has expired.
+         */
+        private V lookup(long key, long now, long ttlNanos) {
+            Entry<V> entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (now - entry.loadedAt() >= ttlNanos) {
+                entries.remove(key);
+                evictions.increment();
+                return null;
+            }
+            return entry.value();
+        }
+
+        private void store(long key, V value, long loadedVersion, long now) {
+            lock.lock();
+            try {
+                if (version == loadedVersion) {
+                    entries.put(key, new Entry<>(value, now));
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,346 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.GenreSet;
+import ru.yandex.practicum.filmorate.storage.LockStripes;
+import ru.yandex.practicum.filmorate.util.PersistentLongMap;
+import ru.yandex.practicum.filmorate.util.PersistentLongSet;
+import ru.yandex.practicum.filmorate.util.TopK;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongFunction;
+
+/**
+ * Films ordered by like count (descending, ties by id ascending), kept up to date on every
+ * like/unlike so that top-N queries do not have to sort the whole catalogue.
+ * Per-genre and per-release-year buckets answer filtered queries without a full scan: the
+ * smallest bucket of the filters is walked and each film in it is checked against the rest with
+ * one AND of its genre mask and a year comparison.
+ * <p>
+ * Writers are serialised per film through lock stripes; readers never block. A moved entry is
+ * inserted at its new position before the old one is removed, so a concurrent reader may see a
+ * film twice (skipped by id) but never miss it.
+ * <p>
+ * In snapshot-read mode the skip lists are replaced by published {@link Ranking} versions built
+ * from persistent sets: a writer derives the next version from the latest one and publishes it
+ * with a compare-and-set, and a reader walks a single version, which is a consistent
+ * point-in-time ordering. Films are then {@linkplain #refresh ranked by their latest version},
+ * which each entry keeps, so {@link #topFilms} returns every film with the like count it was
+ * ranked by.
+ */
+@Component
+public class FilmPopularityIndex {
+    private static final Comparator<Entry> ORDER = Comparator.comparingInt(Entry::likes).reversed()
+            .thenComparingLong(Entry::filmId);
+    private static final Genre[] GENRES = Genre.values();
+
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+    private final NavigableSet<Entry> all = new ConcurrentSkipListSet<>(ORDER);
+    private final Map<Genre, NavigableSet<Entry>> byGenre = new EnumMap<>(Genre.class);
+    private final Map<Integer, NavigableSet<Entry>> byYear = new ConcurrentHashMap<>();
+    private final LockStripes locks = new LockStripes(64);
+    private final AtomicReference<Ranking> ranking;
+
+    public FilmPopularityIndex() {
+        this(false);
+    }
+
+    @Autowired
+    public FilmPopularityIndex(@Value("${filmorate.snapshot-reads.enabled:false}") boolean snapshotReads) {
+        for (Genre genre : GENRES) {
+            byGenre.put(genre, new ConcurrentSkipListSet<>(ORDER));
+        }
+        ranking = snapshotReads ? new AtomicReference<>(Ranking.empty()) : null;
+    }
+
+    /**
+     * Indexes the film with the like count of its like set, replacing any entry it had.
+     */
+    public void index(Film film) {
+        locks.lock(film.getId());
+        try {
+            int likes = film.getLikes() == null ? 0 : film.getLikes().size();
+            replace(entries.get(film.getId()), entry(film, likes));
+        } finally {
+            locks.unlock(film.getId());
+        }
+    }
+
+    /**
+     * Applies a change of the film's genres or release year. An indexed film keeps its like
+     * count, which only {@link #changeLikes} moves, so a like counted while the film was being
+     * updated is not lost; a film not indexed yet is {@linkplain #index indexed}.
+     */
+    public void reindex(Film film) {
+        locks.lock(film.getId());
+        try {
+            Entry old = entries.get(film.getId());
+            if (old == null) {
+                index(film);
+                return;
+            }
+            replace(old, entry(film, old.likes()));
+        } finally {
+            locks.unlock(film.getId());
+        }
+    }
+
+    /**
+     * Snapshot-read mode: ranks the film by its latest version, looked up in {@code films} while
+     * the film's stripe is held, so the entries of a film follow the order of its versions.
+     */
+    public void refresh(long filmId, LongFunction<Film> films) {
+        locks.lock(filmId);
+        try {
+            Film film = films.apply(filmId);
+            replace(entries.get(filmId), entry(film, film.getLikes().size()));
+        } finally {
+            locks.unlock(filmId);
+        }
+    }
+
+    public boolean isSnapshotReads() {
+        return ranking != null;
+    }
+
+    public void incrementLikes(long filmId) {
+        changeLikes(filmId, 1);
+    }
+
+    public void decrementLikes(long filmId) {
+        changeLikes(filmId, -1);
+    }
+
+    public boolean contains(long filmId) {
+        return entries.containsKey(filmId);
+    }
+
+    public int getLikes(long filmId) {
+        Entry entry = entries.get(filmId);
+        return entry == null ? 0 : entry.likes();
+    }
+
+    /**
+     * Returns up to {@code count} film ids, most liked first. Either filter may be {@code null}.
+     */
+    public List<Long> top(int count, Genre genre, Integer year) {
+        return top(count, genre == null ? 0 : GenreSet.bit(genre), year);
+    }
+
+    /**
+     * Returns up to {@code count} ids of films that have every genre of the {@link GenreSet} mask
+     * {@code genres} (0 for any) and, unless {@code null}, were released in {@code year}, most
+     * liked first.
+     */
+    public List<Long> top(int count, int genres, Integer year) {
+        if (ranking != null) {
+            List<Entry> top = ranking.get().top(count, genres, year);
+            List<Long> result = new ArrayList<>(top.size());
+            top.forEach(entry -> result.add(entry.filmId()));
+            return result;
+        }
+        NavigableSet<Entry> source = all;
+        for (int bits = genres; bits != 0; bits &= bits - 1) {
+            NavigableSet<Entry> bucket = byGenre.get(GENRES[Integer.numberOfTrailingZeros(bits)]);
+            if (bucket.size() < source.size()) {
+                source = bucket;
+            }
+        }
+        if (year != null) {
+            NavigableSet<Entry> bucket = byYear.getOrDefault(year, Collections.emptyNavigableSet());
+            if (bucket.size() < source.size()) {
+                source = bucket;
+            }
+        }
+
+        List<Long> result = new ArrayList<>(Math.min(count, 64));
+        Set<Long> seen = new HashSet<>();
+        Iterator<Entry> iterator = source.iterator();
+        while (result.size() < count && iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if (entry.matches(genres, year) && seen.add(entry.filmId())) {
+                result.add(entry.filmId());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Snapshot-read mode: the films {@link #top} would return, as the versions they were ranked by,
+     * all taken from one version of the ranking.
+     */
+    public List<Film> topFilms(int count, int genres, Integer year) {
+        if (ranking == null) {
+            throw new IllegalStateException("Films are only kept in snapshot-read mode");
+        }
+        List<Entry> top = ranking.get().top(count, genres, year);
+        List<Film> result = new ArrayList<>(top.size());
+        top.forEach(entry -> result.add(entry.film()));
+        return result;
+    }
+
+    /**
+     * Applies a net change of several likes at once, e.g. the sum for one film in a batch.
+     */
+    public void changeLikes(long filmId, int delta) {
+        locks.lock(filmId);
+        try {
+            Entry old = entries.get(filmId);
+            if (old == null) {
+                return;
+            }
+            replace(old, new Entry(filmId, Math.max(0, old.likes() + delta), old.genres(), old.year(), old.film()));
+        } finally {
+            locks.unlock(filmId);
+        }
+    }
+
+    private Entry entry(Film film, int likes) {
+        Integer year = film.getReleaseDate() == null ? null : film.getReleaseDate().getYear();
+        return new Entry(film.getId(), likes, GenreSet.maskOf(film.getGenres()), year,
+                ranking == null ? null : film);
+    }
+
+    private void replace(Entry old, Entry entry) {
+        if (ranking != null) {
+            entries.put(entry.filmId(), entry);
+            ranking.updateAndGet(version -> version.replace(old, entry));
+            return;
+        }
+        if (old != null && ORDER.compare(old, entry) == 0) {
+            // same position in the ordering: the sets would treat both entries as one element
+            unlink(old);
+            link(entry);
+            return;
+        }
+        link(entry);
+        if (old != null) {
+            unlink(old);
+        }
+    }
+
+    private void link(Entry entry) {
+        entries.put(entry.filmId(), entry);
+        all.add(entry);
+        for (int bits = entry.genres(); bits != 0; bits &= bits - 1) {
+            byGenre.get(GENRES[Integer.numberOfTrailingZeros(bits)]).add(entry);
+        }
+        if (entry.year() != null) {
+            byYear.computeIfAbsent(entry.year(), y -> new ConcurrentSkipListSet<>(ORDER)).add(entry);
+        }
+    }
+
+    private void unlink(Entry entry) {
+        all.remove(entry);
+        for (int bits = entry.genres(); bits != 0; bits &= bits - 1) {
+            byGenre.get(GENRES[Integer.numberOfTrailingZeros(bits)]).remove(entry);
+        }
+        if (entry.year() != null) {
+            byYear.get(entry.year()).remove(entry);
+        }
+    }
+
+    /**
+     * {@code genres} is a {@link GenreSet} mask; {@code film} is the version the entry was made
+     * from, kept in snapshot-read mode only.
+     */
+    private record Entry(long filmId, int likes, int genres, Integer year, Film film) {
+        long key() {
+            return TopK.key(likes, filmId);
+        }
+
+        boolean matches(int wantedGenres, Integer wantedYear) {
+            return GenreSet.matches(genres, wantedGenres) && (wantedYear == null || wantedYear.equals(year));
+        }
+    }
+
+    /**
+     * One published version of the ordering, as {@link TopK#key} keys: the whole catalogue, each
+     * genre (by ordinal) and each release year, plus the entries by film id that the keys were
+     * made from. Never modified once published.
+     */
+    private record Ranking(PersistentLongSet all, PersistentLongSet[] byGenre,
+                           PersistentLongMap<PersistentLongSet> byYear, PersistentLongMap<Entry> entries) {
+        static Ranking empty() {
+            PersistentLongSet[] byGenre = new PersistentLongSet[GENRES.length];
+            Arrays.fill(byGenre, PersistentLongSet.empty());
+            return new Ranking(PersistentLongSet.empty(), byGenre, PersistentLongMap.empty(),
+                    PersistentLongMap.empty());
+        }
+
+        Ranking replace(Entry old, Entry entry) {
+            PersistentLongSet all = this.all;
+            PersistentLongSet[] byGenre = this.byGenre.clone();
+            PersistentLongMap<PersistentLongSet> byYear = this.byYear;
+            if (old != null) {
+                long key = old.key();
+                all = all.without(key);
+                for (int bits = old.genres(); bits != 0; bits &= bits - 1) {
+                    int genre = Integer.numberOfTrailingZeros(bits);
+                    byGenre[genre] = byGenre[genre].without(key);
+                }
+                if (old.year() != null) {
+                    byYear = byYear.with(old.year(), byYear.get(old.year()).without(key));
+                }
+            }
+            long key = entry.key();
+            all = all.with(key);
+            for (int bits = entry.genres(); bits != 0; bits &= bits - 1) {
+                int genre = Integer.numberOfTrailingZeros(bits);
+                byGenre[genre] = byGenre[genre].with(key);
+            }
+            if (entry.year() != null) {
+                PersistentLongSet bucket = byYear.get(entry.year());
+                byYear = byYear.with(entry.year(), (bucket == null ? PersistentLongSet.empty() : bucket).with(key));
+            }
+            return new Ranking(all, byGenre, byYear, entries.with(entry.filmId(), entry));
+        }
+
+        /**
+         * Same contract as {@link FilmPopularityIndex#top}: the smallest set of the filters is
+         * walked and each film checked against this version's entry.
+         */
+        List<Entry> top(int count, int genres, Integer year) {
+            PersistentLongSet source = all;
+            for (int bits = genres; bits != 0; bits &= bits - 1) {
+                PersistentLongSet bucket = byGenre[Integer.numberOfTrailingZeros(bits)];
+                if (bucket.size() < source.size()) {
+                    source = bucket;
+                }
+            }
+            if (year != null) {
+                PersistentLongSet bucket = byYear.get(year);
+                bucket = bucket == null ? PersistentLongSet.empty() : bucket;
+                if (bucket.size() < source.size()) {
+                    source = bucket;
+                }
+            }
+            List<Entry> result = new ArrayList<>(Math.min(count, 64));
+            PersistentLongSet.Cursor cursor = source.descending();
+            while (result.size() < count && cursor.hasNext()) {
+                Entry entry = entries.get(TopK.id(cursor.next()));
+                if (entry.matches(genres, year)) {
+                    result.add(entry);
+                }
+            }
+            return result;
+        }
+    }
+}
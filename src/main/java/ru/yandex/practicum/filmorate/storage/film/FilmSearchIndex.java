@@ -0,0 +1,162 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.GenreSet;
+import ru.yandex.practicum.filmorate.model.Rating;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Secondary indexes for film search: a bitmap of film ids per genre and per MPA rating, and
+ * bitmaps per release year in a sorted map so that a year range is a sub-map. A query ANDs the
+ * bitmaps of the given filters and walks the set bits from the cursor, so it never touches films
+ * that do not match; several genres are one bitmap AND each, 64 films per machine word. Film ids
+ * are used as bit positions and must fit in an {@code int}.
+ * <p>
+ * Writers take the write lock; queries combine the bitmaps under the read lock.
+ */
+@Component
+public class FilmSearchIndex {
+    private static final Genre[] GENRES = Genre.values();
+
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+    private final BitSet all = new BitSet();
+    private final Map<Genre, BitSet> byGenre = new EnumMap<>(Genre.class);
+    private final Map<Rating, BitSet> byRating = new EnumMap<>(Rating.class);
+    private final NavigableMap<Integer, BitSet> byYear = new TreeMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public FilmSearchIndex() {
+        for (Genre genre : GENRES) {
+            byGenre.put(genre, new BitSet());
+        }
+        for (Rating rating : Rating.values()) {
+            byRating.put(rating, new BitSet());
+        }
+    }
+
+    public void index(Film film) {
+        int genres = GenreSet.maskOf(film.getGenres());
+        Integer year = film.getReleaseDate() == null ? null : film.getReleaseDate().getYear();
+        String name = film.getName() == null ? "" : film.getName().toLowerCase(Locale.ROOT);
+        Entry entry = new Entry(genres, film.getMpa(), year, name);
+        int bit = Math.toIntExact(film.getId());
+        lock.writeLock().lock();
+        try {
+            Entry old = entries.put(film.getId(), entry);
+            if (old != null) {
+                update(old, bit, false);
+            }
+            update(entry, bit, true);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns up to {@code limit} ids of films greater than {@code after}, ascending, that match
+     * every given filter. {@code null} filters are ignored; the year bounds are inclusive and the
+     * name matches as a case-insensitive substring.
+     */
+    public List<Long> search(Genre genre, Rating mpa, Integer yearFrom, Integer yearTo, String name,
+                             long after, int limit) {
+        return search(genre == null ? 0 : GenreSet.bit(genre), mpa, yearFrom, yearTo, name, after, limit);
+    }
+
+    /**
+     * As {@link #search(Genre, Rating, Integer, Integer, String, long, int)}, for films that have
+     * every genre of the {@link GenreSet} mask {@code genres} (0 for any).
+     */
+    public List<Long> search(int genres, Rating mpa, Integer yearFrom, Integer yearTo, String name,
+                             long after, int limit) {
+        BitSet matching = null;
+        lock.readLock().lock();
+        try {
+            if (yearFrom != null || yearTo != null) {
+                matching = years(yearFrom, yearTo);
+            }
+            for (int bits = genres; bits != 0; bits &= bits - 1) {
+                matching = and(matching, byGenre.get(GENRES[Integer.numberOfTrailingZeros(bits)]));
+            }
+            if (mpa != null) {
+                matching = and(matching, byRating.get(mpa));
+            }
+            if (matching == null) {
+                matching = (BitSet) all.clone();
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        String needle = name == null || name.isBlank() ? null : name.toLowerCase(Locale.ROOT);
+        List<Long> result = new ArrayList<>(Math.min(limit, 1024));
+        int from = (int) Math.max(0, Math.min(after, Integer.MAX_VALUE - 1) + 1);
+        for (int bit = matching.nextSetBit(from); bit >= 0 && result.size() < limit;
+             bit = matching.nextSetBit(bit + 1)) {
+            if (needle != null) {
+                Entry entry = entries.get((long) bit);
+                if (entry == null || !entry.name().contains(needle)) {
+                    continue;
+                }
+            }
+            result.add((long) bit);
+        }
+        return result;
+    }
+
+    private static BitSet and(BitSet matching, BitSet filter) {
+        if (matching == null) {
+            return (BitSet) filter.clone();
+        }
+        matching.and(filter);
+        return matching;
+    }
+
+    private BitSet years(Integer yearFrom, Integer yearTo) {
+        NavigableMap<Integer, BitSet> range = byYear;
+        if (yearFrom != null) {
+            range = range.tailMap(yearFrom, true);
+        }
+        if (yearTo != null) {
+            range = range.headMap(yearTo, true);
+        }
+        BitSet union = new BitSet();
+        for (BitSet films : range.values()) {
+            union.or(films);
+        }
+        return union;
+    }
+
+    private void update(Entry entry, int bit, boolean value) {
+        all.set(bit, value);
+        for (int bits = entry.genres(); bits != 0; bits &= bits - 1) {
+            byGenre.get(GENRES[Integer.numberOfTrailingZeros(bits)]).set(bit, value);
+        }
+        if (entry.mpa() != null) {
+            byRating.get(entry.mpa()).set(bit, value);
+        }
+        if (entry.year() != null) {
+            BitSet films = byYear.computeIfAbsent(entry.year(), y -> new BitSet());
+            films.set(bit, value);
+            if (films.isEmpty()) {
+                byYear.remove(entry.year());
+            }
+        }
+    }
+
+    /**
+     * {@code genres} is a {@link GenreSet} mask.
+     */
+    private record Entry(int genres, Rating mpa, Integer year, String name) {
+    }
+}
@@ -1,14 +1,89 @@
 package ru.yandex.practicum.filmorate.storage.film;
 
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmLike;
+import ru.yandex.practicum.filmorate.model.Genre;
+
 import java.util.Collection;
+import java.util.List;
 
 public interface FilmStorage {
     Collection<Film> getFilms();
 
+    /**
+     * Returns up to {@code limit} films with ids greater than {@code after} (from the start if
+     * {@code null}), ordered by id. The id of the last element is the cursor for the next page.
+     */
+    List<Film> getFilms(Long after, int limit);
+
     Film addFilm(Film film);
 
-    Film updateFilm(Film film);
+    /**
+     * Adds many films in one pass. All films are validated before any is stored, so an invalid
+     * film rejects the whole call.
+     *
+     * @return the films with their new ids, in input order
+     */
+    List<Film> addFilms(List<Film> films);
+
+    /**
+     * Replaces the film. If its likes were not {@linkplain Film#isLikesProvided() provided}, the
+     * stored likes are kept.
+     */
+    default Film updateFilm(Film film) {
+        replaceFilm(film);
+        return film;
+    }
+
+    /**
+     * Replaces the film as {@link #updateFilm} does.
+     *
+     * @return the likes the update added and removed, taken under the same lock as the replacement;
+     * {@link LikesDiff#NONE} if the stored likes were kept
+     */
+    LikesDiff replaceFilm(Film film);
 
     Film getFilmById(Long id);
-}
\ No newline at end of file
+
+    /**
+     * Resolves many ids in one pass. The result follows the order of {@code ids};
+     * unknown ids are skipped instead of failing the whole lookup.
+     */
+    List<Film> getFilmsByIds(Collection<Long> ids);
+
+    /**
+     * @return {@code true} if the like was added, {@code false} if the user already liked the film
+     */
+    boolean addLike(Long filmId, Long userId);
+
+    /**
+     * @return {@code true} if the like was removed, {@code false} if there was no such like
+     */
+    boolean removeLike(Long filmId, Long userId);
+
+    /**
+     * Adds many likes in one pass. Every film must exist.
+     *
+     * @return for each like, in input order, whether it was added (as {@link #addLike})
+     */
+    boolean[] addLikes(List<FilmLike> likes);
+
+    /**
+     * @return for each like, in input order, whether it was removed (as {@link #removeLike})
+     */
+    boolean[] removeLikes(List<FilmLike> likes);
+
+    /**
+     * Returns up to {@code limit} ids of users who liked the film, greater than {@code after}
+     * (from the start if {@code null}), in ascending order.
+     */
+    List<Long> getLikes(Long filmId, Long after, int limit);
+
+    void addGenre(Long filmId, Genre genre);
+
+    void removeGenre(Long filmId, Genre genre);
+
+    long getFilmsCount();
+
+    long getLikesCount();
+}
@@ -0,0 +1,36 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.time.LocalDate;
+
+/**
+ * Checks shared by the storages and the batch endpoints; the limits are constants, so a valid
+ * film is checked without allocating.
+ */
+public final class FilmValidator {
+    public static final LocalDate CINEMA_BIRTHDAY = LocalDate.of(1895, 12, 28);
+    public static final int MAX_DESCRIPTION_LENGTH = 200;
+
+    private FilmValidator() {
+    }
+
+    public static void validate(Film film) {
+        if (film.getName() == null || film.getName().isBlank()) {
+            throw new ValidationException("Film name cannot be empty");
+        }
+        if (film.getDescription() != null && film.getDescription().length() > MAX_DESCRIPTION_LENGTH) {
+            throw new ValidationException("Description cannot be longer than 200 characters");
+        }
+        if (film.getReleaseDate() == null || film.getReleaseDate().isBefore(CINEMA_BIRTHDAY)) {
+            throw new ValidationException("Release date cannot be before 28.12.1895");
+        }
+        if (film.getDuration() == null || film.getDuration().toMinutes() <= 0) {
+            throw new ValidationException("Duration must be positive");
+        }
+        if (film.getMpa() == null) {
+            throw new ValidationException("MPA rating is required");
+        }
+    }
+}
@@ -1,72 +1,393 @@
 package ru.yandex.practicum.filmorate.storage.film;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
-import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmLike;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.storage.LockStripes;
+import ru.yandex.practicum.filmorate.storage.journal.JournalCodec;
+import ru.yandex.practicum.filmorate.storage.journal.StorageJournal;
+import ru.yandex.practicum.filmorate.util.LongHashSet;
+import ru.yandex.practicum.filmorate.util.PersistentLongMap;
 
-import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 @Slf4j
 @Component
+@Profile("!jdbc & !offheap")
 public class InMemoryFilmStorage implements FilmStorage {
-    private final Map<Long, Film> films = new HashMap<>();
-    private long currentId = 0;
+    private final Map<Long, Film> films = new ConcurrentHashMap<>();
+    private final AtomicLong currentId = new AtomicLong();
+    private final AtomicLong likesCount = new AtomicLong();
+    private final LockStripes locks = new LockStripes(64);
+    private volatile StorageJournal journal = StorageJournal.NONE;
+    private final AtomicReference<PersistentLongMap<Film>> snapshot;
+
+    public InMemoryFilmStorage() {
+        this(false);
+    }
+
+    /**
+     * With {@code snapshotReads} every change to the table also publishes a new immutable,
+     * structurally shared version of it (under the film's stripe, so the versions of one film follow
+     * the order of its changes), and list, page and batch reads walk the latest version without
+     * locks. A published film is never changed: a like or genre change copies the film (likes
+     * included), applies the change to the copy and publishes it, so every version keeps the films
+     * as they were when it was published.
+     */
+    @Autowired
+    public InMemoryFilmStorage(@Value("${filmorate.snapshot-reads.enabled:false}") boolean snapshotReads) {
+        snapshot = snapshotReads ? new AtomicReference<>(PersistentLongMap.empty()) : null;
+    }
+
+    /**
+     * Starts recording every mutation to {@code journal}. Records are appended while the film's
+     * stripe is held, so the journal order matches the order the changes were applied in;
+     * waiting for the record to become durable happens after the stripe is released.
+     */
+    public void setJournal(StorageJournal journal) {
+        this.journal = journal;
+    }
 
     @Override
     public Collection<Film> getFilms() {
-        log.info("Get request, films size: {}", films.size());
-        return films.values();
+        log.debug("Get request, films size: {}", films.size());
+        return snapshot == null ? films.values() : snapshot.get().values();
+    }
+
+    /**
+     * Ids are allocated sequentially and never reused, so a page is read by probing the hash map
+     * from the cursor upwards instead of keeping a second, ordered copy of the table.
+     */
+    @Override
+    public List<Film> getFilms(Long after, int limit) {
+        PersistentLongMap<Film> version = snapshot == null ? null : snapshot.get();
+        List<Film> page = new ArrayList<>(Math.min(limit, films.size()));
+        long last = currentId.get();
+        if (after != null && after >= last) {
+            return page;
+        }
+        for (long id = after == null ? 1 : Math.max(after, 0) + 1; id <= last && page.size() < limit; id++) {
+            Film film = version == null ? films.get(id) : version.get(id);
+            if (film != null) {
+                page.add(film);
+            }
+        }
+        return page;
     }
 
     @Override
     public Film addFilm(Film film) {
-        validateFilm(film);
-        film.setId(++currentId);
-        films.put(film.getId(), film);
-        log.info("Film added: {}", film);
+        FilmValidator.validate(film);
+        film.setId(currentId.incrementAndGet());
+        long ticket;
+        locks.lock(film.getId());
+        try {
+            // in the map before the record, so a snapshot taken after the record has it too
+            films.put(film.getId(), film);
+            publish(film);
+            likesCount.addAndGet(film.getLikes().size());
+            ticket = append(JournalCodec.ADD_FILM, film);
+        } finally {
+            locks.unlock(film.getId());
+        }
+        journal.awaitDurable(ticket);
+        log.info("Film {} added", film.getId());
         return film;
     }
 
+    /**
+     * Ids are reserved as one block and the journal is waited on once, after the last film.
+     */
     @Override
-    public Film updateFilm(Film film) {
+    public List<Film> addFilms(List<Film> batch) {
+        batch.forEach(FilmValidator::validate);
+        long id = currentId.getAndAdd(batch.size());
+        long ticket = 0;
+        int likes = 0;
+        for (Film film : batch) {
+            film.setId(++id);
+            locks.lock(id);
+            try {
+                films.put(id, film);
+                publish(film);
+                ticket = append(JournalCodec.ADD_FILM, film);
+            } finally {
+                locks.unlock(id);
+            }
+            likes += film.getLikes().size();
+        }
+        likesCount.addAndGet(likes);
+        journal.awaitDurable(ticket);
+        log.info("Films added: {}", batch.size());
+        return batch;
+    }
+
+    /**
+     * Puts a film read back from a snapshot or journal, keeping its id. Does not validate and
+     * does not journal.
+     */
+    public void restoreFilm(Film film) {
+        locks.lock(film.getId());
+        try {
+            Film old = films.put(film.getId(), film);
+            publish(film);
+            likesCount.addAndGet(film.getLikes().size() - (old == null ? 0 : old.getLikes().size()));
+            currentId.accumulateAndGet(film.getId(), Math::max);
+        } finally {
+            locks.unlock(film.getId());
+        }
+    }
+
+    @Override
+    public LikesDiff replaceFilm(Film film) {
         if (film.getId() == null || !films.containsKey(film.getId())) {
             throw new NotFoundException("Film ID not found");
         }
-        validateFilm(film);
-        films.put(film.getId(), film);
-        log.info("Film updated: {}", film);
-        return film;
+        FilmValidator.validate(film);
+        long ticket;
+        LikesDiff diff = LikesDiff.NONE;
+        locks.lock(film.getId());
+        try {
+            Film old = films.get(film.getId());
+            if (old == null) {
+                throw new NotFoundException("Film ID not found");
+            }
+            if (film.isLikesProvided()) {
+                diff = LikesDiff.between(old.getLikes(), film.getLikes());
+            } else {
+                film.setLikes(old.getLikes());
+            }
+            films.put(film.getId(), film);
+            publish(film);
+            likesCount.addAndGet(film.getLikes().size() - old.getLikes().size());
+            ticket = append(JournalCodec.UPDATE_FILM, film);
+        } finally {
+            locks.unlock(film.getId());
+        }
+        journal.awaitDurable(ticket);
+        log.info("Film {} updated", film.getId());
+        return diff;
     }
 
     @Override
     public Film getFilmById(Long id) {
         Film film = films.get(id);
         if (film == null) {
-            throw new NotFoundException("Film with ID " + id + " not found");
+            throw NotFoundException.film(id);
         }
         return film;
     }
 
-    private void validateFilm(Film film) {
-        if (film.getName() == null || film.getName().isBlank()) {
-            throw new ValidationException("Film name cannot be empty");
+    @Override
+    public List<Film> getFilmsByIds(Collection<Long> ids) {
+        PersistentLongMap<Film> version = snapshot == null ? null : snapshot.get();
+        List<Film> result = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Film film = version == null ? films.get(id) : version.get(id);
+            if (film != null) {
+                result.add(film);
+            }
         }
-        if (film.getDescription() != null && film.getDescription().length() > 200) {
-            throw new ValidationException("Description cannot be longer than 200 characters");
+        return result;
+    }
+
+    @Override
+    public boolean addLike(Long filmId, Long userId) {
+        long ticket;
+        locks.lock(filmId);
+        try {
+            Film film = getFilmById(filmId);
+            if (film.getLikes().contains(userId)) {
+                return false;
+            }
+            film = editable(film);
+            film.getLikes().add(userId);
+            store(film);
+            likesCount.incrementAndGet();
+            ticket = journal.append(JournalCodec.link(JournalCodec.LIKE, filmId, userId));
+        } finally {
+            locks.unlock(filmId);
         }
-        if (film.getReleaseDate() == null || film.getReleaseDate().isBefore(LocalDate.of(1895, 12, 28))) {
-            throw new ValidationException("Release date cannot be before 28.12.1895");
+        journal.awaitDurable(ticket);
+        return true;
+    }
+
+    @Override
+    public boolean removeLike(Long filmId, Long userId) {
+        long ticket;
+        locks.lock(filmId);
+        try {
+            Film film = getFilmById(filmId);
+            if (!film.getLikes().contains(userId)) {
+                return false;
+            }
+            film = editable(film);
+            film.getLikes().remove(userId);
+            store(film);
+            likesCount.decrementAndGet();
+            ticket = journal.append(JournalCodec.link(JournalCodec.UNLIKE, filmId, userId));
+        } finally {
+            locks.unlock(filmId);
         }
-        if (film.getDuration() == null || film.getDuration().toMinutes() <= 0) {
-            throw new ValidationException("Duration must be positive");
+        journal.awaitDurable(ticket);
+        return true;
+    }
+
+    @Override
+    public boolean[] addLikes(List<FilmLike> likes) {
+        return changeLikes(likes, true);
+    }
+
+    @Override
+    public boolean[] removeLikes(List<FilmLike> likes) {
+        return changeLikes(likes, false);
+    }
+
+    @Override
+    public List<Long> getLikes(Long filmId, Long after, int limit) {
+        long[] page = ((LongHashSet) getFilmById(filmId).getLikes())
+                .pageAfter(after == null ? Long.MIN_VALUE : after, limit);
+        List<Long> result = new ArrayList<>(page.length);
+        for (long userId : page) {
+            result.add(userId);
+        }
+        return result;
+    }
+
+    @Override
+    public void addGenre(Long filmId, Genre genre) {
+        long ticket;
+        locks.lock(filmId);
+        try {
+            Film film = editable(getFilmById(filmId));
+            film.getGenres().add(genre);
+            store(film);
+            ticket = journal.append(JournalCodec.genre(JournalCodec.ADD_GENRE, filmId, genre));
+        } finally {
+            locks.unlock(filmId);
+        }
+        journal.awaitDurable(ticket);
+    }
+
+    @Override
+    public void removeGenre(Long filmId, Genre genre) {
+        long ticket;
+        locks.lock(filmId);
+        try {
+            Film film = editable(getFilmById(filmId));
+            film.getGenres().remove(genre);
+            store(film);
+            ticket = journal.append(JournalCodec.genre(JournalCodec.REMOVE_GENRE, filmId, genre));
+        } finally {
+            locks.unlock(filmId);
+        }
+        journal.awaitDurable(ticket);
+    }
+
+    /**
+     * Consecutive likes of the same film (how {@code LikeIngest} hands them over) are changed under
+     * one acquisition of the film's lock.
+     */
+    private boolean[] changeLikes(List<FilmLike> likes, boolean add) {
+        boolean[] changed = new boolean[likes.size()];
+        long ticket = 0;
+        int delta = 0;
+        try {
+            int i = 0;
+            while (i < changed.length) {
+                long filmId = likes.get(i).getFilmId();
+                locks.lock(filmId);
+                int before = delta;
+                Film film = null;
+                try {
+                    film = editable(getFilmById(filmId));
+                    Set<Long> filmLikes = film.getLikes();
+                    do {
+                        long userId = likes.get(i).getUserId();
+                        changed[i] = add ? filmLikes.add(userId) : filmLikes.remove(userId);
+                        if (changed[i]) {
+                            delta++;
+                            ticket = journal.append(JournalCodec.link(add ? JournalCodec.LIKE : JournalCodec.UNLIKE,
+                                    filmId, userId));
+                        }
+                        i++;
+                    } while (i < changed.length && likes.get(i).getFilmId() == filmId);
+                } finally {
+                    if (delta != before) {
+                        store(film);
+                    }
+                    locks.unlock(filmId);
+                }
+            }
+        } finally {
+            likesCount.addAndGet(add ? delta : -delta);
+            journal.awaitDurable(ticket);
+        }
+        return changed;
+    }
+
+    @Override
+    public long getFilmsCount() {
+        return films.size();
+    }
+
+    @Override
+    public long getLikesCount() {
+        return likesCount.get();
+    }
+
+    /**
+     * Encodes the film only when the journal keeps records; the encoding is the only allocation
+     * left on the add and update paths.
+     */
+    private long append(byte type, Film film) {
+        return journal.isEnabled() ? journal.append(JournalCodec.film(type, film)) : 0;
+    }
+
+    /**
+     * The film to apply a change to: the stored one, or with snapshot reads a copy that
+     * {@link #store} then puts in its place, so a published film is never changed.
+     */
+    private Film editable(Film film) {
+        return snapshot == null ? film : copyOf(film);
+    }
+
+    private void store(Film film) {
+        if (snapshot != null) {
+            films.put(film.getId(), film);
+            publish(film);
         }
-        if (film.getMpa() == null) {
-            throw new ValidationException("MPA rating is required");
+    }
+
+    private static Film copyOf(Film film) {
+        Film copy = new Film();
+        copy.setId(film.getId());
+        copy.setName(film.getName());
+        copy.setDescription(film.getDescription());
+        copy.setReleaseDate(film.getReleaseDate());
+        copy.setDuration(film.getDuration());
+        copy.setMpa(film.getMpa());
+        copy.setGenres(film.getGenres());
+        copy.setLikes(film.getLikes());
+        return copy;
+    }
+
+    private void publish(Film film) {
+        if (snapshot != null) {
+            snapshot.updateAndGet(version -> version.with(film.getId(), film));
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,357 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmLike;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Rating;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@Slf4j
+@Component
+@Profile("jdbc")
+public class JdbcFilmStorage implements FilmStorage {
+    // genres are collapsed per film in a derived table, so a film yields one row per like, not likes x genres
+    private static final String SELECT_FILMS = "SELECT f.id, f.name, f.description, f.release_date, f.duration, "
+            + "f.mpa_rating, g.genre_ids, l.user_id "
+            + "FROM films f "
+            + "LEFT JOIN (SELECT film_id, LISTAGG(CAST(genre_id AS VARCHAR), ',') AS genre_ids "
+            + "FROM film_genres GROUP BY film_id) g ON g.film_id = f.id "
+            + "LEFT JOIN likes l ON l.film_id = f.id ";
+
+    private static final ResultSetExtractor<Collection<Film>> FILMS_EXTRACTOR = rs -> {
+        Map<Long, Film> films = new LinkedHashMap<>();
+        Genre[] genres = Genre.values();
+        while (rs.next()) {
+            long id = rs.getLong("id");
+            Film film = films.get(id);
+            if (film == null) {
+                film = new Film();
+                film.setId(id);
+                film.setName(rs.getString("name"));
+                film.setDescription(rs.getString("description"));
+                Date releaseDate = rs.getDate("release_date");
+                film.setReleaseDate(releaseDate == null ? null : releaseDate.toLocalDate());
+                film.setDuration(Duration.ofMinutes(rs.getInt("duration")));
+                String mpa = rs.getString("mpa_rating");
+                film.setMpa(mpa == null ? null : Rating.valueOf(mpa));
+                String genreIds = rs.getString("genre_ids");
+                if (genreIds != null) {
+                    for (String genreId : genreIds.split(",")) {
+                        film.getGenres().add(genres[Integer.parseInt(genreId) - 1]);
+                    }
+                }
+                films.put(id, film);
+            }
+            long userId = rs.getLong("user_id");
+            if (!rs.wasNull()) {
+                film.getLikes().add(userId);
+            }
+        }
+        return films.values();
+    };
+
+    private static final String INSERT_FILM = "INSERT INTO films "
+            + "(name, description, release_date, duration, mpa_rating) VALUES (?, ?, ?, ?, ?)";
+    private static final String INSERT_LIKE = "INSERT INTO likes (film_id, user_id) SELECT ?, ? WHERE NOT EXISTS "
+            + "(SELECT 1 FROM likes WHERE film_id = ? AND user_id = ?)";
+    private static final String DELETE_LIKE = "DELETE FROM likes WHERE film_id = ? AND user_id = ?";
+
+    private static final int IN_CLAUSE_CHUNK = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public JdbcFilmStorage(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public Collection<Film> getFilms() {
+        Collection<Film> films = jdbcTemplate.query(SELECT_FILMS + "ORDER BY f.id", FILMS_EXTRACTOR);
+        log.debug("Get request, films size: {}", films.size());
+        return films;
+    }
+
+    @Override
+    public List<Film> getFilms(Long after, int limit) {
+        // the page is cut on the base table; the outer join would otherwise count relation rows
+        return new ArrayList<>(jdbcTemplate.query(SELECT_FILMS + "WHERE f.id IN "
+                        + "(SELECT id FROM films WHERE id > ? ORDER BY id LIMIT ?) ORDER BY f.id",
+                FILMS_EXTRACTOR, after == null ? 0 : after, limit));
+    }
+
+    @Override
+    @Transactional
+    public Film addFilm(Film film) {
+        FilmValidator.validate(film);
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement(INSERT_FILM, new String[]{"id"});
+            bindFilm(ps, film);
+            return ps;
+        }, keyHolder);
+        film.setId(keyHolder.getKeyAs(Long.class));
+        insertRelations(List.of(film), true);
+        log.info("Film {} added", film.getId());
+        return film;
+    }
+
+    /**
+     * One batched insert for the films and one per relation table, all in one transaction.
+     */
+    @Override
+    @Transactional
+    public List<Film> addFilms(List<Film> films) {
+        films.forEach(FilmValidator::validate);
+        if (films.isEmpty()) {
+            return films;
+        }
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(connection -> connection.prepareStatement(INSERT_FILM, new String[]{"id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        bindFilm(ps, films.get(i));
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return films.size();
+                    }
+                }, keyHolder);
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        for (int i = 0; i < films.size(); i++) {
+            films.get(i).setId(((Number) keys.get(i).values().iterator().next()).longValue());
+        }
+        insertRelations(films, true);
+        log.info("Films added: {}", films.size());
+        return films;
+    }
+
+    @Override
+    @Transactional
+    public LikesDiff replaceFilm(Film film) {
+        if (film.getId() == null || !exists(film.getId())) {
+            throw new NotFoundException("Film ID not found");
+        }
+        FilmValidator.validate(film);
+        jdbcTemplate.update("UPDATE films SET name = ?, description = ?, release_date = ?, duration = ?, "
+                        + "mpa_rating = ? WHERE id = ?",
+                film.getName(), film.getDescription(), Date.valueOf(film.getReleaseDate()),
+                film.getDuration().toMinutes(), film.getMpa().name(), film.getId());
+        jdbcTemplate.update("DELETE FROM film_genres WHERE film_id = ?", film.getId());
+        boolean replaceLikes = film.isLikesProvided();
+        Set<Long> stored = new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT user_id FROM likes WHERE film_id = ?", Long.class, film.getId()));
+        LikesDiff diff = LikesDiff.NONE;
+        if (replaceLikes) {
+            diff = LikesDiff.between(stored, film.getLikes());
+            jdbcTemplate.update("DELETE FROM likes WHERE film_id = ?", film.getId());
+        } else {
+            film.setLikes(stored);
+        }
+        insertRelations(List.of(film), replaceLikes);
+        log.info("Film {} updated", film.getId());
+        return diff;
+    }
+
+    @Override
+    public Film getFilmById(Long id) {
+        Collection<Film> films = jdbcTemplate.query(SELECT_FILMS + "WHERE f.id = ?", FILMS_EXTRACTOR, id);
+        if (films.isEmpty()) {
+            throw NotFoundException.film(id);
+        }
+        return films.iterator().next();
+    }
+
+    @Override
+    public List<Film> getFilmsByIds(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        List<Long> idList = new ArrayList<>(ids);
+        Map<Long, Film> found = new HashMap<>();
+        for (int from = 0; from < idList.size(); from += IN_CLAUSE_CHUNK) {
+            List<Long> chunk = idList.subList(from, Math.min(from + IN_CLAUSE_CHUNK, idList.size()));
+            String placeholders = String.join(", ", Collections.nCopies(chunk.size(), "?"));
+            Collection<Film> films = jdbcTemplate.query(SELECT_FILMS + "WHERE f.id IN (" + placeholders + ")",
+                    FILMS_EXTRACTOR, chunk.toArray());
+            for (Film film : films) {
+                found.put(film.getId(), film);
+            }
+        }
+        List<Film> result = new ArrayList<>(found.size());
+        for (Long id : idList) {
+            Film film = found.get(id);
+            if (film != null) {
+                result.add(film);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    @Transactional
+    public boolean addLike(Long filmId, Long userId) {
+        requireExists(filmId);
+        return jdbcTemplate.update(INSERT_LIKE, filmId, userId, filmId, userId) > 0;
+    }
+
+    @Override
+    @Transactional
+    public boolean removeLike(Long filmId, Long userId) {
+        requireExists(filmId);
+        return jdbcTemplate.update(DELETE_LIKE, filmId, userId) > 0;
+    }
+
+    @Override
+    @Transactional
+    public boolean[] addLikes(List<FilmLike> likes) {
+        List<Object[]> rows = new ArrayList<>(likes.size());
+        for (FilmLike like : likes) {
+            rows.add(new Object[]{like.getFilmId(), like.getUserId(), like.getFilmId(), like.getUserId()});
+        }
+        return applyLikes(likes, INSERT_LIKE, rows);
+    }
+
+    @Override
+    @Transactional
+    public boolean[] removeLikes(List<FilmLike> likes) {
+        List<Object[]> rows = new ArrayList<>(likes.size());
+        for (FilmLike like : likes) {
+            rows.add(new Object[]{like.getFilmId(), like.getUserId()});
+        }
+        return applyLikes(likes, DELETE_LIKE, rows);
+    }
+
+    @Override
+    public List<Long> getLikes(Long filmId, Long after, int limit) {
+        requireExists(filmId);
+        return jdbcTemplate.queryForList("SELECT user_id FROM likes WHERE film_id = ? AND user_id > ? "
+                + "ORDER BY user_id LIMIT ?", Long.class, filmId, after == null ? Long.MIN_VALUE : after, limit);
+    }
+
+    @Override
+    @Transactional
+    public void addGenre(Long filmId, Genre genre) {
+        requireExists(filmId);
+        jdbcTemplate.update("MERGE INTO film_genres (film_id, genre_id) KEY (film_id, genre_id) VALUES (?, ?)",
+                filmId, genreId(genre));
+    }
+
+    @Override
+    @Transactional
+    public void removeGenre(Long filmId, Genre genre) {
+        requireExists(filmId);
+        jdbcTemplate.update("DELETE FROM film_genres WHERE film_id = ? AND genre_id = ?", filmId, genreId(genre));
+    }
+
+    @Override
+    public long getFilmsCount() {
+        return count("SELECT COUNT(*) FROM films");
+    }
+
+    @Override
+    public long getLikesCount() {
+        return count("SELECT COUNT(*) FROM likes");
+    }
+
+    private boolean[] applyLikes(List<FilmLike> likes, String sql, List<Object[]> rows) {
+        Set<Long> filmIds = new HashSet<>();
+        for (FilmLike like : likes) {
+            filmIds.add(like.getFilmId());
+        }
+        requireAllExist(new ArrayList<>(filmIds));
+        int[] counts = likes.isEmpty() ? new int[0] : jdbcTemplate.batchUpdate(sql, rows);
+        boolean[] changed = new boolean[counts.length];
+        for (int i = 0; i < counts.length; i++) {
+            changed[i] = counts[i] > 0;
+        }
+        return changed;
+    }
+
+    private static void bindFilm(PreparedStatement ps, Film film) throws SQLException {
+        ps.setString(1, film.getName());
+        ps.setString(2, film.getDescription());
+        ps.setDate(3, Date.valueOf(film.getReleaseDate()));
+        ps.setLong(4, film.getDuration().toMinutes());
+        ps.setString(5, film.getMpa().name());
+    }
+
+    private void insertRelations(List<Film> films, boolean withLikes) {
+        List<Object[]> genres = new ArrayList<>();
+        List<Object[]> likes = new ArrayList<>();
+        for (Film film : films) {
+            for (Genre genre : film.getGenres()) {
+                genres.add(new Object[]{film.getId(), genreId(genre)});
+            }
+            if (withLikes) {
+                for (Long userId : film.getLikes()) {
+                    likes.add(new Object[]{film.getId(), userId});
+                }
+            }
+        }
+        if (!genres.isEmpty()) {
+            jdbcTemplate.batchUpdate("INSERT INTO film_genres (film_id, genre_id) VALUES (?, ?)", genres);
+        }
+        if (!likes.isEmpty()) {
+            jdbcTemplate.batchUpdate("INSERT INTO likes (film_id, user_id) VALUES (?, ?)", likes);
+        }
+    }
+
+    private boolean exists(Long id) {
+        Integer count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM films WHERE id = ?", Integer.class, id);
+        return count != null && count > 0;
+    }
+
+    private void requireExists(Long id) {
+        if (!exists(id)) {
+            throw NotFoundException.film(id);
+        }
+    }
+
+    private void requireAllExist(List<Long> ids) {
+        for (int from = 0; from < ids.size(); from += IN_CLAUSE_CHUNK) {
+            List<Long> chunk = ids.subList(from, Math.min(from + IN_CLAUSE_CHUNK, ids.size()));
+            String placeholders = String.join(", ", Collections.nCopies(chunk.size(), "?"));
+            Set<Long> found = new HashSet<>(jdbcTemplate.queryForList(
+                    "SELECT id FROM films WHERE id IN (" + placeholders + ")", Long.class, chunk.toArray()));
+            for (Long id : chunk) {
+                if (!found.contains(id)) {
+                    throw NotFoundException.film(id);
+                }
+            }
+        }
+    }
+
+    private static int genreId(Genre genre) {
+        return genre.ordinal() + 1;
+    }
+
+    private long count(String sql) {
+        Long count = jdbcTemplate.queryForObject(sql, Long.class);
+        return count == null ? 0 : count;
+    }
+}
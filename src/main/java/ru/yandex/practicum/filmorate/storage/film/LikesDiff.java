@@ -0,0 +1,49 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import ru.yandex.practicum.filmorate.util.LongHashSet;
+
+import java.util.Arrays;
+import java.util.Set;
+
+/**
+ * The likes an update added to and removed from a film. A storage takes it under the film's lock,
+ * so likes given or withdrawn concurrently with the update are not part of it.
+ */
+public record LikesDiff(long[] added, long[] removed) {
+    public static final LikesDiff NONE = new LikesDiff(new long[0], new long[0]);
+
+    public static LikesDiff between(Set<Long> before, Set<Long> after) {
+        long[] added = missing(after, before);
+        long[] removed = missing(before, after);
+        return added.length == 0 && removed.length == 0 ? NONE : new LikesDiff(added, removed);
+    }
+
+    private static long[] missing(Set<Long> from, Set<Long> in) {
+        long[] ids = ids(from);
+        int count = 0;
+        for (long id : ids) {
+            if (!contains(in, id)) {
+                ids[count++] = id;
+            }
+        }
+        return Arrays.copyOf(ids, count);
+    }
+
+    private static long[] ids(Set<Long> likes) {
+        if (likes instanceof LongHashSet set) {
+            return set.toLongArray();
+        }
+        return likes.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private static boolean contains(Set<Long> likes, long id) {
+        return likes instanceof LongHashSet set ? set.contains(id) : likes.contains(id);
+    }
+
+    /**
+     * How much the update changed the film's like count.
+     */
+    public int countChange() {
+        return added.length - removed.length;
+    }
+}
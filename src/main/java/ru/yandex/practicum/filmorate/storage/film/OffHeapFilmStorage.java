@@ -0,0 +1,581 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmLike;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.GenreSet;
+import ru.yandex.practicum.filmorate.model.Rating;
+import ru.yandex.practicum.filmorate.storage.LockStripes;
+import ru.yandex.practicum.filmorate.util.LongHashSet;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Film catalogue kept outside the Java heap, selected with the {@code offheap} profile, so that
+ * tens of millions of films do not turn into an object graph the collector has to trace.
+ * <p>
+ * Films live in segments of {@value #SEGMENT} rows, each one direct buffer laid out column by
+ * column: id, release epoch-day, name and description references, duration in seconds (the unit
+ * the API uses), like count, MPA ordinal and genre bitmask, 42 bytes a film. Ids are sequential,
+ * so a film's row is its id minus one. Names and descriptions are UTF-8 in an append-only arena
+ * of 64 MB direct chunks; an update that fits reuses the old bytes, a longer one appends.
+ * The user ids of a film's likes stay on the heap in a {@link LongHashSet} per row, created on
+ * the first like, since they are needed for duplicate checks and paging.
+ * <p>
+ * {@link Film} objects are built only when a film is read, under the film's lock stripe, which
+ * is also what makes a row's columns visible together. There is no journal, so the storage
+ * refuses to start with {@code filmorate.persistence.enabled=true}.
+ */
+@Slf4j
+@Component
+@Profile("offheap")
+public class OffHeapFilmStorage implements FilmStorage {
+    private static final int SEGMENT_BITS = 14;
+    private static final int SEGMENT = 1 << SEGMENT_BITS;
+    private static final int ID = 0;
+    private static final int RELEASE = 8 * SEGMENT;
+    private static final int NAME = 16 * SEGMENT;
+    private static final int DESCRIPTION = 24 * SEGMENT;
+    private static final int DURATION = 32 * SEGMENT;
+    private static final int LIKES = 36 * SEGMENT;
+    private static final int MPA = 40 * SEGMENT;
+    private static final int GENRES = 41 * SEGMENT;
+    private static final int ROW_BYTES = 42;
+    private static final long NO_DATE = Long.MIN_VALUE;
+    private static final int NO_DURATION = Integer.MIN_VALUE;
+    private static final Rating[] RATINGS = Rating.values();
+
+    private final AtomicLong currentId = new AtomicLong();
+    private final AtomicLong filmsCount = new AtomicLong();
+    private final AtomicLong likesCount = new AtomicLong();
+    private final LockStripes locks = new LockStripes(64);
+    private final ReentrantLock growLock = new ReentrantLock();
+    private final TextArena texts = new TextArena();
+    private volatile Segment[] segments = new Segment[0];
+
+    public OffHeapFilmStorage() {
+        this(false);
+    }
+
+    @Autowired
+    public OffHeapFilmStorage(@Value("${filmorate.persistence.enabled:false}") boolean persistence) {
+        if (persistence) {
+            throw new IllegalStateException("filmorate.persistence.enabled is not supported with the offheap profile");
+        }
+    }
+
+    @Override
+    public Collection<Film> getFilms() {
+        log.debug("Get request, films size: {}", filmsCount.get());
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<Film> iterator() {
+                return new Films();
+            }
+
+            @Override
+            public int size() {
+                return (int) Math.min(Integer.MAX_VALUE, filmsCount.get());
+            }
+        };
+    }
+
+    @Override
+    public List<Film> getFilms(Long after, int limit) {
+        List<Film> page = new ArrayList<>(Math.min(limit, 64));
+        long last = currentId.get();
+        if (after != null && after >= last) {
+            return page;
+        }
+        for (long id = after == null ? 1 : Math.max(after, 0) + 1; id <= last && page.size() < limit; id++) {
+            Film film = read(id);
+            if (film != null) {
+                page.add(film);
+            }
+        }
+        return page;
+    }
+
+    @Override
+    public Film addFilm(Film film) {
+        FilmValidator.validate(film);
+        film.setId(currentId.incrementAndGet());
+        insert(film);
+        filmsCount.incrementAndGet();
+        log.info("Film {} added", film.getId());
+        return film;
+    }
+
+    @Override
+    public List<Film> addFilms(List<Film> batch) {
+        batch.forEach(FilmValidator::validate);
+        long id = currentId.getAndAdd(batch.size());
+        for (Film film : batch) {
+            film.setId(++id);
+            insert(film);
+            filmsCount.incrementAndGet();
+        }
+        log.info("Films added: {}", batch.size());
+        return batch;
+    }
+
+    @Override
+    public LikesDiff replaceFilm(Film film) {
+        if (film.getId() == null || film.getId() <= 0 || film.getId() > currentId.get()) {
+            throw new NotFoundException("Film ID not found");
+        }
+        FilmValidator.validate(film);
+        long id = film.getId();
+        LikesDiff diff = LikesDiff.NONE;
+        locks.lock(id);
+        try {
+            Segment segment = segment(id);
+            int row = row(id);
+            if (segment == null || segment.data.getLong(ID + row * 8) != id) {
+                throw new NotFoundException("Film ID not found");
+            }
+            write(segment, row, film, true);
+            if (film.isLikesProvided()) {
+                LongHashSet old = segment.likes[row];
+                diff = LikesDiff.between(old == null ? Set.of() : old, film.getLikes());
+                setLikes(segment, row, film.getLikes());
+            } else {
+                film.getLikes().clear();
+                addLikesTo(film, segment.likes[row]);
+            }
+        } finally {
+            locks.unlock(id);
+        }
+        log.info("Film {} updated", id);
+        return diff;
+    }
+
+    @Override
+    public Film getFilmById(Long id) {
+        Film film = read(id);
+        if (film == null) {
+            throw NotFoundException.film(id);
+        }
+        return film;
+    }
+
+    @Override
+    public List<Film> getFilmsByIds(Collection<Long> ids) {
+        List<Film> result = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Film film = read(id);
+            if (film != null) {
+                result.add(film);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public boolean addLike(Long filmId, Long userId) {
+        return changeLike(filmId, userId, true);
+    }
+
+    @Override
+    public boolean removeLike(Long filmId, Long userId) {
+        return changeLike(filmId, userId, false);
+    }
+
+    @Override
+    public boolean[] addLikes(List<FilmLike> likes) {
+        return changeLikes(likes, true);
+    }
+
+    @Override
+    public boolean[] removeLikes(List<FilmLike> likes) {
+        return changeLikes(likes, false);
+    }
+
+    @Override
+    public List<Long> getLikes(Long filmId, Long after, int limit) {
+        long[] page;
+        locks.lock(filmId);
+        try {
+            Segment segment = existing(filmId);
+            LongHashSet likes = segment.likes[row(filmId)];
+            page = likes == null ? new long[0] : likes.pageAfter(after == null ? Long.MIN_VALUE : after, limit);
+        } finally {
+            locks.unlock(filmId);
+        }
+        List<Long> result = new ArrayList<>(page.length);
+        for (long userId : page) {
+            result.add(userId);
+        }
+        return result;
+    }
+
+    @Override
+    public void addGenre(Long filmId, Genre genre) {
+        changeGenre(filmId, genre, true);
+    }
+
+    @Override
+    public void removeGenre(Long filmId, Genre genre) {
+        changeGenre(filmId, genre, false);
+    }
+
+    @Override
+    public long getFilmsCount() {
+        return filmsCount.get();
+    }
+
+    @Override
+    public long getLikesCount() {
+        return likesCount.get();
+    }
+
+    /**
+     * Bytes held outside the heap: column segments and text chunks.
+     */
+    public long getOffHeapBytes() {
+        long bytes = 0;
+        for (Segment segment : segments) {
+            if (segment != null) {
+                bytes += segment.data.capacity();
+            }
+        }
+        return bytes + texts.capacity();
+    }
+
+    private void insert(Film film) {
+        long id = film.getId();
+        Segment segment = segmentForWrite(id);
+        int row = row(id);
+        locks.lock(id);
+        try {
+            write(segment, row, film, false);
+            setLikes(segment, row, film.getLikes());
+            segment.data.putLong(ID + row * 8, id);
+        } finally {
+            locks.unlock(id);
+        }
+    }
+
+    /**
+     * Encodes and checks both texts before touching the row, so a rejected film leaves it as it was.
+     */
+    private void write(Segment segment, int row, Film film, boolean update) {
+        byte[] name = TextArena.encode(film.getName());
+        byte[] description = TextArena.encode(film.getDescription());
+        ByteBuffer data = segment.data;
+        data.putLong(RELEASE + row * 8, film.getReleaseDate() == null ? NO_DATE : film.getReleaseDate().toEpochDay());
+        data.putLong(NAME + row * 8, texts.put(name, update ? data.getLong(NAME + row * 8) : TextArena.NONE));
+        data.putLong(DESCRIPTION + row * 8,
+                texts.put(description, update ? data.getLong(DESCRIPTION + row * 8) : TextArena.NONE));
+        data.putInt(DURATION + row * 4, film.getDuration() == null ? NO_DURATION
+                : (int) Math.min(Integer.MAX_VALUE, film.getDuration().getSeconds()));
+        data.put(MPA + row, film.getMpa() == null ? -1 : (byte) film.getMpa().ordinal());
+        data.put(GENRES + row, (byte) GenreSet.maskOf(film.getGenres()));
+    }
+
+    private void setLikes(Segment segment, int row, Set<Long> likes) {
+        LongHashSet old = segment.likes[row];
+        int before = old == null ? 0 : old.size();
+        LongHashSet copy = null;
+        if (likes != null && !likes.isEmpty()) {
+            copy = new LongHashSet();
+            if (likes instanceof LongHashSet set) {
+                for (long userId : set.toLongArray()) {
+                    copy.add(userId);
+                }
+            } else {
+                copy.addAll(likes);
+            }
+        }
+        segment.likes[row] = copy;
+        int after = copy == null ? 0 : copy.size();
+        segment.data.putInt(LIKES + row * 4, after);
+        likesCount.addAndGet(after - before);
+    }
+
+    private Film read(Long id) {
+        if (id == null || id <= 0) {
+            return null;
+        }
+        locks.lock(id);
+        try {
+            Segment segment = segment(id);
+            int row = row(id);
+            if (segment == null || segment.data.getLong(ID + row * 8) != id) {
+                return null;
+            }
+            return materialise(segment, row, id);
+        } finally {
+            locks.unlock(id);
+        }
+    }
+
+    private Film materialise(Segment segment, int row, long id) {
+        ByteBuffer data = segment.data;
+        Film film = new Film();
+        film.setId(id);
+        film.setName(texts.get(data.getLong(NAME + row * 8)));
+        film.setDescription(texts.get(data.getLong(DESCRIPTION + row * 8)));
+        long release = data.getLong(RELEASE + row * 8);
+        film.setReleaseDate(release == NO_DATE ? null : LocalDate.ofEpochDay(release));
+        int duration = data.getInt(DURATION + row * 4);
+        film.setDuration(duration == NO_DURATION ? null : Duration.ofSeconds(duration));
+        byte mpa = data.get(MPA + row);
+        film.setMpa(mpa < 0 ? null : RATINGS[mpa]);
+        film.setGenres(GenreSet.ofMask(data.get(GENRES + row)));
+        addLikesTo(film, segment.likes[row]);
+        return film;
+    }
+
+    private static void addLikesTo(Film film, LongHashSet likes) {
+        if (likes != null) {
+            LongHashSet target = (LongHashSet) film.getLikes();
+            for (long userId : likes.toLongArray()) {
+                target.add(userId);
+            }
+        }
+    }
+
+    private boolean changeLike(long filmId, long userId, boolean add) {
+        locks.lock(filmId);
+        try {
+            return changeLike(existing(filmId), row(filmId), userId, add);
+        } finally {
+            locks.unlock(filmId);
+        }
+    }
+
+    /**
+     * Consecutive likes of the same film are changed under one acquisition of its stripe, as in
+     * {@link InMemoryFilmStorage}.
+     */
+    private boolean[] changeLikes(List<FilmLike> likes, boolean add) {
+        boolean[] changed = new boolean[likes.size()];
+        int i = 0;
+        while (i < changed.length) {
+            long filmId = likes.get(i).getFilmId();
+            locks.lock(filmId);
+            try {
+                Segment segment = existing(filmId);
+                int row = row(filmId);
+                do {
+                    changed[i] = changeLike(segment, row, likes.get(i).getUserId(), add);
+                    i++;
+                } while (i < changed.length && likes.get(i).getFilmId() == filmId);
+            } finally {
+                locks.unlock(filmId);
+            }
+        }
+        return changed;
+    }
+
+    private boolean changeLike(Segment segment, int row, long userId, boolean add) {
+        LongHashSet likes = segment.likes[row];
+        if (likes == null) {
+            if (!add) {
+                return false;
+            }
+            likes = new LongHashSet();
+            segment.likes[row] = likes;
+        }
+        if (!(add ? likes.add(userId) : likes.remove(userId))) {
+            return false;
+        }
+        segment.data.putInt(LIKES + row * 4, likes.size());
+        likesCount.addAndGet(add ? 1 : -1);
+        return true;
+    }
+
+    private void changeGenre(long filmId, Genre genre, boolean add) {
+        locks.lock(filmId);
+        try {
+            Segment segment = existing(filmId);
+            int index = GENRES + row(filmId);
+            int bit = GenreSet.bit(genre);
+            byte genres = segment.data.get(index);
+            segment.data.put(index, (byte) (add ? genres | bit : genres & ~bit));
+        } finally {
+            locks.unlock(filmId);
+        }
+    }
+
+    /**
+     * The film's segment, or {@link NotFoundException}; the caller holds the film's stripe.
+     */
+    private Segment existing(long id) {
+        Segment segment = id <= 0 ? null : segment(id);
+        if (segment == null || segment.data.getLong(ID + row(id) * 8) != id) {
+            throw NotFoundException.film(id);
+        }
+        return segment;
+    }
+
+    private Segment segment(long id) {
+        long index = (id - 1) >>> SEGMENT_BITS;
+        Segment[] current = segments;
+        return index < current.length ? current[(int) index] : null;
+    }
+
+    private Segment segmentForWrite(long id) {
+        Segment segment = segment(id);
+        if (segment != null) {
+            return segment;
+        }
+        int index = (int) ((id - 1) >>> SEGMENT_BITS);
+        growLock.lock();
+        try {
+            Segment[] current = segments;
+            if (index >= current.length) {
+                current = Arrays.copyOf(current, Math.max(index + 1, current.length * 2));
+            } else if (current[index] != null) {
+                return current[index];
+            } else {
+                current = current.clone();
+            }
+            current[index] = new Segment();
+            segments = current;
+            return current[index];
+        } finally {
+            growLock.unlock();
+        }
+    }
+
+    private static int row(long id) {
+        return (int) (id - 1) & (SEGMENT - 1);
+    }
+
+    private static final class Segment {
+        private final ByteBuffer data = ByteBuffer.allocateDirect(SEGMENT * ROW_BYTES);
+        private final LongHashSet[] likes = new LongHashSet[SEGMENT];
+    }
+
+    /**
+     * Walks ids in order, building each film as it is reached.
+     */
+    private final class Films implements Iterator<Film> {
+        private final long last = currentId.get();
+        private long id;
+        private Film next = advance();
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Film next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            Film film = next;
+            next = advance();
+            return film;
+        }
+
+        private Film advance() {
+            while (id < last) {
+                Film film = read(++id);
+                if (film != null) {
+                    return film;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * UTF-8 strings in direct chunks, addressed by {@code offset << 24 | length}; a string never
+     * spans two chunks. Appends are serialised by a lock; reads need none, since a reference is
+     * only published (under the film's stripe) after its bytes are written.
+     */
+    private static final class TextArena {
+        static final long NONE = -1;
+        private static final int CHUNK_BITS = 26;
+        private static final int CHUNK = 1 << CHUNK_BITS;
+        private static final int MAX_LENGTH = (1 << 24) - 1;
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private volatile ByteBuffer[] chunks = new ByteBuffer[0];
+        private long end;
+
+        /**
+         * The UTF-8 bytes to {@link #put}, or {@code null} for no text; rejects text too long to store.
+         */
+        static byte[] encode(String text) {
+            if (text == null) {
+                return null;
+            }
+            byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+            if (bytes.length > MAX_LENGTH) {
+                throw new ValidationException("Text fields must be shorter than 16 MB");
+            }
+            return bytes;
+        }
+
+        /**
+         * Stores {@linkplain #encode encoded} text, in place of {@code previous} when it fits there.
+         */
+        long put(byte[] bytes, long previous) {
+            if (bytes == null) {
+                return NONE;
+            }
+            lock.lock();
+            try {
+                long offset;
+                if (previous != NONE && bytes.length <= (int) (previous & MAX_LENGTH)) {
+                    offset = previous >>> 24;
+                } else {
+                    if ((end & (CHUNK - 1)) + bytes.length > CHUNK) {
+                        end = (end >>> CHUNK_BITS) + 1 << CHUNK_BITS;
+                    }
+                    offset = end;
+                    end += bytes.length;
+                }
+                int chunk = (int) (offset >>> CHUNK_BITS);
+                if (chunk >= chunks.length) {
+                    ByteBuffer[] grown = Arrays.copyOf(chunks, chunk + 1);
+                    grown[chunk] = ByteBuffer.allocateDirect(CHUNK);
+                    chunks = grown;
+                }
+                chunks[chunk].put((int) (offset & (CHUNK - 1)), bytes);
+                return offset << 24 | bytes.length;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        String get(long reference) {
+            if (reference == NONE) {
+                return null;
+            }
+            long offset = reference >>> 24;
+            byte[] bytes = new byte[(int) (reference & MAX_LENGTH)];
+            chunks[(int) (offset >>> CHUNK_BITS)].get((int) (offset & (CHUNK - 1)), bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        long capacity() {
+            return (long) chunks.length * CHUNK;
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.util.CountMinSketch;
+import ru.yandex.practicum.filmorate.util.SpaceSaving;
+import ru.yandex.practicum.filmorate.util.TopK;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Likes given to films over the last hour or day ("trending now"), in memory that does not depend
+ * on the size of the catalogue (about 2 MB for both windows).
+ * <p>
+ * A window is a ring of time buckets: 12 of 5 minutes for {@code 1h}, 24 of an hour for
+ * {@code 24h}. It covers the current bucket and the ones before it, that is the last 55-60
+ * minutes or 23-24 hours. Each bucket counts likes per film in a {@link CountMinSketch}
+ * (depth 4, width 2048) and keeps its 256 heaviest films in a {@link SpaceSaving} summary.
+ * A query takes every film monitored in a bucket of the window as a candidate and ranks the
+ * candidates by the sum of their sketch estimates.
+ * <p>
+ * Error bounds, with N the number of likes in the window: a film's count is never
+ * underestimated; in each bucket the overestimate is at most e / 2048 (0.13%) of the bucket's
+ * likes with probability 1 - e^-4 (98%), so at most 0.13% of N when no bucket misses. A film
+ * with more than N / 256 likes in the window has more than 1/256 of some bucket and is always a
+ * candidate. Removing a like does not take it back out of the window.
+ * <p>
+ * Buckets are replaced, not cleared, when the ring comes round, with a compare-and-set; counting
+ * is lock-free apart from the short per-bucket lock of the summary.
+ */
+@Component
+public class TrendingFilms {
+    private static final int DEPTH = 4;
+    private static final int WIDTH = 2048;
+    private static final int HEAVY_HITTERS = 256;
+    private static final Window[] WINDOWS = Window.values();
+
+    private final Clock clock;
+    private final Map<Window, AtomicReferenceArray<Bucket>> rings = new EnumMap<>(Window.class);
+
+    public TrendingFilms() {
+        this(Clock.systemUTC());
+    }
+
+    public TrendingFilms(Clock clock) {
+        this.clock = clock;
+        for (Window window : Window.values()) {
+            rings.put(window, new AtomicReferenceArray<>(window.buckets));
+        }
+    }
+
+    public void record(long filmId, int likes) {
+        if (likes <= 0) {
+            return;
+        }
+        long now = clock.millis();
+        for (Window window : WINDOWS) {
+            bucket(window, now).add(filmId, likes);
+        }
+    }
+
+    /**
+     * Up to {@code count} film ids, most liked in the window first.
+     */
+    public List<Long> top(Window window, int count) {
+        long epoch = clock.millis() / window.bucketMillis;
+        AtomicReferenceArray<Bucket> ring = rings.get(window);
+        List<Bucket> live = new ArrayList<>(window.buckets);
+        Set<Long> candidates = new HashSet<>();
+        for (int i = 0; i < ring.length(); i++) {
+            Bucket bucket = ring.get(i);
+            if (bucket != null && bucket.epoch > epoch - window.buckets && bucket.epoch <= epoch) {
+                live.add(bucket);
+                for (long filmId : bucket.heavyHitters()) {
+                    candidates.add(filmId);
+                }
+            }
+        }
+        TopK best = new TopK(count);
+        for (long filmId : candidates) {
+            long likes = 0;
+            for (Bucket bucket : live) {
+                likes += bucket.sketch.estimate(filmId);
+            }
+            best.offer(TopK.key((int) Math.min(Integer.MAX_VALUE, likes), filmId));
+        }
+        long[] keys = best.toSortedArray();
+        List<Long> ids = new ArrayList<>(keys.length);
+        for (long key : keys) {
+            ids.add(TopK.id(key));
+        }
+        return ids;
+    }
+
+    private Bucket bucket(Window window, long now) {
+        long epoch = now / window.bucketMillis;
+        int slot = (int) (epoch % window.buckets);
+        AtomicReferenceArray<Bucket> ring = rings.get(window);
+        while (true) {
+            Bucket bucket = ring.get(slot);
+            if (bucket != null && bucket.epoch >= epoch) {
+                return bucket;
+            }
+            Bucket fresh = new Bucket(epoch);
+            if (ring.compareAndSet(slot, bucket, fresh)) {
+                return fresh;
+            }
+        }
+    }
+
+    public enum Window {
+        HOUR("1h", 12, Duration.ofMinutes(5)),
+        DAY("24h", 24, Duration.ofHours(1));
+
+        private final String label;
+        private final int buckets;
+        private final long bucketMillis;
+
+        Window(String label, int buckets, Duration bucket) {
+            this.label = label;
+            this.buckets = buckets;
+            this.bucketMillis = bucket.toMillis();
+        }
+
+        /**
+         * Accepts {@code 1h} and {@code 24h} (or {@code 1d}).
+         */
+        public static Window parse(String value) {
+            if ("1d".equalsIgnoreCase(value)) {
+                return DAY;
+            }
+            for (Window window : values()) {
+                if (window.label.equalsIgnoreCase(value)) {
+                    return window;
+                }
+            }
+            throw new ValidationException("Window must be 1h or 24h");
+        }
+    }
+
+    private static final class Bucket {
+        private final long epoch;
+        private final CountMinSketch sketch;
+        private final SpaceSaving summary = new SpaceSaving(HEAVY_HITTERS);
+        private final ReentrantLock lock = new ReentrantLock();
+
+        Bucket(long epoch) {
+            this.epoch = epoch;
+            this.sketch = new CountMinSketch(DEPTH, WIDTH, epoch);
+        }
+
+        void add(long filmId, int likes) {
+            sketch.add(filmId, likes);
+            lock.lock();
+            try {
+                summary.offer(filmId, likes);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        long[] heavyHitters() {
+            lock.lock();
+            try {
+                return summary.keys();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.LockStripes;
+import ru.yandex.practicum.filmorate.util.TopK;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.IntStream;
+
+/**
+ * Inverted index from user to the films they liked, used for collaborative-filtering
+ * recommendations.
+ * <p>
+ * Each user's likes are a sorted {@code int[]} of film ids, replaced copy-on-write under the
+ * user's lock stripe, so readers never block. Users are addressed by id in pages of
+ * {@value #PAGE_SIZE} slots; pages are only ever added, so a scan works on a stable snapshot.
+ * Ids outside the addressable range (non-positive, or a film id above {@code int}) are ignored;
+ * {@code FilmService} only passes likes of existing users.
+ * <p>
+ * {@link #recommend} marks the user's films in a bitmap, scores every other user by the size of
+ * the overlap (one bitmap probe per like, pages scored in parallel on the common pool), keeps the
+ * {@value #NEIGHBOURS} most similar users and ranks the films they liked that the user has not,
+ * each weighted by the neighbour's overlap.
+ */
+@Component
+public class UserLikesIndex {
+    static final int NEIGHBOURS = 50;
+    private static final int PAGE_BITS = 12;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+    private static final int[] NONE = new int[0];
+
+    private final LockStripes locks = new LockStripes(64);
+    private final ReentrantLock growLock = new ReentrantLock();
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private volatile AtomicReferenceArray<int[]>[] pages = new AtomicReferenceArray[0];
+
+    public void addLike(long userId, long filmId) {
+        update(userId, filmId, true);
+    }
+
+    public void removeLike(long userId, long filmId) {
+        update(userId, filmId, false);
+    }
+
+    public void index(Film film) {
+        for (Long userId : film.getLikes()) {
+            addLike(userId, film.getId());
+        }
+    }
+
+    /**
+     * Applies the likes an update added to and removed from a film.
+     */
+    public void reindex(long filmId, LikesDiff diff) {
+        for (long userId : diff.removed()) {
+            removeLike(userId, filmId);
+        }
+        for (long userId : diff.added()) {
+            addLike(userId, filmId);
+        }
+    }
+
+    public int[] getLikedFilms(long userId) {
+        if (userId <= 0) {
+            return NONE;
+        }
+        AtomicReferenceArray<int[]> page = page(userId, false);
+        int[] films = page == null ? null : page.get(slot(userId));
+        return films == null ? NONE : films;
+    }
+
+    /**
+     * Up to {@code count} ids of films liked by the users most similar to this one and not liked
+     * by it, best first (by summed neighbour overlap, then by id). Empty for a user without likes.
+     */
+    public List<Long> recommend(long userId, int count) {
+        int[] liked = getLikedFilms(userId);
+        if (liked.length == 0 || count <= 0) {
+            return List.of();
+        }
+        long[] target = new long[(liked[liked.length - 1] >>> 6) + 1];
+        for (int film : liked) {
+            target[film >>> 6] |= 1L << film;
+        }
+        AtomicReferenceArray<int[]>[] snapshot = pages;
+        TopK neighbours = IntStream.range(0, snapshot.length).parallel()
+                .collect(() -> new TopK(NEIGHBOURS),
+                        (top, page) -> scorePage(snapshot, page, userId, target, top),
+                        TopK::merge);
+
+        Map<Integer, Integer> scores = new HashMap<>();
+        for (long key : neighbours.toSortedArray()) {
+            int overlap = TopK.score(key);
+            for (int film : getLikedFilms(TopK.id(key))) {
+                if (!contains(target, film)) {
+                    scores.merge(film, overlap, Integer::sum);
+                }
+            }
+        }
+        TopK films = new TopK(count);
+        scores.forEach((film, score) -> films.offer(TopK.key(score, film)));
+        List<Long> result = new ArrayList<>(films.size());
+        for (long key : films.toSortedArray()) {
+            result.add(TopK.id(key));
+        }
+        return result;
+    }
+
+    private static void scorePage(AtomicReferenceArray<int[]>[] pages, int index, long userId,
+                                  long[] target, TopK top) {
+        AtomicReferenceArray<int[]> page = pages[index];
+        if (page == null) {
+            return;
+        }
+        long base = (long) index << PAGE_BITS;
+        for (int slot = 0; slot < PAGE_SIZE; slot++) {
+            int[] films = page.get(slot);
+            if (films == null || base + slot == userId) {
+                continue;
+            }
+            int overlap = 0;
+            for (int film : films) {
+                if (contains(target, film)) {
+                    overlap++;
+                }
+            }
+            if (overlap > 0) {
+                top.offer(TopK.key(overlap, base + slot));
+            }
+        }
+    }
+
+    private void update(long userId, long filmId, boolean add) {
+        if (userId <= 0 || filmId <= 0 || filmId > Integer.MAX_VALUE) {
+            return;
+        }
+        int film = (int) filmId;
+        AtomicReferenceArray<int[]> page = page(userId, add);
+        if (page == null) {
+            return;
+        }
+        int slot = slot(userId);
+        locks.lock(userId);
+        try {
+            int[] films = page.get(slot);
+            if (films == null) {
+                films = NONE;
+            }
+            int position = Arrays.binarySearch(films, film);
+            int[] updated;
+            if (add) {
+                if (position >= 0) {
+                    return;
+                }
+                position = -position - 1;
+                updated = new int[films.length + 1];
+                System.arraycopy(films, 0, updated, 0, position);
+                updated[position] = film;
+                System.arraycopy(films, position, updated, position + 1, films.length - position);
+            } else {
+                if (position < 0) {
+                    return;
+                }
+                updated = new int[films.length - 1];
+                System.arraycopy(films, 0, updated, 0, position);
+                System.arraycopy(films, position + 1, updated, position, films.length - position - 1);
+            }
+            page.set(slot, updated.length == 0 ? null : updated);
+        } finally {
+            locks.unlock(userId);
+        }
+    }
+
+    private AtomicReferenceArray<int[]> page(long userId, boolean create) {
+        long block = userId >>> PAGE_BITS;
+        if (block >= Integer.MAX_VALUE) {
+            return null;
+        }
+        int index = (int) block;
+        AtomicReferenceArray<int[]>[] current = pages;
+        if (index < current.length && current[index] != null) {
+            return current[index];
+        }
+        if (!create) {
+            return null;
+        }
+        growLock.lock();
+        try {
+            current = pages;
+            if (index < current.length && current[index] != null) {
+                return current[index];
+            }
+            AtomicReferenceArray<int[]>[] grown = Arrays.copyOf(current, Math.max(index + 1, current.length));
+            grown[index] = new AtomicReferenceArray<>(PAGE_SIZE);
+            pages = grown;
+            return grown[index];
+        } finally {
+            growLock.unlock();
+        }
+    }
+
+    private static boolean contains(long[] bits, int film) {
+        int word = film >>> 6;
+        return word < bits.length && (bits[word] & (1L << film)) != 0;
+    }
+
+    private static int slot(long userId) {
+        return (int) (userId & (PAGE_SIZE - 1));
+    }
+}
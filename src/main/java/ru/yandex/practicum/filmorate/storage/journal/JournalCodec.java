@@ -0,0 +1,188 @@
+package ru.yandex.practicum.filmorate.storage.journal;
+
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FriendshipStatus;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.GenreSet;
+import ru.yandex.practicum.filmorate.model.Rating;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.util.LongEnumMap;
+import ru.yandex.practicum.filmorate.util.LongHashSet;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binary encoding of storage mutations, shared by the journal and the snapshot file.
+ * A record is a type byte followed by a fixed layout per type: entity records carry the whole
+ * entity (so replaying one overwrites whatever state came before), relation records carry two
+ * ids. Every record is idempotent when replayed in order, which is what lets a snapshot be taken
+ * while writers keep appending.
+ */
+public final class JournalCodec {
+    public static final byte ADD_FILM = 1;
+    public static final byte UPDATE_FILM = 2;
+    public static final byte LIKE = 3;
+    public static final byte UNLIKE = 4;
+    public static final byte ADD_GENRE = 5;
+    public static final byte REMOVE_GENRE = 6;
+    public static final byte ADD_USER = 7;
+    public static final byte UPDATE_USER = 8;
+    public static final byte FRIEND = 9;
+    public static final byte UNFRIEND = 10;
+    public static final byte CONFIRM_FRIEND = 11;
+
+    private static final long NO_DATE = Long.MIN_VALUE;
+    private static final Genre[] GENRES = Genre.values();
+    private static final Rating[] RATINGS = Rating.values();
+    private static final FriendshipStatus[] STATUSES = FriendshipStatus.values();
+
+    private JournalCodec() {
+    }
+
+    public static byte[] film(byte type, Film film) {
+        byte[] name = utf8(film.getName());
+        byte[] description = utf8(film.getDescription());
+        long[] likes = film.getLikes() instanceof LongHashSet set
+                ? set.toLongArray() : film.getLikes().stream().mapToLong(Long::longValue).toArray();
+        ByteBuffer buffer = ByteBuffer.allocate(1 + 8 + sizeOf(name) + sizeOf(description) + 8 + 8 + 4 + 1 + 1
+                + 4 + likes.length * 8);
+        buffer.put(type).putLong(film.getId());
+        putString(buffer, name);
+        putString(buffer, description);
+        buffer.putLong(film.getReleaseDate() == null ? NO_DATE : film.getReleaseDate().toEpochDay());
+        Duration duration = film.getDuration();
+        buffer.putLong(duration == null ? Long.MIN_VALUE : duration.getSeconds());
+        buffer.putInt(duration == null ? 0 : duration.getNano());
+        buffer.put(film.getMpa() == null ? -1 : (byte) film.getMpa().ordinal());
+        buffer.put((byte) film.getGenres().mask());
+        buffer.putInt(likes.length);
+        for (long like : likes) {
+            buffer.putLong(like);
+        }
+        return buffer.array();
+    }
+
+    public static byte[] user(byte type, User user) {
+        byte[] email = utf8(user.getEmail());
+        byte[] login = utf8(user.getLogin());
+        byte[] name = utf8(user.getName());
+        // entrySet() of LongEnumMap iterates a snapshot, so the count written matches the entries
+        List<Map.Entry<Long, FriendshipStatus>> friends = new ArrayList<>(user.getFriends().entrySet());
+        ByteBuffer buffer = ByteBuffer.allocate(1 + 8 + sizeOf(email) + sizeOf(login) + sizeOf(name) + 8
+                + 4 + friends.size() * 9);
+        buffer.put(type).putLong(user.getId());
+        putString(buffer, email);
+        putString(buffer, login);
+        putString(buffer, name);
+        buffer.putLong(user.getBirthday() == null ? NO_DATE : user.getBirthday().toEpochDay());
+        buffer.putInt(friends.size());
+        for (Map.Entry<Long, FriendshipStatus> friend : friends) {
+            buffer.putLong(friend.getKey()).put((byte) friend.getValue().ordinal());
+        }
+        return buffer.array();
+    }
+
+    public static byte[] link(byte type, long first, long second) {
+        return ByteBuffer.allocate(17).put(type).putLong(first).putLong(second).array();
+    }
+
+    public static byte[] genre(byte type, long filmId, Genre genre) {
+        return ByteBuffer.allocate(10).put(type).putLong(filmId).put((byte) genre.ordinal()).array();
+    }
+
+    /**
+     * Decodes one record and applies it to the storages. Relation records that refer to an
+     * entity that no longer exists are skipped.
+     */
+    public static void apply(ByteBuffer record, InMemoryFilmStorage films, InMemoryUserStorage users) {
+        byte type = record.get();
+        try {
+            switch (type) {
+                case ADD_FILM, UPDATE_FILM -> films.restoreFilm(readFilm(record));
+                case LIKE -> films.addLike(record.getLong(), record.getLong());
+                case UNLIKE -> films.removeLike(record.getLong(), record.getLong());
+                case ADD_GENRE -> films.addGenre(record.getLong(), GENRES[record.get()]);
+                case REMOVE_GENRE -> films.removeGenre(record.getLong(), GENRES[record.get()]);
+                case ADD_USER, UPDATE_USER -> users.restoreUser(readUser(record));
+                case FRIEND -> users.addFriend(record.getLong(), record.getLong());
+                case UNFRIEND -> users.removeFriend(record.getLong(), record.getLong());
+                case CONFIRM_FRIEND -> users.confirmFriend(record.getLong(), record.getLong());
+                default -> throw new IllegalStateException("Unknown journal record type " + type);
+            }
+        } catch (NotFoundException ignored) {
+            // the entity was replaced by a later full record; nothing to apply
+        }
+    }
+
+    private static Film readFilm(ByteBuffer buffer) {
+        Film film = new Film();
+        film.setId(buffer.getLong());
+        film.setName(getString(buffer));
+        film.setDescription(getString(buffer));
+        long releaseDate = buffer.getLong();
+        film.setReleaseDate(releaseDate == NO_DATE ? null : LocalDate.ofEpochDay(releaseDate));
+        long seconds = buffer.getLong();
+        int nanos = buffer.getInt();
+        film.setDuration(seconds == Long.MIN_VALUE ? null : Duration.ofSeconds(seconds, nanos));
+        byte mpa = buffer.get();
+        film.setMpa(mpa < 0 ? null : RATINGS[mpa]);
+        film.setGenres(GenreSet.ofMask(buffer.get()));
+        // a new Film starts with an empty LongHashSet; fill it without boxing
+        LongHashSet likes = (LongHashSet) film.getLikes();
+        for (int i = buffer.getInt(); i > 0; i--) {
+            likes.add(buffer.getLong());
+        }
+        return film;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static User readUser(ByteBuffer buffer) {
+        User user = new User();
+        user.setId(buffer.getLong());
+        user.setEmail(getString(buffer));
+        user.setLogin(getString(buffer));
+        user.setName(getString(buffer));
+        long birthday = buffer.getLong();
+        user.setBirthday(birthday == NO_DATE ? null : LocalDate.ofEpochDay(birthday));
+        LongEnumMap<FriendshipStatus> friends = (LongEnumMap<FriendshipStatus>) user.getFriends();
+        for (int i = buffer.getInt(); i > 0; i--) {
+            friends.put(buffer.getLong(), STATUSES[buffer.get()]);
+        }
+        return user;
+    }
+
+    private static byte[] utf8(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int sizeOf(byte[] string) {
+        return 4 + (string == null ? 0 : string.length);
+    }
+
+    private static void putString(ByteBuffer buffer, byte[] string) {
+        if (string == null) {
+            buffer.putInt(-1);
+            return;
+        }
+        buffer.putInt(string.length).put(string);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
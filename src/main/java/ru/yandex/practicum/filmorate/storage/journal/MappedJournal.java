@@ -0,0 +1,293 @@
+package ru.yandex.practicum.filmorate.storage.journal;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only journal written through memory-mapped regions of {@code journal-<generation>.log}.
+ * <p>
+ * Each record is framed as {@code [int length][int crc32c][payload]}. A record never spans two
+ * regions: when it does not fit, the rest of the region is skipped with a negative length, and a
+ * zero length marks the end of the written data (mapped regions are zero-filled).
+ * <p>
+ * Group commit: appenders only copy bytes into the mapping. A single flusher thread forces the
+ * dirty range to disk and advances the durable position; writers that need durability wait for
+ * it, so one {@code msync} covers every record appended since the previous one. Locks are
+ * {@link ReentrantLock}s rather than monitors so that waiting does not pin virtual threads.
+ */
+@Slf4j
+public class MappedJournal implements StorageJournal, Closeable {
+    static final int REGION_SIZE = 64 << 20;
+    private static final int HEADER = 8;
+
+    private final Path directory;
+    private final boolean syncOnCommit;
+    private final long flushIntervalNanos;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition flushRequested = lock.newCondition();
+    private final Condition flushed = lock.newCondition();
+    private final Thread flusher;
+
+    private long generation;
+    private FileChannel channel;
+    private MappedByteBuffer region;
+    private long regionStart;
+    private int dirtyFrom;
+    private long appended;
+    private long durable;
+    private volatile boolean closed;
+
+    public MappedJournal(Path directory, long generation, boolean syncOnCommit, Duration flushInterval) {
+        this.directory = directory;
+        this.syncOnCommit = syncOnCommit;
+        this.flushIntervalNanos = flushInterval.toNanos();
+        openGeneration(generation);
+        flusher = new Thread(this::flushLoop, "journal-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    public static Path file(Path directory, long generation) {
+        return directory.resolve(String.format("journal-%016d.log", generation));
+    }
+
+    @Override
+    public long append(byte[] record) {
+        CRC32C crc = new CRC32C();
+        crc.update(record);
+        lock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("Journal is closed");
+            }
+            ensureCapacity(HEADER + record.length);
+            region.putInt(record.length).putInt((int) crc.getValue()).put(record);
+            appended += HEADER + record.length;
+            return appended;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void awaitDurable(long ticket) {
+        if (!syncOnCommit) {
+            return;
+        }
+        lock.lock();
+        try {
+            while (durable < ticket && !closed) {
+                flushRequested.signal();
+                flushed.awaitUninterruptibly();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getGeneration() {
+        lock.lock();
+        try {
+            return generation;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Makes everything written so far durable and continues in a new journal file.
+     * Returns the generation of the new file.
+     */
+    public long rotate() {
+        lock.lock();
+        try {
+            forceRegion();
+            closeChannel();
+            openGeneration(generation + 1);
+            return generation;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            forceRegion();
+            closeChannel();
+            flushRequested.signal();
+            flushed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            flusher.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Reads every intact record of a journal file in order. Reading stops at the end marker or at
+     * the first torn record (bad length or checksum) left by a crash. Returns the number of records.
+     */
+    public static long replay(Path file, Consumer<ByteBuffer> consumer) throws IOException {
+        long records = 0;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long position = 0;
+            MappedByteBuffer window = null;
+            long windowStart = 0;
+            CRC32C crc = new CRC32C();
+            while (position + 4 <= size) {
+                if (window == null || position + HEADER > windowStart + window.capacity()) {
+                    windowStart = position;
+                    window = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                            Math.min(size - position, REGION_SIZE));
+                }
+                int offset = (int) (position - windowStart);
+                int length = window.getInt(offset);
+                if (length == 0) {
+                    break;
+                }
+                if (length < 0) {
+                    position -= length;
+                    continue;
+                }
+                if (position + HEADER + length > size) {
+                    log.warn("Journal {} ends with a truncated record at {}", file, position);
+                    break;
+                }
+                if (offset + HEADER + length > window.capacity()) {
+                    windowStart = position;
+                    window = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                            Math.min(size - position, Math.max(REGION_SIZE, HEADER + length)));
+                    offset = 0;
+                }
+                ByteBuffer record = window.slice(offset + HEADER, length);
+                crc.reset();
+                crc.update(record.duplicate());
+                if ((int) crc.getValue() != window.getInt(offset + 4)) {
+                    log.warn("Journal {} has a corrupt record at {}, ignoring the rest", file, position);
+                    break;
+                }
+                consumer.accept(record);
+                records++;
+                position += HEADER + length;
+            }
+        }
+        return records;
+    }
+
+    private void ensureCapacity(int length) {
+        // keep room for the skip marker that closes the region
+        if (region.remaining() >= length + 4) {
+            return;
+        }
+        int rest = region.remaining();
+        region.putInt(-rest);
+        region.position(region.capacity());
+        appended += rest;
+        forceRegion();
+        regionStart += region.capacity();
+        region = map(regionStart, Math.max(REGION_SIZE, length + 4));
+        dirtyFrom = 0;
+    }
+
+    private void openGeneration(long generation) {
+        try {
+            channel = FileChannel.open(file(directory, generation), StandardOpenOption.CREATE_NEW,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create journal file for generation " + generation, e);
+        }
+        this.generation = generation;
+        regionStart = 0;
+        region = map(0, REGION_SIZE);
+        dirtyFrom = 0;
+    }
+
+    private MappedByteBuffer map(long position, int size) {
+        try {
+            return channel.map(FileChannel.MapMode.READ_WRITE, position, size);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot map journal region at " + position, e);
+        }
+    }
+
+    /**
+     * Forces the written part of the current region. Called with the lock held when the region is
+     * about to be abandoned; everything appended before it is durable afterwards. The whole range
+     * is forced because the flusher may still be syncing the part before {@code dirtyFrom}; clean
+     * pages cost nothing to sync.
+     */
+    private void forceRegion() {
+        region.force(0, region.position());
+        dirtyFrom = region.position();
+        durable = appended;
+        flushed.signalAll();
+    }
+
+    private void closeChannel() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            log.warn("Cannot close journal generation {}", generation, e);
+        }
+    }
+
+    private void flushLoop() {
+        while (true) {
+            MappedByteBuffer buffer;
+            int from;
+            int to;
+            long target;
+            lock.lock();
+            try {
+                while (!closed && appended == durable) {
+                    flushRequested.awaitNanos(flushIntervalNanos);
+                }
+                if (closed) {
+                    return;
+                }
+                buffer = region;
+                from = dirtyFrom;
+                to = region.position();
+                target = appended;
+                dirtyFrom = to;
+            } catch (InterruptedException e) {
+                return;
+            } finally {
+                lock.unlock();
+            }
+            // msync outside the lock so appenders keep filling the region meanwhile
+            buffer.force(from, to - from);
+            lock.lock();
+            try {
+                durable = Math.max(durable, target);
+                flushed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
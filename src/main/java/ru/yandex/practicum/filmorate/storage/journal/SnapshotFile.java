@@ -0,0 +1,76 @@
+package ru.yandex.practicum.filmorate.storage.journal;
+
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.function.Consumer;
+
+/**
+ * Compact copy of both storages: a header naming the first journal generation to replay on top
+ * of it, then one full {@link JournalCodec} entity record per user and film. Written to a
+ * temporary file and renamed into place, so a crash mid-write leaves the previous snapshot.
+ */
+final class SnapshotFile {
+    private static final int MAGIC = 0x464D5331; // "FMS1"
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private SnapshotFile() {
+    }
+
+    static void write(Path file, long generation, Iterable<User> users, Iterable<Film> films) throws IOException {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileOutputStream stream = new FileOutputStream(temporary.toFile());
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream, BUFFER_SIZE))) {
+            out.writeInt(MAGIC);
+            out.writeLong(generation);
+            for (User user : users) {
+                writeRecord(out, JournalCodec.user(JournalCodec.ADD_USER, user));
+            }
+            for (Film film : films) {
+                writeRecord(out, JournalCodec.film(JournalCodec.ADD_FILM, film));
+            }
+            out.writeInt(0);
+            out.flush();
+            stream.getChannel().force(true);
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Feeds every record to {@code consumer} and returns the journal generation the snapshot
+     * was taken at.
+     */
+    static long read(Path file, Consumer<ByteBuffer> consumer) throws IOException {
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(file), BUFFER_SIZE))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a snapshot file: " + file);
+            }
+            long generation = in.readLong();
+            byte[] record = new byte[256];
+            for (int length = in.readInt(); length > 0; length = in.readInt()) {
+                if (length > record.length) {
+                    record = new byte[Math.max(length, record.length * 2)];
+                }
+                in.readFully(record, 0, length);
+                consumer.accept(ByteBuffer.wrap(record, 0, length));
+            }
+            return generation;
+        }
+    }
+
+    private static void writeRecord(DataOutputStream out, byte[] record) throws IOException {
+        out.writeInt(record.length);
+        out.write(record);
+    }
+}
@@ -0,0 +1,38 @@
+package ru.yandex.practicum.filmorate.storage.journal;
+
+/**
+ * Sink for storage mutation records. {@link #append} is called while the mutated entity is
+ * locked and must be cheap; {@link #awaitDurable} is called after the lock is released and may
+ * block until the record has reached the disk.
+ */
+public interface StorageJournal {
+    StorageJournal NONE = new StorageJournal() {
+        @Override
+        public long append(byte[] record) {
+            return 0;
+        }
+
+        @Override
+        public void awaitDurable(long ticket) {
+        }
+
+        @Override
+        public boolean isEnabled() {
+            return false;
+        }
+    };
+
+    /**
+     * Appends an encoded record and returns a ticket to pass to {@link #awaitDurable}.
+     */
+    long append(byte[] record);
+
+    void awaitDurable(long ticket);
+
+    /**
+     * False when records are dropped, so callers can skip encoding them.
+     */
+    default boolean isEnabled() {
+        return true;
+    }
+}
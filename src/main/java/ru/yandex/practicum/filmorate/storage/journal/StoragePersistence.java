@@ -0,0 +1,178 @@
+package ru.yandex.practicum.filmorate.storage.journal;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Durability for the in-memory storages, enabled with {@code filmorate.persistence.enabled=true}.
+ * <p>
+ * On startup the latest snapshot is loaded and every journal from its generation on is replayed,
+ * then the storages start journaling into a fresh generation. A snapshot rotates the journal
+ * first and then copies the storages while writers carry on; the records that land in the new
+ * generation during the copy are replayed on top of it, which is safe because replay is
+ * idempotent (see {@link JournalCodec}). Journals older than the snapshot are deleted; this is
+ * safe because the storages apply a change in memory before appending its record, so every
+ * record in a deleted journal is already visible to the copy.
+ */
+@Slf4j
+@Component
+@Profile("!jdbc & !offheap")
+@ConditionalOnProperty(name = "filmorate.persistence.enabled", havingValue = "true")
+public class StoragePersistence {
+    private static final String SNAPSHOT = "snapshot.bin";
+    private static final Pattern JOURNAL = Pattern.compile("journal-(\\d+)\\.log");
+
+    private final InMemoryFilmStorage filmStorage;
+    private final InMemoryUserStorage userStorage;
+    private final FilmService filmService;
+    private final UserService userService;
+    private final Path directory;
+    private final boolean syncOnCommit;
+    private final Duration flushInterval;
+    private final Duration snapshotInterval;
+    private final boolean snapshotOnShutdown;
+    private final ReentrantLock snapshotLock = new ReentrantLock();
+    private MappedJournal journal;
+    private ScheduledExecutorService scheduler;
+
+    public StoragePersistence(InMemoryFilmStorage filmStorage,
+                              InMemoryUserStorage userStorage,
+                              FilmService filmService,
+                              UserService userService,
+                              @Value("${filmorate.persistence.directory:./data}") Path directory,
+                              @Value("${filmorate.persistence.sync-on-commit:true}") boolean syncOnCommit,
+                              @Value("${filmorate.persistence.flush-interval:5ms}") Duration flushInterval,
+                              @Value("${filmorate.persistence.snapshot-interval:10m}") Duration snapshotInterval,
+                              @Value("${filmorate.persistence.snapshot-on-shutdown:true}") boolean snapshotOnShutdown) {
+        this.filmStorage = filmStorage;
+        this.userStorage = userStorage;
+        this.filmService = filmService;
+        this.userService = userService;
+        this.directory = directory;
+        this.syncOnCommit = syncOnCommit;
+        this.flushInterval = flushInterval;
+        this.snapshotInterval = snapshotInterval;
+        this.snapshotOnShutdown = snapshotOnShutdown;
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        Files.createDirectories(directory);
+        long generation = restore();
+        journal = new MappedJournal(directory, generation, syncOnCommit, flushInterval);
+        filmStorage.setJournal(journal);
+        userStorage.setJournal(journal);
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "storage-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = snapshotInterval.toMillis();
+        scheduler.scheduleWithFixedDelay(this::scheduledSnapshot, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Loads the snapshot and replays the journals after it. Returns the generation to continue
+     * journaling in.
+     */
+    private long restore() throws IOException {
+        long started = System.nanoTime();
+        Consumer<ByteBuffer> apply = record -> JournalCodec.apply(record, filmStorage, userStorage);
+        Path snapshot = directory.resolve(SNAPSHOT);
+        long first = Files.exists(snapshot) ? SnapshotFile.read(snapshot, apply) : 0;
+        long last = first;
+        long records = 0;
+        for (long generation : journalGenerations()) {
+            if (generation >= first) {
+                records += MappedJournal.replay(MappedJournal.file(directory, generation), apply);
+            }
+            last = Math.max(last, generation);
+        }
+        filmService.rebuildIndexes();
+        userService.rebuildIndexes();
+        log.info("Restored {} films, {} likes and {} users in {} ms ({} journal records replayed)",
+                filmStorage.getFilmsCount(), filmStorage.getLikesCount(), userStorage.getUsersCount(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started), records);
+        return last + 1;
+    }
+
+    public void snapshot() throws IOException {
+        snapshotLock.lock();
+        try {
+            long started = System.nanoTime();
+            long generation = journal.rotate();
+            SnapshotFile.write(directory.resolve(SNAPSHOT), generation,
+                    userStorage.getUsers(), filmStorage.getFilms());
+            for (long old : journalGenerations()) {
+                if (old < generation) {
+                    Files.deleteIfExists(MappedJournal.file(directory, old));
+                }
+            }
+            log.info("Snapshot at journal generation {} written in {} ms", generation,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        } finally {
+            snapshotLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+        if (snapshotOnShutdown) {
+            try {
+                snapshot();
+            } catch (IOException e) {
+                log.warn("Final snapshot failed, the journal will be replayed on next start", e);
+            }
+        }
+        journal.close();
+    }
+
+    private void scheduledSnapshot() {
+        try {
+            snapshot();
+        } catch (IOException | RuntimeException e) {
+            log.error("Snapshot failed", e);
+        }
+    }
+
+    private List<Long> journalGenerations() throws IOException {
+        List<Long> generations = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.forEach(file -> {
+                Matcher matcher = JOURNAL.matcher(file.getFileName().toString());
+                if (matcher.matches()) {
+                    generations.add(Long.parseLong(matcher.group(1)));
+                }
+            });
+        }
+        generations.sort(null);
+        return generations;
+    }
+}
@@ -0,0 +1,385 @@
+package ru.yandex.practicum.filmorate.storage.user;
+
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.util.TopK;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Directed friend links ({@code user -> friend}, as in {@link User#getFriends}) in compressed
+ * sparse row form: the sorted friend ids of every user laid out back to back in one {@code int[]},
+ * with a second array of row offsets. Costs 4 bytes per link plus 4 per user.
+ * <p>
+ * Changes do not rewrite the arrays: the new sorted row of a changed user goes to a small overlay
+ * that takes precedence over the CSR row. Once the overlay holds more than an eighth of the users
+ * it is merged into fresh arrays. Writers are serialised by one lock; readers take the current
+ * immutable state and never block.
+ * <p>
+ * {@link #suggest} walks two hops from a user, counting for every friend of a friend how many of
+ * the user's friends lead to it, and keeps the best ones in a {@link TopK} heap. The walk visits
+ * at most {@value #MAX_VISITED_LINKS} links, so users with huge friend lists stay cheap.
+ * <p>
+ * Users are nodes by id, so ids must be positive ints; links to or from other ids are ignored.
+ * {@code UserService} only passes friends that exist.
+ */
+@Component
+public class FriendGraph {
+    static final int MAX_VISITED_LINKS = 1_000_000;
+    private static final int MIN_OVERLAY = 1024;
+    private static final int[] NONE = new int[0];
+
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private volatile State state = new State(new int[1], NONE);
+
+    public void rebuild(Collection<User> users) {
+        List<User> snapshot = new ArrayList<>(users);
+        int nodes = 0;
+        for (User user : snapshot) {
+            if (isNode(user.getId())) {
+                nodes = Math.max(nodes, node(user.getId()) + 1);
+            }
+        }
+        int[][] rows = new int[nodes][];
+        for (User user : snapshot) {
+            if (isNode(user.getId())) {
+                rows[node(user.getId())] = sortedNodes(user);
+            }
+        }
+        writeLock.lock();
+        try {
+            state = State.of(rows);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * @return {@code true} if the link is new
+     */
+    public boolean addLink(long userId, long friendId) {
+        if (!isNode(userId) || !isNode(friendId)) {
+            return false;
+        }
+        int friend = node(friendId);
+        writeLock.lock();
+        try {
+            int[] row = state.row(node(userId));
+            int position = Arrays.binarySearch(row, friend);
+            if (position >= 0) {
+                return false;
+            }
+            position = -position - 1;
+            int[] updated = new int[row.length + 1];
+            System.arraycopy(row, 0, updated, 0, position);
+            updated[position] = friend;
+            System.arraycopy(row, position, updated, position + 1, row.length - position);
+            replaceRow(node(userId), updated);
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * @return {@code true} if there was such a link
+     */
+    public boolean removeLink(long userId, long friendId) {
+        if (!isNode(userId) || !isNode(friendId)) {
+            return false;
+        }
+        int friend = node(friendId);
+        writeLock.lock();
+        try {
+            int[] row = state.row(node(userId));
+            int position = Arrays.binarySearch(row, friend);
+            if (position < 0) {
+                return false;
+            }
+            int[] updated = new int[row.length - 1];
+            System.arraycopy(row, 0, updated, 0, position);
+            System.arraycopy(row, position + 1, updated, position, row.length - position - 1);
+            replaceRow(node(userId), updated);
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Replaces all outgoing links of the user with its current friends.
+     */
+    public void index(User user) {
+        if (!isNode(user.getId())) {
+            return;
+        }
+        int[] row = sortedNodes(user);
+        writeLock.lock();
+        try {
+            replaceRow(node(user.getId()), row);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public int[] getFriends(long userId) {
+        return isNode(userId) ? state.row(node(userId)) : NONE;
+    }
+
+    public int getFriendsCount(long userId) {
+        return isNode(userId) ? state.degree(node(userId)) : 0;
+    }
+
+    /**
+     * Up to {@code count} ids of users that are friends of this user's friends but not its friends,
+     * best first: by the number of the user's friends linking to them, then by id.
+     */
+    public List<Long> suggest(long userId, int count) {
+        if (!isNode(userId)) {
+            return List.of();
+        }
+        State current = state;
+        int user = node(userId);
+        int[] friends = current.row(user);
+        if (friends.length == 0 || count <= 0) {
+            return List.of();
+        }
+        long links = 0;
+        for (int friend : friends) {
+            links += current.degree(friend);
+        }
+        NodeCounter mutual = new NodeCounter(Math.min(links, MAX_VISITED_LINKS) + friends.length + 1, current.nodes());
+        mutual.exclude(user);
+        for (int friend : friends) {
+            mutual.exclude(friend);
+        }
+        int budget = MAX_VISITED_LINKS;
+        for (int friend : friends) {
+            int[] row = current.changed.get(friend);
+            int[] targets = row != null ? row : current.targets;
+            int from = row != null ? 0 : current.start(friend);
+            int to = row != null ? row.length : current.end(friend);
+            int end = Math.min(to, from + budget);
+            for (int i = from; i < end; i++) {
+                mutual.increment(targets[i]);
+            }
+            budget -= end - from;
+            if (budget <= 0) {
+                break;
+            }
+        }
+        TopK top = new TopK(count);
+        mutual.forEachCounted((node, mutualFriends) -> top.offer(TopK.key(mutualFriends, node)));
+        List<Long> result = new ArrayList<>(top.size());
+        for (long key : top.toSortedArray()) {
+            result.add(TopK.id(key));
+        }
+        return result;
+    }
+
+    private void replaceRow(int node, int[] row) {
+        State current = state;
+        current.changed.put(node, row);
+        if (current.changed.size() > Math.max(MIN_OVERLAY, current.nodes() >>> 3)) {
+            state = current.compact();
+        }
+    }
+
+    private static int[] sortedNodes(User user) {
+        int[] row = user.getFriendIds().stream()
+                .filter(FriendGraph::isNode)
+                .mapToInt(FriendGraph::node)
+                .toArray();
+        Arrays.sort(row);
+        return row;
+    }
+
+    private static boolean isNode(long userId) {
+        return userId > 0 && userId <= Integer.MAX_VALUE;
+    }
+
+    private static int node(long userId) {
+        return (int) userId;
+    }
+
+    /**
+     * Immutable CSR arrays plus the overlay of rows changed since they were built. The overlay map
+     * is only written by the writer holding the lock, and never again once a newer state is published.
+     */
+    private static final class State {
+        private final int[] offsets;
+        private final int[] targets;
+        private final Map<Integer, int[]> changed = new ConcurrentHashMap<>();
+
+        State(int[] offsets, int[] targets) {
+            this.offsets = offsets;
+            this.targets = targets;
+        }
+
+        static State of(int[][] rows) {
+            int[] offsets = new int[rows.length + 1];
+            long links = 0;
+            for (int node = 0; node < rows.length; node++) {
+                links += rows[node] == null ? 0 : rows[node].length;
+                offsets[node + 1] = Math.toIntExact(links);
+            }
+            int[] targets = new int[(int) links];
+            for (int node = 0; node < rows.length; node++) {
+                if (rows[node] != null) {
+                    System.arraycopy(rows[node], 0, targets, offsets[node], rows[node].length);
+                }
+            }
+            return new State(offsets, targets);
+        }
+
+        int nodes() {
+            return offsets.length - 1;
+        }
+
+        int start(int node) {
+            return node < nodes() ? offsets[node] : 0;
+        }
+
+        int end(int node) {
+            return node < nodes() ? offsets[node + 1] : 0;
+        }
+
+        int degree(int node) {
+            int[] row = changed.get(node);
+            return row != null ? row.length : end(node) - start(node);
+        }
+
+        int[] row(int node) {
+            int[] row = changed.get(node);
+            if (row != null) {
+                return row;
+            }
+            return start(node) == end(node) ? NONE : Arrays.copyOfRange(targets, start(node), end(node));
+        }
+
+        State compact() {
+            int nodes = nodes();
+            for (int node : changed.keySet()) {
+                nodes = Math.max(nodes, node + 1);
+            }
+            int[][] rows = new int[nodes][];
+            for (int node = 0; node < nodes; node++) {
+                int[] row = changed.get(node);
+                rows[node] = row != null ? row : (start(node) == end(node) ? null : row(node));
+            }
+            return of(rows);
+        }
+    }
+
+    /**
+     * Mutual-friend count per node. When the walk is expected to reach a sizeable share of the graph
+     * the counts live in a plain array indexed by node, otherwise in an open-addressing map kept at
+     * most half full. Excluded nodes (the user and its friends) are stored with a negative count.
+     */
+    private static final class NodeCounter {
+        private static final int EMPTY = -1;
+        private static final int EXCLUDED = -1;
+        private static final int MAX_INITIAL_CAPACITY = 1 << 16;
+
+        private final boolean dense;
+        private int[] keys;
+        private int[] counts;
+        private int size;
+
+        NodeCounter(long expected, int nodes) {
+            dense = expected >= nodes >>> 4;
+            if (dense) {
+                counts = new int[nodes];
+                return;
+            }
+            int capacity = 16;
+            while (capacity < MAX_INITIAL_CAPACITY && capacity < expected * 2) {
+                capacity <<= 1;
+            }
+            allocate(capacity);
+        }
+
+        void exclude(int node) {
+            int slot = slot(node);
+            counts[slot] = EXCLUDED;
+        }
+
+        void increment(int node) {
+            int slot = slot(node);
+            if (counts[slot] != EXCLUDED) {
+                counts[slot]++;
+            }
+        }
+
+        void forEachCounted(CountConsumer consumer) {
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] > 0) {
+                    consumer.accept(dense ? i : keys[i], counts[i]);
+                }
+            }
+        }
+
+        private int slot(int node) {
+            if (dense) {
+                if (node >= counts.length) {
+                    counts = Arrays.copyOf(counts, Math.max(node + 1, counts.length + (counts.length >>> 1)));
+                }
+                return node;
+            }
+            int mask = keys.length - 1;
+            int slot = hash(node) & mask;
+            while (keys[slot] != node) {
+                if (keys[slot] == EMPTY) {
+                    if (++size * 2 > keys.length) {
+                        grow();
+                        return slot(node);
+                    }
+                    keys[slot] = node;
+                    return slot;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        private void grow() {
+            int[] oldKeys = keys;
+            int[] oldCounts = counts;
+            allocate(oldKeys.length << 1);
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != EMPTY) {
+                    int slot = hash(oldKeys[i]) & (keys.length - 1);
+                    while (keys[slot] != EMPTY) {
+                        slot = (slot + 1) & (keys.length - 1);
+                    }
+                    keys[slot] = oldKeys[i];
+                    counts[slot] = oldCounts[i];
+                    size++;
+                }
+            }
+        }
+
+        private void allocate(int capacity) {
+            keys = new int[capacity];
+            counts = new int[capacity];
+            Arrays.fill(keys, EMPTY);
+            size = 0;
+        }
+
+        private static int hash(int node) {
+            int h = node * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+    }
+
+    @FunctionalInterface
+    private interface CountConsumer {
+        void accept(int node, int count);
+    }
+}
@@ -1,37 +1,153 @@
 package ru.yandex.practicum.filmorate.storage.user;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.FriendshipStatus;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.LockStripes;
+import ru.yandex.practicum.filmorate.storage.journal.JournalCodec;
+import ru.yandex.practicum.filmorate.storage.journal.StorageJournal;
+import ru.yandex.practicum.filmorate.util.PersistentLongMap;
 
-import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 @Slf4j
 @Component
+@Profile("!jdbc")
 public class InMemoryUserStorage implements UserStorage {
-    private final Map<Long, User> users = new HashMap<>();
-    private long currentId = 0;
+    private final Map<Long, User> users = new ConcurrentHashMap<>();
+    private final AtomicLong currentId = new AtomicLong();
+    private final AtomicLong friendshipsCount = new AtomicLong();
+    private final LockStripes locks = new LockStripes(64);
+    private volatile StorageJournal journal = StorageJournal.NONE;
+    private final AtomicReference<PersistentLongMap<User>> snapshot;
+
+    public InMemoryUserStorage() {
+        this(false);
+    }
+
+    /**
+     * With {@code snapshotReads} every change to the table also publishes a new immutable,
+     * structurally shared version of it (under the user's stripe, so the versions of one user follow
+     * the order of its changes), and list, page and batch reads walk the latest version without
+     * locks. A published user is never changed: a friend change copies the user (friends included),
+     * applies the change to the copy and publishes it, so every version keeps the users as they were
+     * when it was published.
+     */
+    @Autowired
+    public InMemoryUserStorage(@Value("${filmorate.snapshot-reads.enabled:false}") boolean snapshotReads) {
+        snapshot = snapshotReads ? new AtomicReference<>(PersistentLongMap.empty()) : null;
+    }
+
+    /**
+     * Starts recording every mutation to {@code journal}; same ordering rules as
+     * {@link ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage#setJournal}.
+     */
+    public void setJournal(StorageJournal journal) {
+        this.journal = journal;
+    }
 
     @Override
     public Collection<User> getUsers() {
-        log.info("Get request, size: {}", users.size());
-        return users.values();
+        log.debug("Get request, size: {}", users.size());
+        return snapshot == null ? users.values() : snapshot.get().values();
+    }
+
+    /**
+     * Ids are allocated sequentially and never reused, so a page is read by probing the hash map
+     * from the cursor upwards instead of keeping a second, ordered copy of the table.
+     */
+    @Override
+    public List<User> getUsers(Long after, int limit) {
+        PersistentLongMap<User> version = snapshot == null ? null : snapshot.get();
+        List<User> page = new ArrayList<>(Math.min(limit, users.size()));
+        long last = currentId.get();
+        if (after != null && after >= last) {
+            return page;
+        }
+        for (long id = after == null ? 1 : Math.max(after, 0) + 1; id <= last && page.size() < limit; id++) {
+            User user = version == null ? users.get(id) : version.get(id);
+            if (user != null) {
+                page.add(user);
+            }
+        }
+        return page;
     }
 
     @Override
     public User addUser(User user) {
-        validateUser(user);
-        user.setId(++currentId);
-        users.put(user.getId(), user);
-        log.info("User added: {}", user);
+        UserValidator.validate(user);
+        user.setId(currentId.incrementAndGet());
+        long ticket;
+        locks.lock(user.getId());
+        try {
+            // in the map before the record, so a snapshot taken after the record has it too
+            users.put(user.getId(), user);
+            publish(user);
+            friendshipsCount.addAndGet(user.getFriends().size());
+            ticket = append(JournalCodec.ADD_USER, user);
+        } finally {
+            locks.unlock(user.getId());
+        }
+        journal.awaitDurable(ticket);
+        log.info("User {} added", user.getId());
         return user;
     }
 
+    /**
+     * Ids are reserved as one block and the journal is waited on once, after the last user.
+     */
+    @Override
+    public List<User> addUsers(List<User> batch) {
+        batch.forEach(UserValidator::validate);
+        long id = currentId.getAndAdd(batch.size());
+        long ticket = 0;
+        int friends = 0;
+        for (User user : batch) {
+            user.setId(++id);
+            locks.lock(id);
+            try {
+                users.put(id, user);
+                publish(user);
+                ticket = append(JournalCodec.ADD_USER, user);
+            } finally {
+                locks.unlock(id);
+            }
+            friends += user.getFriends().size();
+        }
+        friendshipsCount.addAndGet(friends);
+        journal.awaitDurable(ticket);
+        log.info("Users added: {}", batch.size());
+        return batch;
+    }
+
+    /**
+     * Puts a user read back from a snapshot or journal, keeping its id. Does not validate and
+     * does not journal.
+     */
+    public void restoreUser(User user) {
+        locks.lock(user.getId());
+        try {
+            User old = users.put(user.getId(), user);
+            publish(user);
+            friendshipsCount.addAndGet(user.getFriends().size() - (old == null ? 0 : old.getFriends().size()));
+            currentId.accumulateAndGet(user.getId(), Math::max);
+        } finally {
+            locks.unlock(user.getId());
+        }
+    }
+
     @Override
     public User updateUser(User user) {
         if (user.getId() == null) {
@@ -39,12 +155,25 @@ public class InMemoryUserStorage implements UserStorage {
         }
 
         if (!users.containsKey(user.getId())) {
-            throw new NotFoundException("User with ID " + user.getId() + " not found");
+            throw NotFoundException.user(user.getId());
         }
 
-        validateUser(user);
-        users.put(user.getId(), user);
-        log.info("User updated: {}", user);
+        UserValidator.validate(user);
+        long ticket;
+        locks.lock(user.getId());
+        try {
+            User old = users.replace(user.getId(), user);
+            if (old == null) {
+                throw NotFoundException.user(user.getId());
+            }
+            publish(user);
+            friendshipsCount.addAndGet(user.getFriends().size() - old.getFriends().size());
+            ticket = append(JournalCodec.UPDATE_USER, user);
+        } finally {
+            locks.unlock(user.getId());
+        }
+        journal.awaitDurable(ticket);
+        log.info("User {} updated", user.getId());
         return user;
     }
 
@@ -52,23 +181,153 @@ public class InMemoryUserStorage implements UserStorage {
     public User getUserById(Long id) {
         User user = users.get(id);
         if (user == null) {
-            throw new NotFoundException("User with ID " + id + " not found");
+            throw NotFoundException.user(id);
         }
         return user;
     }
 
-    private void validateUser(User user) {
-        if (user.getEmail() == null || user.getEmail().isBlank() || !user.getEmail().contains("@")) {
-            throw new ValidationException("Email is mandatory and must contain @");
+    @Override
+    public List<User> getUsersByIds(Collection<Long> ids) {
+        PersistentLongMap<User> version = snapshot == null ? null : snapshot.get();
+        List<User> result = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            User user = version == null ? users.get(id) : version.get(id);
+            if (user != null) {
+                result.add(user);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public FriendshipStatus addFriend(Long userId, Long friendId) {
+        FriendshipStatus status;
+        long ticket;
+        locks.lockPair(userId, friendId);
+        try {
+            User user = editable(getUserById(userId));
+            User friend = getUserById(friendId);
+            status = friend.getFriends().containsKey(userId)
+                    ? FriendshipStatus.CONFIRMED : FriendshipStatus.PENDING;
+            if (user.getFriends().put(friendId, status) == null) {
+                friendshipsCount.incrementAndGet();
+            }
+            store(user);
+            if (status == FriendshipStatus.CONFIRMED) {
+                friend = editable(friend);
+                friend.addFriend(userId, FriendshipStatus.CONFIRMED);
+                store(friend);
+            }
+            ticket = journal.append(JournalCodec.link(JournalCodec.FRIEND, userId, friendId));
+        } finally {
+            locks.unlockPair(userId, friendId);
+        }
+        journal.awaitDurable(ticket);
+        return status;
+    }
+
+    @Override
+    public boolean removeFriend(Long userId, Long friendId) {
+        boolean removed;
+        long ticket;
+        locks.lockPair(userId, friendId);
+        try {
+            User user = getUserById(userId);
+            User friend = getUserById(friendId);
+            removed = user.getFriends().containsKey(friendId);
+            if (removed) {
+                user = editable(user);
+                user.removeFriend(friendId);
+                store(user);
+                friendshipsCount.decrementAndGet();
+            }
+            if (friend.getFriends().containsKey(userId)) {
+                friend = editable(friend);
+                friend.removeFriend(userId);
+                store(friend);
+                friendshipsCount.decrementAndGet();
+            }
+            ticket = journal.append(JournalCodec.link(JournalCodec.UNFRIEND, userId, friendId));
+        } finally {
+            locks.unlockPair(userId, friendId);
         }
-        if (user.getLogin() == null || user.getLogin().isBlank() || user.getLogin().contains(" ")) {
-            throw new ValidationException("Login is mandatory and cannot contain spaces");
+        journal.awaitDurable(ticket);
+        return removed;
+    }
+
+    @Override
+    public boolean confirmFriend(Long userId, Long friendId) {
+        long ticket;
+        locks.lockPair(userId, friendId);
+        try {
+            User user = getUserById(userId);
+            User friend = getUserById(friendId);
+            if (!user.getFriendIds().contains(friendId)) {
+                return false;
+            }
+            user = editable(user);
+            user.addFriend(friendId, FriendshipStatus.CONFIRMED);
+            store(user);
+            friend = editable(friend);
+            if (friend.getFriends().put(userId, FriendshipStatus.CONFIRMED) == null) {
+                friendshipsCount.incrementAndGet();
+            }
+            store(friend);
+            ticket = journal.append(JournalCodec.link(JournalCodec.CONFIRM_FRIEND, userId, friendId));
+        } finally {
+            locks.unlockPair(userId, friendId);
         }
-        if (user.getBirthday() == null || user.getBirthday().isAfter(LocalDate.now())) {
-            throw new ValidationException("Birthday cannot be in the future");
+        journal.awaitDurable(ticket);
+        return true;
+    }
+
+    @Override
+    public long getUsersCount() {
+        return users.size();
+    }
+
+    @Override
+    public long getFriendshipsCount() {
+        return friendshipsCount.get();
+    }
+
+    /**
+     * Encodes the user only when the journal keeps records; the encoding is the only allocation
+     * left on the add and update paths.
+     */
+    private long append(byte type, User user) {
+        return journal.isEnabled() ? journal.append(JournalCodec.user(type, user)) : 0;
+    }
+
+    /**
+     * The user to apply a change to: the stored one, or with snapshot reads a copy that
+     * {@link #store} then puts in its place, so a published user is never changed.
+     */
+    private User editable(User user) {
+        return snapshot == null ? user : copyOf(user);
+    }
+
+    private void store(User user) {
+        if (snapshot != null) {
+            users.put(user.getId(), user);
+            publish(user);
         }
-        if (user.getName() == null || user.getName().isBlank()) {
-            user.setName(user.getLogin());
+    }
+
+    private static User copyOf(User user) {
+        User copy = new User();
+        copy.setId(user.getId());
+        copy.setEmail(user.getEmail());
+        copy.setLogin(user.getLogin());
+        copy.setName(user.getName());
+        copy.setBirthday(user.getBirthday());
+        copy.setFriends(user.getFriends());
+        return copy;
+    }
+
+    private void publish(User user) {
+        if (snapshot != null) {
+            snapshot.updateAndGet(version -> version.with(user.getId(), user));
         }
     }
-}
\ No newline at end of file
+}
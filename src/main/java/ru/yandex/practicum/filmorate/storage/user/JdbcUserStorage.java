@@ -0,0 +1,287 @@
+package ru.yandex.practicum.filmorate.storage.user;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.FriendshipStatus;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Slf4j
+@Component
+@Profile("jdbc")
+public class JdbcUserStorage implements UserStorage {
+    private static final String SELECT_USERS = "SELECT u.id, u.email, u.login, u.name, u.birthday, "
+            + "fr.friend_id, fr.status "
+            + "FROM users u "
+            + "LEFT JOIN friendships fr ON fr.user_id = u.id ";
+
+    private static final ResultSetExtractor<Collection<User>> USERS_EXTRACTOR = rs -> {
+        Map<Long, User> users = new LinkedHashMap<>();
+        while (rs.next()) {
+            long id = rs.getLong("id");
+            User user = users.get(id);
+            if (user == null) {
+                user = new User();
+                user.setId(id);
+                user.setEmail(rs.getString("email"));
+                user.setLogin(rs.getString("login"));
+                user.setName(rs.getString("name"));
+                Date birthday = rs.getDate("birthday");
+                user.setBirthday(birthday == null ? null : birthday.toLocalDate());
+                users.put(id, user);
+            }
+            long friendId = rs.getLong("friend_id");
+            if (!rs.wasNull()) {
+                user.addFriend(friendId, FriendshipStatus.valueOf(rs.getString("status")));
+            }
+        }
+        return users.values();
+    };
+
+    private static final String INSERT_USER = "INSERT INTO users (email, login, name, birthday) VALUES (?, ?, ?, ?)";
+
+    private static final int IN_CLAUSE_CHUNK = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public JdbcUserStorage(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public Collection<User> getUsers() {
+        Collection<User> users = jdbcTemplate.query(SELECT_USERS + "ORDER BY u.id", USERS_EXTRACTOR);
+        log.debug("Get request, size: {}", users.size());
+        return users;
+    }
+
+    @Override
+    public List<User> getUsers(Long after, int limit) {
+        // the page is cut on the base table; the outer join would otherwise count relation rows
+        return new ArrayList<>(jdbcTemplate.query(SELECT_USERS + "WHERE u.id IN "
+                        + "(SELECT id FROM users WHERE id > ? ORDER BY id LIMIT ?) ORDER BY u.id",
+                USERS_EXTRACTOR, after == null ? 0 : after, limit));
+    }
+
+    @Override
+    @Transactional
+    public User addUser(User user) {
+        UserValidator.validate(user);
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement(INSERT_USER, new String[]{"id"});
+            bindUser(ps, user);
+            return ps;
+        }, keyHolder);
+        user.setId(keyHolder.getKeyAs(Long.class));
+        insertFriends(List.of(user));
+        log.info("User {} added", user.getId());
+        return user;
+    }
+
+    /**
+     * One batched insert for the users and one for their friend links, in one transaction.
+     */
+    @Override
+    @Transactional
+    public List<User> addUsers(List<User> users) {
+        users.forEach(UserValidator::validate);
+        if (users.isEmpty()) {
+            return users;
+        }
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(connection -> connection.prepareStatement(INSERT_USER, new String[]{"id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        bindUser(ps, users.get(i));
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return users.size();
+                    }
+                }, keyHolder);
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        for (int i = 0; i < users.size(); i++) {
+            users.get(i).setId(((Number) keys.get(i).values().iterator().next()).longValue());
+        }
+        insertFriends(users);
+        log.info("Users added: {}", users.size());
+        return users;
+    }
+
+    @Override
+    @Transactional
+    public User updateUser(User user) {
+        if (user.getId() == null) {
+            throw new ValidationException("User ID is required for update");
+        }
+
+        if (!exists(user.getId())) {
+            throw NotFoundException.user(user.getId());
+        }
+
+        UserValidator.validate(user);
+        jdbcTemplate.update("UPDATE users SET email = ?, login = ?, name = ?, birthday = ? WHERE id = ?",
+                user.getEmail(), user.getLogin(), user.getName(), Date.valueOf(user.getBirthday()), user.getId());
+        jdbcTemplate.update("DELETE FROM friendships WHERE user_id = ?", user.getId());
+        insertFriends(List.of(user));
+        log.info("User {} updated", user.getId());
+        return user;
+    }
+
+    @Override
+    public User getUserById(Long id) {
+        Collection<User> users = jdbcTemplate.query(SELECT_USERS + "WHERE u.id = ?", USERS_EXTRACTOR, id);
+        if (users.isEmpty()) {
+            throw NotFoundException.user(id);
+        }
+        return users.iterator().next();
+    }
+
+    @Override
+    public List<User> getUsersByIds(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        List<Long> idList = new ArrayList<>(ids);
+        Map<Long, User> found = new HashMap<>();
+        for (int from = 0; from < idList.size(); from += IN_CLAUSE_CHUNK) {
+            List<Long> chunk = idList.subList(from, Math.min(from + IN_CLAUSE_CHUNK, idList.size()));
+            String placeholders = String.join(", ", Collections.nCopies(chunk.size(), "?"));
+            Collection<User> users = jdbcTemplate.query(SELECT_USERS + "WHERE u.id IN (" + placeholders + ")",
+                    USERS_EXTRACTOR, chunk.toArray());
+            for (User user : users) {
+                found.put(user.getId(), user);
+            }
+        }
+        List<User> result = new ArrayList<>(found.size());
+        for (Long id : idList) {
+            User user = found.get(id);
+            if (user != null) {
+                result.add(user);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    @Transactional
+    public FriendshipStatus addFriend(Long userId, Long friendId) {
+        lockPair(userId, friendId);
+        if (statusOf(friendId, userId) != null) {
+            mergeFriendship(userId, friendId, FriendshipStatus.CONFIRMED);
+            mergeFriendship(friendId, userId, FriendshipStatus.CONFIRMED);
+            return FriendshipStatus.CONFIRMED;
+        }
+        mergeFriendship(userId, friendId, FriendshipStatus.PENDING);
+        return FriendshipStatus.PENDING;
+    }
+
+    @Override
+    @Transactional
+    public boolean removeFriend(Long userId, Long friendId) {
+        lockPair(userId, friendId);
+        boolean removed = jdbcTemplate.update("DELETE FROM friendships WHERE user_id = ? AND friend_id = ?",
+                userId, friendId) > 0;
+        jdbcTemplate.update("DELETE FROM friendships WHERE user_id = ? AND friend_id = ?", friendId, userId);
+        return removed;
+    }
+
+    @Override
+    @Transactional
+    public boolean confirmFriend(Long userId, Long friendId) {
+        lockPair(userId, friendId);
+        if (statusOf(userId, friendId) == null) {
+            return false;
+        }
+        mergeFriendship(userId, friendId, FriendshipStatus.CONFIRMED);
+        mergeFriendship(friendId, userId, FriendshipStatus.CONFIRMED);
+        return true;
+    }
+
+    @Override
+    public long getUsersCount() {
+        return count("SELECT COUNT(*) FROM users");
+    }
+
+    @Override
+    public long getFriendshipsCount() {
+        return count("SELECT COUNT(*) FROM friendships");
+    }
+
+    /**
+     * Locks both user rows in id order for the rest of the transaction, which serialises
+     * concurrent friendship changes on the same pair the same way the in-memory lock stripes do.
+     */
+    private void lockPair(Long userId, Long friendId) {
+        List<Long> locked = jdbcTemplate.queryForList(
+                "SELECT id FROM users WHERE id IN (?, ?) ORDER BY id FOR UPDATE", Long.class, userId, friendId);
+        for (Long id : List.of(userId, friendId)) {
+            if (!locked.contains(id)) {
+                throw NotFoundException.user(id);
+            }
+        }
+    }
+
+    private FriendshipStatus statusOf(Long userId, Long friendId) {
+        List<String> statuses = jdbcTemplate.queryForList(
+                "SELECT status FROM friendships WHERE user_id = ? AND friend_id = ?", String.class, userId, friendId);
+        return statuses.isEmpty() ? null : FriendshipStatus.valueOf(statuses.get(0));
+    }
+
+    private void mergeFriendship(Long userId, Long friendId, FriendshipStatus status) {
+        jdbcTemplate.update("MERGE INTO friendships (user_id, friend_id, status) KEY (user_id, friend_id) "
+                + "VALUES (?, ?, ?)", userId, friendId, status.name());
+    }
+
+    private static void bindUser(PreparedStatement ps, User user) throws SQLException {
+        ps.setString(1, user.getEmail());
+        ps.setString(2, user.getLogin());
+        ps.setString(3, user.getName());
+        ps.setDate(4, Date.valueOf(user.getBirthday()));
+    }
+
+    private void insertFriends(List<User> users) {
+        List<Object[]> friends = new ArrayList<>();
+        for (User user : users) {
+            for (Map.Entry<Long, FriendshipStatus> entry : user.getFriends().entrySet()) {
+                friends.add(new Object[]{user.getId(), entry.getKey(), entry.getValue().name()});
+            }
+        }
+        if (!friends.isEmpty()) {
+            jdbcTemplate.batchUpdate("INSERT INTO friendships (user_id, friend_id, status) VALUES (?, ?, ?)",
+                    friends);
+        }
+    }
+
+    private boolean exists(Long id) {
+        Integer count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users WHERE id = ?", Integer.class, id);
+        return count != null && count > 0;
+    }
+
+    private long count(String sql) {
+        Long count = jdbcTemplate.queryForObject(sql, Long.class);
+        return count == null ? 0 : count;
+    }
+}
@@ -1,14 +1,66 @@
 package ru.yandex.practicum.filmorate.storage.user;
 
+import ru.yandex.practicum.filmorate.model.FriendshipStatus;
 import ru.yandex.practicum.filmorate.model.User;
+
 import java.util.Collection;
+import java.util.List;
 
 public interface UserStorage {
     Collection<User> getUsers();
 
+    /**
+     * Returns up to {@code limit} users with ids greater than {@code after} (from the start if
+     * {@code null}), ordered by id. The id of the last element is the cursor for the next page.
+     */
+    List<User> getUsers(Long after, int limit);
+
     User addUser(User user);
 
+    /**
+     * Adds many users in one pass. All users are validated before any is stored, so an invalid
+     * user rejects the whole call.
+     *
+     * @return the users with their new ids, in input order
+     */
+    List<User> addUsers(List<User> users);
+
     User updateUser(User user);
 
     User getUserById(Long id);
-}
\ No newline at end of file
+
+    /**
+     * Resolves many ids in one pass. The result follows the order of {@code ids};
+     * unknown ids are skipped instead of failing the whole lookup.
+     */
+    List<User> getUsersByIds(Collection<Long> ids);
+
+    /**
+     * Adds {@code friendId} to the friends of {@code userId}. The link is {@link FriendshipStatus#PENDING}
+     * unless the other user has already added this one, in which case both sides become confirmed.
+     *
+     * @return the resulting status of the link
+     */
+    FriendshipStatus addFriend(Long userId, Long friendId);
+
+    /**
+     * Removes the link in both directions.
+     *
+     * @return {@code true} if {@code userId} had {@code friendId} as a friend
+     */
+    boolean removeFriend(Long userId, Long friendId);
+
+    /**
+     * Marks the link as confirmed on both sides.
+     *
+     * @return {@code false} if {@code userId} has no link to {@code friendId}
+     */
+    boolean confirmFriend(Long userId, Long friendId);
+
+    long getUsersCount();
+
+    /**
+     * @return number of directed friend links (a confirmed friendship counts twice)
+     */
+    long getFriendshipsCount();
+}
@@ -0,0 +1,29 @@
+package ru.yandex.practicum.filmorate.storage.user;
+
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.util.CachedClock;
+
+/**
+ * Checks shared by the storages and the batch endpoints. "Today" comes from
+ * {@link CachedClock#SYSTEM}, so a valid user is checked without allocating.
+ */
+public final class UserValidator {
+    private UserValidator() {
+    }
+
+    public static void validate(User user) {
+        if (user.getEmail() == null || user.getEmail().isBlank() || !user.getEmail().contains("@")) {
+            throw new ValidationException("Email is mandatory and must contain @");
+        }
+        if (user.getLogin() == null || user.getLogin().isBlank() || user.getLogin().contains(" ")) {
+            throw new ValidationException("Login is mandatory and cannot contain spaces");
+        }
+        if (user.getBirthday() == null || user.getBirthday().isAfter(CachedClock.SYSTEM.today())) {
+            throw new ValidationException("Birthday cannot be in the future");
+        }
+        if (user.getName() == null || user.getName().isBlank()) {
+            user.setName(user.getLogin());
+        }
+    }
+}
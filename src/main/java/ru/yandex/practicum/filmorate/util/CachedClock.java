@@ -0,0 +1,38 @@
+package ru.yandex.practicum.filmorate.util;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+
+/**
+ * The current date, recomputed only when the day changes. {@link LocalDate#now()} resolves the
+ * zone offset and allocates on every call; {@link #today} reads the clock's millis and returns
+ * the cached date while they stay within the same day.
+ */
+public final class CachedClock {
+    public static final CachedClock SYSTEM = new CachedClock(Clock.systemDefaultZone());
+
+    private final Clock clock;
+    private volatile Day day;
+
+    public CachedClock(Clock clock) {
+        this.clock = clock;
+    }
+
+    public LocalDate today() {
+        long now = clock.millis();
+        Day current = day;
+        if (current == null || now < current.start() || now >= current.end()) {
+            ZoneId zone = clock.getZone();
+            LocalDate date = LocalDate.ofInstant(Instant.ofEpochMilli(now), zone);
+            current = new Day(date, date.atStartOfDay(zone).toInstant().toEpochMilli(),
+                    date.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli());
+            day = current;
+        }
+        return current.date();
+    }
+
+    private record Day(LocalDate date, long start, long end) {
+    }
+}
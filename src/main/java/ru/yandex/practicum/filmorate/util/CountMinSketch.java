@@ -0,0 +1,59 @@
+package ru.yandex.practicum.filmorate.util;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Count-Min sketch: approximate per-key counts in {@code depth * width} counters, whatever the
+ * number of keys. An estimate is never below the true count and, with probability at least
+ * {@code 1 - e^-depth}, exceeds it by at most {@code e / width} times the total of all counts.
+ * Counters are atomic, so {@link #add} needs no lock.
+ */
+public class CountMinSketch {
+    private final int depth;
+    private final int bits;
+    private final long[] multipliers;
+    private final AtomicIntegerArray counters;
+
+    /**
+     * @param width counters per row, rounded up to a power of two
+     */
+    public CountMinSketch(int depth, int width, long seed) {
+        if (depth <= 0 || width <= 0) {
+            throw new IllegalArgumentException("Depth and width must be positive");
+        }
+        int bits = Math.max(1, 32 - Integer.numberOfLeadingZeros(width - 1));
+        this.depth = depth;
+        this.bits = bits;
+        this.multipliers = new long[depth];
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int i = 0; i < depth; i++) {
+            multipliers[i] = random.nextLong() | 1;
+        }
+        this.counters = new AtomicIntegerArray(depth << bits);
+    }
+
+    public void add(long key, int count) {
+        for (int row = 0; row < depth; row++) {
+            counters.addAndGet((row << bits) + index(row, key), count);
+        }
+    }
+
+    public int estimate(long key) {
+        int min = Integer.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            min = Math.min(min, counters.get((row << bits) + index(row, key)));
+        }
+        return min;
+    }
+
+    /**
+     * Multiply-shift hashing with an odd multiplier per row; the mixing step first spreads
+     * consecutive ids, which would otherwise land in neighbouring counters.
+     */
+    private int index(int row, long key) {
+        long mixed = key * 0x9E3779B97F4A7C15L;
+        mixed ^= mixed >>> 32;
+        return (int) ((mixed * multipliers[row]) >>> (64 - bits));
+    }
+}
@@ -0,0 +1,306 @@
+package ru.yandex.practicum.filmorate.util;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Open-addressing map from primitive long keys to enum constants stored as ordinal bytes.
+ * Costs 12-24 bytes per entry depending on fill (load factor 0.75) instead of ~65 for a boxed
+ * {@code HashMap<Long, E>}. Same locking and snapshot-iteration rules as {@link LongHashSet}.
+ */
+public class LongEnumMap<E extends Enum<E>> extends AbstractMap<Long, E> {
+    private static final int MIN_CAPACITY = 4;
+    private static final long EMPTY = 0L;
+    private static final byte ABSENT = -1;
+
+    private final E[] constants;
+    private long[] keys;
+    private byte[] values;
+    private byte emptyKeyValue = ABSENT;
+    private int size;
+
+    public LongEnumMap(Class<E> type) {
+        constants = type.getEnumConstants();
+        if (constants.length > Byte.MAX_VALUE) {
+            throw new IllegalArgumentException("Enum " + type.getName() + " has too many constants");
+        }
+        keys = new long[MIN_CAPACITY];
+        values = new byte[MIN_CAPACITY];
+    }
+
+    private LongEnumMap(LongEnumMap<E> source) {
+        constants = source.constants;
+        keys = source.keys.clone();
+        values = source.values.clone();
+        emptyKeyValue = source.emptyKeyValue;
+        size = source.size;
+    }
+
+    public synchronized E get(long key) {
+        byte ordinal = ordinal(key);
+        return ordinal == ABSENT ? null : constants[ordinal];
+    }
+
+    public synchronized boolean containsKey(long key) {
+        return ordinal(key) != ABSENT;
+    }
+
+    public synchronized E put(long key, E value) {
+        byte ordinal = (byte) value.ordinal();
+        if (key == EMPTY) {
+            byte previous = emptyKeyValue;
+            emptyKeyValue = ordinal;
+            if (previous == ABSENT) {
+                size++;
+                return null;
+            }
+            return constants[previous];
+        }
+        int mask = keys.length - 1;
+        int slot = LongHashSet.slot(key, keys.length);
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                byte previous = values[slot];
+                values[slot] = ordinal;
+                return constants[previous];
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = ordinal;
+        size++;
+        if (size * 4 > keys.length * 3) {
+            rehash(keys.length * 2);
+        }
+        return null;
+    }
+
+    public synchronized E remove(long key) {
+        if (key == EMPTY) {
+            byte previous = emptyKeyValue;
+            if (previous == ABSENT) {
+                return null;
+            }
+            emptyKeyValue = ABSENT;
+            size--;
+            return constants[previous];
+        }
+        int mask = keys.length - 1;
+        int slot = LongHashSet.slot(key, keys.length);
+        while (keys[slot] != key) {
+            if (keys[slot] == EMPTY) {
+                return null;
+            }
+            slot = (slot + 1) & mask;
+        }
+        byte previous = values[slot];
+        int free = slot;
+        int next = (free + 1) & mask;
+        while (keys[next] != EMPTY) {
+            int home = LongHashSet.slot(keys[next], keys.length);
+            if (((next - home) & mask) >= ((next - free) & mask)) {
+                keys[free] = keys[next];
+                values[free] = values[next];
+                free = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[free] = EMPTY;
+        size--;
+        return constants[previous];
+    }
+
+    @Override
+    public E get(Object key) {
+        return key instanceof Long ? get(((Long) key).longValue()) : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key instanceof Long && containsKey(((Long) key).longValue());
+    }
+
+    @Override
+    public E put(Long key, E value) {
+        return put(key.longValue(), value);
+    }
+
+    @Override
+    public E remove(Object key) {
+        return key instanceof Long ? remove(((Long) key).longValue()) : null;
+    }
+
+    @Override
+    public synchronized int size() {
+        return size;
+    }
+
+    @Override
+    public synchronized void clear() {
+        keys = new long[MIN_CAPACITY];
+        values = new byte[MIN_CAPACITY];
+        emptyKeyValue = ABSENT;
+        size = 0;
+    }
+
+    /**
+     * A copy of the map made by cloning its tables, without rehashing or boxing.
+     */
+    public synchronized LongEnumMap<E> copy() {
+        return new LongEnumMap<>(this);
+    }
+
+    public synchronized long[] keyArray() {
+        long[] result = new long[size];
+        int count = 0;
+        if (emptyKeyValue != ABSENT) {
+            result[count++] = EMPTY;
+        }
+        for (long key : keys) {
+            if (key != EMPTY) {
+                result[count++] = key;
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public Set<Long> keySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Long> iterator() {
+                long[] snapshot = keyArray();
+                return new Iterator<>() {
+                    private int next;
+
+                    @Override
+                    public boolean hasNext() {
+                        return next < snapshot.length;
+                    }
+
+                    @Override
+                    public Long next() {
+                        if (next >= snapshot.length) {
+                            throw new NoSuchElementException();
+                        }
+                        return snapshot[next++];
+                    }
+
+                    @Override
+                    public void remove() {
+                        if (next == 0) {
+                            throw new IllegalStateException();
+                        }
+                        LongEnumMap.this.remove(snapshot[next - 1]);
+                    }
+                };
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return containsKey(o);
+            }
+
+            @Override
+            public boolean remove(Object o) {
+                return LongEnumMap.this.remove(o) != null;
+            }
+
+            @Override
+            public int size() {
+                return LongEnumMap.this.size();
+            }
+        };
+    }
+
+    @Override
+    public Set<Entry<Long, E>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<Long, E>> iterator() {
+                return snapshotIterator();
+            }
+
+            @Override
+            public int size() {
+                return LongEnumMap.this.size();
+            }
+        };
+    }
+
+    private synchronized Iterator<Entry<Long, E>> snapshotIterator() {
+        long[] snapshotKeys = new long[size];
+        byte[] snapshotValues = new byte[size];
+        int count = 0;
+        if (emptyKeyValue != ABSENT) {
+            snapshotKeys[count] = EMPTY;
+            snapshotValues[count++] = emptyKeyValue;
+        }
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) {
+                snapshotKeys[count] = keys[i];
+                snapshotValues[count++] = values[i];
+            }
+        }
+        return new Iterator<>() {
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                return next < snapshotKeys.length;
+            }
+
+            @Override
+            public Entry<Long, E> next() {
+                if (next >= snapshotKeys.length) {
+                    throw new NoSuchElementException();
+                }
+                long key = snapshotKeys[next];
+                E value = constants[snapshotValues[next++]];
+                return new AbstractMap.SimpleImmutableEntry<>(key, value);
+            }
+
+            @Override
+            public void remove() {
+                if (next == 0) {
+                    throw new IllegalStateException();
+                }
+                LongEnumMap.this.remove(snapshotKeys[next - 1]);
+            }
+        };
+    }
+
+    private byte ordinal(long key) {
+        if (key == EMPTY) {
+            return emptyKeyValue;
+        }
+        int slot = LongHashSet.slot(key, keys.length);
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                return values[slot];
+            }
+            slot = (slot + 1) & (keys.length - 1);
+        }
+        return ABSENT;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        byte[] oldValues = values;
+        keys = new long[capacity];
+        values = new byte[capacity];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = LongHashSet.slot(oldKeys[i], capacity);
+                while (keys[slot] != EMPTY) {
+                    slot = (slot + 1) & (capacity - 1);
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+}
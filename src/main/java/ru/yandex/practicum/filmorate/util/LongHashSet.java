@@ -0,0 +1,253 @@
+package ru.yandex.practicum.filmorate.util;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Open-addressing set of primitive longs (linear probing, backward-shift deletion).
+ * Costs 11-22 bytes per element depending on fill (load factor 0.75) instead of ~65 for a boxed
+ * {@code HashSet<Long>}. Operations are synchronized on the set; iterators walk a snapshot,
+ * so serializing the set while it is mutated is safe.
+ */
+public class LongHashSet extends AbstractSet<Long> {
+    private static final int MIN_CAPACITY = 4;
+    private static final long EMPTY = 0L;
+
+    private long[] keys;
+    private boolean containsEmptyKey;
+    private int size;
+
+    public LongHashSet() {
+        keys = new long[MIN_CAPACITY];
+    }
+
+    public synchronized boolean add(long key) {
+        if (key == EMPTY) {
+            if (containsEmptyKey) {
+                return false;
+            }
+            containsEmptyKey = true;
+            size++;
+            return true;
+        }
+        int slot = slot(key, keys.length);
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                return false;
+            }
+            slot = (slot + 1) & (keys.length - 1);
+        }
+        keys[slot] = key;
+        size++;
+        if (size * 4 > keys.length * 3) {
+            rehash(keys.length * 2);
+        }
+        return true;
+    }
+
+    public synchronized boolean contains(long key) {
+        if (key == EMPTY) {
+            return containsEmptyKey;
+        }
+        int slot = slot(key, keys.length);
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                return true;
+            }
+            slot = (slot + 1) & (keys.length - 1);
+        }
+        return false;
+    }
+
+    public synchronized boolean remove(long key) {
+        if (key == EMPTY) {
+            if (!containsEmptyKey) {
+                return false;
+            }
+            containsEmptyKey = false;
+            size--;
+            return true;
+        }
+        int mask = keys.length - 1;
+        int slot = slot(key, keys.length);
+        while (keys[slot] != key) {
+            if (keys[slot] == EMPTY) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        // shift back the following entries of the probe chain into the freed slot
+        int free = slot;
+        int next = (free + 1) & mask;
+        while (keys[next] != EMPTY) {
+            int home = slot(keys[next], keys.length);
+            if (((next - home) & mask) >= ((next - free) & mask)) {
+                keys[free] = keys[next];
+                free = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[free] = EMPTY;
+        size--;
+        return true;
+    }
+
+    /**
+     * A copy of the set made by cloning its table, without rehashing or boxing.
+     */
+    public synchronized LongHashSet copy() {
+        LongHashSet copy = new LongHashSet();
+        copy.keys = keys.clone();
+        copy.containsEmptyKey = containsEmptyKey;
+        copy.size = size;
+        return copy;
+    }
+
+    public synchronized long[] toLongArray() {
+        long[] result = new long[size];
+        int i = 0;
+        if (containsEmptyKey) {
+            result[i++] = EMPTY;
+        }
+        for (long key : keys) {
+            if (key != EMPTY) {
+                result[i++] = key;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Up to {@code limit} smallest keys greater than {@code after}, ascending. One pass over the
+     * table with a bounded max-heap, O(n log limit), without copying the set.
+     */
+    public synchronized long[] pageAfter(long after, int limit) {
+        long[] heap = new long[Math.max(0, Math.min(limit, size))];
+        int count = 0;
+        if (containsEmptyKey && EMPTY > after && heap.length > 0) {
+            heap[count++] = EMPTY;
+        }
+        for (long key : keys) {
+            if (key == EMPTY || key <= after) {
+                continue;
+            }
+            if (count < heap.length) {
+                heap[count] = key;
+                siftUp(heap, count++);
+            } else if (count > 0 && key < heap[0]) {
+                heap[0] = key;
+                siftDown(heap, count);
+            }
+        }
+        long[] page = Arrays.copyOf(heap, count);
+        Arrays.sort(page);
+        return page;
+    }
+
+    @Override
+    public boolean add(Long key) {
+        return add(key.longValue());
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof Long && contains(((Long) o).longValue());
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        return o instanceof Long && remove(((Long) o).longValue());
+    }
+
+    @Override
+    public synchronized int size() {
+        return size;
+    }
+
+    @Override
+    public synchronized void clear() {
+        Arrays.fill(keys, EMPTY);
+        containsEmptyKey = false;
+        size = 0;
+    }
+
+    @Override
+    public Iterator<Long> iterator() {
+        long[] snapshot = toLongArray();
+        return new Iterator<>() {
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                return next < snapshot.length;
+            }
+
+            @Override
+            public Long next() {
+                if (next >= snapshot.length) {
+                    throw new NoSuchElementException();
+                }
+                return snapshot[next++];
+            }
+
+            @Override
+            public void remove() {
+                if (next == 0) {
+                    throw new IllegalStateException();
+                }
+                LongHashSet.this.remove(snapshot[next - 1]);
+            }
+        };
+    }
+
+    private void rehash(int capacity) {
+        long[] old = keys;
+        keys = new long[capacity];
+        for (long key : old) {
+            if (key != EMPTY) {
+                int slot = slot(key, capacity);
+                while (keys[slot] != EMPTY) {
+                    slot = (slot + 1) & (capacity - 1);
+                }
+                keys[slot] = key;
+            }
+        }
+    }
+
+    private static void siftUp(long[] heap, int i) {
+        long key = heap[i];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (heap[parent] >= key) {
+                break;
+            }
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = key;
+    }
+
+    private static void siftDown(long[] heap, int count) {
+        long key = heap[0];
+        int i = 0;
+        int child;
+        while ((child = 2 * i + 1) < count) {
+            if (child + 1 < count && heap[child + 1] > heap[child]) {
+                child++;
+            }
+            if (heap[child] <= key) {
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = key;
+    }
+
+    static int slot(long key, int capacity) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & (capacity - 1);
+    }
+}
@@ -0,0 +1,177 @@
+package ru.yandex.practicum.filmorate.util;
+
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Immutable map from non-negative long keys to values, as a 32-way radix trie: {@link #with} and
+ * {@link #without} copy only the path to the key (a handful of 32-slot nodes for sequential ids)
+ * and share everything else with the version they were called on, so old versions stay valid and
+ * can be read by any thread without locks. Iteration is in ascending key order. Null values are
+ * not allowed.
+ */
+public final class PersistentLongMap<V> {
+    private static final int BITS = 5;
+    private static final int WIDTH = 1 << BITS;
+    private static final int MASK = WIDTH - 1;
+    private static final PersistentLongMap<?> EMPTY = new PersistentLongMap<>(null, 0, 0);
+
+    private final Object[] root;
+    private final int shift;
+    private final int size;
+
+    private PersistentLongMap(Object[] root, int shift, int size) {
+        this.root = root;
+        this.shift = shift;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <V> PersistentLongMap<V> empty() {
+        return (PersistentLongMap<V>) EMPTY;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        if (key < 0 || root == null || key >>> shift >>> BITS != 0) {
+            return null;
+        }
+        Object[] node = root;
+        for (int level = shift; level > 0; level -= BITS) {
+            node = (Object[]) node[(int) (key >>> level) & MASK];
+            if (node == null) {
+                return null;
+            }
+        }
+        return (V) node[(int) key & MASK];
+    }
+
+    public PersistentLongMap<V> with(long key, V value) {
+        if (key < 0 || value == null) {
+            throw new IllegalArgumentException("Key must be non-negative and value non-null");
+        }
+        Object[] top = root;
+        int topShift = shift;
+        while (key >>> topShift >>> BITS != 0) {
+            if (top != null) {
+                Object[] parent = new Object[WIDTH];
+                parent[0] = top;
+                top = parent;
+            }
+            topShift += BITS;
+        }
+        int grown = get(key) == null ? 1 : 0;
+        return new PersistentLongMap<>(put(top, topShift, key, value), topShift, size + grown);
+    }
+
+    public PersistentLongMap<V> without(long key) {
+        if (get(key) == null) {
+            return this;
+        }
+        Object[] node = remove(root, shift, key);
+        return node == null ? empty() : new PersistentLongMap<>(node, shift, size - 1);
+    }
+
+    /**
+     * Values in ascending key order; a read-only view of this version.
+     */
+    public Collection<V> values() {
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<V> iterator() {
+                return new Values<>(root, shift);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private static Object[] put(Object[] node, int level, long key, Object value) {
+        Object[] copy = node == null ? new Object[WIDTH] : node.clone();
+        int slot = (int) (key >>> level) & MASK;
+        copy[slot] = level == 0 ? value : put((Object[]) copy[slot], level - BITS, key, value);
+        return copy;
+    }
+
+    /**
+     * Returns the node without the key, or null when nothing is left in it.
+     */
+    private static Object[] remove(Object[] node, int level, long key) {
+        int slot = (int) (key >>> level) & MASK;
+        Object child = level == 0 ? null : remove((Object[]) node[slot], level - BITS, key);
+        for (int i = 0; i < WIDTH; i++) {
+            if (i != slot && node[i] != null || i == slot && child != null) {
+                Object[] copy = node.clone();
+                copy[slot] = child;
+                return copy;
+            }
+        }
+        return null;
+    }
+
+    private static final class Values<V> implements Iterator<V> {
+        private final Object[][] path;
+        private final int[] slots;
+        private int depth;
+        private Object next;
+
+        Values(Object[] root, int shift) {
+            int levels = shift / BITS + 1;
+            path = new Object[levels][];
+            slots = new int[levels];
+            path[0] = root;
+            depth = root == null ? -1 : 0;
+            advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public V next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            Object value = next;
+            advance();
+            return (V) value;
+        }
+
+        private void advance() {
+            next = null;
+            while (depth >= 0) {
+                if (slots[depth] == WIDTH) {
+                    depth--;
+                    if (depth >= 0) {
+                        slots[depth]++;
+                    }
+                    continue;
+                }
+                Object child = path[depth][slots[depth]];
+                if (child == null) {
+                    slots[depth]++;
+                } else if (depth == path.length - 1) {
+                    next = child;
+                    slots[depth]++;
+                    return;
+                } else {
+                    depth++;
+                    path[depth] = (Object[]) child;
+                    slots[depth] = 0;
+                }
+            }
+        }
+    }
+}
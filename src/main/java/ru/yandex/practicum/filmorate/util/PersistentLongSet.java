@@ -0,0 +1,146 @@
+package ru.yandex.practicum.filmorate.util;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * Immutable sorted set of longs, as a treap whose priorities are a hash of the key (so its shape
+ * depends only on its contents). {@link #with} and {@link #without} copy the O(log n) nodes on
+ * the path they change and share the rest with the version they were called on; any version can
+ * be read concurrently without locks. Meant for {@link TopK#key} style keys, walked from the
+ * largest down.
+ */
+public final class PersistentLongSet {
+    private static final PersistentLongSet EMPTY = new PersistentLongSet(null, 0);
+
+    private final Node root;
+    private final int size;
+
+    private PersistentLongSet(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    public static PersistentLongSet empty() {
+        return EMPTY;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean contains(long key) {
+        Node node = root;
+        while (node != null) {
+            if (key == node.key) {
+                return true;
+            }
+            node = key < node.key ? node.left : node.right;
+        }
+        return false;
+    }
+
+    public PersistentLongSet with(long key) {
+        return contains(key) ? this : new PersistentLongSet(insert(root, key, priority(key)), size + 1);
+    }
+
+    public PersistentLongSet without(long key) {
+        return contains(key) ? new PersistentLongSet(delete(root, key), size - 1) : this;
+    }
+
+    /**
+     * Keys from the largest down.
+     */
+    public Cursor descending() {
+        return new Cursor(root, size);
+    }
+
+    private static Node insert(Node node, long key, long priority) {
+        if (node == null) {
+            return new Node(key, priority, null, null);
+        }
+        if (key < node.key) {
+            Node left = insert(node.left, key, priority);
+            if (left.priority > node.priority) {
+                return new Node(left.key, left.priority, left.left,
+                        new Node(node.key, node.priority, left.right, node.right));
+            }
+            return new Node(node.key, node.priority, left, node.right);
+        }
+        Node right = insert(node.right, key, priority);
+        if (right.priority > node.priority) {
+            return new Node(right.key, right.priority,
+                    new Node(node.key, node.priority, node.left, right.left), right.right);
+        }
+        return new Node(node.key, node.priority, node.left, right);
+    }
+
+    private static Node delete(Node node, long key) {
+        if (key == node.key) {
+            return merge(node.left, node.right);
+        }
+        return key < node.key
+                ? new Node(node.key, node.priority, delete(node.left, key), node.right)
+                : new Node(node.key, node.priority, node.left, delete(node.right, key));
+    }
+
+    /**
+     * Joins two treaps whose keys are all ordered {@code left < right}.
+     */
+    private static Node merge(Node left, Node right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            return new Node(left.key, left.priority, left.left, merge(left.right, right));
+        }
+        return new Node(right.key, right.priority, merge(left, right.left), right.right);
+    }
+
+    private static long priority(long key) {
+        long mixed = (key ^ (key >>> 33)) * 0xFF51AFD7ED558CCDL;
+        mixed = (mixed ^ (mixed >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return mixed ^ (mixed >>> 33);
+    }
+
+    private record Node(long key, long priority, Node left, Node right) {
+    }
+
+    /**
+     * In-order walk from the largest key, with an explicit stack of the nodes still to visit.
+     */
+    public static final class Cursor {
+        private Node[] stack;
+        private int depth;
+
+        private Cursor(Node root, int size) {
+            stack = new Node[Math.max(4, 2 * (64 - Long.numberOfLeadingZeros(size)))];
+            push(root);
+        }
+
+        public boolean hasNext() {
+            return depth > 0;
+        }
+
+        public long next() {
+            if (depth == 0) {
+                throw new NoSuchElementException();
+            }
+            Node node = stack[--depth];
+            push(node.left);
+            return node.key;
+        }
+
+        private void push(Node node) {
+            for (; node != null; node = node.right) {
+                if (depth == stack.length) {
+                    stack = Arrays.copyOf(stack, depth * 2);
+                }
+                stack[depth++] = node;
+            }
+        }
+    }
+}
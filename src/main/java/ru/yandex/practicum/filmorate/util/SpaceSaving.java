@@ -0,0 +1,169 @@
+package ru.yandex.practicum.filmorate.util;
+
+import java.util.Arrays;
+
+/**
+ * Space-Saving heavy hitters: at most {@code capacity} monitored keys with counts. An unmonitored
+ * key takes over the smallest counter and inherits its count, so counts only overestimate, by at
+ * most the count it inherited, and every key with more than {@code total / capacity} occurrences
+ * is monitored. Counters are a min-heap whose positions are found through an open-addressing
+ * index of primitive keys, so an update costs O(log capacity) without boxing. Not thread-safe.
+ */
+public class SpaceSaving {
+    private final long[] keys;
+    private final long[] counts;
+    private final Positions positions;
+    private int size;
+
+    public SpaceSaving(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        keys = new long[capacity];
+        counts = new long[capacity];
+        positions = new Positions(capacity);
+    }
+
+    public void offer(long key, long count) {
+        int position = positions.get(key);
+        if (position >= 0) {
+            counts[position] += count;
+            siftDown(position);
+        } else if (size < keys.length) {
+            keys[size] = key;
+            counts[size] = count;
+            positions.put(key, size);
+            siftUp(size++);
+        } else {
+            positions.remove(keys[0]);
+            keys[0] = key;
+            counts[0] += count;
+            positions.put(key, 0);
+            siftDown(0);
+        }
+    }
+
+    /**
+     * The monitored keys, in no particular order.
+     */
+    public long[] keys() {
+        return Arrays.copyOf(keys, size);
+    }
+
+    /**
+     * Count of a monitored key (an upper bound of its true count), 0 for any other key.
+     */
+    public long count(long key) {
+        int position = positions.get(key);
+        return position < 0 ? 0 : counts[position];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void siftUp(int index) {
+        long key = keys[index];
+        long count = counts[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (counts[parent] <= count) {
+                break;
+            }
+            move(parent, index);
+            index = parent;
+        }
+        place(key, count, index);
+    }
+
+    private void siftDown(int index) {
+        long key = keys[index];
+        long count = counts[index];
+        int half = size >>> 1;
+        while (index < half) {
+            int child = 2 * index + 1;
+            if (child + 1 < size && counts[child + 1] < counts[child]) {
+                child++;
+            }
+            if (count <= counts[child]) {
+                break;
+            }
+            move(child, index);
+            index = child;
+        }
+        place(key, count, index);
+    }
+
+    private void move(int from, int to) {
+        keys[to] = keys[from];
+        counts[to] = counts[from];
+        positions.put(keys[to], to);
+    }
+
+    private void place(long key, long count, int index) {
+        keys[index] = key;
+        counts[index] = count;
+        positions.put(key, index);
+    }
+
+    /**
+     * Key to heap position, linear probing in a table at most a quarter full; removal shifts the
+     * following entries back instead of leaving tombstones.
+     */
+    private static final class Positions {
+        private final long[] keys;
+        private final int[] values;
+        private final int mask;
+
+        Positions(int capacity) {
+            int size = Integer.highestOneBit(Math.max(4, capacity * 4 - 1)) << 1;
+            keys = new long[size];
+            values = new int[size];
+            Arrays.fill(values, -1);
+            mask = size - 1;
+        }
+
+        int get(long key) {
+            for (int slot = slot(key); values[slot] >= 0; slot = (slot + 1) & mask) {
+                if (keys[slot] == key) {
+                    return values[slot];
+                }
+            }
+            return -1;
+        }
+
+        void put(long key, int value) {
+            int slot = slot(key);
+            while (values[slot] >= 0 && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            values[slot] = value;
+        }
+
+        void remove(long key) {
+            int slot = slot(key);
+            while (values[slot] >= 0 && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            if (values[slot] < 0) {
+                return;
+            }
+            int hole = slot;
+            for (int next = (hole + 1) & mask; values[next] >= 0; next = (next + 1) & mask) {
+                int home = slot(keys[next]);
+                if (((next - home) & mask) >= ((next - hole) & mask)) {
+                    keys[hole] = keys[next];
+                    values[hole] = values[next];
+                    hole = next;
+                }
+            }
+            values[hole] = -1;
+        }
+
+        private int slot(long key) {
+            long mixed = key * 0x9E3779B97F4A7C15L;
+            return (int) (mixed ^ (mixed >>> 32)) & mask;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package ru.yandex.practicum.filmorate.util;
+
+import java.util.Arrays;
+
+/**
+ * Keeps the {@code k} largest of the offered long keys in a primitive min-heap, so selecting the
+ * best k of n candidates costs O(n log k) without boxing. Callers pack a score and a tie-breaker
+ * into one key with {@link #key}. The heap starts small and doubles up to {@code k} as keys
+ * arrive, so a large {@code k} costs memory only for the keys actually offered. Not thread-safe:
+ * parallel callers fill one instance per task and {@link #merge} them.
+ */
+public class TopK {
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final int capacity;
+    private long[] heap;
+    private int size;
+
+    public TopK(int k) {
+        capacity = Math.max(0, k);
+        heap = new long[Math.min(capacity, INITIAL_CAPACITY)];
+    }
+
+    /**
+     * Orders by {@code score} descending, then by {@code id} ascending. Both must fit in 32 bits:
+     * score non-negative, id in {@code [0, 2^32)}.
+     */
+    public static long key(int score, long id) {
+        return ((long) score << 32) | (0xFFFFFFFFL - id);
+    }
+
+    public static long id(long key) {
+        return 0xFFFFFFFFL - (key & 0xFFFFFFFFL);
+    }
+
+    public static int score(long key) {
+        return (int) (key >>> 32);
+    }
+
+    public void offer(long key) {
+        if (size < capacity) {
+            if (size == heap.length) {
+                heap = Arrays.copyOf(heap, (int) Math.min(capacity, 2L * size));
+            }
+            heap[size] = key;
+            siftUp(size++);
+        } else if (size > 0 && key > heap[0]) {
+            heap[0] = key;
+            siftDown(0);
+        }
+    }
+
+    /**
+     * Whether {@link #offer} would keep the key; lets callers skip costly checks of losing candidates.
+     */
+    public boolean accepts(long key) {
+        return size < capacity || size > 0 && key > heap[0];
+    }
+
+    public void merge(TopK other) {
+        for (int i = 0; i < other.size; i++) {
+            offer(other.heap[i]);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * The kept keys, best first.
+     */
+    public long[] toSortedArray() {
+        long[] result = Arrays.copyOf(heap, size);
+        Arrays.sort(result);
+        for (int i = 0, j = result.length - 1; i < j; i++, j--) {
+            long swap = result[i];
+            result[i] = result[j];
+            result[j] = swap;
+        }
+        return result;
+    }
+
+    private void siftUp(int index) {
+        long key = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (heap[parent] <= key) {
+                break;
+            }
+            heap[index] = heap[parent];
+            index = parent;
+        }
+        heap[index] = key;
+    }
+
+    private void siftDown(int index) {
+        long key = heap[index];
+        int half = size >>> 1;
+        while (index < half) {
+            int child = 2 * index + 1;
+            if (child + 1 < size && heap[child + 1] < heap[child]) {
+                child++;
+            }
+            if (key <= heap[child]) {
+                break;
+            }
+            heap[index] = heap[child];
+            index = child;
+        }
+        heap[index] = key;
+    }
+}
@@ -0,0 +1,269 @@
+package ru.yandex.practicum.filmorate.util;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Typeahead index over short texts (titles, logins) with a popularity score per entry.
+ * <p>
+ * Texts are {@linkplain #normalize normalized} and split into words. Every word is indexed by the
+ * trigrams of the word with a leading space (so {@code " ma"} marks a word starting with "ma") and
+ * by its first letter. A query matches when each of its words is the beginning of some word of the
+ * text: the smallest posting list of the query grams is walked, candidates that cannot enter the
+ * {@link TopK} heap (score, then id) are dropped before anything else, the rest are looked up in
+ * the other lists and, for query words longer than two letters, checked against the text.
+ * <p>
+ * Posting lists are sorted {@code int[]} of ids, so ids must fit in an {@code int}. Texts and
+ * postings change under the write lock and are read under the read lock; scores live in pages of
+ * {@link AtomicIntegerArray} and {@link #addScore} changes them without taking the lock.
+ */
+public class TrigramIndex {
+    private static final int PAGE_BITS = 12;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+    private static final char BREVE = '\u0306';
+
+    private final Map<Long, Postings> postings = new HashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private String[] texts = new String[PAGE_SIZE];
+    private volatile AtomicIntegerArray[] scores = new AtomicIntegerArray[0];
+
+    /**
+     * Lower case, letters and digits only, words separated by single spaces. Diacritics are
+     * dropped (é matches e, ё matches е), except that й stays apart from и.
+     */
+    public static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFKD);
+        StringBuilder normalized = new StringBuilder(decomposed.length());
+        boolean space = true;
+        for (int i = 0; i < decomposed.length(); ) {
+            int cp = decomposed.codePointAt(i);
+            i += Character.charCount(cp);
+            if (Character.isLetterOrDigit(cp)) {
+                normalized.appendCodePoint(Character.toLowerCase(cp));
+                space = false;
+            } else if (Character.getType(cp) == Character.NON_SPACING_MARK) {
+                if (cp == BREVE && !space && normalized.charAt(normalized.length() - 1) == 'и') {
+                    normalized.setCharAt(normalized.length() - 1, 'й');
+                }
+            } else if (!space) {
+                normalized.append(' ');
+                space = true;
+            }
+        }
+        if (space && normalized.length() > 0) {
+            normalized.setLength(normalized.length() - 1);
+        }
+        return normalized.toString();
+    }
+
+    /**
+     * Adds the entry or replaces its text and score.
+     */
+    public void put(long id, String text, int score) {
+        int doc = Math.toIntExact(id);
+        String normalized = " " + normalize(text);
+        long[] grams = grams(normalized, false);
+        lock.writeLock().lock();
+        try {
+            if (doc >= texts.length) {
+                texts = Arrays.copyOf(texts, Math.max(doc + 1, texts.length * 2));
+            }
+            String old = texts[doc];
+            if (old != null) {
+                for (long gram : grams(old, false)) {
+                    Postings list = postings.get(gram);
+                    if (list != null && list.remove(doc) && list.size == 0) {
+                        postings.remove(gram);
+                    }
+                }
+            }
+            texts[doc] = normalized;
+            for (long gram : grams) {
+                postings.computeIfAbsent(gram, g -> new Postings()).add(doc);
+            }
+            page(doc).set(doc & (PAGE_SIZE - 1), score);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Changes the score of an entry; ignored for an id that was never {@linkplain #put put}.
+     */
+    public void addScore(long id, int delta) {
+        AtomicIntegerArray[] pages = scores;
+        long page = id >>> PAGE_BITS;
+        if (id >= 0 && page < pages.length && pages[(int) page] != null) {
+            pages[(int) page].addAndGet((int) id & (PAGE_SIZE - 1), delta);
+        }
+    }
+
+    /**
+     * Ids of up to {@code count} entries matching the query, best score first.
+     */
+    public List<Long> suggest(String query, int count) {
+        String normalized = normalize(query);
+        if (normalized.isEmpty() || count <= 0) {
+            return List.of();
+        }
+        String[] words = normalized.split(" ");
+        boolean exact = true;
+        for (int i = 0; i < words.length; i++) {
+            exact &= words[i].length() <= 2;
+            words[i] = " " + words[i];
+        }
+        long[] grams = grams(" " + normalized, true);
+        TopK best = new TopK(count);
+        lock.readLock().lock();
+        try {
+            Postings[] lists = new Postings[grams.length];
+            for (int i = 0; i < grams.length; i++) {
+                lists[i] = postings.get(grams[i]);
+                if (lists[i] == null) {
+                    return List.of();
+                }
+            }
+            Arrays.sort(lists, Comparator.comparingInt(list -> list.size));
+            AtomicIntegerArray[] pages = scores;
+            Postings smallest = lists[0];
+            int[] cursors = new int[lists.length];
+            candidates:
+            for (int i = 0; i < smallest.size; i++) {
+                int doc = smallest.ids[i];
+                long key = TopK.key(Math.max(0, pages[doc >>> PAGE_BITS].get(doc & (PAGE_SIZE - 1))), doc);
+                if (!best.accepts(key)) {
+                    continue;
+                }
+                for (int k = 1; k < lists.length; k++) {
+                    cursors[k] = lists[k].seek(cursors[k], doc);
+                    if (cursors[k] == lists[k].size || lists[k].ids[cursors[k]] != doc) {
+                        continue candidates;
+                    }
+                }
+                if (!exact) {
+                    String text = texts[doc];
+                    for (String word : words) {
+                        if (!text.contains(word)) {
+                            continue candidates;
+                        }
+                    }
+                }
+                best.offer(key);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        long[] keys = best.toSortedArray();
+        List<Long> ids = new ArrayList<>(keys.length);
+        for (long key : keys) {
+            ids.add(TopK.id(key));
+        }
+        return ids;
+    }
+
+    /**
+     * Distinct grams of a text with a leading space. Every word gives its first letter and the
+     * trigrams of " " + word; a one-letter query word only its first letter.
+     */
+    private static long[] grams(String text, boolean query) {
+        long[] grams = new long[2 * text.length()];
+        int count = 0;
+        int start = 1;
+        while (start < text.length()) {
+            int end = text.indexOf(' ', start);
+            if (end < 0) {
+                end = text.length();
+            }
+            int length = end - start;
+            if (length > 0 && (!query || length == 1)) {
+                grams[count++] = ((long) ' ' << 16) | text.charAt(start);
+            }
+            for (int i = start - 1; i + 3 <= end; i++) {
+                grams[count++] = ((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16)
+                        | text.charAt(i + 2);
+            }
+            start = end + 1;
+        }
+        Arrays.sort(grams, 0, count);
+        int distinct = 0;
+        for (int i = 0; i < count; i++) {
+            if (distinct == 0 || grams[distinct - 1] != grams[i]) {
+                grams[distinct++] = grams[i];
+            }
+        }
+        return Arrays.copyOf(grams, distinct);
+    }
+
+    private AtomicIntegerArray page(int doc) {
+        AtomicIntegerArray[] pages = scores;
+        int page = doc >>> PAGE_BITS;
+        if (page >= pages.length) {
+            pages = Arrays.copyOf(pages, Math.max(page + 1, pages.length * 2));
+        }
+        if (pages[page] == null) {
+            pages[page] = new AtomicIntegerArray(PAGE_SIZE);
+        }
+        scores = pages;
+        return pages[page];
+    }
+
+    /**
+     * Sorted ids; appending in id order (the usual case) does not shift.
+     */
+    private static final class Postings {
+        private int[] ids = new int[2];
+        private int size;
+
+        void add(int id) {
+            int position = size > 0 && ids[size - 1] < id ? -size - 1 : Arrays.binarySearch(ids, 0, size, id);
+            if (position >= 0) {
+                return;
+            }
+            position = -position - 1;
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            System.arraycopy(ids, position, ids, position + 1, size - position);
+            ids[position] = id;
+            size++;
+        }
+
+        boolean remove(int id) {
+            int position = Arrays.binarySearch(ids, 0, size, id);
+            if (position < 0) {
+                return false;
+            }
+            System.arraycopy(ids, position + 1, ids, position, size - position - 1);
+            size--;
+            return true;
+        }
+
+        /**
+         * First position at or after {@code from} holding an id not below {@code id}; gallops, so
+         * walking a list with increasing ids costs little more than a merge.
+         */
+        int seek(int from, int id) {
+            int step = 1;
+            int low = from;
+            int high = from;
+            while (high < size && ids[high] < id) {
+                low = high + 1;
+                high += step;
+                step <<= 1;
+            }
+            high = Math.min(high, size);
+            int position = Arrays.binarySearch(ids, low, high, id);
+            return position >= 0 ? position : -position - 1;
+        }
+    }
+}
@@ -0,0 +1,6 @@
+MERGE INTO genres (id, name) KEY (id) VALUES (1, 'Комедия');
+MERGE INTO genres (id, name) KEY (id) VALUES (2, 'Драма');
+MERGE INTO genres (id, name) KEY (id) VALUES (3, 'Мультфильм');
+MERGE INTO genres (id, name) KEY (id) VALUES (4, 'Триллер');
+MERGE INTO genres (id, name) KEY (id) VALUES (5, 'Документальный');
+MERGE INTO genres (id, name) KEY (id) VALUES (6, 'Боевик');
@@ -0,0 +1,40 @@
+CREATE TABLE IF NOT EXISTS genres (
+    id   INT PRIMARY KEY,
+    name VARCHAR(50) NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS users (
+    id       BIGINT AUTO_INCREMENT PRIMARY KEY,
+    email    VARCHAR(255) NOT NULL,
+    login    VARCHAR(255) NOT NULL,
+    name     VARCHAR(255),
+    birthday DATE
+);
+
+CREATE TABLE IF NOT EXISTS films (
+    id           BIGINT AUTO_INCREMENT PRIMARY KEY,
+    name         VARCHAR(255) NOT NULL,
+    description  VARCHAR(200),
+    release_date DATE,
+    duration     INT,
+    mpa_rating   VARCHAR(10)
+);
+
+CREATE TABLE IF NOT EXISTS likes (
+    film_id BIGINT NOT NULL REFERENCES films (id) ON DELETE CASCADE,
+    user_id BIGINT NOT NULL REFERENCES users (id) ON DELETE CASCADE,
+    PRIMARY KEY (film_id, user_id)
+);
+
+CREATE TABLE IF NOT EXISTS friendships (
+    user_id   BIGINT      NOT NULL REFERENCES users (id) ON DELETE CASCADE,
+    friend_id BIGINT      NOT NULL REFERENCES users (id) ON DELETE CASCADE,
+    status    VARCHAR(16) NOT NULL,
+    PRIMARY KEY (user_id, friend_id)
+);
+
+CREATE TABLE IF NOT EXISTS film_genres (
+    film_id  BIGINT NOT NULL REFERENCES films (id) ON DELETE CASCADE,
+    genre_id INT    NOT NULL REFERENCES genres (id),
+    PRIMARY KEY (film_id, genre_id)
+);
@@ -0,0 +1,38 @@
+package ru.yandex.practicum.filmorate;
+
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Rating;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.time.Duration;
+import java.time.LocalDate;
+
+/**
+ * Valid films and users for tests, differing only in what the test names.
+ */
+public final class TestData {
+    private TestData() {
+    }
+
+    public static Film film(String name) {
+        return film(name, 2000);
+    }
+
+    public static Film film(String name, int year) {
+        Film film = new Film();
+        film.setName(name);
+        film.setDescription("Description");
+        film.setReleaseDate(LocalDate.of(year, 1, 1));
+        film.setDuration(Duration.ofMinutes(100));
+        film.setMpa(Rating.PG);
+        return film;
+    }
+
+    public static User user(String login) {
+        User user = new User();
+        user.setEmail(login + "@example.com");
+        user.setLogin(login);
+        user.setBirthday(LocalDate.of(1990, 1, 1));
+        return user;
+    }
+}
@@ -0,0 +1,145 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmLike;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.storage.film.FilmPopularityIndex;
+import ru.yandex.practicum.filmorate.storage.film.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.TrendingFilms;
+import ru.yandex.practicum.filmorate.storage.film.UserLikesIndex;
+import ru.yandex.practicum.filmorate.storage.journal.MappedJournal;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.util.TrigramIndex;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Ingest throughput of the single-item service calls against their batch forms, per item.
+ * {@code durability=journal} runs with a synced {@link MappedJournal}, as with persistence enabled,
+ * where each single call waits for its own msync and a batch waits once.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BatchIngestBenchmark {
+    private static final int BATCH = 1000;
+    private static final int FILMS = 10_000;
+    private static final int USERS = 10_000;
+
+    @Param({"memory", "journal"})
+    public String durability;
+
+    private FilmService filmService;
+    private MappedJournal journal;
+    private Path directory;
+    private List<FilmLike> likes;
+    private int next;
+
+    @Setup(Level.Iteration)
+    public void setUp() throws IOException {
+        InMemoryFilmStorage filmStorage = new InMemoryFilmStorage();
+        InMemoryUserStorage userStorage = new InMemoryUserStorage();
+        for (int i = 0; i < FILMS; i++) {
+            filmStorage.addFilm(BenchmarkData.film(i));
+        }
+        for (int i = 0; i < USERS; i++) {
+            userStorage.addUser(BenchmarkData.user(i));
+        }
+        if ("journal".equals(durability)) {
+            directory = Files.createTempDirectory("filmorate-batch");
+            journal = new MappedJournal(directory, 1, true, Duration.ofMillis(1));
+            filmStorage.setJournal(journal);
+            userStorage.setJournal(journal);
+        }
+        filmService = new FilmService(filmStorage, userStorage, new FilmPopularityIndex(),
+                new UserLikesIndex(), new FilmSearchIndex(), new TrendingFilms(), BenchmarkData.jsonCache(),
+                new TrigramIndex());
+        filmService.rebuildIndexes();
+
+        BenchmarkData.Distribution users = BenchmarkData.Distribution.of("uniform", USERS, BenchmarkData.SEED);
+        likes = new ArrayList<>(BATCH);
+        for (int i = 0; i < BATCH; i++) {
+            likes.add(new FilmLike(1L + i * (FILMS / BATCH), (long) users.next() + 1));
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() throws IOException {
+        if (journal != null) {
+            journal.close();
+            try (Stream<Path> files = Files.walk(directory)) {
+                for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.delete(file);
+                }
+            }
+            journal = null;
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void addFilmsOneByOne(Blackhole blackhole) {
+        for (int i = 0; i < BATCH; i++) {
+            blackhole.consume(filmService.addFilm(BenchmarkData.film(next++)));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public Object addFilmsBatch() {
+        List<Film> films = new ArrayList<>(BATCH);
+        for (int i = 0; i < BATCH; i++) {
+            films.add(BenchmarkData.film(next++));
+        }
+        return filmService.addFilms(films);
+    }
+
+    /**
+     * Likes and then unlikes the same pairs, so every call changes state and the storage does
+     * not grow between invocations.
+     */
+    @Benchmark
+    @OperationsPerInvocation(2 * BATCH)
+    public void likeOneByOne() {
+        for (FilmLike like : likes) {
+            filmService.addLike(like.getFilmId(), like.getUserId());
+        }
+        for (FilmLike like : likes) {
+            filmService.removeLike(like.getFilmId(), like.getUserId());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(2 * BATCH)
+    public void likeBatch(Blackhole blackhole) {
+        blackhole.consume(filmService.addLikes(likes));
+        blackhole.consume(filmService.removeLikes(likes));
+    }
+}
@@ -0,0 +1,109 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Rating;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.JsonCache;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Deterministic datasets for the benchmarks: the same seed yields the same films, users and
+ * like/friend targets, so results are comparable between commits.
+ */
+public final class BenchmarkData {
+    public static final long SEED = 20240601L;
+
+    private static final Genre[] GENRES = Genre.values();
+    private static final Rating[] RATINGS = Rating.values();
+
+    private BenchmarkData() {
+    }
+
+    public static Film film(int i) {
+        Film film = new Film();
+        film.setName("Film " + i);
+        film.setDescription("Description of film " + i);
+        film.setReleaseDate(LocalDate.of(1950 + i % 70, 1 + i % 12, 1 + i % 28));
+        film.setDuration(Duration.ofMinutes(60 + i % 120));
+        film.setMpa(RATINGS[i % RATINGS.length]);
+        film.getGenres().add(GENRES[i % GENRES.length]);
+        return film;
+    }
+
+    /**
+     * Configured like Spring Boot's default mapper: Java time types as ISO strings.
+     */
+    public static ObjectMapper objectMapper() {
+        return JsonMapper.builder()
+                .findAndAddModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+    }
+
+    public static JsonCache jsonCache() {
+        return new JsonCache(objectMapper(), 10_000, Duration.ofMinutes(5));
+    }
+
+    public static User user(int i) {
+        User user = new User();
+        user.setEmail("user" + i + "@example.com");
+        user.setLogin("user" + i);
+        user.setBirthday(LocalDate.of(1960 + i % 40, 1 + i % 12, 1 + i % 28));
+        return user;
+    }
+
+    /**
+     * Picks indexes in {@code [0, n)} either uniformly or with a Zipf skew
+     * (index 0 is the most popular, probability proportional to 1 / (rank ^ exponent)).
+     */
+    public static final class Distribution {
+        private final SplittableRandom random;
+        private final int n;
+        private final double[] cdf;
+
+        private Distribution(int n, double exponent, long seed) {
+            this.random = new SplittableRandom(seed);
+            this.n = n;
+            if (exponent <= 0) {
+                this.cdf = null;
+                return;
+            }
+            cdf = new double[n];
+            double sum = 0;
+            for (int rank = 1; rank <= n; rank++) {
+                sum += 1.0 / Math.pow(rank, exponent);
+                cdf[rank - 1] = sum;
+            }
+            for (int i = 0; i < n; i++) {
+                cdf[i] /= sum;
+            }
+        }
+
+        public static Distribution of(String name, int n, long seed) {
+            switch (name) {
+                case "uniform":
+                    return new Distribution(n, 0, seed);
+                case "zipf":
+                    return new Distribution(n, 1.0, seed);
+                default:
+                    throw new IllegalArgumentException("Unknown distribution " + name);
+            }
+        }
+
+        public int next() {
+            if (cdf == null) {
+                return random.nextInt(n);
+            }
+            int index = Arrays.binarySearch(cdf, random.nextDouble());
+            return Math.min(n - 1, index >= 0 ? index : -index - 1);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.user.FriendGraph;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.util.TrigramIndex;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static ru.yandex.practicum.filmorate.TestData.user;
+
+/**
+ * Friend-list resolution for two users with {@code friends} friends each, half of them shared.
+ * {@code perIdLookup} is the previous algorithm (copy + retainAll, one storage lookup per id).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CommonFriendsBenchmark {
+    @Param({"10000"})
+    public int friends;
+
+    private InMemoryUserStorage userStorage;
+    private UserService userService;
+    private long first;
+    private long second;
+
+    @Setup
+    public void setUp() {
+        userStorage = new InMemoryUserStorage();
+        userService = new UserService(userStorage, new FriendGraph(), BenchmarkData.jsonCache(), new TrigramIndex());
+        first = userStorage.addUser(user("first")).getId();
+        second = userStorage.addUser(user("second")).getId();
+        for (int i = 0; i < friends * 3 / 2; i++) {
+            long friendId = userStorage.addUser(user("friend" + i)).getId();
+            if (i < friends) {
+                userStorage.addFriend(first, friendId);
+            }
+            if (i >= friends / 2) {
+                userStorage.addFriend(second, friendId);
+            }
+        }
+    }
+
+    @Benchmark
+    public List<User> getFriends() {
+        return userService.getFriends(first);
+    }
+
+    @Benchmark
+    public List<User> getCommonFriends() {
+        return userService.getCommonFriends(first, second);
+    }
+
+    @Benchmark
+    public List<User> perIdLookup() {
+        Set<Long> common = new HashSet<>(userStorage.getUserById(first).getFriendIds());
+        common.retainAll(userStorage.getUserById(second).getFriendIds());
+        List<User> result = new ArrayList<>();
+        for (Long id : common) {
+            result.add(userStorage.getUserById(id));
+        }
+        return result;
+    }
+}
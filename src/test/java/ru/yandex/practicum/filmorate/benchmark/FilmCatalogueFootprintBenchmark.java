@@ -0,0 +1,87 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.OffHeapFilmStorage;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.function.Supplier;
+
+/**
+ * Fills the heap and the off-heap film storages with the same catalogue and prints, for each,
+ * the retained heap and direct memory, the GC count and time of a read/update churn over it, and
+ * the pause of a full {@code System.gc()} with the catalogue live.
+ * Run with a fixed heap for stable numbers, e.g. {@code -Xms2g -Xmx2g}.
+ */
+public class FilmCatalogueFootprintBenchmark {
+    private static final int FILMS = 1_000_000;
+    private static final int CHURN = 2_000_000;
+
+    public static void main(String[] args) {
+        report("InMemoryFilmStorage", InMemoryFilmStorage::new);
+        report("OffHeapFilmStorage", OffHeapFilmStorage::new);
+    }
+
+    private static void report(String name, Supplier<FilmStorage> factory) {
+        long before = usedHeap();
+        FilmStorage storage = factory.get();
+        for (int i = 0; i < FILMS; i++) {
+            storage.addFilm(BenchmarkData.film(i));
+        }
+        long heap = usedHeap() - before;
+        long offHeap = storage instanceof OffHeapFilmStorage offHeapStorage ? offHeapStorage.getOffHeapBytes() : 0;
+
+        long gcCount = gcCount();
+        long gcTime = gcTime();
+        long started = System.nanoTime();
+        long checksum = 0;
+        for (int i = 0; i < CHURN; i++) {
+            long id = i * 7919L % FILMS + 1;
+            if (i % 10 == 0) {
+                Film film = BenchmarkData.film(i);
+                film.setId(id);
+                storage.updateFilm(film);
+            } else {
+                checksum += storage.getFilmById(id).getDuration().toSeconds();
+            }
+        }
+        long churnMillis = (System.nanoTime() - started) / 1_000_000;
+        gcCount = gcCount() - gcCount;
+        gcTime = gcTime() - gcTime;
+
+        long pauseStarted = System.nanoTime();
+        System.gc();
+        long pauseMillis = (System.nanoTime() - pauseStarted) / 1_000_000;
+
+        System.out.printf("%-20s heap %5.1f MB, off-heap %5.1f MB, churn %5d ms with %3d GCs / %4d ms, "
+                        + "full GC %4d ms (checksum %d, %d films)%n",
+                name, heap / 1e6, offHeap / 1e6, churnMillis, gcCount, gcTime,
+                pauseMillis, checksum, storage.getFilmsCount());
+    }
+
+    private static long gcCount() {
+        long total = 0;
+        for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, bean.getCollectionCount());
+        }
+        return total;
+    }
+
+    private static long gcTime() {
+        long total = 0;
+        for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, bean.getCollectionTime());
+        }
+        return total;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,105 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.controller.FilmProjection;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.storage.film.FilmPopularityIndex;
+import ru.yandex.practicum.filmorate.storage.film.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.TrendingFilms;
+import ru.yandex.practicum.filmorate.storage.film.UserLikesIndex;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.util.TrigramIndex;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Body of {@code GET /films/{id}} and {@code GET /films/popular} with {@code likesCount} only
+ * (the default) against {@code ?projection=full}, on Zipf-skewed likes: the top film holds about
+ * 13% of all likes, and reads pick films with the same skew. Average body sizes are printed
+ * on setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FilmProjectionBenchmark {
+    private static final int FILMS = 1000;
+    private static final int USERS = 100_000;
+    private static final int LIKES = 500_000;
+    private static final int SIZE_SAMPLES = 10_000;
+
+    private FilmService filmService;
+    private ObjectWriter countWriter;
+    private ObjectWriter fullWriter;
+    private BenchmarkData.Distribution filmIds;
+
+    @Setup
+    public void setUp() throws JsonProcessingException {
+        InMemoryFilmStorage filmStorage = new InMemoryFilmStorage();
+        for (int i = 0; i < FILMS; i++) {
+            filmStorage.addFilm(BenchmarkData.film(i));
+        }
+        BenchmarkData.Distribution likedFilms = BenchmarkData.Distribution.of("zipf", FILMS, BenchmarkData.SEED);
+        BenchmarkData.Distribution users = BenchmarkData.Distribution.of("uniform", USERS, BenchmarkData.SEED);
+        for (int i = 0; i < LIKES; i++) {
+            filmStorage.addLike(likedFilms.next() + 1L, users.next() + 1L);
+        }
+        filmService = new FilmService(filmStorage, new InMemoryUserStorage(), new FilmPopularityIndex(),
+                new UserLikesIndex(), new FilmSearchIndex(), new TrendingFilms(), BenchmarkData.jsonCache(),
+                new TrigramIndex());
+        filmService.rebuildIndexes();
+        ObjectMapper objectMapper = BenchmarkData.objectMapper();
+        countWriter = objectMapper.writer();
+        fullWriter = FilmProjection.fullWriter(objectMapper);
+        filmIds = BenchmarkData.Distribution.of("zipf", FILMS, BenchmarkData.SEED + 1);
+
+        BenchmarkData.Distribution sample = BenchmarkData.Distribution.of("zipf", FILMS, BenchmarkData.SEED + 2);
+        long countBytes = 0;
+        long fullBytes = 0;
+        for (int i = 0; i < SIZE_SAMPLES; i++) {
+            Film film = filmService.getFilmById(sample.next() + 1L);
+            countBytes += countWriter.writeValueAsBytes(film).length;
+            fullBytes += fullWriter.writeValueAsBytes(film).length;
+        }
+        System.out.printf("%nfilm: %d bytes likesCount, %d bytes full; popular(10): %d bytes likesCount, "
+                        + "%d bytes full%n", countBytes / SIZE_SAMPLES, fullBytes / SIZE_SAMPLES,
+                countWriter.writeValueAsBytes(filmService.getPopularFilms(10)).length,
+                fullWriter.writeValueAsBytes(filmService.getPopularFilms(10)).length);
+    }
+
+    @Benchmark
+    public byte[] filmLikesCount() throws JsonProcessingException {
+        return countWriter.writeValueAsBytes(filmService.getFilmById(filmIds.next() + 1L));
+    }
+
+    @Benchmark
+    public byte[] filmFull() throws JsonProcessingException {
+        return fullWriter.writeValueAsBytes(filmService.getFilmById(filmIds.next() + 1L));
+    }
+
+    @Benchmark
+    public byte[] popularLikesCount() throws JsonProcessingException {
+        return countWriter.writeValueAsBytes(filmService.getPopularFilms(10));
+    }
+
+    @Benchmark
+    public byte[] popularFull() throws JsonProcessingException {
+        return fullWriter.writeValueAsBytes(filmService.getPopularFilms(10));
+    }
+}
@@ -0,0 +1,90 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Rating;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.storage.film.FilmPopularityIndex;
+import ru.yandex.practicum.filmorate.storage.film.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.TrendingFilms;
+import ru.yandex.practicum.filmorate.storage.film.UserLikesIndex;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.util.TrigramIndex;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * First page (100 films) of {@code GET /films/search} answered from {@link FilmSearchIndex}
+ * against filtering the whole catalogue, which is what clients had to do with {@code GET /films}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FilmSearchBenchmark {
+    private static final int PAGE = 100;
+
+    @Param({"10000", "100000"})
+    public int films;
+
+    private FilmService filmService;
+
+    @Setup
+    public void setUp() {
+        InMemoryFilmStorage filmStorage = new InMemoryFilmStorage();
+        for (int i = 0; i < films; i++) {
+            filmStorage.addFilm(BenchmarkData.film(i));
+        }
+        filmService = new FilmService(filmStorage, new InMemoryUserStorage(), new FilmPopularityIndex(),
+                new UserLikesIndex(), new FilmSearchIndex(), new TrendingFilms(), BenchmarkData.jsonCache(),
+                new TrigramIndex());
+        filmService.rebuildIndexes();
+    }
+
+    @Benchmark
+    public List<Film> genreAndMpaIndexed() {
+        return filmService.searchFilms(Genre.DRAMA, Rating.R, null, null, null, null, PAGE);
+    }
+
+    @Benchmark
+    public List<Film> genreAndMpaScan() {
+        return scan(film -> film.getGenres().contains(Genre.DRAMA) && film.getMpa() == Rating.R);
+    }
+
+    @Benchmark
+    public List<Film> genreYearsAndNameIndexed() {
+        return filmService.searchFilms(Genre.COMEDY, null, 1990, 1999, "7", null, PAGE);
+    }
+
+    @Benchmark
+    public List<Film> genreYearsAndNameScan() {
+        return scan(film -> film.getGenres().contains(Genre.COMEDY)
+                && film.getReleaseDate().getYear() >= 1990 && film.getReleaseDate().getYear() <= 1999
+                && film.getName().toLowerCase().contains("7"));
+    }
+
+    private List<Film> scan(Predicate<Film> filter) {
+        return filmService.getAllFilms().stream()
+                .filter(filter)
+                .sorted(Comparator.comparing(Film::getId))
+                .limit(PAGE)
+                .toList();
+    }
+}
@@ -0,0 +1,92 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.storage.film.FilmPopularityIndex;
+import ru.yandex.practicum.filmorate.storage.film.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.TrendingFilms;
+import ru.yandex.practicum.filmorate.storage.film.UserLikesIndex;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.util.TrigramIndex;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Likes are spread over films by {@code distribution}; with "zipf" a few films collect most likes,
+ * which is the shape of real popularity and the worst case for per-film contention.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FilmServiceBenchmark {
+    @Param({"10000", "100000"})
+    public int films;
+
+    @Param({"10000"})
+    public int users;
+
+    @Param({"20"})
+    public int likesPerUser;
+
+    @Param({"uniform", "zipf"})
+    public String distribution;
+
+    private FilmService filmService;
+    private BenchmarkData.Distribution filmIds;
+    private BenchmarkData.Distribution userIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        InMemoryFilmStorage filmStorage = new InMemoryFilmStorage();
+        InMemoryUserStorage userStorage = new InMemoryUserStorage();
+        filmService = new FilmService(filmStorage, userStorage, new FilmPopularityIndex(),
+                new UserLikesIndex(), new FilmSearchIndex(), new TrendingFilms(), BenchmarkData.jsonCache(),
+                new TrigramIndex());
+        for (int i = 0; i < films; i++) {
+            filmService.addFilm(BenchmarkData.film(i));
+        }
+        for (int i = 0; i < users; i++) {
+            userStorage.addUser(BenchmarkData.user(i));
+        }
+        filmIds = BenchmarkData.Distribution.of(distribution, films, BenchmarkData.SEED);
+        userIds = BenchmarkData.Distribution.of("uniform", users, BenchmarkData.SEED + 1);
+        for (long userId = 1; userId <= users; userId++) {
+            for (int i = 0; i < likesPerUser; i++) {
+                filmService.addLike((long) filmIds.next() + 1, userId);
+            }
+        }
+    }
+
+    @Benchmark
+    public List<Film> getPopularFilms() {
+        return filmService.getPopularFilms(10);
+    }
+
+    @Benchmark
+    public List<Film> getPopularFilmsByGenre() {
+        return filmService.getPopularFilms(10, Genre.DRAMA, null);
+    }
+
+    @Benchmark
+    public void addLike() {
+        filmService.addLike((long) filmIds.next() + 1, (long) userIds.next() + 1);
+    }
+}
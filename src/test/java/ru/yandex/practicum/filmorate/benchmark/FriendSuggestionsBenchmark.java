@@ -0,0 +1,104 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.user.FriendGraph;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.util.TrigramIndex;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Friend suggestions among {@value #USERS} users with {@code degree} random friends each, for a
+ * hub user with {@code hubFriends} friends and for a random user. {@code perUserLookup} is the
+ * straightforward version that loads every friend's {@link User} and counts in a {@code HashMap}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FriendSuggestionsBenchmark {
+    private static final int USERS = 100_000;
+
+    @Param({"50"})
+    public int degree;
+
+    @Param({"1000", "5000"})
+    public int hubFriends;
+
+    private InMemoryUserStorage userStorage;
+    private UserService userService;
+    private BenchmarkData.Distribution userIds;
+    private long hub;
+
+    @Setup
+    public void setUp() {
+        userStorage = new InMemoryUserStorage();
+        for (int i = 0; i < USERS; i++) {
+            userStorage.addUser(BenchmarkData.user(i));
+        }
+        SplittableRandom random = new SplittableRandom(BenchmarkData.SEED);
+        for (long user = 1; user <= USERS; user++) {
+            int friends = user == 1 ? hubFriends : degree;
+            for (int i = 0; i < friends; i++) {
+                long friend = 1 + random.nextInt(USERS);
+                if (friend != user) {
+                    userStorage.addFriend(user, friend);
+                }
+            }
+        }
+        hub = 1;
+        userService = new UserService(userStorage, new FriendGraph(), BenchmarkData.jsonCache(), new TrigramIndex());
+        userService.rebuildIndexes();
+        userIds = BenchmarkData.Distribution.of("uniform", USERS, BenchmarkData.SEED);
+    }
+
+    @Benchmark
+    public List<User> suggestForHub() {
+        return userService.getFriendSuggestions(hub, 10);
+    }
+
+    @Benchmark
+    public List<User> suggestForRandomUser() {
+        return userService.getFriendSuggestions(userIds.next() + 1L, 10);
+    }
+
+    @Benchmark
+    public List<User> perUserLookup() {
+        Set<Long> friends = userStorage.getUserById(hub).getFriendIds();
+        Map<Long, Integer> mutual = new HashMap<>();
+        for (Long friendId : friends) {
+            for (Long candidate : userStorage.getUserById(friendId).getFriendIds()) {
+                if (candidate != hub && !friends.contains(candidate)) {
+                    mutual.merge(candidate, 1, Integer::sum);
+                }
+            }
+        }
+        List<Map.Entry<Long, Integer>> ranked = new ArrayList<>(mutual.entrySet());
+        ranked.sort(Map.Entry.<Long, Integer>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()));
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < Math.min(10, ranked.size()); i++) {
+            ids.add(ranked.get(i).getKey());
+        }
+        return userStorage.getUsersByIds(ids);
+    }
+}
@@ -0,0 +1,137 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.SplittableRandom;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Closed-loop HTTP load test against a fresh running instance, used to compare the platform-thread
+ * and virtual-thread request modes. Start the app twice, e.g. with persistence on so that likes block
+ * on the journal fsync:
+ * <pre>
+ * java -jar filmorate.jar --filmorate.persistence.enabled=true --spring.threads.virtual.enabled=false
+ * java -jar filmorate.jar --filmorate.persistence.enabled=true --spring.threads.virtual.enabled=true
+ * </pre>
+ * and run {@code HttpLoadTest [baseUrl] [concurrency] [seconds] [writePercent]} against each.
+ * Every in-flight slot sends its next request as soon as the previous one is answered; the first
+ * fifth of the run is warm-up and not recorded. Seeds 1000 films and users through the batch
+ * endpoints, then mixes film reads, popular lists and likes.
+ */
+public class HttpLoadTest {
+    private static final int FILMS = 1000;
+    private static final int USERS = 1000;
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+    private final String baseUrl;
+    private final int writePercent;
+    private final LatencyHistogram reads = new LatencyHistogram();
+    private final LatencyHistogram writes = new LatencyHistogram();
+    private final AtomicLong errors = new AtomicLong();
+    private volatile boolean recording;
+
+    HttpLoadTest(String baseUrl, int writePercent) {
+        this.baseUrl = baseUrl;
+        this.writePercent = writePercent;
+    }
+
+    public static void main(String[] args) throws Exception {
+        String baseUrl = args.length > 0 ? args[0] : "http://localhost:8080";
+        int concurrency = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 60;
+        int writePercent = args.length > 3 ? Integer.parseInt(args[3]) : 20;
+
+        HttpLoadTest test = new HttpLoadTest(baseUrl, writePercent);
+        test.seed();
+        test.run(concurrency, seconds);
+    }
+
+    private void seed() throws Exception {
+        StringBuilder films = new StringBuilder("[");
+        StringBuilder users = new StringBuilder("[");
+        for (int i = 0; i < FILMS; i++) {
+            films.append(i == 0 ? "" : ",").append("{\"name\":\"Film ").append(i)
+                    .append("\",\"description\":\"Load test\",\"releaseDate\":\"2000-01-01\",")
+                    .append("\"duration\":6000,\"mpa\":\"PG\"}");
+        }
+        for (int i = 0; i < USERS; i++) {
+            users.append(i == 0 ? "" : ",").append("{\"email\":\"load").append(i)
+                    .append("@example.com\",\"login\":\"load").append(i).append("\",\"birthday\":\"1990-01-01\"}");
+        }
+        post("/films/batch", films.append(']').toString());
+        post("/users/batch", users.append(']').toString());
+    }
+
+    private void post(String path, String body) throws Exception {
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException(path + " answered " + response.statusCode() + ": " + response.body());
+        }
+    }
+
+    private void run(int concurrency, int seconds) throws InterruptedException {
+        Semaphore slots = new Semaphore(concurrency);
+        SplittableRandom random = new SplittableRandom(BenchmarkData.SEED);
+        long started = System.nanoTime();
+        long warmUpEnd = started + TimeUnit.SECONDS.toNanos(seconds) / 5;
+        long end = started + TimeUnit.SECONDS.toNanos(seconds);
+        long recordedFrom = 0;
+        while (System.nanoTime() < end) {
+            slots.acquire();
+            if (!recording && System.nanoTime() >= warmUpEnd) {
+                recording = true;
+                recordedFrom = System.nanoTime();
+            }
+            boolean write = random.nextInt(100) < writePercent;
+            HttpRequest request = write ? like(random) : read(random);
+            long sent = System.nanoTime();
+            client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, error) -> {
+                long latency = System.nanoTime() - sent;
+                if (recording) {
+                    if (error != null || response.statusCode() >= 500) {
+                        errors.incrementAndGet();
+                    } else {
+                        (write ? writes : reads).record(latency);
+                    }
+                }
+                slots.release();
+            });
+        }
+        slots.acquire(concurrency);
+        double elapsed = (System.nanoTime() - recordedFrom) / 1e9;
+        System.out.printf("concurrency %d, %d%% writes, %.0f s measured%n", concurrency, writePercent, elapsed);
+        report("reads", reads, elapsed);
+        report("likes", writes, elapsed);
+        System.out.printf("%-6s %10.0f req/s, errors %d%n", "total",
+                (reads.count() + writes.count()) / elapsed, errors.get());
+    }
+
+    private HttpRequest read(SplittableRandom random) {
+        String path = random.nextBoolean()
+                ? "/films/" + (1 + random.nextInt(FILMS))
+                : "/films/popular?count=10";
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).GET().build();
+    }
+
+    private HttpRequest like(SplittableRandom random) {
+        String path = "/films/" + (1 + random.nextInt(FILMS)) + "/like/" + (1 + random.nextInt(USERS));
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).PUT(HttpRequest.BodyPublishers.noBody()).build();
+    }
+
+    private static void report(String name, LatencyHistogram histogram, double elapsed) {
+        System.out.printf("%-6s %10.0f req/s, p50 %7.2f ms, p99 %7.2f ms, p99.9 %7.2f ms%n", name,
+                histogram.count() / elapsed, histogram.percentileMillis(0.5), histogram.percentileMillis(0.99),
+                histogram.percentileMillis(0.999));
+    }
+}
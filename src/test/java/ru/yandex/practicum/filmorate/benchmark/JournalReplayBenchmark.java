@@ -0,0 +1,153 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.JsonCache;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.film.FilmPopularityIndex;
+import ru.yandex.practicum.filmorate.storage.film.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.TrendingFilms;
+import ru.yandex.practicum.filmorate.storage.film.UserLikesIndex;
+import ru.yandex.practicum.filmorate.storage.journal.MappedJournal;
+import ru.yandex.practicum.filmorate.storage.journal.StoragePersistence;
+import ru.yandex.practicum.filmorate.storage.user.FriendGraph;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.util.TrigramIndex;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+/**
+ * Measures startup (restore) time of the in-memory storages with 10M likes: once by replaying
+ * the journal alone and once from a snapshot. Also reports journal write throughput with and
+ * without waiting for group commit. Run with enough heap, e.g. {@code -Xmx4g}; pass a directory
+ * as the first argument to keep the files, otherwise a temporary one is used and deleted.
+ */
+public class JournalReplayBenchmark {
+    private static final int USERS = 100_000;
+    private static final int FILMS = 10_000;
+    private static final int LIKES_PER_USER = 100;
+    private static final int SYNC_THREADS = 16;
+    private static final int SYNC_LIKES = 200_000;
+
+    public static void main(String[] args) throws Exception {
+        Path directory = args.length > 0 ? Path.of(args[0]) : Files.createTempDirectory("filmorate-journal");
+        Files.createDirectories(directory);
+        try {
+            writeJournal(directory);
+            long journalBytes = directorySize(directory);
+
+            StoragePersistence fromJournal = restore(directory, "journal replay");
+            fromJournal.stop();
+            System.out.printf("journal size %d MB, snapshot size %d MB%n",
+                    journalBytes >> 20, Files.size(directory.resolve("snapshot.bin")) >> 20);
+
+            StoragePersistence fromSnapshot = restore(directory, "snapshot load");
+            fromSnapshot.stop();
+
+            groupCommit(Files.createDirectories(directory.resolve("sync")));
+        } finally {
+            if (args.length == 0) {
+                delete(directory);
+            }
+        }
+    }
+
+    private static void writeJournal(Path directory) {
+        InMemoryFilmStorage films = new InMemoryFilmStorage();
+        InMemoryUserStorage users = new InMemoryUserStorage();
+        try (MappedJournal journal = new MappedJournal(directory, 1, false, Duration.ofMillis(5))) {
+            films.setJournal(journal);
+            users.setJournal(journal);
+            for (int i = 0; i < USERS; i++) {
+                users.addUser(BenchmarkData.user(i));
+            }
+            for (int i = 0; i < FILMS; i++) {
+                films.addFilm(BenchmarkData.film(i));
+            }
+            long started = System.nanoTime();
+            for (long user = 1; user <= USERS; user++) {
+                for (int k = 0; k < LIKES_PER_USER; k++) {
+                    films.addLike(1 + (user * 31 + k * 97L) % FILMS, user);
+                }
+            }
+            report("journal write (no fsync wait)", (long) USERS * LIKES_PER_USER, started);
+        }
+    }
+
+    private static StoragePersistence restore(Path directory, String name) throws IOException {
+        InMemoryFilmStorage films = new InMemoryFilmStorage();
+        InMemoryUserStorage users = new InMemoryUserStorage();
+        JsonCache jsonCache = BenchmarkData.jsonCache();
+        FilmService filmService = new FilmService(films, users, new FilmPopularityIndex(),
+                new UserLikesIndex(), new FilmSearchIndex(), new TrendingFilms(), jsonCache, new TrigramIndex());
+        UserService userService = new UserService(users, new FriendGraph(), jsonCache, new TrigramIndex());
+        StoragePersistence persistence = new StoragePersistence(films, users, filmService, userService,
+                directory, false, Duration.ofMillis(5), Duration.ofDays(1), true);
+        long started = System.nanoTime();
+        persistence.start();
+        report(name + ", " + films.getLikesCount() + " likes", films.getLikesCount(), started);
+        return persistence;
+    }
+
+    /**
+     * Many writers waiting for durability at once: each msync is shared by every like appended
+     * while the previous one was running.
+     */
+    private static void groupCommit(Path directory) throws Exception {
+        InMemoryFilmStorage films = new InMemoryFilmStorage();
+        InMemoryUserStorage users = new InMemoryUserStorage();
+        for (int i = 0; i < FILMS; i++) {
+            films.addFilm(BenchmarkData.film(i));
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(SYNC_THREADS);
+        try (MappedJournal journal = new MappedJournal(directory, 1, true, Duration.ofMillis(5))) {
+            films.setJournal(journal);
+            users.setJournal(journal);
+            long started = System.nanoTime();
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < SYNC_THREADS; t++) {
+                long thread = t;
+                futures.add(executor.submit(() -> {
+                    for (long i = thread; i < SYNC_LIKES; i += SYNC_THREADS) {
+                        films.addLike(1 + i % FILMS, 1 + i / FILMS);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            report("journal write (group commit, " + SYNC_THREADS + " threads)", SYNC_LIKES, started);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void report(String name, long operations, long started) {
+        double seconds = (System.nanoTime() - started) / 1e9;
+        System.out.printf("%-50s %8.2f s %12.0f ops/s%n", name, seconds, operations / seconds);
+    }
+
+    private static long directorySize(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(Files::isRegularFile).mapToLong(file -> file.toFile().length()).sum();
+        }
+    }
+
+    private static void delete(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+}
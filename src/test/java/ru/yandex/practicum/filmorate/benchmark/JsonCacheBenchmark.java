@@ -0,0 +1,89 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.JsonCache;
+import ru.yandex.practicum.filmorate.storage.film.FilmPopularityIndex;
+import ru.yandex.practicum.filmorate.storage.film.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.TrendingFilms;
+import ru.yandex.practicum.filmorate.storage.film.UserLikesIndex;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.util.TrigramIndex;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of producing the body of {@code GET /films/{id}} and {@code GET /films/popular} for films
+ * with {@code likesPerFilm} likes: Jackson on every request against a hit in {@link JsonCache}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonCacheBenchmark {
+    private static final int FILMS = 1000;
+    private static final int USERS = 10_000;
+
+    @Param({"10", "1000"})
+    public int likesPerFilm;
+
+    private FilmService filmService;
+    private JsonCache jsonCache;
+    private ObjectWriter writer;
+    private BenchmarkData.Distribution filmIds;
+
+    @Setup
+    public void setUp() {
+        InMemoryFilmStorage filmStorage = new InMemoryFilmStorage();
+        InMemoryUserStorage userStorage = new InMemoryUserStorage();
+        BenchmarkData.Distribution users = BenchmarkData.Distribution.of("uniform", USERS, BenchmarkData.SEED);
+        for (int i = 0; i < FILMS; i++) {
+            Film film = filmStorage.addFilm(BenchmarkData.film(i));
+            for (int k = 0; k < likesPerFilm; k++) {
+                filmStorage.addLike(film.getId(), users.next() + 1L);
+            }
+        }
+        jsonCache = BenchmarkData.jsonCache();
+        filmService = new FilmService(filmStorage, userStorage, new FilmPopularityIndex(),
+                new UserLikesIndex(), new FilmSearchIndex(), new TrendingFilms(), jsonCache, new TrigramIndex());
+        filmService.rebuildIndexes();
+        writer = BenchmarkData.objectMapper().writer();
+        filmIds = BenchmarkData.Distribution.of("uniform", FILMS, BenchmarkData.SEED);
+    }
+
+    @Benchmark
+    public byte[] filmSerialized() throws JsonProcessingException {
+        return writer.writeValueAsBytes(filmService.getFilmById(filmIds.next() + 1L));
+    }
+
+    @Benchmark
+    public byte[] filmCached() {
+        return jsonCache.film(filmIds.next() + 1L, filmService::getFilmById).body();
+    }
+
+    @Benchmark
+    public byte[] popularSerialized() throws JsonProcessingException {
+        return writer.writeValueAsBytes(filmService.getPopularFilms(10));
+    }
+
+    @Benchmark
+    public byte[] popularCached() {
+        return jsonCache.popularFilms(10, filmService::getPopularFilms).body();
+    }
+}
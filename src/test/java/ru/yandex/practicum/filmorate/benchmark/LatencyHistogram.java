@@ -0,0 +1,44 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free latency histogram for the load tests: log-scale buckets, each 5% wider than the
+ * previous one, from 1 µs to about 100 s, so percentiles are accurate to within 5%.
+ */
+public final class LatencyHistogram {
+    private static final double GROWTH = 1.05;
+    private static final int BUCKETS = (int) Math.ceil(Math.log(1e8) / Math.log(GROWTH)) + 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    public void record(long nanos) {
+        double micros = Math.max(1.0, nanos / 1e3);
+        int bucket = Math.min(BUCKETS - 1, (int) (Math.log(micros) / Math.log(GROWTH)));
+        counts.incrementAndGet(bucket);
+    }
+
+    public long count() {
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            total += counts.get(i);
+        }
+        return total;
+    }
+
+    /**
+     * Upper bound of the bucket holding the given quantile, in milliseconds.
+     */
+    public double percentileMillis(double quantile) {
+        long rank = (long) Math.ceil(quantile * count());
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= Math.max(1, rank)) {
+                return Math.pow(GROWTH, i + 1) / TimeUnit.MILLISECONDS.toMicros(1);
+            }
+        }
+        return Double.NaN;
+    }
+}
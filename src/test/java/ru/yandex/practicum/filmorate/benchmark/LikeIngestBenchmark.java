@@ -0,0 +1,147 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.exception.TooManyRequestsException;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.LikeIngest;
+import ru.yandex.practicum.filmorate.storage.film.FilmPopularityIndex;
+import ru.yandex.practicum.filmorate.storage.film.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.TrendingFilms;
+import ru.yandex.practicum.filmorate.storage.film.UserLikesIndex;
+import ru.yandex.practicum.filmorate.storage.journal.MappedJournal;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.util.TrigramIndex;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+
+/**
+ * Sustained like throughput from 8 threads when likes are spread over films with a Zipf skew,
+ * so a handful of films take most of them. {@code async} goes through {@link LikeIngest} and
+ * backs off for 100 µs on 429, so the rate it reaches is the rate the workers apply, not just
+ * the enqueue rate. {@code durability=journal} runs with a synced {@link MappedJournal}, where each
+ * synchronous like waits for its own msync and a coalesced round waits once.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+public class LikeIngestBenchmark {
+    private static final int FILMS = 1000;
+    private static final int USERS = 100_000;
+    private static final int CAPACITY = 100_000;
+    private static final int WORKERS = 2;
+    private static final long RETRY_AFTER_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    @Param({"memory", "journal"})
+    public String durability;
+
+    private FilmService filmService;
+    private LikeIngest likeIngest;
+    private MappedJournal journal;
+    private Path directory;
+
+    @Setup(Level.Iteration)
+    public void setUp() throws IOException {
+        InMemoryFilmStorage filmStorage = new InMemoryFilmStorage();
+        InMemoryUserStorage userStorage = new InMemoryUserStorage();
+        for (int i = 0; i < FILMS; i++) {
+            filmStorage.addFilm(BenchmarkData.film(i));
+        }
+        for (int i = 0; i < USERS; i++) {
+            userStorage.addUser(BenchmarkData.user(i));
+        }
+        if ("journal".equals(durability)) {
+            directory = Files.createTempDirectory("filmorate-likes");
+            journal = new MappedJournal(directory, 1, true, Duration.ofMillis(1));
+            filmStorage.setJournal(journal);
+            userStorage.setJournal(journal);
+        }
+        filmService = new FilmService(filmStorage, userStorage, new FilmPopularityIndex(),
+                new UserLikesIndex(), new FilmSearchIndex(), new TrendingFilms(), BenchmarkData.jsonCache(),
+                new TrigramIndex());
+        filmService.rebuildIndexes();
+        likeIngest = new LikeIngest(filmService, CAPACITY, WORKERS);
+        likeIngest.start();
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() throws IOException, InterruptedException {
+        likeIngest.stop();
+        if (journal != null) {
+            journal.close();
+            try (Stream<Path> files = Files.walk(directory)) {
+                for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.delete(file);
+                }
+            }
+            journal = null;
+        }
+    }
+
+    @Benchmark
+    public void sync(Client client) {
+        filmService.addLike(client.filmId(), client.userId());
+    }
+
+    @Benchmark
+    public void async(Client client) {
+        long filmId = client.filmId();
+        long userId = client.userId();
+        while (true) {
+            try {
+                likeIngest.submit(filmId, userId);
+                return;
+            } catch (TooManyRequestsException e) {
+                LockSupport.parkNanos(RETRY_AFTER_NANOS);
+            }
+        }
+    }
+
+    /**
+     * Per-thread source of likes: Zipf over films, uniform over users.
+     */
+    @State(Scope.Thread)
+    public static class Client {
+        private BenchmarkData.Distribution films;
+        private BenchmarkData.Distribution users;
+
+        @Setup
+        public void setUp() {
+            long seed = BenchmarkData.SEED + Thread.currentThread().getId();
+            films = BenchmarkData.Distribution.of("zipf", FILMS, seed);
+            users = BenchmarkData.Distribution.of("uniform", USERS, seed + 1);
+        }
+
+        long filmId() {
+            return films.next() + 1L;
+        }
+
+        long userId() {
+            return users.next() + 1L;
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.FileAppender;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.storage.film.FilmPopularityIndex;
+import ru.yandex.practicum.filmorate.storage.film.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.TrendingFilms;
+import ru.yandex.practicum.filmorate.storage.film.UserLikesIndex;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.util.TrigramIndex;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Write throughput from 4 threads with INFO logged to a file, synchronously or through an
+ * {@link AsyncAppender} set up as in {@code logback-spring.xml} (which drops INFO when its queue
+ * is 80% full, so under overload {@code async} trades lines for throughput). {@code updateFilm}
+ * runs the storage path, which logs the film id; {@code updateFilmEntityLine} runs it and also
+ * logs the whole film, as the storages did before, for a film with {@value #LIKES} likes.
+ * {@code addLike} logs at DEBUG and only pays the level check.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class LoggingBenchmark {
+    private static final int FILMS = 1000;
+    private static final int USERS = 100_000;
+    private static final int LIKES = 1000;
+    private static final int QUEUE_SIZE = 8192;
+
+    @Param({"sync", "async"})
+    public String appender;
+
+    private LoggerContext context;
+    private Path file;
+    private InMemoryFilmStorage filmStorage;
+    private FilmService filmService;
+    private Film[] films;
+    private final AtomicInteger next = new AtomicInteger();
+    private final org.slf4j.Logger log = LoggerFactory.getLogger(InMemoryFilmStorage.class);
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        file = Files.createTempFile("filmorate-log", ".log");
+        context = (LoggerContext) LoggerFactory.getILoggerFactory();
+        context.reset();
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(context);
+        encoder.setPattern("%d{yyyy-MM-dd'T'HH:mm:ss.SSSXXX} %5p %t %logger{39} : %m%n");
+        encoder.start();
+        FileAppender<ILoggingEvent> fileAppender = new FileAppender<>();
+        fileAppender.setContext(context);
+        fileAppender.setFile(file.toString());
+        fileAppender.setEncoder(encoder);
+        fileAppender.start();
+        Appender<ILoggingEvent> root = fileAppender;
+        if ("async".equals(appender)) {
+            AsyncAppender async = new AsyncAppender();
+            async.setContext(context);
+            async.setQueueSize(QUEUE_SIZE);
+            async.setNeverBlock(true);
+            async.addAppender(fileAppender);
+            async.start();
+            root = async;
+        }
+        Logger rootLogger = context.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME);
+        rootLogger.setLevel(ch.qos.logback.classic.Level.INFO);
+        rootLogger.addAppender(root);
+
+        filmStorage = new InMemoryFilmStorage();
+        InMemoryUserStorage userStorage = new InMemoryUserStorage();
+        films = new Film[FILMS];
+        for (int i = 0; i < FILMS; i++) {
+            films[i] = filmStorage.addFilm(BenchmarkData.film(i));
+        }
+        for (int i = 0; i < USERS; i++) {
+            userStorage.addUser(BenchmarkData.user(i));
+        }
+        for (Film film : films) {
+            for (long userId = 1; userId <= LIKES; userId++) {
+                filmStorage.addLike(film.getId(), userId);
+            }
+        }
+        filmService = new FilmService(filmStorage, userStorage, new FilmPopularityIndex(),
+                new UserLikesIndex(), new FilmSearchIndex(), new TrendingFilms(), BenchmarkData.jsonCache(),
+                new TrigramIndex());
+        filmService.rebuildIndexes();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.reset();
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public Film updateFilm() {
+        return filmStorage.updateFilm(film());
+    }
+
+    @Benchmark
+    public Film updateFilmEntityLine() {
+        Film film = filmStorage.updateFilm(film());
+        log.info("Film updated: {}", film);
+        return film;
+    }
+
+    @Benchmark
+    public void addLike() {
+        // a new pair every call: a repeated like would log a warning
+        int i = next.getAndIncrement() & Integer.MAX_VALUE;
+        filmService.addLike(i % FILMS + 1L, LIKES + 1L + i / FILMS % (USERS - LIKES));
+    }
+
+    private Film film() {
+        return films[Math.floorMod(next.getAndIncrement(), FILMS)];
+    }
+}
@@ -0,0 +1,58 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.storage.film.UserLikesIndex;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Recommendation latency on {@link UserLikesIndex} with {@code users} users liking
+ * {@code likesPerUser} films each out of 10 000, film choice Zipf-skewed so that popular films
+ * are shared by many users. Run with {@code -Xmx2g} or more for a million users.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class RecommendationBenchmark {
+    private static final int FILMS = 10_000;
+
+    @Param({"100000", "1000000"})
+    public int users;
+
+    @Param({"20"})
+    public int likesPerUser;
+
+    private UserLikesIndex index;
+    private BenchmarkData.Distribution userIds;
+
+    @Setup
+    public void setUp() {
+        index = new UserLikesIndex();
+        BenchmarkData.Distribution films = BenchmarkData.Distribution.of("zipf", FILMS, BenchmarkData.SEED);
+        for (long user = 1; user <= users; user++) {
+            for (int i = 0; i < likesPerUser; i++) {
+                index.addLike(user, films.next() + 1);
+            }
+        }
+        userIds = BenchmarkData.Distribution.of("uniform", users, BenchmarkData.SEED);
+    }
+
+    @Benchmark
+    public List<Long> recommend() {
+        return index.recommend(userIds.next() + 1, 10);
+    }
+}
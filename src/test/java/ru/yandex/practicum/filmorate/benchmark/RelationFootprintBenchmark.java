@@ -0,0 +1,62 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import ru.yandex.practicum.filmorate.model.FriendshipStatus;
+import ru.yandex.practicum.filmorate.util.LongEnumMap;
+import ru.yandex.practicum.filmorate.util.LongHashSet;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Prints the retained heap per like / friend edge for boxed and primitive collections.
+ * Run with a fixed heap for stable numbers, e.g. {@code -Xms2g -Xmx2g}.
+ */
+public class RelationFootprintBenchmark {
+    private static final int COLLECTIONS = 100;
+    private static final int EDGES_PER_COLLECTION = 100_000;
+
+    public static void main(String[] args) {
+        report("HashSet<Long> likes", () -> fillSet(new HashSet<>()));
+        report("LongHashSet likes", () -> fillSet(new LongHashSet()));
+        report("HashMap<Long, FriendshipStatus> friends", () -> fillMap(new HashMap<>()));
+        report("LongEnumMap<FriendshipStatus> friends", () -> fillMap(new LongEnumMap<>(FriendshipStatus.class)));
+    }
+
+    private static Set<Long> fillSet(Set<Long> set) {
+        for (long id = 1; id <= EDGES_PER_COLLECTION; id++) {
+            set.add(id * 31);
+        }
+        return set;
+    }
+
+    private static Map<Long, FriendshipStatus> fillMap(Map<Long, FriendshipStatus> map) {
+        for (long id = 1; id <= EDGES_PER_COLLECTION; id++) {
+            map.put(id * 31, id % 2 == 0 ? FriendshipStatus.CONFIRMED : FriendshipStatus.PENDING);
+        }
+        return map;
+    }
+
+    private static void report(String name, Supplier<Object> factory) {
+        long before = usedHeap();
+        List<Object> retained = new ArrayList<>(COLLECTIONS);
+        for (int i = 0; i < COLLECTIONS; i++) {
+            retained.add(factory.get());
+        }
+        long after = usedHeap();
+        double perEdge = (double) (after - before) / ((long) COLLECTIONS * EDGES_PER_COLLECTION);
+        System.out.printf("%-45s %6.1f bytes/edge (%d collections retained)%n", name, perEdge, retained.size());
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
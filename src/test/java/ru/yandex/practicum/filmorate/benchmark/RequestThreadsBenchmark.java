@@ -0,0 +1,144 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.storage.film.FilmPopularityIndex;
+import ru.yandex.practicum.filmorate.storage.film.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.TrendingFilms;
+import ru.yandex.practicum.filmorate.storage.film.UserLikesIndex;
+import ru.yandex.practicum.filmorate.storage.journal.MappedJournal;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.util.TrigramIndex;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * In-process counterpart of {@link HttpLoadTest}: the same request mix runs straight against
+ * {@link FilmService} with a synced journal, once on a fixed pool of 200 platform threads
+ * (Tomcat's default {@code server.tomcat.threads.max}) and once on a virtual thread per request.
+ * Measures how the thread model alone affects queueing, without HTTP and JSON costs.
+ * Needs Java 21 for the virtual-thread run: {@code RequestThreadsBenchmark [concurrency] [seconds]}.
+ */
+public class RequestThreadsBenchmark {
+    private static final int PLATFORM_THREADS = 200;
+    private static final int FILMS = 10_000;
+    private static final int USERS = 10_000;
+    private static final int WRITE_PERCENT = 20;
+
+    public static void main(String[] args) throws Exception {
+        int concurrency = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        run("platform", Executors.newFixedThreadPool(PLATFORM_THREADS), concurrency, seconds);
+        run("virtual", (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null),
+                concurrency, seconds);
+    }
+
+    private static void run(String mode, ExecutorService executor, int concurrency, int seconds) throws Exception {
+        Path directory = Files.createTempDirectory("filmorate-threads");
+        InMemoryFilmStorage filmStorage = new InMemoryFilmStorage();
+        InMemoryUserStorage userStorage = new InMemoryUserStorage();
+        for (int i = 0; i < FILMS; i++) {
+            filmStorage.addFilm(BenchmarkData.film(i));
+        }
+        for (int i = 0; i < USERS; i++) {
+            userStorage.addUser(BenchmarkData.user(i));
+        }
+        FilmService filmService = new FilmService(filmStorage, userStorage,
+                new FilmPopularityIndex(), new UserLikesIndex(), new FilmSearchIndex(), new TrendingFilms(),
+                BenchmarkData.jsonCache(), new TrigramIndex());
+        filmService.rebuildIndexes();
+        try (MappedJournal journal = new MappedJournal(directory, 1, true, Duration.ofMillis(5))) {
+            filmStorage.setJournal(journal);
+            userStorage.setJournal(journal);
+            Load load = new Load(filmService, executor, seconds);
+            load.start(concurrency);
+            System.out.printf("%-8s concurrency %d: %n", mode, concurrency);
+            load.report();
+        } finally {
+            executor.shutdownNow();
+            try (Stream<Path> files = Files.walk(directory)) {
+                for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+
+    /**
+     * Each of {@code concurrency} clients submits its next request when the previous one completes.
+     * Latency is measured from submission, so it includes the time spent queued for a thread.
+     */
+    private static final class Load {
+        private final FilmService filmService;
+        private final ExecutorService executor;
+        private final long warmUpEnd;
+        private final long end;
+        private final LatencyHistogram reads = new LatencyHistogram();
+        private final LatencyHistogram writes = new LatencyHistogram();
+        private CountDownLatch finished;
+        private volatile long recordedFrom;
+
+        Load(FilmService filmService, ExecutorService executor, int seconds) {
+            this.filmService = filmService;
+            this.executor = executor;
+            long started = System.nanoTime();
+            warmUpEnd = started + TimeUnit.SECONDS.toNanos(seconds) / 5;
+            end = started + TimeUnit.SECONDS.toNanos(seconds);
+        }
+
+        void start(int concurrency) throws InterruptedException {
+            finished = new CountDownLatch(concurrency);
+            for (int client = 0; client < concurrency; client++) {
+                submit(new SplittableRandom(BenchmarkData.SEED + client));
+            }
+            finished.await();
+        }
+
+        private void submit(SplittableRandom random) {
+            long now = System.nanoTime();
+            if (now >= end) {
+                finished.countDown();
+                return;
+            }
+            if (recordedFrom == 0 && now >= warmUpEnd) {
+                recordedFrom = now;
+            }
+            boolean write = random.nextInt(100) < WRITE_PERCENT;
+            long filmId = 1 + random.nextInt(FILMS);
+            long userId = 1 + random.nextInt(USERS);
+            executor.execute(() -> {
+                if (write) {
+                    filmService.addLike(filmId, userId);
+                } else if (random.nextBoolean()) {
+                    filmService.getFilmById(filmId);
+                } else {
+                    filmService.getPopularFilms(10);
+                }
+                if (recordedFrom != 0) {
+                    (write ? writes : reads).record(System.nanoTime() - now);
+                }
+                submit(random);
+            });
+        }
+
+        void report() {
+            double elapsed = (end - recordedFrom) / 1e9;
+            print("reads", reads, elapsed);
+            print("likes", writes, elapsed);
+        }
+
+        private static void print(String name, LatencyHistogram histogram, double elapsed) {
+            System.out.printf("  %-6s %10.0f req/s, p50 %7.2f ms, p99 %7.2f ms%n", name,
+                    histogram.count() / elapsed, histogram.percentileMillis(0.5), histogram.percentileMillis(0.99));
+        }
+    }
+}
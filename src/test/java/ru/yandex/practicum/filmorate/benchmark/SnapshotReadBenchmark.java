@@ -0,0 +1,120 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.film.FilmPopularityIndex;
+import ru.yandex.practicum.filmorate.storage.film.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.TrendingFilms;
+import ru.yandex.practicum.filmorate.storage.film.UserLikesIndex;
+import ru.yandex.practicum.filmorate.storage.user.FriendGraph;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.util.TrigramIndex;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 95% reads and 5% likes from 16 threads, with the storages and the popularity index reading
+ * live ({@code snapshot=false}) or from published versions ({@code snapshot=true}). A read is one
+ * of a full {@code GET /films} or {@code GET /users} walk, a top 10 or a top 10 of a genre; every
+ * like is a new one, so each write moves its film in the ordering.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(16)
+@Fork(1)
+public class SnapshotReadBenchmark {
+    private static final int GENRES = Genre.values().length;
+
+    @Param({"false", "true"})
+    public boolean snapshot;
+
+    @Param({"10000"})
+    public int films;
+
+    @Param({"10000"})
+    public int users;
+
+    @Param({"5"})
+    public int writePercent;
+
+    private FilmService filmService;
+    private UserService userService;
+    private final AtomicInteger likes = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        InMemoryFilmStorage filmStorage = new InMemoryFilmStorage(snapshot);
+        InMemoryUserStorage userStorage = new InMemoryUserStorage(snapshot);
+        filmService = new FilmService(filmStorage, userStorage, new FilmPopularityIndex(snapshot),
+                new UserLikesIndex(), new FilmSearchIndex(), new TrendingFilms(), BenchmarkData.jsonCache(),
+                new TrigramIndex());
+        userService = new UserService(userStorage, new FriendGraph(), BenchmarkData.jsonCache(), new TrigramIndex());
+        for (int i = 0; i < films; i++) {
+            filmService.addFilm(BenchmarkData.film(i));
+        }
+        for (int i = 0; i < users; i++) {
+            userService.addUser(BenchmarkData.user(i));
+        }
+    }
+
+    @Benchmark
+    public long mixed(Client client) {
+        int choice = client.random.nextInt(100);
+        if (choice < writePercent) {
+            // walks films, then users, so no pair repeats within a trial
+            int i = likes.getAndIncrement() & Integer.MAX_VALUE;
+            filmService.addLike(i % films + 1L, i / films % users + 1L);
+            return i;
+        }
+        return switch (choice % 4) {
+            case 0 -> {
+                long total = 0;
+                for (Film film : filmService.getAllFilms()) {
+                    total += film.getLikesCount();
+                }
+                yield total;
+            }
+            case 1 -> {
+                long total = 0;
+                for (User user : userService.getAllUsers()) {
+                    total += user.getId();
+                }
+                yield total;
+            }
+            case 2 -> filmService.getPopularFilms(10).size();
+            default -> filmService.getPopularFilms(10, Genre.values()[client.random.nextInt(GENRES)], null).size();
+        };
+    }
+
+    @State(Scope.Thread)
+    public static class Client {
+        private SplittableRandom random;
+
+        @Setup
+        public void setUp() {
+            random = new SplittableRandom(BenchmarkData.SEED + Thread.currentThread().getId());
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StorageBenchmark {
+    @Param({"10000", "100000"})
+    public int size;
+
+    @Param({"uniform", "zipf"})
+    public String distribution;
+
+    private InMemoryFilmStorage filmStorage;
+    private InMemoryUserStorage userStorage;
+    private BenchmarkData.Distribution ids;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        filmStorage = new InMemoryFilmStorage();
+        userStorage = new InMemoryUserStorage();
+        for (int i = 0; i < size; i++) {
+            filmStorage.addFilm(BenchmarkData.film(i));
+            userStorage.addUser(BenchmarkData.user(i));
+        }
+        ids = BenchmarkData.Distribution.of(distribution, size, BenchmarkData.SEED);
+    }
+
+    @Benchmark
+    public Film getFilmById() {
+        return filmStorage.getFilmById((long) ids.next() + 1);
+    }
+
+    @Benchmark
+    public User getUserById() {
+        return userStorage.getUserById((long) ids.next() + 1);
+    }
+
+    @Benchmark
+    public Film addFilm() {
+        return filmStorage.addFilm(BenchmarkData.film(next++));
+    }
+
+    @Benchmark
+    public Film updateFilm() {
+        Film film = BenchmarkData.film(next++);
+        film.setId((long) ids.next() + 1);
+        return filmStorage.updateFilm(film);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void iterateFilms(Blackhole blackhole) {
+        for (Film film : filmStorage.getFilms()) {
+            blackhole.consume(film);
+        }
+    }
+}
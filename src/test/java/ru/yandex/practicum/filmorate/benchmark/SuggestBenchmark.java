@@ -0,0 +1,91 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.util.TrigramIndex;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Typeahead latency of {@link TrigramIndex} (the p99 is in the sample-time output) on synthetic
+ * Cyrillic and Latin titles of one to four words, with words and likes drawn from a Zipf
+ * distribution. Queries are prefixes of one to six letters of a title word, chosen with the same
+ * skew, and every fifth query has a second word.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+public class SuggestBenchmark {
+    private static final int WORDS = 20_000;
+    private static final int QUERIES = 10_000;
+    private static final String[] SYLLABLES = {
+        "ма", "ри", "ко", "ле", "ны", "ст", "во", "ра", "ти", "на", "до", "зе", "ль", "ёж", "мир",
+        "ka", "ro", "li", "ne", "st", "ar", "mo", "te", "sh", "in", "da", "ve", "lo", "us", "é"
+    };
+
+    @Param({"100000", "1000000"})
+    public int titles;
+
+    private TrigramIndex index;
+    private String[] queries;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(BenchmarkData.SEED);
+        String[] words = new String[WORDS];
+        for (int i = 0; i < WORDS; i++) {
+            StringBuilder word = new StringBuilder();
+            int syllables = 2 + random.nextInt(3);
+            int alphabet = random.nextInt(2) * SYLLABLES.length / 2;
+            for (int s = 0; s < syllables; s++) {
+                word.append(SYLLABLES[alphabet + random.nextInt(SYLLABLES.length / 2)]);
+            }
+            words[i] = word.toString();
+        }
+        BenchmarkData.Distribution wordPick = BenchmarkData.Distribution.of("zipf", WORDS, BenchmarkData.SEED);
+        BenchmarkData.Distribution likes = BenchmarkData.Distribution.of("zipf", 10_000, BenchmarkData.SEED);
+        index = new TrigramIndex();
+        for (int id = 1; id <= titles; id++) {
+            StringBuilder title = new StringBuilder(words[wordPick.next()]);
+            int extra = random.nextInt(4);
+            for (int w = 0; w < extra; w++) {
+                title.append(' ').append(words[wordPick.next()]);
+            }
+            index.put(id, title.toString(), 10_000 - likes.next());
+        }
+        queries = new String[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            String query = prefix(words[wordPick.next()], random);
+            if (i % 5 == 0) {
+                query += " " + prefix(words[wordPick.next()], random);
+            }
+            queries[i] = query;
+        }
+    }
+
+    @Benchmark
+    public List<Long> suggest() {
+        String query = queries[next];
+        next = (next + 1) % QUERIES;
+        return index.suggest(query, 10);
+    }
+
+    private static String prefix(String word, SplittableRandom random) {
+        return word.substring(0, 1 + random.nextInt(Math.min(6, word.length())));
+    }
+}
@@ -0,0 +1,61 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.storage.film.TrendingFilms;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost that {@link TrendingFilms} adds to every like, and of a {@code GET /films/trending} query,
+ * after a million likes spread over the catalogue with a Zipf skew.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TrendingBenchmark {
+    private static final int LIKES = 1_000_000;
+
+    @Param({"100000", "1000000"})
+    public int films;
+
+    private TrendingFilms trendingFilms;
+    private BenchmarkData.Distribution filmIds;
+
+    @Setup
+    public void setUp() {
+        trendingFilms = new TrendingFilms();
+        filmIds = BenchmarkData.Distribution.of("zipf", films, BenchmarkData.SEED);
+        for (int i = 0; i < LIKES; i++) {
+            trendingFilms.record(filmIds.next() + 1L, 1);
+        }
+    }
+
+    @Benchmark
+    public void record() {
+        trendingFilms.record(filmIds.next() + 1L, 1);
+    }
+
+    @Benchmark
+    public List<Long> topHour() {
+        return trendingFilms.top(TrendingFilms.Window.HOUR, 10);
+    }
+
+    @Benchmark
+    public List<Long> topDay() {
+        return trendingFilms.top(TrendingFilms.Window.DAY, 10);
+    }
+}
@@ -0,0 +1,75 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.user.FriendGraph;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.util.TrigramIndex;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Friend targets follow {@code distribution}; with "zipf" a few celebrity users are in almost
+ * every friend list, so common-friend queries against them touch large sets.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserServiceBenchmark {
+    @Param({"10000", "100000"})
+    public int users;
+
+    @Param({"50"})
+    public int friendsPerUser;
+
+    @Param({"uniform", "zipf"})
+    public String distribution;
+
+    private UserService userService;
+    private BenchmarkData.Distribution pairs;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        InMemoryUserStorage userStorage = new InMemoryUserStorage();
+        userService = new UserService(userStorage, new FriendGraph(), BenchmarkData.jsonCache(), new TrigramIndex());
+        for (int i = 0; i < users; i++) {
+            userStorage.addUser(BenchmarkData.user(i));
+        }
+        BenchmarkData.Distribution targets = BenchmarkData.Distribution.of(distribution, users, BenchmarkData.SEED);
+        for (long userId = 1; userId <= users; userId++) {
+            for (int i = 0; i < friendsPerUser; i++) {
+                long friendId = (long) targets.next() + 1;
+                if (friendId != userId) {
+                    userStorage.addFriend(userId, friendId);
+                }
+            }
+        }
+        pairs = BenchmarkData.Distribution.of(distribution, users, BenchmarkData.SEED + 1);
+    }
+
+    @Benchmark
+    public List<User> getCommonFriends() {
+        return userService.getCommonFriends((long) pairs.next() + 1, (long) pairs.next() + 1);
+    }
+
+    @Benchmark
+    public List<User> getFriends() {
+        return userService.getFriends((long) pairs.next() + 1);
+    }
+}
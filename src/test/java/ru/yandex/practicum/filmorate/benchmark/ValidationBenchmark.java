@@ -0,0 +1,155 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.film.FilmValidator;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserValidator;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Validation and 404 paths against their previous form ({@code legacy*}: a date built per call
+ * and exceptions with a stack trace and an eagerly built message). Run with {@code -prof gc} for
+ * the allocation rate; the 404 difference grows with stack depth, which under Spring MVC is
+ * several times deeper than here.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ValidationBenchmark {
+    private static final int SIZE = 10_000;
+
+    private InMemoryFilmStorage filmStorage;
+    private InMemoryUserStorage userStorage;
+    private Film[] films;
+    private User[] users;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        filmStorage = new InMemoryFilmStorage();
+        userStorage = new InMemoryUserStorage();
+        films = new Film[SIZE];
+        users = new User[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            films[i] = filmStorage.addFilm(BenchmarkData.film(i));
+            users[i] = userStorage.addUser(BenchmarkData.user(i));
+        }
+    }
+
+    @Benchmark
+    public Film validateFilm() {
+        Film film = films[next()];
+        FilmValidator.validate(film);
+        return film;
+    }
+
+    @Benchmark
+    public Film validateFilmLegacy() {
+        Film film = films[next()];
+        if (film.getName() == null || film.getName().isBlank()) {
+            throw new LegacyException("Film name cannot be empty");
+        }
+        if (film.getDescription() != null && film.getDescription().length() > 200) {
+            throw new LegacyException("Description cannot be longer than 200 characters");
+        }
+        if (film.getReleaseDate() == null || film.getReleaseDate().isBefore(LocalDate.of(1895, 12, 28))) {
+            throw new LegacyException("Release date cannot be before 28.12.1895");
+        }
+        return film;
+    }
+
+    @Benchmark
+    public User validateUser() {
+        User user = users[next()];
+        UserValidator.validate(user);
+        return user;
+    }
+
+    @Benchmark
+    public User validateUserLegacy() {
+        User user = users[next()];
+        if (user.getBirthday() == null || user.getBirthday().isAfter(LocalDate.now())) {
+            throw new LegacyException("Birthday cannot be in the future");
+        }
+        return user;
+    }
+
+    @Benchmark
+    public Film updateFilm() {
+        return filmStorage.updateFilm(films[next()]);
+    }
+
+    @Benchmark
+    public User updateUser() {
+        return userStorage.updateUser(users[next()]);
+    }
+
+    @Benchmark
+    public String invalidFilm() {
+        try {
+            FilmValidator.validate(new Film());
+            return null;
+        } catch (ValidationException e) {
+            return e.getMessage();
+        }
+    }
+
+    /**
+     * The message is read, as the error handler does for the response body.
+     */
+    @Benchmark
+    public String missingFilm() {
+        try {
+            return filmStorage.getFilmById(SIZE + 1L + next()).getName();
+        } catch (NotFoundException e) {
+            return e.getMessage();
+        }
+    }
+
+    /**
+     * The current lookup, whose exception is swapped for one built the previous way.
+     */
+    @Benchmark
+    public String missingFilmLegacy() {
+        long id = SIZE + 1L + next();
+        try {
+            try {
+                return filmStorage.getFilmById(id).getName();
+            } catch (NotFoundException e) {
+                throw new LegacyException("Film with ID " + id + " not found");
+            }
+        } catch (LegacyException e) {
+            return e.getMessage();
+        }
+    }
+
+    private int next() {
+        next = (next + 1) % SIZE;
+        return next;
+    }
+
+    private static final class LegacyException extends RuntimeException {
+        LegacyException(String message) {
+            super(message);
+        }
+    }
+}
@@ -10,6 +10,7 @@ import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
 
 import java.time.Duration;
 import java.time.LocalDate;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -179,4 +180,28 @@ class FilmControllerTest {
         assertNotNull(createdFilm2.getId());
         assertEquals(Rating.NC_17, createdFilm2.getMpa());
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldReturnFilmsPageAfterCursor() {
+        for (int i = 1; i <= 5; i++) {
+            Film film = new Film();
+            film.setName("Film " + i);
+            film.setDescription("Description " + i);
+            film.setReleaseDate(LocalDate.of(2000, 1, 1));
+            film.setDuration(Duration.ofMinutes(90));
+            film.setMpa(Rating.G);
+            inMemoryFilmStorage.addFilm(film);
+        }
+
+        List<Film> firstPage = inMemoryFilmStorage.getFilms(null, 2);
+        List<Film> secondPage = inMemoryFilmStorage.getFilms(firstPage.get(1).getId(), 2);
+        List<Film> lastPage = inMemoryFilmStorage.getFilms(secondPage.get(1).getId(), 2);
+
+        assertEquals(List.of(1L, 2L), firstPage.stream().map(Film::getId).toList());
+        assertEquals(List.of(3L, 4L), secondPage.stream().map(Film::getId).toList());
+        assertEquals(List.of(5L), lastPage.stream().map(Film::getId).toList());
+        assertEquals(List.of(1L, 2L),
+                inMemoryFilmStorage.getFilms(Long.MIN_VALUE, 2).stream().map(Film::getId).toList());
+        assertTrue(inMemoryFilmStorage.getFilms(Long.MAX_VALUE, 2).isEmpty());
+    }
+}
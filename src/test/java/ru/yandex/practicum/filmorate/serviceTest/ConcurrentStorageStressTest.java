@@ -0,0 +1,179 @@
+package ru.yandex.practicum.filmorate.serviceTest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FriendshipStatus;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.JsonCache;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.film.FilmPopularityIndex;
+import ru.yandex.practicum.filmorate.storage.film.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.TrendingFilms;
+import ru.yandex.practicum.filmorate.storage.film.UserLikesIndex;
+import ru.yandex.practicum.filmorate.storage.user.FriendGraph;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.util.TrigramIndex;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static ru.yandex.practicum.filmorate.TestData.film;
+import static ru.yandex.practicum.filmorate.TestData.user;
+
+class ConcurrentStorageStressTest {
+    private static final int THREADS = 8;
+    private static final int USERS = 400;
+    private static final int FILMS = 20;
+
+    private FilmService filmService;
+    private UserService userService;
+
+    @BeforeEach
+    void setUp() {
+        InMemoryUserStorage userStorage = new InMemoryUserStorage();
+        JsonCache jsonCache = new JsonCache(new ObjectMapper().findAndRegisterModules(), 1000, Duration.ofMinutes(5));
+        filmService = new FilmService(new InMemoryFilmStorage(), userStorage,
+                new FilmPopularityIndex(), new UserLikesIndex(), new FilmSearchIndex(), new TrendingFilms(), jsonCache,
+                new TrigramIndex());
+        userService = new UserService(userStorage, new FriendGraph(), jsonCache, new TrigramIndex());
+    }
+
+    @Test
+    void shouldNotLoseLikesUnderConcurrentLoad() throws Exception {
+        List<Long> userIds = runConcurrently(USERS, i -> userService.addUser(user("user" + i)).getId());
+        List<Long> filmIds = runConcurrently(FILMS, i -> filmService.addFilm(film("Film " + i)).getId());
+
+        runConcurrently(USERS * FILMS, i -> {
+            filmService.addLike(filmIds.get(i % FILMS), userIds.get(i / FILMS));
+            filmService.getPopularFilms(5);
+            return null;
+        });
+
+        for (Long filmId : filmIds) {
+            assertEquals(USERS, filmService.getFilmById(filmId).getLikes().size());
+            assertEquals(USERS, filmService.getLikesCount(filmId));
+        }
+        assertEquals(FILMS, filmService.getPopularFilms(FILMS).size());
+    }
+
+    @Test
+    void shouldNotLoseFriendLinksUnderConcurrentLoad() throws Exception {
+        List<Long> userIds = runConcurrently(USERS, i -> userService.addUser(user("user" + i)).getId());
+        int pairs = USERS / 2;
+
+        // both sides of every pair add each other at the same time
+        runConcurrently(pairs * 2, i -> {
+            Long first = userIds.get((i / 2) * 2);
+            Long second = userIds.get((i / 2) * 2 + 1);
+            if (i % 2 == 0) {
+                userService.addFriend(first, second);
+            } else {
+                userService.addFriend(second, first);
+            }
+            return null;
+        });
+
+        for (int i = 0; i < pairs; i++) {
+            User first = userService.getUserById(userIds.get(i * 2));
+            User second = userService.getUserById(userIds.get(i * 2 + 1));
+            assertEquals(FriendshipStatus.CONFIRMED, first.getFriendshipStatus(second.getId()));
+            assertEquals(FriendshipStatus.CONFIRMED, second.getFriendshipStatus(first.getId()));
+        }
+    }
+
+    @Test
+    void shouldReadConsistentSnapshotsUnderConcurrentLoad() throws Exception {
+        InMemoryFilmStorage filmStorage = new InMemoryFilmStorage(true);
+        InMemoryUserStorage userStorage = new InMemoryUserStorage(true);
+        JsonCache jsonCache = new JsonCache(new ObjectMapper().findAndRegisterModules(), 1000, Duration.ofMinutes(5));
+        filmService = new FilmService(filmStorage, userStorage, new FilmPopularityIndex(true),
+                new UserLikesIndex(), new FilmSearchIndex(), new TrendingFilms(), jsonCache, new TrigramIndex());
+        userService = new UserService(userStorage, new FriendGraph(), jsonCache, new TrigramIndex());
+        List<Long> userIds = runConcurrently(USERS, i -> userService.addUser(user("user" + i)).getId());
+        List<Long> filmIds = runConcurrently(FILMS, i -> filmService.addFilm(film("Film " + i)).getId());
+
+        runConcurrently(USERS * FILMS, i -> {
+            filmService.addLike(filmIds.get(i % FILMS), userIds.get(i / FILMS));
+            if (i % 20 == 0) {
+                filmService.addFilm(film("Extra " + i));
+            }
+            Collection<Film> films = filmService.getAllFilms();
+            int size = films.size();
+            assertEquals(size, films.stream().map(Film::getId).distinct().count());
+            List<Film> popular = filmService.getPopularFilms(5);
+            assertEquals(5, popular.stream().map(Film::getId).distinct().count());
+            for (int k = 1; k < popular.size(); k++) {
+                assertTrue(popular.get(k - 1).getLikesCount() >= popular.get(k).getLikesCount());
+            }
+            return null;
+        });
+
+        Collection<Film> before = filmService.getAllFilms();
+        int size = before.size();
+        filmService.addFilm(film("Late"));
+        assertEquals(size, before.size());
+        assertEquals(size, before.stream().count());
+        assertEquals(size + 1, filmService.getAllFilms().size());
+        for (Long filmId : filmIds) {
+            assertEquals(USERS, filmService.getLikesCount(filmId));
+        }
+        List<Long> top = filmService.getPopularFilms(FILMS).stream().map(Film::getId).toList();
+        assertEquals(filmIds.stream().sorted().toList(), top);
+
+        // a version read before more likes and friends keeps the likes and friends it was read with
+        List<Film> films = filmService.getFilmsPage(null, FILMS);
+        List<User> users = userService.getUsersPage(null, 2);
+        Long late = userService.addUser(user("late")).getId();
+        for (Long filmId : filmIds) {
+            filmService.addLike(filmId, late);
+        }
+        userService.addFriend(users.get(0).getId(), users.get(1).getId());
+        userService.addFriend(users.get(1).getId(), late);
+        for (Film film : films) {
+            assertEquals(USERS, film.getLikesCount());
+            assertEquals(USERS + 1, filmService.getFilmById(film.getId()).getLikesCount());
+        }
+        assertTrue(users.get(0).getFriends().isEmpty());
+        assertTrue(users.get(1).getFriends().isEmpty());
+        assertEquals(FriendshipStatus.PENDING,
+                userService.getUserById(users.get(0).getId()).getFriendshipStatus(users.get(1).getId()));
+    }
+
+    private static <T> List<T> runConcurrently(int tasks, Task<T> task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<T>> futures = new ArrayList<>();
+            for (int i = 0; i < tasks; i++) {
+                int index = i;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return task.run(index);
+                }));
+            }
+            start.countDown();
+            List<T> results = new ArrayList<>();
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private interface Task<T> {
+        T run(int index);
+    }
+}
@@ -0,0 +1,527 @@
+package ru.yandex.practicum.filmorate.serviceTest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.TooManyRequestsException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.BatchResult;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmLike;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Rating;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.JsonCache;
+import ru.yandex.practicum.filmorate.service.LikeIngest;
+import ru.yandex.practicum.filmorate.service.RequestLimits;
+import ru.yandex.practicum.filmorate.storage.film.FilmPopularityIndex;
+import ru.yandex.practicum.filmorate.storage.film.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.LikesDiff;
+import ru.yandex.practicum.filmorate.storage.film.TrendingFilms;
+import ru.yandex.practicum.filmorate.storage.film.UserLikesIndex;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.util.TrigramIndex;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static ru.yandex.practicum.filmorate.TestData.film;
+import static ru.yandex.practicum.filmorate.TestData.user;
+
+class FilmServiceTest {
+    private FilmService filmService;
+    private InMemoryUserStorage userStorage;
+
+    @BeforeEach
+    void setUp() {
+        userStorage = new InMemoryUserStorage();
+        JsonCache jsonCache = new JsonCache(new ObjectMapper().findAndRegisterModules(), 1000, Duration.ofMinutes(5));
+        filmService = new FilmService(new InMemoryFilmStorage(), userStorage,
+                new FilmPopularityIndex(), new UserLikesIndex(), new FilmSearchIndex(), new TrendingFilms(), jsonCache,
+                new TrigramIndex());
+    }
+
+    @Test
+    void shouldReturnPopularFilmsOrderedByLikesThenId() {
+        Film first = filmService.addFilm(film("First", 2000));
+        Film second = filmService.addFilm(film("Second", 2000));
+        Film third = filmService.addFilm(film("Third", 2001));
+        User user1 = userStorage.addUser(user("user1"));
+        User user2 = userStorage.addUser(user("user2"));
+
+        filmService.addLike(third.getId(), user1.getId());
+        filmService.addLike(third.getId(), user2.getId());
+        filmService.addLike(second.getId(), user1.getId());
+
+        assertEquals(List.of(third.getId(), second.getId(), first.getId()), ids(filmService.getPopularFilms(10)));
+        assertEquals(List.of(third.getId()), ids(filmService.getPopularFilms(1)));
+
+        filmService.removeLike(third.getId(), user1.getId());
+        filmService.removeLike(third.getId(), user2.getId());
+
+        assertEquals(List.of(second.getId(), first.getId(), third.getId()), ids(filmService.getPopularFilms(10)));
+    }
+
+    @Test
+    void shouldFilterPopularFilmsByGenreAndYear() {
+        Film comedy2000 = filmService.addFilm(film("Comedy 2000", 2000));
+        Film drama2000 = filmService.addFilm(film("Drama 2000", 2000));
+        Film comedy2001 = filmService.addFilm(film("Comedy 2001", 2001));
+        filmService.addGenreFromFilm(comedy2000.getId(), Genre.COMEDY);
+        filmService.addGenreFromFilm(drama2000.getId(), Genre.DRAMA);
+        filmService.addGenreFromFilm(comedy2001.getId(), Genre.COMEDY);
+
+        assertEquals(List.of(comedy2000.getId(), comedy2001.getId()),
+                ids(filmService.getPopularFilms(10, Genre.COMEDY, null)));
+        assertEquals(List.of(comedy2000.getId(), drama2000.getId()),
+                ids(filmService.getPopularFilms(10, null, 2000)));
+        assertEquals(List.of(comedy2001.getId()), ids(filmService.getPopularFilms(10, Genre.COMEDY, 2001)));
+
+        filmService.removeGenreFromFilm(comedy2001.getId(), Genre.COMEDY);
+
+        assertTrue(filmService.getPopularFilms(10, Genre.COMEDY, 2001).isEmpty());
+    }
+
+    @Test
+    void shouldFilterPopularAndSearchByEveryGivenGenre() {
+        for (boolean snapshotReads : new boolean[]{false, true}) {
+            JsonCache jsonCache = new JsonCache(new ObjectMapper().findAndRegisterModules(), 1000,
+                    Duration.ofMinutes(5));
+            FilmService service = new FilmService(new InMemoryFilmStorage(snapshotReads), userStorage,
+                    new FilmPopularityIndex(snapshotReads), new UserLikesIndex(), new FilmSearchIndex(),
+                    new TrendingFilms(), jsonCache, new TrigramIndex());
+            Film comedy = service.addFilm(film("Comedy", 2000));
+            Film actionComedy = film("Action comedy", 2000);
+            actionComedy.setGenres(Set.of(Genre.COMEDY, Genre.ACTION));
+            actionComedy = service.addFilm(actionComedy);
+            Film actionDrama = film("Action drama", 2001);
+            actionDrama.setGenres(Set.of(Genre.DRAMA, Genre.ACTION));
+            actionDrama = service.addFilm(actionDrama);
+            service.addGenreFromFilm(comedy.getId(), Genre.COMEDY);
+            service.addLike(actionDrama.getId(), userStorage.addUser(user("fan" + snapshotReads)).getId());
+
+            assertEquals(List.of(actionComedy.getId()),
+                    ids(service.getPopularFilmsByGenres(10, Set.of(Genre.COMEDY, Genre.ACTION), null)));
+            assertEquals(List.of(actionDrama.getId(), actionComedy.getId()),
+                    ids(service.getPopularFilmsByGenres(10, Set.of(Genre.ACTION), null)));
+            assertEquals(List.of(actionDrama.getId()),
+                    ids(service.getPopularFilmsByGenres(10, Set.of(Genre.ACTION), 2001)));
+            assertEquals(List.of(actionDrama.getId(), comedy.getId(), actionComedy.getId()),
+                    ids(service.getPopularFilmsByGenres(10, Set.of(), null)));
+            assertEquals(List.of(actionComedy.getId()),
+                    ids(service.searchFilmsByGenres(Set.of(Genre.ACTION, Genre.COMEDY), null, null, null, null,
+                            null, 10)));
+
+            service.removeGenreFromFilm(actionComedy.getId(), Genre.ACTION);
+
+            assertTrue(service.getPopularFilmsByGenres(10, Set.of(Genre.COMEDY, Genre.ACTION), null).isEmpty());
+            assertTrue(service.searchFilmsByGenres(Set.of(Genre.COMEDY, Genre.ACTION), null, null, null, null,
+                    null, 10).isEmpty());
+            assertEquals(Set.of(Genre.COMEDY), service.getFilmGenres(actionComedy.getId()));
+        }
+    }
+
+    @Test
+    void shouldSearchFilmsByGenreRatingYearAndName() {
+        Film comedy2000 = filmService.addFilm(film("Comedy 2000", 2000));
+        Film drama2005 = film("Drama 2005", 2005);
+        drama2005.setMpa(Rating.R);
+        drama2005 = filmService.addFilm(drama2005);
+        Film comedy2010 = filmService.addFilm(film("Late Comedy", 2010));
+        filmService.addGenreFromFilm(comedy2000.getId(), Genre.COMEDY);
+        filmService.addGenreFromFilm(drama2005.getId(), Genre.DRAMA);
+        filmService.addGenreFromFilm(comedy2010.getId(), Genre.COMEDY);
+
+        assertEquals(List.of(comedy2000.getId(), comedy2010.getId()),
+                ids(search(Genre.COMEDY, null, null, null, null)));
+        assertEquals(List.of(drama2005.getId()), ids(search(null, Rating.R, null, null, null)));
+        assertEquals(List.of(comedy2000.getId(), drama2005.getId()), ids(search(null, null, 1999, 2005, null)));
+        assertEquals(List.of(comedy2010.getId()), ids(search(Genre.COMEDY, Rating.PG, 2001, null, null)));
+        assertEquals(List.of(comedy2000.getId(), comedy2010.getId()), ids(search(null, null, null, null, "coMEDY")));
+        assertEquals(List.of(comedy2000.getId(), drama2005.getId(), comedy2010.getId()),
+                ids(search(null, null, null, null, null)));
+        assertEquals(List.of(comedy2010.getId()),
+                ids(filmService.searchFilms(Genre.COMEDY, null, null, null, null, comedy2000.getId(), 10)));
+        assertEquals(List.of(comedy2000.getId()), ids(filmService.searchFilms(null, null, null, null, null, null, 1)));
+        assertEquals(List.of(comedy2000.getId(), drama2005.getId(), comedy2010.getId()),
+                ids(filmService.searchFilms(null, null, null, null, null, Long.MIN_VALUE, Integer.MAX_VALUE)));
+        assertTrue(filmService.searchFilms(null, null, null, null, null, Long.MAX_VALUE, 10).isEmpty());
+        assertTrue(filmService.searchFilms(null, null, null, null, null, (long) Integer.MAX_VALUE, 10).isEmpty());
+        assertEquals(List.of(comedy2000.getId(), drama2005.getId(), comedy2010.getId()),
+                ids(filmService.getFilmsPage(Long.MIN_VALUE, Integer.MAX_VALUE)));
+        assertTrue(filmService.getFilmsPage(Long.MAX_VALUE, 10).isEmpty());
+
+        filmService.removeGenreFromFilm(comedy2010.getId(), Genre.COMEDY);
+        Film moved = film("Drama 1990", 1990);
+        moved.setId(comedy2000.getId());
+        moved.setGenres(Set.of(Genre.DRAMA));
+        filmService.updateFilm(moved);
+
+        assertTrue(search(Genre.COMEDY, null, null, null, null).isEmpty());
+        assertEquals(List.of(comedy2000.getId(), drama2005.getId()), ids(search(Genre.DRAMA, null, null, null, null)));
+        assertEquals(List.of(comedy2000.getId()), ids(search(null, null, null, 1999, "drama")));
+        assertTrue(search(null, null, 2000, 2000, null).isEmpty());
+        assertThrows(ValidationException.class, () -> search(null, null, 2010, 2000, null));
+    }
+
+    @Test
+    void shouldRecommendFilmsLikedBySimilarUsers() {
+        Film shared1 = filmService.addFilm(film("Shared 1", 2000));
+        Film shared2 = filmService.addFilm(film("Shared 2", 2000));
+        Film fromClose = filmService.addFilm(film("From close", 2000));
+        Film fromBoth = filmService.addFilm(film("From both", 2000));
+        Film fromStranger = filmService.addFilm(film("From stranger", 2000));
+        User user = userStorage.addUser(user("user"));
+        User close = userStorage.addUser(user("close"));
+        User partial = userStorage.addUser(user("partial"));
+        User stranger = userStorage.addUser(user("stranger"));
+
+        filmService.addLike(shared1.getId(), user.getId());
+        filmService.addLike(shared2.getId(), user.getId());
+        filmService.addLike(shared1.getId(), close.getId());
+        filmService.addLike(shared2.getId(), close.getId());
+        filmService.addLike(fromClose.getId(), close.getId());
+        filmService.addLike(fromBoth.getId(), close.getId());
+        filmService.addLike(shared1.getId(), partial.getId());
+        filmService.addLike(fromBoth.getId(), partial.getId());
+        filmService.addLike(fromStranger.getId(), stranger.getId());
+
+        assertEquals(List.of(fromBoth.getId(), fromClose.getId()),
+                ids(filmService.getRecommendations(user.getId(), 10)));
+        assertEquals(List.of(fromBoth.getId()), ids(filmService.getRecommendations(user.getId(), 1)));
+
+        filmService.removeLike(fromBoth.getId(), close.getId());
+        filmService.removeLike(fromBoth.getId(), partial.getId());
+        assertEquals(List.of(fromClose.getId()), ids(filmService.getRecommendations(user.getId(), 10)));
+
+        Film updated = film("From close", 2000);
+        updated.setId(fromClose.getId());
+        updated.setLikes(Set.of());
+        filmService.updateFilm(updated);
+        assertTrue(filmService.getRecommendations(user.getId(), 10).isEmpty());
+        assertTrue(filmService.getRecommendations(stranger.getId(), 10).isEmpty());
+        assertThrows(NotFoundException.class, () -> filmService.getRecommendations(99L, 10));
+    }
+
+    @Test
+    void shouldPageLikesAndKeepThemOnUpdateWithoutLikes() {
+        Film film = filmService.addFilm(film("Liked", 2000));
+        List<Long> userIds = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            long userId = userStorage.addUser(user("user" + i)).getId();
+            userIds.add(userId);
+            filmService.addLike(film.getId(), userId);
+        }
+
+        assertEquals(userIds.subList(0, 2), filmService.getLikesPage(film.getId(), null, 2));
+        assertEquals(userIds.subList(2, 4), filmService.getLikesPage(film.getId(), userIds.get(1), 2));
+        assertEquals(userIds.subList(4, 5), filmService.getLikesPage(film.getId(), userIds.get(3), 2));
+        assertThrows(ValidationException.class, () -> filmService.getLikesPage(film.getId(), null, 0));
+        assertThrows(NotFoundException.class, () -> filmService.getLikesPage(99L, null, 2));
+        assertThrows(NotFoundException.class, () -> filmService.getLikesCount(99L));
+
+        Film renamed = film("Renamed", 2000);
+        renamed.setId(film.getId());
+        filmService.updateFilm(renamed);
+
+        assertEquals("Renamed", filmService.getFilmById(film.getId()).getName());
+        assertEquals(5, filmService.getLikesCount(film.getId()));
+        assertEquals(Set.copyOf(userIds), filmService.getFilmById(film.getId()).getLikes());
+    }
+
+    @Test
+    void shouldSuggestFilmsByTitlePrefixMostLikedFirst() {
+        Film matrix = filmService.addFilm(film("Матрица", 1999));
+        Film reloaded = filmService.addFilm(film("Матрица: Перезагрузка", 2003));
+        Film master = filmService.addFilm(film("Мастер и Маргарита", 2005));
+        User user = userStorage.addUser(user("user"));
+        filmService.addLike(reloaded.getId(), user.getId());
+
+        assertEquals(List.of(reloaded.getId(), matrix.getId()), ids(filmService.suggestFilms("матр", 10)));
+        assertEquals(List.of(reloaded.getId(), matrix.getId(), master.getId()),
+                ids(filmService.suggestFilms("Ма", null)));
+        assertEquals(List.of(reloaded.getId(), matrix.getId(), master.getId()),
+                ids(filmService.suggestFilms("Ма", Integer.MAX_VALUE)));
+
+        filmService.removeLike(reloaded.getId(), user.getId());
+        filmService.addLikes(List.of(new FilmLike(master.getId(), user.getId())));
+        Film renamed = film("Матрица 4", 2021);
+        renamed.setId(reloaded.getId());
+        filmService.updateFilm(renamed);
+
+        assertEquals(List.of(master.getId(), matrix.getId()), ids(filmService.suggestFilms("ма", 2)));
+        assertEquals(List.of(reloaded.getId()), ids(filmService.suggestFilms("матрица 4", 10)));
+        assertTrue(filmService.suggestFilms("перез", 10).isEmpty());
+    }
+
+    @Test
+    void shouldRankTrendingFilmsByLikesInWindow() {
+        MutableClock clock = new MutableClock();
+        JsonCache jsonCache = new JsonCache(new ObjectMapper().findAndRegisterModules(), 1000, Duration.ofMinutes(5));
+        FilmService service = new FilmService(new InMemoryFilmStorage(), userStorage, new FilmPopularityIndex(),
+                new UserLikesIndex(), new FilmSearchIndex(), new TrendingFilms(clock), jsonCache, new TrigramIndex());
+        Film old = service.addFilm(film("Old", 2000));
+        Film fresh = service.addFilm(film("Fresh", 2001));
+        List<Long> userIds = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            userIds.add(userStorage.addUser(user("user" + i)).getId());
+        }
+        for (Long userId : userIds) {
+            service.addLike(old.getId(), userId);
+        }
+        clock.advance(Duration.ofMinutes(30));
+        service.addLike(fresh.getId(), userIds.get(0));
+        service.addLikes(List.of(new FilmLike(fresh.getId(), userIds.get(1))));
+
+        assertEquals(List.of(old.getId(), fresh.getId()), ids(service.getTrendingFilms("1h", 10)));
+
+        clock.advance(Duration.ofMinutes(40));
+        service.removeLike(fresh.getId(), userIds.get(0));
+
+        assertEquals(List.of(fresh.getId()), ids(service.getTrendingFilms("1h", 10)));
+        assertEquals(List.of(old.getId(), fresh.getId()), ids(service.getTrendingFilms("24h", 10)));
+        assertEquals(List.of(old.getId()), ids(service.getTrendingFilms("1d", 1)));
+        assertEquals(List.of(old.getId(), fresh.getId()), ids(service.getTrendingFilms("24h", Integer.MAX_VALUE)));
+        assertThrows(ValidationException.class, () -> service.getTrendingFilms("1w", 10));
+    }
+
+    @Test
+    void shouldAddFilmsBatchWithPerItemResults() {
+        Film invalid = film("", 2000);
+
+        List<BatchResult> results = filmService.addFilms(List.of(film("First", 2000), invalid, film("Third", 2001)));
+
+        assertEquals(List.of(201, 400, 201), results.stream().map(BatchResult::getStatus).toList());
+        assertEquals(List.of(0, 1, 2), results.stream().map(BatchResult::getIndex).toList());
+        assertNull(results.get(1).getId());
+        assertEquals("Film name cannot be empty", results.get(1).getError());
+        assertEquals("Third", filmService.getFilmById(results.get(2).getId()).getName());
+        assertEquals(2, filmService.getAllFilms().size());
+        assertEquals(2, filmService.getPopularFilms(10).size());
+    }
+
+    @Test
+    void shouldApplyLikesBatchAndUpdatePopularity() {
+        Film first = filmService.addFilm(film("First", 2000));
+        Film second = filmService.addFilm(film("Second", 2000));
+        User user1 = userStorage.addUser(user("user1"));
+        User user2 = userStorage.addUser(user("user2"));
+
+        List<BatchResult> added = filmService.addLikes(List.of(
+                new FilmLike(second.getId(), user1.getId()),
+                new FilmLike(second.getId(), user2.getId()),
+                new FilmLike(second.getId(), user2.getId()),
+                new FilmLike(first.getId(), 99L),
+                new FilmLike(99L, user1.getId()),
+                new FilmLike(null, user1.getId())));
+
+        assertEquals(List.of(200, 200, 200, 404, 404, 400), added.stream().map(BatchResult::getStatus).toList());
+        assertEquals(Set.of(user1.getId(), user2.getId()), filmService.getFilmById(second.getId()).getLikes());
+        assertEquals(List.of(second.getId(), first.getId()), ids(filmService.getPopularFilms(10)));
+
+        List<BatchResult> removed = filmService.removeLikes(List.of(
+                new FilmLike(second.getId(), user1.getId()),
+                new FilmLike(second.getId(), user2.getId()),
+                new FilmLike(first.getId(), user1.getId())));
+
+        assertEquals(List.of(200, 200, 404), removed.stream().map(BatchResult::getStatus).toList());
+        assertEquals(0, filmService.getLikesCount(second.getId()));
+        assertEquals(List.of(first.getId(), second.getId()), ids(filmService.getPopularFilms(10)));
+    }
+
+    @Test
+    void shouldQueueLikesAndApplyThemOnFlush() {
+        Film first = filmService.addFilm(film("First", 2000));
+        Film second = filmService.addFilm(film("Second", 2000));
+        User user1 = userStorage.addUser(user("user1"));
+        User user2 = userStorage.addUser(user("user2"));
+        LikeIngest ingest = new LikeIngest(filmService, 3, 0);
+
+        ingest.submit(second.getId(), user1.getId());
+        ingest.submit(second.getId(), user2.getId());
+        ingest.submit(second.getId(), user2.getId());
+
+        assertThrows(TooManyRequestsException.class, () -> ingest.submit(first.getId(), user1.getId()));
+        assertThrows(NotFoundException.class, () -> ingest.submit(99L, user1.getId()));
+        assertEquals(0, filmService.getLikesCount(second.getId()));
+
+        ingest.flush(second.getId());
+
+        assertEquals(0, ingest.getWaiting());
+        assertEquals(2, filmService.getLikesCount(second.getId()));
+        assertEquals(Set.of(user1.getId(), user2.getId()), filmService.getFilmById(second.getId()).getLikes());
+        assertEquals(List.of(second.getId(), first.getId()), ids(filmService.getPopularFilms(10)));
+    }
+
+    @Test
+    void shouldApplyConcurrentQueuedLikesWithWorkers() throws InterruptedException {
+        Film hot = filmService.addFilm(film("Hot", 2000));
+        Film cold = filmService.addFilm(film("Cold", 2000));
+        List<Long> userIds = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            userIds.add(userStorage.addUser(user("user" + i)).getId());
+        }
+        LikeIngest ingest = new LikeIngest(filmService, 10_000, 2);
+        ingest.start();
+
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            int offset = t;
+            Thread thread = new Thread(() -> {
+                for (int i = offset; i < userIds.size(); i += 4) {
+                    ingest.submit(hot.getId(), userIds.get(i));
+                    if (i % 10 == 0) {
+                        ingest.submit(cold.getId(), userIds.get(i));
+                    }
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        ingest.stop();
+
+        assertEquals(0, ingest.getWaiting());
+        assertEquals(200, filmService.getLikesCount(hot.getId()));
+        assertEquals(20, filmService.getLikesCount(cold.getId()));
+        assertEquals(Set.copyOf(userIds), filmService.getFilmById(hot.getId()).getLikes());
+    }
+
+    @Test
+    void shouldRejectLikesOfUnknownUsers() {
+        User user = userStorage.addUser(user("user"));
+        Film film = film("Film", 2000);
+        film.setLikes(Set.of(user.getId(), 1L << 40));
+
+        assertThrows(NotFoundException.class, () -> filmService.addFilm(film));
+        assertTrue(filmService.getAllFilms().isEmpty());
+
+        Film stored = filmService.addFilm(film("Stored", 2000));
+        filmService.addLike(stored.getId(), user.getId());
+        Film update = film("Stored", 2000);
+        update.setId(stored.getId());
+        update.setLikes(Set.of(-1L));
+
+        assertThrows(NotFoundException.class, () -> filmService.updateFilm(update));
+        assertEquals(Set.of(user.getId()), filmService.getFilmById(stored.getId()).getLikes());
+
+        Film liked = film("Liked", 2000);
+        liked.setLikes(Set.of(user.getId()));
+        List<BatchResult> results = filmService.addFilms(List.of(film, liked));
+        assertEquals(404, results.get(0).getStatus());
+        assertEquals(201, results.get(1).getStatus());
+    }
+
+    @Test
+    void shouldKeepLikesCountedWhileFilmIsUpdated() {
+        FilmPopularityIndex index = new FilmPopularityIndex();
+        Film film = film("Film", 2000);
+        film.setId(1L);
+        film.setLikes(Set.of(10L, 11L));
+        index.index(film);
+        Film update = film("Film", 2005);
+        update.setId(1L);
+        update.setLikes(Set.of(10L, 11L));
+        update.setGenres(Set.of(Genre.DRAMA));
+
+        // a like counted after the update read the film and before it was indexed
+        index.incrementLikes(1L);
+        index.reindex(update);
+
+        assertEquals(3, index.getLikes(1L));
+        assertEquals(List.of(1L), index.top(10, Genre.DRAMA, 2005));
+        assertTrue(index.top(10, null, 2000).isEmpty());
+
+        User first = userStorage.addUser(user("first"));
+        User second = userStorage.addUser(user("second"));
+        Film stored = filmService.addFilm(film("Stored", 2000));
+        filmService.addLike(stored.getId(), first.getId());
+        Film relisted = film("Stored", 2000);
+        relisted.setId(stored.getId());
+        relisted.setLikes(Set.of(first.getId(), second.getId()));
+        filmService.updateFilm(relisted);
+        Film renamed = film("Renamed", 2000);
+        renamed.setId(stored.getId());
+        filmService.updateFilm(renamed);
+
+        assertEquals(2, filmService.getLikesCount(stored.getId()));
+    }
+
+    @Test
+    void shouldTakeLikesDiffUnderTheUpdate() {
+        InMemoryFilmStorage storage = new InMemoryFilmStorage();
+        long film = storage.addFilm(film("Film", 2000)).getId();
+        storage.addLike(film, 1L);
+        storage.addLike(film, 2L);
+        Film relisted = film("Film", 2000);
+        relisted.setId(film);
+        relisted.setLikes(Set.of(2L, 3L));
+
+        LikesDiff diff = storage.replaceFilm(relisted);
+        // a like given right after the update is not part of its diff
+        storage.addLike(film, 4L);
+
+        assertArrayEquals(new long[]{3L}, diff.added());
+        assertArrayEquals(new long[]{1L}, diff.removed());
+        assertEquals(0, diff.countChange());
+        Film renamed = film("Renamed", 2000);
+        renamed.setId(film);
+        assertSame(LikesDiff.NONE, storage.replaceFilm(renamed));
+        assertEquals(Set.of(2L, 3L, 4L), storage.getFilmById(film).getLikes());
+    }
+
+    @Test
+    void shouldRejectOversizedBatch() {
+        List<FilmLike> likes = new ArrayList<>();
+        for (int i = 0; i <= RequestLimits.MAX_BATCH_SIZE; i++) {
+            likes.add(new FilmLike(1L, (long) i));
+        }
+
+        assertThrows(ValidationException.class, () -> filmService.addLikes(likes));
+        assertThrows(ValidationException.class, () -> filmService.addLikes(List.of()));
+    }
+
+    private List<Film> search(Genre genre, Rating mpa, Integer yearFrom, Integer yearTo, String name) {
+        return filmService.searchFilms(genre, mpa, yearFrom, yearTo, name, null, 10);
+    }
+
+    private static List<Long> ids(List<Film> films) {
+        return films.stream().map(Film::getId).collect(Collectors.toList());
+    }
+
+    private static class MutableClock extends Clock {
+        private Instant now = Instant.parse("2024-06-01T12:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package ru.yandex.practicum.filmorate.serviceTest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.controller.FilmProjection;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.JsonCache;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.film.FilmPopularityIndex;
+import ru.yandex.practicum.filmorate.storage.film.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.TrendingFilms;
+import ru.yandex.practicum.filmorate.storage.film.UserLikesIndex;
+import ru.yandex.practicum.filmorate.storage.user.FriendGraph;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.util.TrigramIndex;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static ru.yandex.practicum.filmorate.TestData.film;
+import static ru.yandex.practicum.filmorate.TestData.user;
+
+class JsonCacheTest {
+    private final ObjectMapper objectMapper = JsonMapper.builder()
+            .findAndAddModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+    private JsonCache jsonCache;
+    private FilmService filmService;
+    private UserService userService;
+
+    @BeforeEach
+    void setUp() {
+        InMemoryUserStorage userStorage = new InMemoryUserStorage();
+        jsonCache = new JsonCache(objectMapper, 1000, Duration.ofMinutes(5));
+        filmService = new FilmService(new InMemoryFilmStorage(), userStorage,
+                new FilmPopularityIndex(), new UserLikesIndex(), new FilmSearchIndex(), new TrendingFilms(), jsonCache,
+                new TrigramIndex());
+        userService = new UserService(userStorage, new FriendGraph(), jsonCache, new TrigramIndex());
+    }
+
+    @Test
+    void shouldServeSameBytesUntilFilmChanges() throws Exception {
+        Film film = filmService.addFilm(film("Film"));
+        User user = userService.addUser(user("user"));
+
+        JsonCache.Json first = jsonCache.film(film.getId(), filmService::getFilmById);
+        assertArrayEquals(objectMapper.writeValueAsBytes(film), first.body());
+        assertSame(first, jsonCache.film(film.getId(), id -> fail("should not load again")));
+
+        filmService.addLike(film.getId(), user.getId());
+        JsonCache.Json liked = jsonCache.film(film.getId(), filmService::getFilmById);
+        assertArrayEquals(objectMapper.writeValueAsBytes(filmService.getFilmById(film.getId())), liked.body());
+        assertNotEquals(first.etag(), liked.etag());
+
+        filmService.removeLike(film.getId(), user.getId());
+        assertEquals(first.etag(), jsonCache.film(film.getId(), filmService::getFilmById).etag());
+    }
+
+    @Test
+    void shouldDropPopularListOnAnyFilmChange() throws Exception {
+        Film first = filmService.addFilm(film("First"));
+        Film second = filmService.addFilm(film("Second"));
+        User user = userService.addUser(user("user"));
+
+        JsonCache.Json before = jsonCache.popularFilms(10, filmService::getPopularFilms);
+        assertArrayEquals(objectMapper.writeValueAsBytes(List.of(first, second)), before.body());
+
+        filmService.addLike(second.getId(), user.getId());
+        JsonCache.Json after = jsonCache.popularFilms(10, filmService::getPopularFilms);
+        assertArrayEquals(objectMapper.writeValueAsBytes(filmService.getPopularFilms(10)), after.body());
+        assertNotEquals(before.etag(), after.etag());
+    }
+
+    @Test
+    void shouldDropBothUsersOnFriendshipChange() throws Exception {
+        User user = userService.addUser(user("user"));
+        User friend = userService.addUser(user("friend"));
+        JsonCache.Json userBefore = jsonCache.user(user.getId(), userService::getUserById);
+        JsonCache.Json friendBefore = jsonCache.user(friend.getId(), userService::getUserById);
+
+        userService.addFriend(user.getId(), friend.getId());
+        userService.addFriend(friend.getId(), user.getId());
+
+        JsonCache.Json userAfter = jsonCache.user(user.getId(), userService::getUserById);
+        assertNotEquals(userBefore.etag(), userAfter.etag());
+        assertArrayEquals(objectMapper.writeValueAsBytes(userService.getUserById(user.getId())), userAfter.body());
+        assertNotEquals(friendBefore.etag(), jsonCache.user(friend.getId(), userService::getUserById).etag());
+    }
+
+    @Test
+    void shouldSerializeLikesCountUnlessFullProjectionAsked() throws Exception {
+        Film film = filmService.addFilm(film("Film"));
+        User user = userService.addUser(user("user"));
+        filmService.addLike(film.getId(), user.getId());
+
+        JsonNode json = objectMapper.readTree(jsonCache.film(film.getId(), filmService::getFilmById).body());
+        assertEquals(1, json.get("likesCount").asInt());
+        assertFalse(json.has("likes"));
+
+        JsonNode full = objectMapper.readTree(FilmProjection.fullWriter(objectMapper)
+                .writeValueAsBytes(filmService.getFilmById(film.getId())));
+        assertEquals(1, full.get("likesCount").asInt());
+        assertEquals(user.getId(), full.get("likes").get(0).asLong());
+
+        Film read = objectMapper.readValue("{\"name\":\"Read\",\"likes\":[7],\"likesCount\":5}", Film.class);
+        assertEquals(Set.of(7L), read.getLikes());
+        assertTrue(read.isLikesProvided());
+        assertFalse(objectMapper.readValue("{\"name\":\"Read\"}", Film.class).isLikesProvided());
+    }
+
+    @Test
+    void shouldNotCacheMissingEntities() {
+        assertThrows(NotFoundException.class, () -> jsonCache.film(1L, filmService::getFilmById));
+        Film film = filmService.addFilm(film("Film"));
+        assertEquals(1L, film.getId());
+        assertNotNull(jsonCache.film(1L, filmService::getFilmById));
+    }
+}
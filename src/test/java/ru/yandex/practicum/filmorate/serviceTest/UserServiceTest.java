@@ -0,0 +1,227 @@
+package ru.yandex.practicum.filmorate.serviceTest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.BatchResult;
+import ru.yandex.practicum.filmorate.model.FriendshipStatus;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.JsonCache;
+import ru.yandex.practicum.filmorate.service.RequestLimits;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.user.FriendGraph;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.util.TrigramIndex;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static ru.yandex.practicum.filmorate.TestData.user;
+
+class UserServiceTest {
+    private UserService userService;
+
+    @BeforeEach
+    void setUp() {
+        userService = new UserService(new InMemoryUserStorage(), new FriendGraph(),
+                new JsonCache(new ObjectMapper().findAndRegisterModules(), 1000, Duration.ofMinutes(5)),
+                new TrigramIndex());
+    }
+
+    @Test
+    void shouldResolveFriendsAndCommonFriends() {
+        User user1 = userService.addUser(user("user1"));
+        User user2 = userService.addUser(user("user2"));
+        User common = userService.addUser(user("common"));
+        User onlyFirst = userService.addUser(user("onlyFirst"));
+
+        userService.addFriend(user1.getId(), common.getId());
+        userService.addFriend(user1.getId(), onlyFirst.getId());
+        userService.addFriend(user2.getId(), common.getId());
+
+        assertEquals(Set.of(common.getId(), onlyFirst.getId()), ids(userService.getFriends(user1.getId())));
+        assertEquals(Set.of(common.getId()), ids(userService.getCommonFriends(user1.getId(), user2.getId())));
+        assertEquals(Set.of(common.getId()), ids(userService.getCommonFriends(user2.getId(), user1.getId())));
+        assertEquals(Set.of(common.getId(), onlyFirst.getId()),
+                ids(userService.getPendingFriendRequest(user1.getId())));
+    }
+
+    @Test
+    void shouldAddUsersBatchWithPerItemResults() {
+        User invalid = user("bad login");
+
+        List<BatchResult> results = userService.addUsers(List.of(user("user1"), invalid, user("user3")));
+
+        assertEquals(List.of(201, 400, 201), results.stream().map(BatchResult::getStatus).toList());
+        assertEquals("user3", userService.getUserById(results.get(2).getId()).getName());
+        assertEquals(results.get(0).getId() + 1, results.get(2).getId());
+        assertEquals(2, userService.getAllUsers().size());
+    }
+
+    @Test
+    void shouldRejectOversizedUsersBatch() {
+        List<User> users = Collections.nCopies(RequestLimits.MAX_BATCH_SIZE + 1, user("user"));
+
+        assertThrows(ValidationException.class, () -> userService.addUsers(users));
+        assertThrows(ValidationException.class, () -> userService.addUsers(List.of()));
+        assertEquals(0, userService.getAllUsers().size());
+    }
+
+    @Test
+    void shouldClampUsersPageCursorAndLimit() {
+        User first = userService.addUser(user("first"));
+        User second = userService.addUser(user("second"));
+
+        assertEquals(List.of(first.getId(), second.getId()),
+                userService.getUsersPage(Long.MIN_VALUE, Integer.MAX_VALUE).stream().map(User::getId).toList());
+        assertEquals(List.of(second.getId()),
+                userService.getUsersPage(first.getId(), 10).stream().map(User::getId).toList());
+        assertTrue(userService.getUsersPage(Long.MAX_VALUE, 10).isEmpty());
+        assertThrows(ValidationException.class, () -> userService.getUsersPage(null, 0));
+    }
+
+    @Test
+    void shouldSuggestFriendsOfFriendsByMutualCount() {
+        User user = userService.addUser(user("user"));
+        User friend1 = userService.addUser(user("friend1"));
+        User friend2 = userService.addUser(user("friend2"));
+        User two = userService.addUser(user("two"));
+        User one = userService.addUser(user("one"));
+        userService.addFriend(user.getId(), friend1.getId());
+        userService.addFriend(user.getId(), friend2.getId());
+        userService.addFriend(friend1.getId(), friend2.getId());
+        userService.addFriend(friend1.getId(), user.getId());
+        userService.addFriend(friend1.getId(), two.getId());
+        userService.addFriend(friend2.getId(), two.getId());
+        userService.addFriend(friend2.getId(), one.getId());
+
+        assertEquals(List.of(two.getId(), one.getId()),
+                userService.getFriendSuggestions(user.getId(), 10).stream().map(User::getId).toList());
+        assertEquals(List.of(two.getId()),
+                userService.getFriendSuggestions(user.getId(), 1).stream().map(User::getId).toList());
+
+        userService.removeFriend(two.getId(), friend1.getId());
+        userService.addFriend(user.getId(), one.getId());
+        assertEquals(List.of(two.getId()),
+                userService.getFriendSuggestions(user.getId(), 10).stream().map(User::getId).toList());
+        assertTrue(userService.getFriendSuggestions(two.getId(), 10).isEmpty());
+        assertThrows(NotFoundException.class, () -> userService.getFriendSuggestions(9999L, 10));
+    }
+
+    @Test
+    void shouldKeepSuggestionsAcrossGraphCompaction() {
+        User hub = userService.addUser(user("hub"));
+        User target = userService.addUser(user("target"));
+        for (int i = 0; i < 1500; i++) {
+            User friend = userService.addUser(user("friend" + i));
+            userService.addFriend(hub.getId(), friend.getId());
+            if (i % 3 == 0) {
+                userService.addFriend(friend.getId(), target.getId());
+            }
+        }
+
+        assertEquals(List.of(target.getId()),
+                userService.getFriendSuggestions(hub.getId(), 10).stream().map(User::getId).toList());
+    }
+
+    @Test
+    void shouldCountReverseLinkAddedByConfirmation() {
+        InMemoryUserStorage storage = new InMemoryUserStorage();
+        UserService service = new UserService(storage, new FriendGraph(),
+                new JsonCache(new ObjectMapper().findAndRegisterModules(), 1000, Duration.ofMinutes(5)),
+                new TrigramIndex());
+        User first = service.addUser(user("first"));
+        User second = service.addUser(user("second"));
+        service.addFriend(first.getId(), second.getId());
+
+        service.confirmFriendRequest(first.getId(), second.getId());
+
+        assertEquals(FriendshipStatus.CONFIRMED, second.getFriendshipStatus(first.getId()));
+        assertEquals(2, storage.getFriendshipsCount());
+        service.removeFriend(first.getId(), second.getId());
+        assertEquals(0, storage.getFriendshipsCount());
+    }
+
+    @Test
+    void shouldRejectFriendsThatAreNotUsers() {
+        User friend = userService.addUser(user("friend"));
+        User negative = user("negative");
+        negative.addFriend(-5L, FriendshipStatus.CONFIRMED);
+        User huge = user("huge");
+        huge.addFriend(friend.getId(), FriendshipStatus.PENDING);
+        huge.addFriend(Long.MAX_VALUE, FriendshipStatus.PENDING);
+
+        assertThrows(NotFoundException.class, () -> userService.addUser(negative));
+        assertThrows(NotFoundException.class, () -> userService.addUser(huge));
+        List<BatchResult> results = userService.addUsers(List.of(negative, user("valid"), huge));
+        assertEquals(List.of(404, 201, 404), results.stream().map(BatchResult::getStatus).toList());
+
+        User renamed = user("friend");
+        renamed.setId(friend.getId());
+        renamed.addFriend(1L << 40, FriendshipStatus.CONFIRMED);
+        assertThrows(NotFoundException.class, () -> userService.updateUser(renamed));
+        assertEquals(2, userService.getAllUsers().size());
+        assertTrue(userService.getFriendSuggestions(friend.getId(), 10).isEmpty());
+    }
+
+    @Test
+    void friendGraphShouldIgnoreIdsThatAreNotNodes() {
+        FriendGraph graph = new FriendGraph();
+        User user = user("user");
+        user.setId(1L);
+        user.addFriend(2L, FriendshipStatus.CONFIRMED);
+        user.addFriend(-3L, FriendshipStatus.CONFIRMED);
+        user.addFriend(Integer.MAX_VALUE + 1L, FriendshipStatus.PENDING);
+        User outside = user("outside");
+        outside.setId(Long.MAX_VALUE);
+        outside.addFriend(1L, FriendshipStatus.PENDING);
+
+        graph.rebuild(List.of(user, outside));
+        graph.index(outside);
+
+        assertArrayEquals(new int[]{2}, graph.getFriends(1L));
+        assertFalse(graph.addLink(1L, -7L));
+        assertFalse(graph.addLink(-7L, 1L));
+        assertFalse(graph.addLink(1L, Long.MAX_VALUE));
+        assertFalse(graph.removeLink(Long.MIN_VALUE, 1L));
+        assertEquals(0, graph.getFriends(-1L).length);
+        assertEquals(0, graph.getFriendsCount(Long.MAX_VALUE));
+        assertTrue(graph.suggest(-1L, 10).isEmpty());
+        assertTrue(graph.suggest(Long.MAX_VALUE, 10).isEmpty());
+        assertTrue(graph.addLink(2L, 1L));
+        assertArrayEquals(new int[]{1}, graph.getFriends(2L));
+    }
+
+    private static Set<Long> ids(List<User> users) {
+        return users.stream().map(User::getId).collect(Collectors.toSet());
+    }
+
+    @Test
+    void shouldSuggestUsersByLoginPrefixWithMoreFriendsFirst() {
+        User anna = userService.addUser(user("anna"));
+        User anton = userService.addUser(user("Anton_K"));
+        User boris = userService.addUser(user("boris"));
+        userService.addFriend(anton.getId(), boris.getId());
+        userService.addFriend(anton.getId(), anna.getId());
+
+        assertEquals(List.of(anton.getId(), anna.getId()), suggested("AN", 10));
+        assertEquals(List.of(anton.getId()), suggested("k", 10));
+        assertTrue(userService.suggestUsers("nna", 10).isEmpty());
+
+        userService.removeFriend(anton.getId(), boris.getId());
+        userService.removeFriend(anton.getId(), anna.getId());
+        userService.addFriend(anna.getId(), boris.getId());
+
+        assertEquals(List.of(anna.getId()), suggested("an", 1));
+    }
+
+    private List<Long> suggested(String query, int count) {
+        return userService.suggestUsers(query, count).stream().map(User::getId).toList();
+    }
+}
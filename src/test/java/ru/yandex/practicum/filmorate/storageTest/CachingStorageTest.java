@@ -0,0 +1,133 @@
+package ru.yandex.practicum.filmorate.storageTest;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FriendshipStatus;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.cache.CachingFilmStorage;
+import ru.yandex.practicum.filmorate.storage.cache.CachingUserStorage;
+import ru.yandex.practicum.filmorate.storage.cache.EntityCache;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static ru.yandex.practicum.filmorate.TestData.film;
+import static ru.yandex.practicum.filmorate.TestData.user;
+
+class CachingStorageTest {
+    private final AtomicLong clock = new AtomicLong();
+    private CountingFilmStorage backingFilms;
+    private CachingFilmStorage films;
+    private CachingUserStorage users;
+
+    @BeforeEach
+    void setUp() {
+        backingFilms = new CountingFilmStorage();
+        films = new CachingFilmStorage(backingFilms, new EntityCache<>(100, Duration.ofMinutes(1), clock::get));
+        users = new CachingUserStorage(new InMemoryUserStorage(),
+                new EntityCache<>(100, Duration.ofMinutes(1), clock::get));
+    }
+
+    @Test
+    void shouldServeRepeatedReadsFromCache() {
+        long id = films.addFilm(film("Film")).getId();
+
+        for (int i = 0; i < 5; i++) {
+            films.getFilmById(id);
+        }
+
+        assertEquals(1, backingFilms.reads);
+        assertEquals(4, films.getCache().getHits());
+        assertEquals(1, films.getCache().getMisses());
+    }
+
+    @Test
+    void shouldInvalidateOnUpdateAndLike() {
+        long id = films.addFilm(film("Film")).getId();
+        films.getFilmById(id);
+
+        Film update = film("Renamed");
+        update.setId(id);
+        films.updateFilm(update);
+        assertEquals("Renamed", films.getFilmById(id).getName());
+
+        films.addLike(id, 7L);
+        films.getFilmById(id);
+        assertEquals(3, films.getCache().getMisses());
+        assertEquals(0, films.getCache().getHits());
+    }
+
+    @Test
+    void shouldLoadOnlyMissingIdsInBulk() {
+        long first = films.addFilm(film("First")).getId();
+        long second = films.addFilm(film("Second")).getId();
+        films.getFilmById(first);
+
+        List<Film> result = films.getFilmsByIds(List.of(second, 99L, first));
+
+        assertEquals(List.of(second, first), result.stream().map(Film::getId).toList());
+        assertEquals(List.of(List.of(second, 99L)), backingFilms.bulkReads);
+    }
+
+    @Test
+    void shouldEvictExpiredAndLeastRecentlyUsedEntries() {
+        EntityCache<String> cache = new EntityCache<>(2, Duration.ofSeconds(10), clock::get);
+        cache.get(1, key -> "one");
+        cache.get(2, key -> "two");
+        cache.get(1, key -> "one");
+        cache.get(3, key -> "three");
+
+        assertEquals(2, cache.size());
+        assertEquals("reloaded", cache.get(2, key -> "reloaded"));
+
+        clock.addAndGet(Duration.ofSeconds(11).toNanos());
+        assertEquals("expired", cache.get(3, key -> "expired"));
+        assertEquals(3, cache.getEvictions());
+    }
+
+    @Test
+    void shouldNotCacheMissingEntities() {
+        assertThrows(NotFoundException.class, () -> films.getFilmById(42L));
+        assertEquals(0, films.getCache().size());
+    }
+
+    @Test
+    void shouldInvalidateBothUsersOnFriendChange() {
+        long first = users.addUser(user("first")).getId();
+        long second = users.addUser(user("second")).getId();
+        users.getUserById(first);
+        users.getUserById(second);
+
+        users.addFriend(first, second);
+        users.addFriend(second, first);
+
+        assertEquals(FriendshipStatus.CONFIRMED, users.getUserById(first).getFriendshipStatus(second));
+        assertEquals(FriendshipStatus.CONFIRMED, users.getUserById(second).getFriendshipStatus(first));
+        assertEquals(0, users.getCache().getHits());
+    }
+
+    private static class CountingFilmStorage extends InMemoryFilmStorage {
+        private int reads;
+        private final List<List<Long>> bulkReads = new ArrayList<>();
+
+        @Override
+        public Film getFilmById(Long id) {
+            reads++;
+            return super.getFilmById(id);
+        }
+
+        @Override
+        public List<Film> getFilmsByIds(Collection<Long> ids) {
+            bulkReads.add(List.copyOf(ids));
+            return super.getFilmsByIds(ids);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package ru.yandex.practicum.filmorate.storageTest;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmLike;
+import ru.yandex.practicum.filmorate.model.FriendshipStatus;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Rating;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.JdbcFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.JdbcUserStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static ru.yandex.practicum.filmorate.TestData.film;
+import static ru.yandex.practicum.filmorate.TestData.user;
+
+@SpringBootTest
+@ActiveProfiles("jdbc")
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:filmorate-test;DB_CLOSE_DELAY=-1",
+        "filmorate.cache.enabled=false"
+})
+class JdbcStorageTest {
+    @Autowired
+    private FilmStorage filmStorage;
+    @Autowired
+    private UserStorage userStorage;
+
+    @Test
+    void shouldUseJdbcStoragesInJdbcProfile() {
+        assertInstanceOf(JdbcFilmStorage.class, filmStorage);
+        assertInstanceOf(JdbcUserStorage.class, userStorage);
+    }
+
+    @Test
+    void shouldStoreFilmWithGenresAndLikes() {
+        User user1 = userStorage.addUser(user("jdbc1"));
+        User user2 = userStorage.addUser(user("jdbc2"));
+        Film film = film("Jdbc Film");
+        film.setGenres(Set.of(Genre.COMEDY, Genre.DRAMA));
+        film.setLikes(Set.of(user1.getId()));
+        Film created = filmStorage.addFilm(film);
+
+        assertTrue(filmStorage.addLike(created.getId(), user2.getId()));
+        assertFalse(filmStorage.addLike(created.getId(), user2.getId()));
+        filmStorage.removeGenre(created.getId(), Genre.DRAMA);
+
+        Film loaded = filmStorage.getFilmById(created.getId());
+        assertEquals("Jdbc Film", loaded.getName());
+        assertEquals(Duration.ofMinutes(100), loaded.getDuration());
+        assertEquals(Rating.PG, loaded.getMpa());
+        assertEquals(Set.of(Genre.COMEDY), loaded.getGenres());
+        assertEquals(Set.of(user1.getId(), user2.getId()), loaded.getLikes());
+        assertTrue(filmStorage.getFilms().stream().anyMatch(f -> f.getId().equals(created.getId())));
+    }
+
+    @Test
+    void shouldPageLikesAndKeepThemOnUpdateWithoutLikes() {
+        List<User> users = userStorage.addUsers(List.of(user("page1"), user("page2"), user("page3")));
+        Film created = filmStorage.addFilm(film("Paged Film"));
+        for (User user : users) {
+            filmStorage.addLike(created.getId(), user.getId());
+        }
+        long first = users.get(0).getId();
+        long second = users.get(1).getId();
+        long third = users.get(2).getId();
+
+        assertEquals(List.of(first, second), filmStorage.getLikes(created.getId(), null, 2));
+        assertEquals(List.of(third), filmStorage.getLikes(created.getId(), second, 2));
+        assertThrows(NotFoundException.class, () -> filmStorage.getLikes(-1L, null, 2));
+
+        Film renamed = film("Paged Film 2");
+        renamed.setId(created.getId());
+        assertEquals(Set.of(first, second, third), filmStorage.updateFilm(renamed).getLikes());
+        assertEquals(Set.of(first, second, third), filmStorage.getFilmById(created.getId()).getLikes());
+
+        Film cleared = film("Paged Film 3");
+        cleared.setId(created.getId());
+        cleared.setLikes(Set.of(second));
+        filmStorage.updateFilm(cleared);
+        assertEquals(Set.of(second), filmStorage.getFilmById(created.getId()).getLikes());
+    }
+
+    @Test
+    void shouldStoreBatchesOfFilmsUsersAndLikes() {
+        List<User> users = userStorage.addUsers(List.of(user("batch1"), user("batch2")));
+        Film withGenre = film("Batch Film 1");
+        withGenre.setGenres(Set.of(Genre.DRAMA));
+        List<Film> films = filmStorage.addFilms(List.of(withGenre, film("Batch Film 2")));
+        long user1 = users.get(0).getId();
+        long user2 = users.get(1).getId();
+        long film1 = films.get(0).getId();
+        long film2 = films.get(1).getId();
+
+        assertNotEquals(film1, film2);
+        assertEquals("batch2", userStorage.getUserById(user2).getLogin());
+        assertEquals(Set.of(Genre.DRAMA), filmStorage.getFilmById(film1).getGenres());
+
+        boolean[] added = filmStorage.addLikes(List.of(new FilmLike(film1, user1), new FilmLike(film1, user2),
+                new FilmLike(film1, user1), new FilmLike(film2, user2)));
+        assertArrayEquals(new boolean[]{true, true, false, true}, added);
+        boolean[] removed = filmStorage.removeLikes(List.of(new FilmLike(film1, user1), new FilmLike(film2, user1)));
+        assertArrayEquals(new boolean[]{true, false}, removed);
+
+        assertEquals(Set.of(user2), filmStorage.getFilmById(film1).getLikes());
+        assertEquals(Set.of(user2), filmStorage.getFilmById(film2).getLikes());
+        assertThrows(NotFoundException.class, () -> filmStorage.addLikes(List.of(new FilmLike(-1L, user1))));
+    }
+
+    @Test
+    void shouldConfirmMutualFriendship() {
+        User user1 = userStorage.addUser(user("friend1"));
+        User user2 = userStorage.addUser(user("friend2"));
+
+        assertEquals(FriendshipStatus.PENDING, userStorage.addFriend(user1.getId(), user2.getId()));
+        assertEquals(FriendshipStatus.CONFIRMED, userStorage.addFriend(user2.getId(), user1.getId()));
+
+        assertEquals(FriendshipStatus.CONFIRMED,
+                userStorage.getUserById(user1.getId()).getFriendshipStatus(user2.getId()));
+        assertTrue(userStorage.removeFriend(user1.getId(), user2.getId()));
+        assertTrue(userStorage.getUserById(user2.getId()).getFriends().isEmpty());
+    }
+
+    @Test
+    void shouldThrowNotFoundForUnknownIds() {
+        assertThrows(NotFoundException.class, () -> filmStorage.getFilmById(-1L));
+        assertThrows(NotFoundException.class, () -> userStorage.getUserById(-1L));
+        Film film = film("Missing");
+        film.setId(-1L);
+        assertThrows(NotFoundException.class, () -> filmStorage.updateFilm(film));
+    }
+}
@@ -0,0 +1,133 @@
+package ru.yandex.practicum.filmorate.storageTest;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmLike;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Rating;
+import ru.yandex.practicum.filmorate.storage.film.OffHeapFilmStorage;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static ru.yandex.practicum.filmorate.TestData.film;
+
+class OffHeapFilmStorageTest {
+    private OffHeapFilmStorage storage;
+
+    @BeforeEach
+    void setUp() {
+        storage = new OffHeapFilmStorage();
+    }
+
+    @Test
+    void shouldReadBackEveryColumn() {
+        Film film = film("Сталкер");
+        film.setGenres(Set.of(Genre.DRAMA, Genre.ACTION));
+        film.setLikes(Set.of(3L, 1L, 2L));
+        long id = storage.addFilm(film).getId();
+
+        Film stored = storage.getFilmById(id);
+        assertNotSame(film, stored);
+        assertEquals("Сталкер", stored.getName());
+        assertEquals("Description", stored.getDescription());
+        assertEquals(LocalDate.of(2000, 1, 1), stored.getReleaseDate());
+        assertEquals(Duration.ofMinutes(100), stored.getDuration());
+        assertEquals(Rating.PG, stored.getMpa());
+        assertEquals(Set.of(Genre.DRAMA, Genre.ACTION), stored.getGenres());
+        assertEquals(Set.of(1L, 2L, 3L), stored.getLikes());
+        assertEquals(3, storage.getLikesCount());
+    }
+
+    @Test
+    void shouldUpdateTextInPlaceOrAppendAndKeepLikes() {
+        long id = storage.addFilm(film("A fairly long original name")).getId();
+        storage.addLike(id, 7L);
+
+        Film shorter = film("Short");
+        shorter.setId(id);
+        shorter.setDescription(null);
+        storage.updateFilm(shorter);
+        assertEquals("Short", storage.getFilmById(id).getName());
+        assertNull(storage.getFilmById(id).getDescription());
+
+        Film longer = film("A name much longer than the one it replaces");
+        longer.setId(id);
+        Film updated = storage.updateFilm(longer);
+        assertEquals(Set.of(7L), updated.getLikes());
+        assertEquals("A name much longer than the one it replaces", storage.getFilmById(id).getName());
+        assertEquals(Set.of(7L), storage.getFilmById(id).getLikes());
+
+        Film missing = film("Missing");
+        missing.setId(id + 1);
+        assertThrows(NotFoundException.class, () -> storage.updateFilm(missing));
+    }
+
+    @Test
+    void shouldLeaveRowsUntouchedWhenTextIsRejected() {
+        long id = storage.addFilm(film("Original")).getId();
+        String huge = "x".repeat(1 << 24);
+        Film update = film(huge);
+        update.setId(id);
+        update.setReleaseDate(LocalDate.of(2000, 1, 1));
+
+        assertThrows(ValidationException.class, () -> storage.updateFilm(update));
+        assertEquals("Original", storage.getFilmById(id).getName());
+        assertEquals(LocalDate.of(2000, 1, 1), storage.getFilmById(id).getReleaseDate());
+
+        assertThrows(ValidationException.class,
+                () -> storage.addFilms(List.of(film("First"), film(huge), film("Third"))));
+        assertEquals(2, storage.getFilmsCount());
+        assertEquals(2, storage.getFilms().stream().count());
+        assertThrows(IllegalStateException.class, () -> new OffHeapFilmStorage(true));
+    }
+
+    @Test
+    void shouldChangeLikesAndGenres() {
+        long id = storage.addFilm(film("Film")).getId();
+
+        assertTrue(storage.addLike(id, 5L));
+        assertFalse(storage.addLike(id, 5L));
+        assertArrayEquals(new boolean[]{true, false, true},
+                storage.addLikes(List.of(new FilmLike(id, 1L), new FilmLike(id, 5L), new FilmLike(id, 3L))));
+        assertEquals(List.of(3L, 5L), storage.getLikes(id, 1L, 10));
+        assertTrue(storage.removeLike(id, 5L));
+        assertFalse(storage.removeLike(id, 5L));
+        assertEquals(2, storage.getFilmById(id).getLikesCount());
+        assertEquals(2, storage.getLikesCount());
+
+        storage.addGenre(id, Genre.COMEDY);
+        storage.addGenre(id, Genre.THRILLER);
+        storage.removeGenre(id, Genre.COMEDY);
+        assertEquals(Set.of(Genre.THRILLER), storage.getFilmById(id).getGenres());
+
+        assertThrows(NotFoundException.class, () -> storage.addLike(id + 1, 1L));
+        assertThrows(NotFoundException.class, () -> storage.getFilmById(-1L));
+    }
+
+    @Test
+    void shouldSpanSegmentsAndPageInIdOrder() {
+        List<Film> batch = new ArrayList<>();
+        for (int i = 0; i < 40_000; i++) {
+            batch.add(film("Film " + i));
+        }
+        storage.addFilms(batch);
+
+        assertEquals(40_000, storage.getFilmsCount());
+        assertEquals(40_000, storage.getFilms().stream().count());
+        List<Film> page = storage.getFilms(20_000L, 3);
+        assertEquals(List.of(20_001L, 20_002L, 20_003L), page.stream().map(Film::getId).toList());
+        assertEquals("Film 20000", page.get(0).getName());
+        assertEquals(List.of(1L), storage.getFilms(Long.MIN_VALUE, 1).stream().map(Film::getId).toList());
+        assertTrue(storage.getFilms(Long.MAX_VALUE, 1).isEmpty());
+        assertEquals("Film 39999", storage.getFilmById(40_000L).getName());
+        assertEquals(2, storage.getFilmsByIds(List.of(1L, 99_999L, 40_000L)).size());
+    }
+}
@@ -0,0 +1,283 @@
+package ru.yandex.practicum.filmorate.storageTest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.yandex.practicum.filmorate.TestData;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FriendshipStatus;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Rating;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.JsonCache;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.film.FilmPopularityIndex;
+import ru.yandex.practicum.filmorate.storage.film.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.TrendingFilms;
+import ru.yandex.practicum.filmorate.storage.film.UserLikesIndex;
+import ru.yandex.practicum.filmorate.storage.journal.JournalCodec;
+import ru.yandex.practicum.filmorate.storage.journal.MappedJournal;
+import ru.yandex.practicum.filmorate.storage.journal.StorageJournal;
+import ru.yandex.practicum.filmorate.storage.journal.StoragePersistence;
+import ru.yandex.practicum.filmorate.storage.user.FriendGraph;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.util.TrigramIndex;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static ru.yandex.practicum.filmorate.TestData.user;
+
+class StoragePersistenceTest {
+    @TempDir
+    Path directory;
+
+    private InMemoryFilmStorage filmStorage;
+    private InMemoryUserStorage userStorage;
+    private FilmService filmService;
+    private UserService userService;
+    private StoragePersistence persistence;
+    private volatile boolean snapshotAfterNextAdd;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        persistence = open(false);
+    }
+
+    @AfterEach
+    void tearDown() {
+        persistence.stop();
+    }
+
+    @Test
+    void shouldRestoreEveryMutationFromJournal() throws IOException {
+        long first = userStorage.addUser(user("first")).getId();
+        long second = userStorage.addUser(user("second")).getId();
+        long third = userStorage.addUser(user("third")).getId();
+        userStorage.addFriend(first, second);
+        userStorage.addFriend(second, first);
+        userStorage.addFriend(first, third);
+        userStorage.addFriend(third, second);
+        userStorage.removeFriend(third, second);
+        User renamed = user("second");
+        renamed.setId(second);
+        renamed.setName("Renamed");
+        renamed.setFriends(userStorage.getUserById(second).getFriends());
+        userStorage.updateUser(renamed);
+
+        long film = filmStorage.addFilm(film("Film")).getId();
+        long other = filmStorage.addFilm(film("Other")).getId();
+        filmStorage.addLike(film, first);
+        filmStorage.addLike(film, second);
+        filmStorage.addLike(other, third);
+        filmStorage.removeLike(film, second);
+        filmStorage.addGenre(film, Genre.DRAMA);
+        filmStorage.removeGenre(film, Genre.COMEDY);
+
+        restart();
+
+        assertEquals(3, userStorage.getUsersCount());
+        assertEquals("Renamed", userStorage.getUserById(second).getName());
+        assertEquals(FriendshipStatus.CONFIRMED, userStorage.getUserById(first).getFriendshipStatus(second));
+        assertEquals(FriendshipStatus.CONFIRMED, userStorage.getUserById(second).getFriendshipStatus(first));
+        assertEquals(FriendshipStatus.PENDING, userStorage.getUserById(first).getFriendshipStatus(third));
+        assertTrue(userStorage.getUserById(third).getFriends().isEmpty());
+        assertEquals(3, userStorage.getFriendshipsCount());
+        assertEquals(List.of(third), userService.getFriendSuggestions(second, 10).stream().map(User::getId).toList());
+
+        assertEquals(Set.of(first), filmStorage.getFilmById(film).getLikes());
+        assertEquals(Set.of(Genre.DRAMA), filmStorage.getFilmById(film).getGenres());
+        assertEquals(Rating.PG, filmStorage.getFilmById(film).getMpa());
+        assertEquals(Duration.ofMinutes(100), filmStorage.getFilmById(film).getDuration());
+        assertEquals(2, filmStorage.getLikesCount());
+        assertEquals(List.of(film, other), filmService.getPopularFilms(10).stream().map(Film::getId).toList());
+    }
+
+    @Test
+    void shouldContinueIdsAfterRestore() throws IOException {
+        filmStorage.addFilm(film("Film"));
+        filmStorage.addFilm(film("Other"));
+
+        restart();
+
+        assertEquals(3L, filmStorage.addFilm(film("Third")).getId());
+    }
+
+    @Test
+    void shouldReplayJournalWrittenAfterSnapshot() throws IOException {
+        long user = userStorage.addUser(user("user")).getId();
+        long film = filmStorage.addFilm(film("Film")).getId();
+        persistence.snapshot();
+        filmStorage.addLike(film, user);
+
+        restart();
+
+        assertEquals(Set.of(user), filmStorage.getFilmById(film).getLikes());
+        assertEquals(1, filmStorage.getLikesCount());
+    }
+
+    @Test
+    void shouldKeepEntitiesAddedDuringSnapshot() throws Exception {
+        int writers = 4;
+        int perWriter = 200;
+        List<Thread> threads = new ArrayList<>();
+        for (int w = 0; w < writers; w++) {
+            int writer = w;
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < perWriter; i++) {
+                    if (i % 10 == 0) {
+                        filmStorage.addFilms(List.of(film("Batch " + writer + "-" + i), film("Pair " + i)));
+                        userStorage.addUsers(List.of(user("b" + writer + "x" + i)));
+                    } else {
+                        filmStorage.addFilm(film("Film " + writer + "-" + i));
+                        userStorage.addUser(user("u" + writer + "x" + i));
+                    }
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        while (threads.stream().anyMatch(Thread::isAlive)) {
+            persistence.snapshot();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        long films = filmStorage.getFilmsCount();
+        long users = userStorage.getUsersCount();
+
+        restart();
+
+        assertEquals(writers * (perWriter + perWriter / 10), films);
+        assertEquals(writers * perWriter, users);
+        assertEquals(films, filmStorage.getFilmsCount());
+        assertEquals(users, userStorage.getUsersCount());
+        for (long id = 1; id <= films; id++) {
+            assertNotNull(filmStorage.getFilmById(id));
+        }
+        for (long id = 1; id <= users; id++) {
+            assertNotNull(userStorage.getUserById(id));
+        }
+    }
+
+    @Test
+    void shouldKeepFilmWhoseRecordWentToTheJournalASnapshotDeletes() throws IOException {
+        snapshotAfterNextAdd = true;
+        long film = filmStorage.addFilm(film("Film")).getId();
+
+        restart();
+
+        assertEquals("Film", filmStorage.getFilmById(film).getName());
+    }
+
+    @Test
+    void shouldRestoreFromSnapshotOnShutdown() throws IOException {
+        long user = userStorage.addUser(user("user")).getId();
+        long film = filmStorage.addFilm(film("Film")).getId();
+        filmStorage.addLike(film, user);
+        persistence.stop();
+
+        persistence = open(true);
+        persistence.stop();
+        persistence = open(false);
+
+        assertEquals(Set.of(user), filmStorage.getFilmById(film).getLikes());
+        assertEquals(1, userStorage.getUsersCount());
+    }
+
+    @Test
+    void shouldStopReplayAtTornRecord() throws IOException {
+        Path file = MappedJournal.file(directory.resolve("journal"), 1);
+        Files.createDirectories(file.getParent());
+        try (MappedJournal journal = new MappedJournal(file.getParent(), 1, true, Duration.ofMillis(1))) {
+            journal.awaitDurable(journal.append(new byte[]{1, 2, 3}));
+            journal.awaitDurable(journal.append(new byte[]{4, 5}));
+        }
+        // a crash in the middle of an append leaves a length whose payload does not match the checksum
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(12).putInt(4).putInt(42).putInt(7).flip(), 8 + 3 + 8 + 2);
+        }
+
+        List<Byte> firstBytes = new ArrayList<>();
+        long records = MappedJournal.replay(file, record -> firstBytes.add(record.get(0)));
+
+        assertEquals(2, records);
+        assertEquals(List.of((byte) 1, (byte) 4), firstBytes);
+    }
+
+    /**
+     * Stops without a final snapshot, so the next start has to replay the journal as after a crash.
+     */
+    private void restart() throws IOException {
+        persistence.stop();
+        persistence = open(false);
+    }
+
+    private StoragePersistence open(boolean snapshotOnShutdown) throws IOException {
+        filmStorage = new InMemoryFilmStorage() {
+            @Override
+            public void setJournal(StorageJournal journal) {
+                super.setJournal(new SnapshottingJournal(journal));
+            }
+        };
+        userStorage = new InMemoryUserStorage();
+        JsonCache jsonCache = new JsonCache(new ObjectMapper().findAndRegisterModules(), 1000, Duration.ofMinutes(5));
+        filmService = new FilmService(filmStorage, userStorage, new FilmPopularityIndex(),
+                new UserLikesIndex(), new FilmSearchIndex(), new TrendingFilms(), jsonCache, new TrigramIndex());
+        userService = new UserService(userStorage, new FriendGraph(), jsonCache, new TrigramIndex());
+        StoragePersistence opened = new StoragePersistence(filmStorage, userStorage, filmService, userService,
+                directory, true, Duration.ofMillis(1), Duration.ofDays(1), snapshotOnShutdown);
+        opened.start();
+        return opened;
+    }
+
+    /**
+     * Takes a snapshot right after the next film's ADD record is appended, while the storage
+     * still holds the film's lock.
+     */
+    private class SnapshottingJournal implements StorageJournal {
+        private final StorageJournal delegate;
+
+        SnapshottingJournal(StorageJournal delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public long append(byte[] record) {
+            long ticket = delegate.append(record);
+            if (record[0] == JournalCodec.ADD_FILM && snapshotAfterNextAdd) {
+                snapshotAfterNextAdd = false;
+                try {
+                    persistence.snapshot();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            return ticket;
+        }
+
+        @Override
+        public void awaitDurable(long ticket) {
+            delegate.awaitDurable(ticket);
+        }
+    }
+
+    private static Film film(String name) {
+        Film film = TestData.film(name);
+        film.getGenres().add(Genre.COMEDY);
+        return film;
+    }
+}
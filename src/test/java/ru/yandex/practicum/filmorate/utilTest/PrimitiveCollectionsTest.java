@@ -0,0 +1,347 @@
+package ru.yandex.practicum.filmorate.utilTest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FriendshipStatus;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.GenreSet;
+import ru.yandex.practicum.filmorate.util.CountMinSketch;
+import ru.yandex.practicum.filmorate.util.LongEnumMap;
+import ru.yandex.practicum.filmorate.util.LongHashSet;
+import ru.yandex.practicum.filmorate.util.PersistentLongMap;
+import ru.yandex.practicum.filmorate.util.PersistentLongSet;
+import ru.yandex.practicum.filmorate.util.SpaceSaving;
+import ru.yandex.practicum.filmorate.util.TopK;
+import ru.yandex.practicum.filmorate.util.TrigramIndex;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrimitiveCollectionsTest {
+
+    @Test
+    void longHashSetShouldBehaveLikeHashSet() {
+        Random random = new Random(42);
+        Set<Long> expected = new HashSet<>();
+        LongHashSet actual = new LongHashSet();
+
+        for (int i = 0; i < 50_000; i++) {
+            long key = random.nextInt(2_000);
+            if (random.nextBoolean()) {
+                assertEquals(expected.add(key), actual.add(key));
+            } else {
+                assertEquals(expected.remove(key), actual.remove(key));
+            }
+        }
+
+        assertEquals(expected, actual);
+        assertEquals(expected.size(), actual.toLongArray().length);
+    }
+
+    @Test
+    void longEnumMapShouldBehaveLikeHashMap() {
+        Random random = new Random(42);
+        Map<Long, FriendshipStatus> expected = new HashMap<>();
+        LongEnumMap<FriendshipStatus> actual = new LongEnumMap<>(FriendshipStatus.class);
+        FriendshipStatus[] statuses = FriendshipStatus.values();
+
+        for (int i = 0; i < 50_000; i++) {
+            long key = random.nextInt(2_000);
+            if (random.nextInt(3) > 0) {
+                FriendshipStatus status = statuses[random.nextInt(statuses.length)];
+                assertEquals(expected.put(key, status), actual.put(key, status));
+            } else {
+                assertEquals(expected.remove(key), actual.remove(key));
+            }
+        }
+
+        assertEquals(expected, actual);
+        assertEquals(expected.keySet(), actual.keySet());
+    }
+
+    @Test
+    void genreSetShouldBehaveLikeEnumSet() {
+        Random random = new Random(42);
+        Set<Genre> expected = EnumSet.noneOf(Genre.class);
+        GenreSet actual = new GenreSet();
+        Genre[] genres = Genre.values();
+
+        for (int i = 0; i < 1_000; i++) {
+            Genre genre = genres[random.nextInt(genres.length)];
+            if (random.nextBoolean()) {
+                assertEquals(expected.add(genre), actual.add(genre));
+            } else {
+                assertEquals(expected.remove(genre), actual.remove(genre));
+            }
+            assertEquals(expected, actual);
+            assertEquals(List.copyOf(expected), List.copyOf(actual));
+            assertEquals(GenreSet.maskOf(expected), actual.mask());
+        }
+
+        assertTrue(GenreSet.matches(GenreSet.maskOf(Set.of(Genre.DRAMA, Genre.ACTION)), GenreSet.bit(Genre.DRAMA)));
+        assertFalse(GenreSet.matches(GenreSet.bit(Genre.DRAMA), GenreSet.maskOf(Set.of(Genre.DRAMA, Genre.ACTION))));
+        assertTrue(GenreSet.matches(0, 0));
+    }
+
+    @Test
+    void genreSetShouldKeepTheJsonOfASet() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+        Film film = objectMapper.readValue("{\"name\":\"Film\",\"genres\":[\"ACTION\",\"COMEDY\"]}", Film.class);
+
+        assertEquals(Set.of(Genre.COMEDY, Genre.ACTION), film.getGenres());
+        assertTrue(objectMapper.writeValueAsString(film).contains("\"genres\":[\"COMEDY\",\"ACTION\"]"));
+        assertEquals(Set.of(), objectMapper.readValue("{\"genres\":null}", Film.class).getGenres());
+    }
+
+    @Test
+    void iteratorsShouldTolerateConcurrentModification() {
+        LongHashSet set = new LongHashSet();
+        for (long i = 0; i < 100; i++) {
+            set.add(i);
+        }
+
+        for (Long id : set) {
+            set.remove(id);
+            set.add(id + 1_000);
+        }
+
+        assertEquals(100, set.size());
+        assertFalse(set.contains(0L));
+        assertTrue(set.contains(1_000L));
+    }
+
+    @Test
+    void longHashSetShouldPageKeysInAscendingOrder() {
+        Random random = new Random(42);
+        LongHashSet set = new LongHashSet();
+        for (int i = 0; i < 5_000; i++) {
+            set.add(random.nextInt(100_000) - 50_000L);
+        }
+        set.add(0L);
+        List<Long> expected = set.stream().sorted().toList();
+
+        List<Long> paged = new ArrayList<>();
+        long cursor = Long.MIN_VALUE;
+        long[] page;
+        do {
+            page = set.pageAfter(cursor, 128);
+            for (long key : page) {
+                paged.add(key);
+            }
+            if (page.length > 0) {
+                cursor = page[page.length - 1];
+            }
+        } while (page.length == 128);
+
+        assertEquals(expected, paged);
+        assertEquals(0, set.pageAfter(Long.MAX_VALUE, 10).length);
+        assertEquals(0, set.pageAfter(Long.MIN_VALUE, 0).length);
+    }
+
+    @Test
+    void trigramIndexShouldNormalizeCyrillicAndDiacritics() {
+        assertEquals("ежик в тумане", TrigramIndex.normalize("  Ёжик в ТУМАНЕ!"));
+        assertEquals("мой друг иван", TrigramIndex.normalize("Мой друг Иван"));
+        assertEquals("amelie 2001", TrigramIndex.normalize("Amélie (2001)"));
+        assertEquals("", TrigramIndex.normalize(" -- "));
+    }
+
+    @Test
+    void trigramIndexShouldMatchWordPrefixesByScore() {
+        TrigramIndex index = new TrigramIndex();
+        index.put(1, "Матрица", 5);
+        index.put(2, "Матрица: Перезагрузка", 7);
+        index.put(3, "Мастер и Маргарита", 1);
+        index.put(4, "The Matrix", 3);
+        index.put(5, "Тёмный рыцарь", 0);
+
+        assertEquals(List.of(2L, 1L, 3L), index.suggest("ма", 10));
+        assertEquals(List.of(2L, 1L), index.suggest("матр", 10));
+        assertEquals(List.of(2L), index.suggest("матр пере", 10));
+        assertEquals(List.of(2L, 1L), index.suggest("МАТРИЦА", 2));
+        assertEquals(List.of(3L), index.suggest("мар", 10));
+        assertEquals(List.of(4L), index.suggest("matrix", 10));
+        assertEquals(List.of(5L), index.suggest("темн", 10));
+        assertTrue(index.suggest("атр", 10).isEmpty());
+        assertTrue(index.suggest("матрицы", 10).isEmpty());
+        assertTrue(index.suggest(" ", 10).isEmpty());
+
+        index.addScore(3, 10);
+        assertEquals(List.of(3L, 2L), index.suggest("м", 2));
+
+        index.put(2, "Перезагрузка", 7);
+        assertEquals(List.of(1L), index.suggest("матр", 10));
+        assertEquals(List.of(2L), index.suggest("п", 10));
+    }
+
+    @Test
+    void topKShouldKeepBestScoresThenLowestIds() {
+        TopK first = new TopK(3);
+        TopK second = new TopK(3);
+        first.offer(TopK.key(5, 10));
+        first.offer(TopK.key(1, 1));
+        first.offer(TopK.key(7, 3));
+        second.offer(TopK.key(5, 2));
+        second.offer(TopK.key(0, 4));
+
+        first.merge(second);
+        List<Long> ids = new ArrayList<>();
+        for (long key : first.toSortedArray()) {
+            ids.add(TopK.id(key));
+        }
+
+        assertEquals(List.of(3L, 2L, 10L), ids);
+        assertEquals(7, TopK.score(first.toSortedArray()[0]));
+    }
+
+    @Test
+    void topKShouldGrowOnlyWithTheKeysOffered() {
+        TopK top = new TopK(Integer.MAX_VALUE);
+        for (int id = 1; id <= 1000; id++) {
+            top.offer(TopK.key(id % 7, id));
+        }
+
+        long[] sorted = top.toSortedArray();
+        assertEquals(1000, top.size());
+        assertEquals(6, TopK.score(sorted[0]));
+        assertEquals(6L, TopK.id(sorted[0]));
+        assertEquals(0, TopK.score(sorted[999]));
+        assertEquals(994L, TopK.id(sorted[999]));
+        assertTrue(top.accepts(TopK.key(0, 1)));
+    }
+
+    @Test
+    void countMinSketchShouldStayWithinErrorBound() {
+        Random random = new Random(42);
+        CountMinSketch sketch = new CountMinSketch(4, 2048, 7);
+        Map<Long, Integer> expected = new HashMap<>();
+        int total = 200_000;
+        for (int i = 0; i < total; i++) {
+            long key = random.nextInt(10) == 0 ? random.nextInt(20) : random.nextInt(100_000);
+            sketch.add(key, 1);
+            expected.merge(key, 1, Integer::sum);
+        }
+
+        int withinBound = 0;
+        for (Map.Entry<Long, Integer> entry : expected.entrySet()) {
+            int estimate = sketch.estimate(entry.getKey());
+            assertTrue(estimate >= entry.getValue());
+            if (estimate - entry.getValue() <= Math.E / 2048 * total) {
+                withinBound++;
+            }
+        }
+        assertTrue(withinBound >= 0.98 * expected.size());
+        assertTrue(sketch.estimate(-1L) <= Math.E / 2048 * total);
+    }
+
+    @Test
+    void spaceSavingShouldKeepEveryHeavyHitter() {
+        Random random = new Random(42);
+        SpaceSaving summary = new SpaceSaving(16);
+        Map<Long, Long> expected = new HashMap<>();
+        int total = 100_000;
+        for (int i = 0; i < total; i++) {
+            long key = random.nextInt(4) == 0 ? random.nextInt(5) : 100 + random.nextInt(50_000);
+            summary.offer(key, 1);
+            expected.merge(key, 1L, Long::sum);
+        }
+
+        assertEquals(16, summary.size());
+        Set<Long> monitored = new HashSet<>();
+        for (long key : summary.keys()) {
+            monitored.add(key);
+            assertTrue(summary.count(key) >= expected.get(key));
+        }
+        expected.forEach((key, count) -> {
+            if (count > total / 16) {
+                assertTrue(monitored.contains(key), "heavy hitter " + key);
+            }
+        });
+        assertEquals(0, summary.count(-1L));
+    }
+
+    @Test
+    void persistentLongMapShouldKeepEveryVersion() {
+        Random random = new Random(42);
+        PersistentLongMap<String> map = PersistentLongMap.empty();
+        TreeMap<Long, String> expected = new TreeMap<>();
+        List<PersistentLongMap<String>> versions = new ArrayList<>();
+        List<TreeMap<Long, String>> expectedVersions = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            long key = random.nextInt(10) == 0 ? random.nextLong() >>> 1 : random.nextInt(5000);
+            if (random.nextInt(3) == 0) {
+                map = map.without(key);
+                expected.remove(key);
+            } else {
+                map = map.with(key, "v" + i);
+                expected.put(key, "v" + i);
+            }
+            if (i % 1000 == 0) {
+                versions.add(map);
+                expectedVersions.add(new TreeMap<>(expected));
+            }
+        }
+        versions.add(map);
+        expectedVersions.add(expected);
+
+        for (int i = 0; i < versions.size(); i++) {
+            PersistentLongMap<String> version = versions.get(i);
+            TreeMap<Long, String> values = expectedVersions.get(i);
+            assertEquals(values.size(), version.size());
+            assertEquals(new ArrayList<>(values.values()), new ArrayList<>(version.values()));
+            values.forEach((key, value) -> assertEquals(value, version.get(key)));
+        }
+        assertNull(map.get(-1));
+        assertEquals(0, map.without(-1).size() - map.size());
+    }
+
+    @Test
+    void persistentLongSetShouldKeepEveryVersion() {
+        Random random = new Random(42);
+        PersistentLongSet set = PersistentLongSet.empty();
+        TreeSet<Long> expected = new TreeSet<>();
+        PersistentLongSet half = null;
+        TreeSet<Long> expectedHalf = null;
+        for (int i = 0; i < 20_000; i++) {
+            long key = random.nextInt(3000) - 1500L;
+            if (random.nextInt(3) == 0) {
+                set = set.without(key);
+                expected.remove(key);
+            } else {
+                set = set.with(key);
+                expected.add(key);
+            }
+            if (i == 10_000) {
+                half = set;
+                expectedHalf = new TreeSet<>(expected);
+            }
+        }
+
+        assertDescending(expected, set);
+        assertDescending(expectedHalf, half);
+        for (long key = -1600; key < 1600; key++) {
+            assertEquals(expected.contains(key), set.contains(key));
+        }
+    }
+
+    private static void assertDescending(TreeSet<Long> expected, PersistentLongSet set) {
+        assertEquals(expected.size(), set.size());
+        List<Long> keys = new ArrayList<>();
+        PersistentLongSet.Cursor cursor = set.descending();
+        while (cursor.hasNext()) {
+            keys.add(cursor.next());
+        }
+        assertEquals(new ArrayList<>(expected.descendingSet()), keys);
+    }
+}